@@ -0,0 +1,14 @@
+package com.example.bookstore.config;
+
+import org.springframework.cache.annotation.EnableCaching;
+import org.springframework.context.annotation.Configuration;
+
+/**
+ * Caches are created by Spring Boot from the {@code spring.cache.*} properties;
+ * size, ttl and statistics are set with {@code spring.cache.caffeine.spec}.
+ */
+@Configuration
+@EnableCaching
+public class CacheConfig {
+    public static final String BOOKS_CACHE = "books";
+}
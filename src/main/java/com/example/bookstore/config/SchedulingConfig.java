@@ -0,0 +1,13 @@
+package com.example.bookstore.config;
+
+import org.springframework.context.annotation.Configuration;
+import org.springframework.scheduling.annotation.EnableScheduling;
+
+/**
+ * Runs the {@code @Scheduled} methods, e.g. the periodic flush of the write-behind
+ * cart store, on Spring Boot's task scheduler ({@code spring.task.scheduling.*}).
+ */
+@Configuration
+@EnableScheduling
+public class SchedulingConfig {
+}
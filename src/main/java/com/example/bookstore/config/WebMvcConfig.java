@@ -0,0 +1,44 @@
+package com.example.bookstore.config;
+
+import java.time.Duration;
+import java.util.concurrent.Callable;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.web.context.request.NativeWebRequest;
+import org.springframework.web.context.request.RequestAttributes;
+import org.springframework.web.context.request.async.AsyncWebRequest;
+import org.springframework.web.context.request.async.CallableProcessingInterceptor;
+import org.springframework.web.servlet.HandlerMapping;
+import org.springframework.web.servlet.config.annotation.AsyncSupportConfigurer;
+import org.springframework.web.servlet.config.annotation.WebMvcConfigurer;
+
+/**
+ * Gives the NDJSON export its own async timeout, {@code book.export.timeout}, so a
+ * full dump is not cut off while every other async request keeps the default one.
+ * The timeout is set on the request before its async processing starts.
+ */
+@Configuration
+public class WebMvcConfig implements WebMvcConfigurer {
+    private static final String EXPORT_PATTERN = "/api/books/export";
+
+    private final Duration exportTimeout;
+
+    public WebMvcConfig(@Value("${book.export.timeout:30m}") Duration exportTimeout) {
+        this.exportTimeout = exportTimeout;
+    }
+
+    @Override
+    public void configureAsyncSupport(AsyncSupportConfigurer configurer) {
+        configurer.registerCallableInterceptors(new CallableProcessingInterceptor() {
+            @Override
+            public <T> void beforeConcurrentHandling(NativeWebRequest request, Callable<T> task) {
+                Object pattern = request.getAttribute(
+                        HandlerMapping.BEST_MATCHING_PATTERN_ATTRIBUTE,
+                        RequestAttributes.SCOPE_REQUEST);
+                if (EXPORT_PATTERN.equals(pattern) && request instanceof AsyncWebRequest) {
+                    ((AsyncWebRequest) request).setTimeout(exportTimeout.toMillis());
+                }
+            }
+        });
+    }
+}
@@ -1,11 +1,31 @@
 package com.example.bookstore.controller;
 
+import com.example.bookstore.dto.book.BookBatchItemDto;
 import com.example.bookstore.dto.book.BookDto;
+import com.example.bookstore.dto.book.BookFacetsResponseDto;
+import com.example.bookstore.dto.book.BookImportResponseDto;
+import com.example.bookstore.dto.book.BookPricesPatchRequestDto;
+import com.example.bookstore.dto.book.BookPricesPatchResponseDto;
 import com.example.bookstore.dto.book.CreateBookRequestDto;
+import com.example.bookstore.dto.book.PatchBookRequestDto;
+import com.example.bookstore.dto.common.CursorPageResponseDto;
+import com.example.bookstore.dto.common.SliceResponseDto;
+import com.example.bookstore.service.book.BookExportService;
+import com.example.bookstore.service.book.BookImportFormat;
+import com.example.bookstore.service.book.BookImportService;
+import com.example.bookstore.service.book.BookPatchService;
 import com.example.bookstore.service.book.BookService;
+import com.example.bookstore.service.book.BookSortKey;
+import com.example.bookstore.service.search.BookCategoryFilterService;
+import com.example.bookstore.service.search.BookFacetService;
+import com.example.bookstore.service.search.BookIsbnService;
+import com.example.bookstore.service.search.BookSearchService;
+import com.example.bookstore.service.search.BookSuggestService;
 import io.swagger.v3.oas.annotations.Operation;
 import io.swagger.v3.oas.annotations.tags.Tag;
 import jakarta.validation.Valid;
+import java.io.InputStream;
+import java.math.BigDecimal;
 import java.util.List;
 import lombok.RequiredArgsConstructor;
 import org.springframework.data.domain.Pageable;
@@ -13,13 +33,16 @@ import org.springframework.http.HttpStatus;
 import org.springframework.security.access.prepost.PreAuthorize;
 import org.springframework.web.bind.annotation.DeleteMapping;
 import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.PatchMapping;
 import org.springframework.web.bind.annotation.PathVariable;
 import org.springframework.web.bind.annotation.PostMapping;
 import org.springframework.web.bind.annotation.PutMapping;
 import org.springframework.web.bind.annotation.RequestBody;
 import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestParam;
 import org.springframework.web.bind.annotation.ResponseStatus;
 import org.springframework.web.bind.annotation.RestController;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
 
 @Tag(name = "Book manager", description = "Endpoints for managing books")
 @RequiredArgsConstructor
@@ -27,14 +50,98 @@ import org.springframework.web.bind.annotation.RestController;
 @RequestMapping(value = "/api/books")
 public class BookController {
     private final BookService bookService;
+    private final BookImportService bookImportService;
+    private final BookExportService bookExportService;
+    private final BookSearchService bookSearchService;
+    private final BookSuggestService bookSuggestService;
+    private final BookCategoryFilterService bookCategoryFilterService;
+    private final BookFacetService bookFacetService;
+    private final BookIsbnService bookIsbnService;
+    private final BookPatchService bookPatchService;
 
     @Operation(summary = "Get all books",
             description = "Get a list of all available books with pagination and sorting")
     @GetMapping
-    List<BookDto> getAll(Pageable pageable) {
+    SliceResponseDto<BookDto> getAll(Pageable pageable) {
         return bookService.findAll(pageable);
     }
 
+    @Operation(summary = "Get books by ids",
+            description = "Get up to 100 books by a comma-separated list of ids in one "
+                    + "request; items follow the order of the ids and ids without a book "
+                    + "have found=false")
+    @GetMapping(params = "ids")
+    List<BookBatchItemDto> getAllByIds(@RequestParam List<Long> ids) {
+        return bookService.findBatch(ids);
+    }
+
+    @Operation(summary = "Get books after a cursor",
+            description = "Get a page of books sorted by id, title or price using keyset "
+                    + "pagination; pass nextCursor of the previous page as 'after'")
+    @GetMapping("/cursor")
+    CursorPageResponseDto<BookDto> getAllAfter(
+            @RequestParam(required = false) String after,
+            @RequestParam(defaultValue = "ID") BookSortKey sort,
+            @RequestParam(defaultValue = "20") int size
+    ) {
+        return bookService.findAllAfter(after, sort, size);
+    }
+
+    @Operation(summary = "Search books",
+            description = "Full-text search by title, author and description; books "
+                    + "matching more and rarer words of the query come first. With "
+                    + "fuzzy=true misspelled title and author words match too")
+    @GetMapping("/search")
+    List<BookDto> search(
+            @RequestParam String q,
+            @RequestParam(defaultValue = "20") int size,
+            @RequestParam(defaultValue = "false") boolean fuzzy
+    ) {
+        return fuzzy ? bookSearchService.fuzzySearch(q, size) : bookSearchService.search(q, size);
+    }
+
+    @Operation(summary = "Suggest titles and authors",
+            description = "Complete a search box prefix with titles and authors, best "
+                    + "sellers first")
+    @GetMapping("/suggest")
+    List<String> suggest(
+            @RequestParam String prefix,
+            @RequestParam(defaultValue = "10") int size
+    ) {
+        return bookSuggestService.suggest(prefix, size);
+    }
+
+    @Operation(summary = "Filter books by categories",
+            description = "Get a page of books, in id order, matching a category id "
+                    + "expression such as '1 AND (2 OR 3) NOT 4'")
+    @GetMapping("/filter")
+    SliceResponseDto<BookDto> filterByCategories(
+            @RequestParam String categories,
+            Pageable pageable
+    ) {
+        return bookCategoryFilterService.findAllByCategoryFilter(categories, pageable);
+    }
+
+    @Operation(summary = "Get book facets",
+            description = "Count the books matching the optional category expression, "
+                    + "author and price range per category id, author and price range")
+    @GetMapping("/facets")
+    BookFacetsResponseDto getFacets(
+            @RequestParam(required = false) String categories,
+            @RequestParam(required = false) String author,
+            @RequestParam(required = false) BigDecimal minPrice,
+            @RequestParam(required = false) BigDecimal maxPrice
+    ) {
+        return bookFacetService.getFacets(categories, author, minPrice, maxPrice);
+    }
+
+    @Operation(summary = "Get book by isbn",
+            description = "Get book by ISBN-13 or ISBN-10; hyphens and spaces are ignored")
+    @GetMapping("/isbn/{isbn}")
+    BookDto getBookByIsbn(@PathVariable String isbn) {
+        return bookIsbnService.findByIsbn(isbn);
+    }
+
     @Operation(summary = "Get book by id", description = "Get book by id from database")
     @GetMapping("/{id}")
     BookDto getBookById(@PathVariable Long id) {
@@ -56,10 +163,57 @@ public class BookController {
         return bookService.save(bookDto);
     }
 
+    @Operation(summary = "Import books from CSV",
+            description = "Stream a CSV file with a title,author,isbn,price,description,"
+                    + "coverImage,categoryIds header into the database in JDBC batches; "
+                    + "category ids are separated by ';'")
+    @PostMapping(value = "/import", consumes = "text/csv")
+    @PreAuthorize("hasRole('ROLE_ADMIN')")
+    public BookImportResponseDto importCsv(InputStream content) {
+        return bookImportService.importBooks(content, BookImportFormat.CSV);
+    }
+
+    @Operation(summary = "Import books from NDJSON",
+            description = "Stream one book request JSON object per line into the database "
+                    + "in JDBC batches")
+    @PostMapping(value = "/import", consumes = "application/x-ndjson")
+    @PreAuthorize("hasRole('ROLE_ADMIN')")
+    public BookImportResponseDto importNdjson(InputStream content) {
+        return bookImportService.importBooks(content, BookImportFormat.NDJSON);
+    }
+
+    @Operation(summary = "Export all books as NDJSON",
+            description = "Stream every book as one JSON object per line")
+    @GetMapping(value = "/export", produces = "application/x-ndjson")
+    @PreAuthorize("hasRole('ROLE_ADMIN')")
+    public StreamingResponseBody exportNdjson() {
+        return bookExportService::exportBooks;
+    }
+
     @Operation(summary = "Update book by id with incoming request")
     @PutMapping("/{id}")
     @PreAuthorize("hasRole('ROLE_ADMIN')")
     public BookDto update(@PathVariable Long id, @RequestBody CreateBookRequestDto bookDto) {
         return bookService.updateById(id, bookDto);
     }
+
+    @Operation(summary = "Patch book by id",
+            description = "Update only the fields present in the request with one UPDATE "
+                    + "statement; categoryIds, when present, replace the book categories")
+    @PatchMapping("/{id}")
+    @PreAuthorize("hasRole('ROLE_ADMIN')")
+    public BookDto patch(@PathVariable Long id, @RequestBody @Valid PatchBookRequestDto bookDto) {
+        return bookPatchService.patchById(id, bookDto);
+    }
+
+    @Operation(summary = "Patch book prices",
+            description = "Set the prices of up to 10000 books in JDBC batches; ids without "
+                    + "a book are returned as missingIds")
+    @PatchMapping("/prices")
+    @PreAuthorize("hasRole('ROLE_ADMIN')")
+    public BookPricesPatchResponseDto patchPrices(
+            @RequestBody @Valid BookPricesPatchRequestDto requestDto
+    ) {
+        return bookPatchService.patchPrices(requestDto.getPrices());
+    }
 }
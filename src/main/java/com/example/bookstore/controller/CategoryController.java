@@ -1,23 +1,32 @@
 package com.example.bookstore.controller;
 
 import com.example.bookstore.dto.book.BookDtoWithoutCategoryIds;
+import com.example.bookstore.dto.book.RepriceBooksRequestDto;
+import com.example.bookstore.dto.book.RepriceBooksResponseDto;
 import com.example.bookstore.dto.category.CategoryRequestDto;
 import com.example.bookstore.dto.category.CategoryResponseDto;
+import com.example.bookstore.dto.common.CursorPageResponseDto;
+import com.example.bookstore.dto.common.SliceResponseDto;
+import com.example.bookstore.service.book.BookPatchService;
 import com.example.bookstore.service.book.BookService;
+import com.example.bookstore.service.book.BookSortKey;
 import com.example.bookstore.service.category.CategoryService;
 import io.swagger.v3.oas.annotations.Operation;
 import io.swagger.v3.oas.annotations.tags.Tag;
+import jakarta.validation.Valid;
 import java.util.List;
 import lombok.RequiredArgsConstructor;
 import org.springframework.data.domain.Pageable;
 import org.springframework.security.access.prepost.PreAuthorize;
 import org.springframework.web.bind.annotation.DeleteMapping;
 import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.PatchMapping;
 import org.springframework.web.bind.annotation.PathVariable;
 import org.springframework.web.bind.annotation.PostMapping;
 import org.springframework.web.bind.annotation.PutMapping;
 import org.springframework.web.bind.annotation.RequestBody;
 import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestParam;
 import org.springframework.web.bind.annotation.RestController;
 
 @Tag(name = "Category manager",
@@ -28,6 +37,7 @@ import org.springframework.web.bind.annotation.RestController;
 public class CategoryController {
     private final CategoryService categoryService;
     private final BookService bookService;
+    private final BookPatchService bookPatchService;
 
     @PostMapping
     @PreAuthorize("hasRole('ROLE_ADMIN')")
@@ -40,7 +50,7 @@ public class CategoryController {
     @GetMapping
     @Operation(summary = "Get all categories",
             description = "get all categories from database;")
-    public List<CategoryResponseDto> getAll(Pageable pageable) {
+    public SliceResponseDto<CategoryResponseDto> getAll(Pageable pageable) {
         return categoryService.findAll(pageable);
     }
 
@@ -75,4 +85,28 @@ public class CategoryController {
                                                                 Pageable pageable) {
         return bookService.findAllByCategoryId(id, pageable);
     }
+
+    @GetMapping("/{id}/books/cursor")
+    @Operation(summary = "Get books by category id after a cursor",
+            description = "Get a page of books of a category using keyset pagination")
+    public CursorPageResponseDto<BookDtoWithoutCategoryIds> getBooksByCategoryIdAfter(
+            @PathVariable Long id,
+            @RequestParam(required = false) String after,
+            @RequestParam(defaultValue = "ID") BookSortKey sort,
+            @RequestParam(defaultValue = "20") int size
+    ) {
+        return bookService.findAllByCategoryIdAfter(id, after, sort, size);
+    }
+
+    @PatchMapping("/{id}/books/prices")
+    @Operation(summary = "Reprice books by category id",
+            description = "Change the price of every book of the category by a percentage "
+                    + "or an amount, never below zero, in chunked set-based updates")
+    @PreAuthorize("hasRole('ROLE_ADMIN')")
+    public RepriceBooksResponseDto repriceBooksByCategoryId(
+            @PathVariable Long id,
+            @RequestBody @Valid RepriceBooksRequestDto requestDto
+    ) {
+        return bookPatchService.repriceByCategoryId(id, requestDto);
+    }
 }
@@ -1,15 +1,15 @@
 package com.example.bookstore.controller;
 
+import com.example.bookstore.dto.common.SliceResponseDto;
 import com.example.bookstore.dto.order.CreateOrderRequestDto;
 import com.example.bookstore.dto.order.OrderItemResponseDto;
 import com.example.bookstore.dto.order.OrderResponseDto;
 import com.example.bookstore.dto.order.UpdateOrderRequestDto;
-import com.example.bookstore.model.User;
+import com.example.bookstore.security.AuthenticatedUser;
 import com.example.bookstore.service.order.OrderService;
 import io.swagger.v3.oas.annotations.Operation;
 import io.swagger.v3.oas.annotations.tags.Tag;
 import jakarta.validation.Valid;
-import java.util.List;
 import java.util.Set;
 import lombok.RequiredArgsConstructor;
 import org.springframework.data.domain.Pageable;
@@ -35,13 +35,13 @@ public class OrderController {
             description = "Get all orders currently have user.")
     @PreAuthorize("hasAnyRole('ROLE_USER')")
     @GetMapping
-    public List<OrderResponseDto> getOrderHistory(
+    public SliceResponseDto<OrderResponseDto> getOrderHistory(
             Authentication authentication,
             Pageable pageable
     ) {
-        User user = (User) authentication.getPrincipal();
+        AuthenticatedUser user = (AuthenticatedUser) authentication.getPrincipal();
 
-        return orderService.getOrderHistory(user, pageable);
+        return orderService.getOrderHistory(user.getId(), pageable);
     }
 
     @Operation(summary = "Get order by id",
@@ -52,9 +52,9 @@ public class OrderController {
             Authentication authentication,
             @PathVariable Long orderId
     ) {
-        User user = (User) authentication.getPrincipal();
+        AuthenticatedUser user = (AuthenticatedUser) authentication.getPrincipal();
 
-        return orderService.getOrderItemsByOrderId(user, orderId);
+        return orderService.getOrderItemsByOrderId(user.getId(), orderId);
     }
 
     @Operation(summary = "Get item by itemId from order by id",
@@ -66,9 +66,9 @@ public class OrderController {
             @PathVariable Long orderId,
             @PathVariable Long itemId
     ) {
-        User user = (User) authentication.getPrincipal();
+        AuthenticatedUser user = (AuthenticatedUser) authentication.getPrincipal();
 
-        return orderService.getOrderItemByIdByOrderId(user, orderId, itemId);
+        return orderService.getOrderItemByIdByOrderId(user.getId(), orderId, itemId);
     }
 
     @Operation(summary = "Create order",
@@ -79,9 +79,9 @@ public class OrderController {
             Authentication authentication,
             @RequestBody @Valid CreateOrderRequestDto requestDto
     ) {
-        User user = (User) authentication.getPrincipal();
+        AuthenticatedUser user = (AuthenticatedUser) authentication.getPrincipal();
 
-        return orderService.createOrder(user, requestDto);
+        return orderService.createOrder(user.getId(), requestDto);
     }
 
     @Operation(summary = "Update order status",
@@ -93,8 +93,8 @@ public class OrderController {
             @PathVariable Long id,
             @RequestBody @Valid UpdateOrderRequestDto requestDto
     ) {
-        User user = (User) authentication.getPrincipal();
+        AuthenticatedUser user = (AuthenticatedUser) authentication.getPrincipal();
 
-        return orderService.updateOrderStatusById(user, id, requestDto);
+        return orderService.updateOrderStatusById(user.getId(), id, requestDto);
     }
 }
@@ -1,14 +1,17 @@
 package com.example.bookstore.controller;
 
+import com.example.bookstore.dto.shoppingcart.CartBatchRequestDto;
+import com.example.bookstore.dto.shoppingcart.CartItemResponseDto;
 import com.example.bookstore.dto.shoppingcart.CreateCartItemRequestDto;
 import com.example.bookstore.dto.shoppingcart.ShoppingCartResponseDto;
 import com.example.bookstore.dto.shoppingcart.UpdateCartItemRequestDto;
-import com.example.bookstore.model.User;
+import com.example.bookstore.security.AuthenticatedUser;
 import com.example.bookstore.service.shoppingcart.ShoppingCartService;
 import io.swagger.v3.oas.annotations.Operation;
 import io.swagger.v3.oas.annotations.tags.Tag;
 import jakarta.validation.Valid;
 import lombok.RequiredArgsConstructor;
+import org.springframework.http.HttpStatus;
 import org.springframework.security.access.prepost.PreAuthorize;
 import org.springframework.security.core.Authentication;
 import org.springframework.web.bind.annotation.DeleteMapping;
@@ -18,6 +21,7 @@ import org.springframework.web.bind.annotation.PostMapping;
 import org.springframework.web.bind.annotation.PutMapping;
 import org.springframework.web.bind.annotation.RequestBody;
 import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.ResponseStatus;
 import org.springframework.web.bind.annotation.RestController;
 
 @Tag(name = "Shopping cart manager",
@@ -26,26 +30,43 @@ import org.springframework.web.bind.annotation.RestController;
 @RequiredArgsConstructor
 @RequestMapping("/cart")
 public class ShoppingCartController {
+    private static final String RETURN_MINIMAL = "Prefer=return=minimal";
+
     private final ShoppingCartService shoppingCartService;
 
     @Operation(summary = "Add cart item to user's cart",
-            description = "Create and add cart item to user's cart in db")
+            description = "Create and add cart item to user's cart in db; adding a book "
+                    + "that is already in the cart adds to its quantity")
     @PreAuthorize("hasAnyRole('ROLE_USER')")
     @PostMapping
     public ShoppingCartResponseDto createCartItem(
             Authentication authentication,
             @RequestBody @Valid CreateCartItemRequestDto requestDto
     ) {
-        User user = (User) authentication.getPrincipal();
+        AuthenticatedUser user = (AuthenticatedUser) authentication.getPrincipal();
         return shoppingCartService.addCartItem(user.getId(), requestDto);
     }
 
+    @Operation(summary = "Apply a batch of cart operations",
+            description = "Apply up to 100 ADD, UPDATE and REMOVE operations in order in one "
+                    + "transaction and return the final cart; adding a book that is already "
+                    + "in the cart adds to its quantity")
+    @PreAuthorize("hasAnyRole('ROLE_USER')")
+    @PostMapping("/batch")
+    public ShoppingCartResponseDto applyBatch(
+            Authentication authentication,
+            @RequestBody @Valid CartBatchRequestDto requestDto
+    ) {
+        AuthenticatedUser user = (AuthenticatedUser) authentication.getPrincipal();
+        return shoppingCartService.applyBatch(user.getId(), requestDto.getOperations());
+    }
+
     @Operation(summary = "Get all shopping cart's items",
             description = "Get all shopping cart's items that have user who send request")
     @PreAuthorize("hasAnyRole('ROLE_USER')")
     @GetMapping
     public ShoppingCartResponseDto getAllCartItems(Authentication authentication) {
-        User user = (User) authentication.getPrincipal();
+        AuthenticatedUser user = (AuthenticatedUser) authentication.getPrincipal();
         return shoppingCartService.getByUserId(user.getId());
     }
 
@@ -58,10 +79,24 @@ public class ShoppingCartController {
             @PathVariable Long cartItemId,
             @RequestBody @Valid UpdateCartItemRequestDto requestDto
     ) {
-        User user = (User) authentication.getPrincipal();
+        AuthenticatedUser user = (AuthenticatedUser) authentication.getPrincipal();
         return shoppingCartService.updateCartItem(user.getId(), cartItemId, requestDto);
     }
 
+    @Operation(summary = "Update cart item by id and return only the item",
+            description = "Update cart item by id with a 'Prefer: return=minimal' header; "
+                    + "answers with the changed item instead of the whole cart")
+    @PreAuthorize("hasAnyRole('ROLE_USER')")
+    @PutMapping(value = "/cart-items/{cartItemId}", headers = RETURN_MINIMAL)
+    public CartItemResponseDto updateCartItemMinimal(
+            Authentication authentication,
+            @PathVariable Long cartItemId,
+            @RequestBody @Valid UpdateCartItemRequestDto requestDto
+    ) {
+        AuthenticatedUser user = (AuthenticatedUser) authentication.getPrincipal();
+        return shoppingCartService.updateCartItemQuantity(user.getId(), cartItemId, requestDto);
+    }
+
     @Operation(summary = "Delete cart item by id from user's shopping cart",
             description = "Delete cart item by id, user can update only own cart item")
     @PreAuthorize("hasAnyRole('ROLE_USER')")
@@ -70,7 +105,21 @@ public class ShoppingCartController {
             Authentication authentication,
             @PathVariable Long cartItemId
     ) {
-        User user = (User) authentication.getPrincipal();
+        AuthenticatedUser user = (AuthenticatedUser) authentication.getPrincipal();
         return shoppingCartService.deleteCartItem(user.getId(), cartItemId);
     }
+
+    @Operation(summary = "Delete cart item by id without returning the cart",
+            description = "Delete cart item by id with a 'Prefer: return=minimal' header; "
+                    + "answers 204 without reading the cart")
+    @PreAuthorize("hasAnyRole('ROLE_USER')")
+    @ResponseStatus(HttpStatus.NO_CONTENT)
+    @DeleteMapping(value = "/cart-items/{cartItemId}", headers = RETURN_MINIMAL)
+    public void deleteCartItemMinimal(
+            Authentication authentication,
+            @PathVariable Long cartItemId
+    ) {
+        AuthenticatedUser user = (AuthenticatedUser) authentication.getPrincipal();
+        shoppingCartService.removeCartItem(user.getId(), cartItemId);
+    }
 }
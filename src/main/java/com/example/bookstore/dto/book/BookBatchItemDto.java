@@ -0,0 +1,18 @@
+package com.example.bookstore.dto.book;
+
+import lombok.Data;
+
+@Data
+public class BookBatchItemDto {
+    private Long id;
+    private boolean found;
+    private BookDto book;
+
+    public static BookBatchItemDto of(Long id, BookDto book) {
+        BookBatchItemDto item = new BookBatchItemDto();
+        item.setId(id);
+        item.setFound(book != null);
+        item.setBook(book);
+        return item;
+    }
+}
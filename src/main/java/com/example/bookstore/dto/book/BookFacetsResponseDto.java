@@ -0,0 +1,12 @@
+package com.example.bookstore.dto.book;
+
+import java.util.List;
+import lombok.Data;
+
+@Data
+public class BookFacetsResponseDto {
+    private long total;
+    private List<FacetCountDto> categories;
+    private List<FacetCountDto> authors;
+    private List<FacetCountDto> prices;
+}
@@ -0,0 +1,11 @@
+package com.example.bookstore.dto.book;
+
+import java.util.List;
+import lombok.Data;
+
+@Data
+public class BookImportErrorDto {
+    private long line;
+    private String isbn;
+    private List<String> messages;
+}
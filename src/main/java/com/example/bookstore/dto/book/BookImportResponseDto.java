@@ -0,0 +1,15 @@
+package com.example.bookstore.dto.book;
+
+import java.util.ArrayList;
+import java.util.List;
+import lombok.Data;
+
+@Data
+public class BookImportResponseDto {
+    private long totalRows;
+    private long importedRows;
+    private long failedRows;
+    private long durationMillis;
+    private double rowsPerSecond;
+    private List<BookImportErrorDto> errors = new ArrayList<>();
+}
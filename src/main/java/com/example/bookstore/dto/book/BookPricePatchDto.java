@@ -0,0 +1,22 @@
+package com.example.bookstore.dto.book;
+
+import jakarta.validation.constraints.Min;
+import jakarta.validation.constraints.NotNull;
+import java.math.BigDecimal;
+import lombok.Data;
+
+@Data
+public class BookPricePatchDto {
+    @NotNull
+    private Long id;
+    @NotNull
+    @Min(0)
+    private BigDecimal price;
+
+    public static BookPricePatchDto of(Long id, BigDecimal price) {
+        BookPricePatchDto patch = new BookPricePatchDto();
+        patch.setId(id);
+        patch.setPrice(price);
+        return patch;
+    }
+}
@@ -0,0 +1,17 @@
+package com.example.bookstore.dto.book;
+
+import jakarta.validation.Valid;
+import jakarta.validation.constraints.NotEmpty;
+import jakarta.validation.constraints.NotNull;
+import jakarta.validation.constraints.Size;
+import java.util.List;
+import lombok.Data;
+
+@Data
+public class BookPricesPatchRequestDto {
+    public static final int MAX_PRICES = 10000;
+
+    @NotEmpty
+    @Size(max = MAX_PRICES)
+    private List<@NotNull @Valid BookPricePatchDto> prices;
+}
@@ -0,0 +1,12 @@
+package com.example.bookstore.dto.book;
+
+import java.util.ArrayList;
+import java.util.List;
+import lombok.Data;
+
+@Data
+public class BookPricesPatchResponseDto {
+    private long updatedRows;
+    private List<Long> missingIds = new ArrayList<>();
+    private long durationMillis;
+}
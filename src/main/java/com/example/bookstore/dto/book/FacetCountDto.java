@@ -0,0 +1,16 @@
+package com.example.bookstore.dto.book;
+
+import lombok.Data;
+
+@Data
+public class FacetCountDto {
+    private String value;
+    private long count;
+
+    public static FacetCountDto of(String value, long count) {
+        FacetCountDto facetCount = new FacetCountDto();
+        facetCount.setValue(value);
+        facetCount.setCount(count);
+        return facetCount;
+    }
+}
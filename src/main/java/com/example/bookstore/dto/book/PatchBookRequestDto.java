@@ -0,0 +1,28 @@
+package com.example.bookstore.dto.book;
+
+import com.example.bookstore.validation.Isbn;
+import jakarta.validation.constraints.Min;
+import jakarta.validation.constraints.Pattern;
+import java.math.BigDecimal;
+import java.util.Set;
+import lombok.Data;
+
+/**
+ * Fields of a book to change; {@code null} fields are left as they are.
+ */
+@Data
+public class PatchBookRequestDto {
+    private static final String NOT_BLANK = "(?s).*\\S.*";
+
+    @Pattern(regexp = NOT_BLANK, message = "must not be blank")
+    private String title;
+    @Pattern(regexp = NOT_BLANK, message = "must not be blank")
+    private String author;
+    @Isbn
+    private String isbn;
+    @Min(0)
+    private BigDecimal price;
+    private String description;
+    private String coverImage;
+    private Set<Long> categoryIds;
+}
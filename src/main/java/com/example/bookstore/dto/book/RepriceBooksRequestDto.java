@@ -0,0 +1,17 @@
+package com.example.bookstore.dto.book;
+
+import com.example.bookstore.service.book.BookRepriceType;
+import jakarta.validation.constraints.NotNull;
+import jakarta.validation.constraints.PositiveOrZero;
+import java.math.BigDecimal;
+import lombok.Data;
+
+@Data
+public class RepriceBooksRequestDto {
+    @NotNull
+    private BookRepriceType type;
+    @NotNull
+    private BigDecimal value;
+    @PositiveOrZero
+    private Long afterBookId;
+}
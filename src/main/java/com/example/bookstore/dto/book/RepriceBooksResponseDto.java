@@ -0,0 +1,11 @@
+package com.example.bookstore.dto.book;
+
+import lombok.Data;
+
+@Data
+public class RepriceBooksResponseDto {
+    private long updatedRows;
+    private int chunks;
+    private long lastBookId;
+    private long durationMillis;
+}
@@ -0,0 +1,10 @@
+package com.example.bookstore.dto.common;
+
+import java.util.List;
+import lombok.Data;
+
+@Data
+public class CursorPageResponseDto<T> {
+    private List<T> content;
+    private String nextCursor;
+}
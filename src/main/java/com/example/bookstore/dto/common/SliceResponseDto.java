@@ -0,0 +1,17 @@
+package com.example.bookstore.dto.common;
+
+import java.util.List;
+import lombok.Data;
+
+@Data
+public class SliceResponseDto<T> {
+    private List<T> content;
+    private boolean hasNext;
+
+    public static <T> SliceResponseDto<T> of(List<T> content, boolean hasNext) {
+        SliceResponseDto<T> slice = new SliceResponseDto<>();
+        slice.setContent(content);
+        slice.setHasNext(hasNext);
+        return slice;
+    }
+}
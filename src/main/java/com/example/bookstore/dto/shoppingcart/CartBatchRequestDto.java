@@ -0,0 +1,17 @@
+package com.example.bookstore.dto.shoppingcart;
+
+import jakarta.validation.Valid;
+import jakarta.validation.constraints.NotEmpty;
+import jakarta.validation.constraints.NotNull;
+import jakarta.validation.constraints.Size;
+import java.util.List;
+import lombok.Data;
+
+@Data
+public class CartBatchRequestDto {
+    public static final int MAX_OPERATIONS = 100;
+
+    @NotEmpty
+    @Size(max = MAX_OPERATIONS)
+    private List<@NotNull @Valid CartOperationDto> operations;
+}
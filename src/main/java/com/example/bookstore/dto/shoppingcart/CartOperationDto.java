@@ -0,0 +1,41 @@
+package com.example.bookstore.dto.shoppingcart;
+
+import com.example.bookstore.service.shoppingcart.CartOperationType;
+import jakarta.validation.constraints.Min;
+import jakarta.validation.constraints.NotNull;
+import lombok.Data;
+
+@Data
+public class CartOperationDto {
+    @NotNull
+    private CartOperationType type;
+    @Min(1)
+    private Long bookId;
+    @Min(1)
+    private Long cartItemId;
+    @Min(1)
+    private Integer quantity;
+
+    public static CartOperationDto add(Long bookId, Integer quantity) {
+        CartOperationDto operation = new CartOperationDto();
+        operation.setType(CartOperationType.ADD);
+        operation.setBookId(bookId);
+        operation.setQuantity(quantity);
+        return operation;
+    }
+
+    public static CartOperationDto update(Long cartItemId, Integer quantity) {
+        CartOperationDto operation = new CartOperationDto();
+        operation.setType(CartOperationType.UPDATE);
+        operation.setCartItemId(cartItemId);
+        operation.setQuantity(quantity);
+        return operation;
+    }
+
+    public static CartOperationDto remove(Long cartItemId) {
+        CartOperationDto operation = new CartOperationDto();
+        operation.setType(CartOperationType.REMOVE);
+        operation.setCartItemId(cartItemId);
+        return operation;
+    }
+}
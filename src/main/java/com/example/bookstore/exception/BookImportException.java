@@ -0,0 +1,15 @@
+package com.example.bookstore.exception;
+
+public class BookImportException extends RuntimeException {
+    public BookImportException() {
+        super();
+    }
+
+    public BookImportException(String message) {
+        super(message);
+    }
+
+    public BookImportException(String message, Throwable ex) {
+        super(message, ex);
+    }
+}
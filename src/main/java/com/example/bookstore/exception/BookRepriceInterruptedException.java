@@ -0,0 +1,13 @@
+package com.example.bookstore.exception;
+
+import lombok.Getter;
+
+@Getter
+public class BookRepriceInterruptedException extends RuntimeException {
+    private final long lastBookId;
+
+    public BookRepriceInterruptedException(String message, long lastBookId, Throwable ex) {
+        super(message, ex);
+        this.lastBookId = lastBookId;
+    }
+}
@@ -0,0 +1,15 @@
+package com.example.bookstore.exception;
+
+public class ConcurrentCartModificationException extends RuntimeException {
+    public ConcurrentCartModificationException() {
+        super();
+    }
+
+    public ConcurrentCartModificationException(String message) {
+        super(message);
+    }
+
+    public ConcurrentCartModificationException(String message, Throwable ex) {
+        super(message, ex);
+    }
+}
@@ -12,6 +12,7 @@ import org.springframework.validation.FieldError;
 import org.springframework.validation.ObjectError;
 import org.springframework.web.bind.MethodArgumentNotValidException;
 import org.springframework.web.bind.annotation.ControllerAdvice;
+import org.springframework.web.bind.annotation.ExceptionHandler;
 import org.springframework.web.context.request.WebRequest;
 import org.springframework.web.servlet.mvc.method.annotation.ResponseEntityExceptionHandler;
 
@@ -25,15 +26,53 @@ public class CustomGlobalExceptionHandler extends ResponseEntityExceptionHandler
             HttpStatusCode status,
             WebRequest request
     ) {
-        Map<String, Object> body = new LinkedHashMap<>();
-        body.put("timestamp", LocalDateTime.now());
-        body.put("status", HttpStatus.BAD_REQUEST);
         List<String> errors = ex.getBindingResult().getAllErrors().stream()
                 .map(this::getErrorMessage)
                 .toList();
-        body.put("errors", errors);
 
-        return new ResponseEntity<>(body, headers, status);
+        return new ResponseEntity<>(buildBody(HttpStatus.BAD_REQUEST, errors), headers, status);
+    }
+
+    @ExceptionHandler({InvalidCursorException.class, BookImportException.class,
+            InvalidCategoryFilterException.class, InvalidBatchException.class})
+    protected ResponseEntity<Object> handleBadRequest(RuntimeException ex) {
+        return ResponseEntity.badRequest()
+                .body(buildBody(HttpStatus.BAD_REQUEST, List.of(ex.getMessage())));
+    }
+
+    @ExceptionHandler(EntityNotFoundException.class)
+    protected ResponseEntity<Object> handleNotFound(EntityNotFoundException ex) {
+        return ResponseEntity.status(HttpStatus.NOT_FOUND)
+                .body(buildBody(HttpStatus.NOT_FOUND, List.of(ex.getMessage())));
+    }
+
+    @ExceptionHandler({ConcurrentCartModificationException.class, DuplicateIsbnException.class})
+    protected ResponseEntity<Object> handleConflict(RuntimeException ex) {
+        return ResponseEntity.status(HttpStatus.CONFLICT)
+                .body(buildBody(HttpStatus.CONFLICT, List.of(ex.getMessage())));
+    }
+
+    @ExceptionHandler(PasswordHashingRejectedException.class)
+    protected ResponseEntity<Object> handlePasswordHashingRejected(
+            PasswordHashingRejectedException ex
+    ) {
+        return ResponseEntity.status(HttpStatus.SERVICE_UNAVAILABLE)
+                .header(HttpHeaders.RETRY_AFTER, String.valueOf(ex.getRetryAfter().toSeconds()))
+                .body(buildBody(HttpStatus.SERVICE_UNAVAILABLE, List.of(ex.getMessage())));
+    }
+
+    @ExceptionHandler(BookRepriceInterruptedException.class)
+    protected ResponseEntity<Object> handleRepriceInterrupted(BookRepriceInterruptedException ex) {
+        return ResponseEntity.status(HttpStatus.SERVICE_UNAVAILABLE)
+                .body(buildBody(HttpStatus.SERVICE_UNAVAILABLE, List.of(ex.getMessage())));
+    }
+
+    private Map<String, Object> buildBody(HttpStatus status, Object errors) {
+        Map<String, Object> body = new LinkedHashMap<>();
+        body.put("timestamp", LocalDateTime.now());
+        body.put("status", status);
+        body.put("errors", errors);
+        return body;
     }
 
     private String getErrorMessage(ObjectError e) {
@@ -0,0 +1,15 @@
+package com.example.bookstore.exception;
+
+public class DuplicateIsbnException extends RuntimeException {
+    public DuplicateIsbnException() {
+        super();
+    }
+
+    public DuplicateIsbnException(String message) {
+        super(message);
+    }
+
+    public DuplicateIsbnException(String message, Throwable ex) {
+        super(message, ex);
+    }
+}
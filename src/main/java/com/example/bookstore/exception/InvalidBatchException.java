@@ -0,0 +1,15 @@
+package com.example.bookstore.exception;
+
+public class InvalidBatchException extends RuntimeException {
+    public InvalidBatchException() {
+        super();
+    }
+
+    public InvalidBatchException(String message) {
+        super(message);
+    }
+
+    public InvalidBatchException(String message, Throwable ex) {
+        super(message, ex);
+    }
+}
@@ -0,0 +1,15 @@
+package com.example.bookstore.exception;
+
+public class InvalidCategoryFilterException extends RuntimeException {
+    public InvalidCategoryFilterException() {
+        super();
+    }
+
+    public InvalidCategoryFilterException(String message) {
+        super(message);
+    }
+
+    public InvalidCategoryFilterException(String message, Throwable ex) {
+        super(message, ex);
+    }
+}
@@ -0,0 +1,15 @@
+package com.example.bookstore.exception;
+
+public class InvalidCursorException extends RuntimeException {
+    public InvalidCursorException() {
+        super();
+    }
+
+    public InvalidCursorException(String message) {
+        super(message);
+    }
+
+    public InvalidCursorException(String message, Throwable ex) {
+        super(message, ex);
+    }
+}
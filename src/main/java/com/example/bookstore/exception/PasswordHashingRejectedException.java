@@ -0,0 +1,19 @@
+package com.example.bookstore.exception;
+
+import java.time.Duration;
+import lombok.Getter;
+
+@Getter
+public class PasswordHashingRejectedException extends RuntimeException {
+    private final Duration retryAfter;
+
+    public PasswordHashingRejectedException(String message, Duration retryAfter) {
+        super(message);
+        this.retryAfter = retryAfter;
+    }
+
+    public PasswordHashingRejectedException(String message, Duration retryAfter, Throwable ex) {
+        super(message, ex);
+        this.retryAfter = retryAfter;
+    }
+}
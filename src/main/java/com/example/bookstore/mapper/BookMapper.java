@@ -11,6 +11,7 @@ import java.util.Optional;
 import java.util.Set;
 import java.util.stream.Collectors;
 import org.mapstruct.AfterMapping;
+import org.mapstruct.BeanMapping;
 import org.mapstruct.Mapper;
 import org.mapstruct.Mapping;
 import org.mapstruct.MappingTarget;
@@ -26,6 +27,14 @@ public interface BookMapper {
 
     BookDtoWithoutCategoryIds toDtoWithoutCategories(Book book);
 
+    /**
+     * Maps a book without touching its lazy {@code categories}; the qualified bean
+     * mapping keeps {@link #setCategoryIds(BookDto, Book)} from being applied.
+     */
+    @BeanMapping(qualifiedByName = "withoutCategoryIds")
+    @Mapping(target = "categoryIds", ignore = true)
+    BookDto toDtoWithoutCategoryIds(Book book);
+
     @AfterMapping
     default void setCategoryIds(@MappingTarget BookDto bookDto, Book book) {
         Set<Long> collect = book
@@ -1,5 +1,6 @@
 package com.example.bookstore.model;
 
+import jakarta.persistence.Column;
 import jakarta.persistence.Entity;
 import jakarta.persistence.FetchType;
 import jakarta.persistence.Id;
@@ -26,4 +27,11 @@ public class ShoppingCart {
 
     @OneToMany(fetch = FetchType.LAZY, mappedBy = "shoppingCart")
     private Set<CartItem> cartItems = new HashSet<>();
+
+    /**
+     * Moved on by every change of the cart with a compare-and-set update rather than
+     * by Hibernate's optimistic locking, so it is only ever read from the entity.
+     */
+    @Column(name = "version", insertable = false, updatable = false)
+    private Long version;
 }
@@ -1,23 +1,116 @@
 package com.example.bookstore.repository;
 
 import com.example.bookstore.model.Book;
+import jakarta.persistence.QueryHint;
+import java.math.BigDecimal;
+import java.util.Collection;
 import java.util.List;
 import java.util.Optional;
-import org.springframework.data.domain.Page;
+import org.hibernate.jpa.AvailableHints;
 import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Slice;
 import org.springframework.data.jpa.repository.EntityGraph;
 import org.springframework.data.jpa.repository.JpaRepository;
 import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
 
 public interface BookRepository extends JpaRepository<Book, Long> {
+    /**
+     * Query cache region of the id lists below. JPA writes to {@code books} invalidate
+     * it through the update timestamps; writers that use plain JDBC evict it themselves.
+     */
+    String QUERY_CACHE_REGION = "book-query-results";
+
     @Query("FROM Book b JOIN b.categories c WHERE c.id = :categoryId")
     List<Book> findAllByCategoryId(Long categoryId, Pageable pageable);
 
     boolean existsById(Long id);
 
-    @EntityGraph(attributePaths = {"categories"})
-    Page<Book> findAll(Pageable pageable);
+    /**
+     * First phase of a paged read. Fetch-joining {@code categories} together with a
+     * limit makes Hibernate page in memory, so only ids are paged in SQL and the
+     * books are loaded afterwards with {@link #findAllByIdIn(Collection)}.
+     */
+    @QueryHints({
+            @QueryHint(name = AvailableHints.HINT_CACHEABLE, value = "true"),
+            @QueryHint(name = AvailableHints.HINT_CACHE_REGION, value = QUERY_CACHE_REGION)})
+    @Query("SELECT b.id FROM Book b")
+    Slice<Long> findIds(Pageable pageable);
+
+    /**
+     * Reads the join table directly, so it also finds the books of a category that
+     * is already soft-deleted.
+     */
+    @Query(value = "SELECT book_id FROM books_categories WHERE category_id = :categoryId",
+            nativeQuery = true)
+    List<Long> findIdsByCategoryId(Long categoryId);
 
     @EntityGraph(attributePaths = {"categories"})
     Optional<Book> findById(Long id);
+
+    @EntityGraph(attributePaths = {"categories"})
+    List<Book> findAllByIdIn(Collection<Long> ids);
+
+    /**
+     * Reads the books from the database even when they are in the second-level
+     * cache, for writers that changed them with plain JDBC and publish what they
+     * read; the rows read are put into the cache again.
+     */
+    @EntityGraph(attributePaths = {"categories"})
+    @Query("SELECT b FROM Book b WHERE b.id IN :ids")
+    @QueryHints(@QueryHint(name = AvailableHints.HINT_CACHE_MODE, value = "REFRESH"))
+    List<Book> findAllFromDatabaseByIdIn(Collection<Long> ids);
+
+    @QueryHints({
+            @QueryHint(name = AvailableHints.HINT_CACHEABLE, value = "true"),
+            @QueryHint(name = AvailableHints.HINT_CACHE_REGION, value = QUERY_CACHE_REGION)})
+    @Query("SELECT b.id FROM Book b WHERE b.id > :afterId ORDER BY b.id")
+    List<Long> findIdsAfterId(Long afterId, Pageable limit);
+
+    /**
+     * The leading {@code >=} bounds the range scan on {@code (is_deleted, title, id)}
+     * and the rest only skips the ties up to the last id; MySQL does not range scan
+     * on a row comparison like {@code (title, id) > (?, ?)}.
+     */
+    @QueryHints({
+            @QueryHint(name = AvailableHints.HINT_CACHEABLE, value = "true"),
+            @QueryHint(name = AvailableHints.HINT_CACHE_REGION, value = QUERY_CACHE_REGION)})
+    @Query("SELECT b.id FROM Book b "
+            + "WHERE b.title >= :title AND (b.title > :title OR b.id > :afterId) "
+            + "ORDER BY b.title, b.id")
+    List<Long> findIdsAfterTitle(String title, Long afterId, Pageable limit);
+
+    @QueryHints({
+            @QueryHint(name = AvailableHints.HINT_CACHEABLE, value = "true"),
+            @QueryHint(name = AvailableHints.HINT_CACHE_REGION, value = QUERY_CACHE_REGION)})
+    @Query("SELECT b.id FROM Book b "
+            + "WHERE b.price >= :price AND (b.price > :price OR b.id > :afterId) "
+            + "ORDER BY b.price, b.id")
+    List<Long> findIdsAfterPrice(BigDecimal price, Long afterId, Pageable limit);
+
+    /**
+     * Seeks on {@code books_categories.book_id}, so the scan stays on the
+     * {@code (category_id, book_id)} index instead of reaching it through {@code books}.
+     */
+    @Query(value = "SELECT bc.book_id FROM books_categories bc "
+            + "JOIN categories c ON c.id = bc.category_id AND c.is_deleted = false "
+            + "JOIN books b ON b.id = bc.book_id AND b.is_deleted = false "
+            + "WHERE bc.category_id = :categoryId AND bc.book_id > :afterId "
+            + "ORDER BY bc.book_id",
+            nativeQuery = true)
+    List<Long> findIdsByCategoryIdAfterId(Long categoryId, Long afterId, Pageable limit);
+
+    @Query("SELECT b.id FROM Book b JOIN b.categories c "
+            + "WHERE c.id = :categoryId "
+            + "AND b.title >= :title AND (b.title > :title OR b.id > :afterId) "
+            + "ORDER BY b.title, b.id")
+    List<Long> findIdsByCategoryIdAfterTitle(Long categoryId, String title, Long afterId,
+                                             Pageable limit);
+
+    @Query("SELECT b.id FROM Book b JOIN b.categories c "
+            + "WHERE c.id = :categoryId "
+            + "AND b.price >= :price AND (b.price > :price OR b.id > :afterId) "
+            + "ORDER BY b.price, b.id")
+    List<Long> findIdsByCategoryIdAfterPrice(Long categoryId, BigDecimal price, Long afterId,
+                                             Pageable limit);
 }
@@ -1,6 +1,8 @@
 package com.example.bookstore.repository;
 
 import com.example.bookstore.model.CartItem;
+import java.util.Optional;
+import org.springframework.data.jpa.repository.EntityGraph;
 import org.springframework.data.jpa.repository.JpaRepository;
 import org.springframework.data.jpa.repository.Modifying;
 import org.springframework.data.jpa.repository.Query;
@@ -9,4 +11,21 @@ public interface CartItemRepository extends JpaRepository<CartItem, Long> {
     @Modifying
     @Query("UPDATE CartItem c SET c.isDeleted = true WHERE c.shoppingCart.id = :userId")
     void deleteByShoppingCartIAndId(Long userId);
+
+    /**
+     * Sets the quantity only if the item belongs to the cart; returns the number of
+     * updated rows, so that ownership needs no read before the write.
+     */
+    @Modifying(clearAutomatically = true)
+    @Query("UPDATE CartItem c SET c.quantity = :quantity WHERE c.id = :id "
+            + "AND c.shoppingCart.id = :shoppingCartId AND c.isDeleted = false")
+    int updateQuantityByIdAndShoppingCartId(Long id, Long shoppingCartId, Integer quantity);
+
+    @Modifying(clearAutomatically = true)
+    @Query("UPDATE CartItem c SET c.isDeleted = true WHERE c.id = :id "
+            + "AND c.shoppingCart.id = :shoppingCartId AND c.isDeleted = false")
+    int deleteByIdAndShoppingCartId(Long id, Long shoppingCartId);
+
+    @EntityGraph(attributePaths = "book")
+    Optional<CartItem> findWithBookById(Long id);
 }
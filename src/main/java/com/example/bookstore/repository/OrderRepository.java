@@ -1,17 +1,22 @@
 package com.example.bookstore.repository;
 
 import com.example.bookstore.model.Order;
-import com.example.bookstore.model.User;
+import java.util.Collection;
+import java.util.List;
 import java.util.Optional;
-import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Slice;
 import org.springframework.data.jpa.repository.EntityGraph;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
 
 public interface OrderRepository extends JpaRepository<Order, Long> {
+    @Query("SELECT o.id FROM Order o WHERE o.user.id = :userId")
+    Slice<Long> findIdsByUserId(Long userId, Pageable pageable);
+
     @EntityGraph(attributePaths = {"orderItems", "orderItems.book"})
-    Page<Order> findOrdersByUser(User user, Pageable pageable);
+    List<Order> findAllByIdIn(Collection<Long> ids);
 
     @EntityGraph(attributePaths = "orderItems")
-    Optional<Order> findByIdAndUser(Long orderId, User user);
+    Optional<Order> findByIdAndUserId(Long orderId, Long userId);
 }
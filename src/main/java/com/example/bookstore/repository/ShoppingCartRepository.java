@@ -1,12 +1,11 @@
 package com.example.bookstore.repository;
 
 import com.example.bookstore.model.ShoppingCart;
-import com.example.bookstore.model.User;
 import java.util.Optional;
 import org.springframework.data.jpa.repository.EntityGraph;
 import org.springframework.data.jpa.repository.JpaRepository;
 
 public interface ShoppingCartRepository extends JpaRepository<ShoppingCart, Long> {
     @EntityGraph(attributePaths = {"cartItems", "cartItems.book"})
-    Optional<ShoppingCart> findByUser(User user);
+    Optional<ShoppingCart> findByUserId(Long userId);
 }
@@ -6,6 +6,9 @@ import org.springframework.data.jpa.repository.JpaRepository;
 import org.springframework.data.jpa.repository.Query;
 
 public interface UserRepository extends JpaRepository<User, Long> {
-    @Query("FROM User users INNER JOIN FETCH users.roles WHERE users.email = :email")
+    @Query("FROM User users WHERE users.email = :email")
     Optional<User> findByEmail(String email);
+
+    @Query("SELECT users.version FROM User users WHERE users.id = :id")
+    Optional<Long> findVersionById(Long id);
 }
@@ -0,0 +1,11 @@
+package com.example.bookstore.security;
+
+import org.springframework.security.core.userdetails.UserDetails;
+
+/**
+ * Principal stored in the security context. It is either the {@code User} entity
+ * or a {@link JwtUserPrincipal} built from token claims without a database lookup.
+ */
+public interface AuthenticatedUser extends UserDetails {
+    Long getId();
+}
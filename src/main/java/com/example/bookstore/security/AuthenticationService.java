@@ -2,6 +2,7 @@ package com.example.bookstore.security;
 
 import com.example.bookstore.dto.user.UserLoginRequestDto;
 import com.example.bookstore.dto.user.UserLoginResponseDto;
+import com.example.bookstore.model.User;
 import lombok.RequiredArgsConstructor;
 import org.springframework.security.authentication.AuthenticationManager;
 import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
@@ -19,7 +20,7 @@ public class AuthenticationService {
                 new UsernamePasswordAuthenticationToken(request.getEmail(), request.getPassword())
         );
 
-        String token = jwtUtil.generateToken(authentication.getName());
+        String token = jwtUtil.generateToken((User) authentication.getPrincipal());
         return new UserLoginResponseDto(token);
     }
 }
@@ -1,20 +1,51 @@
 package com.example.bookstore.security;
 
+import com.example.bookstore.model.User;
 import com.example.bookstore.repository.UserRepository;
+import jakarta.transaction.Transactional;
 import lombok.RequiredArgsConstructor;
+import org.hibernate.Hibernate;
 import org.springframework.security.core.userdetails.UserDetails;
+import org.springframework.security.core.userdetails.UserDetailsPasswordService;
 import org.springframework.security.core.userdetails.UserDetailsService;
 import org.springframework.security.core.userdetails.UsernameNotFoundException;
 import org.springframework.stereotype.Component;
 
 @Component
 @RequiredArgsConstructor
-public class CustomUserDetailsService implements UserDetailsService {
+public class CustomUserDetailsService implements UserDetailsService, UserDetailsPasswordService {
     private final UserRepository userRepository;
 
+    /**
+     * Roles are initialized from the second-level cache instead of being joined to
+     * the user row, so a warm lookup reads only the users table.
+     */
     @Override
+    @Transactional
     public UserDetails loadUserByUsername(String username) throws UsernameNotFoundException {
-        return userRepository.findByEmail(username).orElseThrow(
+        User user = userRepository.findByEmail(username).orElseThrow(
                 () -> new RuntimeException("Cannot find user by email"));
+        Hibernate.initialize(user.getRoles());
+        return user;
+    }
+
+    /**
+     * Called after a successful login when the stored hash was made with a different
+     * BCrypt cost than the configured one. Like any password change it moves the
+     * version of the user on, which revokes the tokens issued before; the token of
+     * this login is issued with the new version.
+     */
+    @Override
+    @Transactional
+    public UserDetails updatePassword(UserDetails user, String newPassword) {
+        User stored = userRepository.findByEmail(user.getUsername()).orElseThrow(
+                () -> new RuntimeException("Cannot find user by email"));
+        stored.setPassword(newPassword);
+        userRepository.saveAndFlush(stored);
+        if (user instanceof User && user != stored) {
+            ((User) user).setPassword(newPassword);
+            ((User) user).setVersion(stored.getVersion());
+        }
+        return user;
     }
 }
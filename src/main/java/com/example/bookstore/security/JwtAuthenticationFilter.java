@@ -1,11 +1,12 @@
 package com.example.bookstore.security;
 
+import io.jsonwebtoken.JwtException;
 import jakarta.servlet.FilterChain;
 import jakarta.servlet.ServletException;
 import jakarta.servlet.http.HttpServletRequest;
 import jakarta.servlet.http.HttpServletResponse;
 import java.io.IOException;
-import lombok.RequiredArgsConstructor;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
 import org.springframework.security.core.Authentication;
 import org.springframework.security.core.context.SecurityContextHolder;
@@ -16,10 +17,23 @@ import org.springframework.util.StringUtils;
 import org.springframework.web.filter.OncePerRequestFilter;
 
 @Component
-@RequiredArgsConstructor
 public class JwtAuthenticationFilter extends OncePerRequestFilter {
     private final JwtUtil jwtUtil;
     private final UserDetailsService userDetailsService;
+    private final UserVersionCache userVersionCache;
+    private final boolean statelessPrincipal;
+
+    public JwtAuthenticationFilter(
+            JwtUtil jwtUtil,
+            UserDetailsService userDetailsService,
+            UserVersionCache userVersionCache,
+            @Value("${jwt.stateless-principal:true}") boolean statelessPrincipal
+    ) {
+        this.jwtUtil = jwtUtil;
+        this.userDetailsService = userDetailsService;
+        this.userVersionCache = userVersionCache;
+        this.statelessPrincipal = statelessPrincipal;
+    }
 
     @Override
     protected void doFilterInternal(
@@ -29,9 +43,8 @@ public class JwtAuthenticationFilter extends OncePerRequestFilter {
     ) throws ServletException, IOException {
         String token = getToken(request);
 
-        if (token != null && jwtUtil.isValidToken(token)) {
-            String username = jwtUtil.getUsername(token);
-            UserDetails userDetails = userDetailsService.loadUserByUsername(username);
+        if (token != null) {
+            UserDetails userDetails = getUserDetails(jwtUtil.parseToken(token));
             Authentication authentication =
                     new UsernamePasswordAuthenticationToken(userDetails, null,
                             userDetails.getAuthorities());
@@ -41,6 +54,17 @@ public class JwtAuthenticationFilter extends OncePerRequestFilter {
         filterChain.doFilter(request, response);
     }
 
+    private UserDetails getUserDetails(JwtClaims claims) {
+        if (!claims.hasPrincipal()
+                || !userVersionCache.isCurrent(claims.getUserId(), claims.getVersion())) {
+            throw new JwtException("Expired or invalid JWT token");
+        }
+        if (!statelessPrincipal) {
+            return userDetailsService.loadUserByUsername(claims.getUsername());
+        }
+        return JwtUserPrincipal.from(claims);
+    }
+
     private String getToken(HttpServletRequest request) {
         String bearerToken = request.getHeader("Authorization");
         if (StringUtils.hasText(bearerToken) && bearerToken.startsWith("Bearer ")) {
@@ -0,0 +1,33 @@
+package com.example.bookstore.security;
+
+import java.time.Instant;
+import java.util.List;
+import lombok.Getter;
+import lombok.RequiredArgsConstructor;
+
+/**
+ * Verified claims of a JWT token. Instances are only created after the signature
+ * has been checked, so they can be shared between requests.
+ */
+@Getter
+@RequiredArgsConstructor
+public final class JwtClaims {
+    private final String username;
+    private final Instant issuedAt;
+    private final Instant expiration;
+    private final Long userId;
+    private final List<String> roles;
+    private final Long version;
+
+    public boolean isExpired(Instant now) {
+        return !expiration.isAfter(now);
+    }
+
+    /**
+     * Tokens issued before user id, roles and version were embedded carry only the
+     * subject. Without a version they cannot be revoked, so they are rejected.
+     */
+    public boolean hasPrincipal() {
+        return userId != null && roles != null && version != null;
+    }
+}
@@ -0,0 +1,48 @@
+package com.example.bookstore.security;
+
+import com.example.bookstore.model.Role;
+import java.util.List;
+import lombok.Getter;
+import lombok.RequiredArgsConstructor;
+
+@Getter
+@RequiredArgsConstructor
+public class JwtUserPrincipal implements AuthenticatedUser {
+    private final Long id;
+    private final String username;
+    private final List<Role.RoleName> authorities;
+
+    public static JwtUserPrincipal from(JwtClaims claims) {
+        return new JwtUserPrincipal(
+                claims.getUserId(),
+                claims.getUsername(),
+                claims.getRoles().stream()
+                        .map(Role.RoleName::valueOf)
+                        .toList());
+    }
+
+    @Override
+    public String getPassword() {
+        return null;
+    }
+
+    @Override
+    public boolean isAccountNonExpired() {
+        return true;
+    }
+
+    @Override
+    public boolean isAccountNonLocked() {
+        return true;
+    }
+
+    @Override
+    public boolean isCredentialsNonExpired() {
+        return true;
+    }
+
+    @Override
+    public boolean isEnabled() {
+        return true;
+    }
+}
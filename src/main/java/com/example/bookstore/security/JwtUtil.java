@@ -1,59 +1,173 @@
 package com.example.bookstore.security;
 
+import com.example.bookstore.model.User;
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.github.benmanes.caffeine.cache.Expiry;
 import io.jsonwebtoken.Claims;
-import io.jsonwebtoken.Jws;
 import io.jsonwebtoken.JwtException;
+import io.jsonwebtoken.JwtParser;
 import io.jsonwebtoken.Jwts;
 import io.jsonwebtoken.security.Keys;
 import java.nio.charset.StandardCharsets;
 import java.security.Key;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.time.Clock;
+import java.time.Duration;
+import java.util.Base64;
 import java.util.Date;
-import java.util.function.Function;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Component;
 
 @Component
 public class JwtUtil {
-    @Value("${jwt.expiration}")
-    private long expiration;
+    private static final String TOKEN_DIGEST_ALGORITHM = "SHA-256";
+    private static final String USER_ID_CLAIM = "uid";
+    private static final String ROLES_CLAIM = "roles";
+    private static final String VERSION_CLAIM = "ver";
+
+    private final long expiration;
+    private final Clock clock;
     private final Key secret;
+    private final JwtParser parser;
+    private final Cache<String, JwtClaims> verifiedTokens;
+
+    @Autowired
+    public JwtUtil(
+            @Value("${jwt.secret}") String secretString,
+            @Value("${jwt.expiration}") long expiration,
+            @Value("${jwt.cache.max-size:10000}") long cacheMaxSize,
+            @Value("${jwt.cache.ttl:5m}") Duration cacheTtl
+    ) {
+        this(secretString, expiration, cacheMaxSize, cacheTtl, Clock.systemUTC());
+    }
 
-    public JwtUtil(@Value("${jwt.secret}") String secretString) {
-        secret = Keys.hmacShaKeyFor(secretString.getBytes(StandardCharsets.UTF_8));
+    JwtUtil(String secretString, long expiration, long cacheMaxSize, Duration cacheTtl,
+            Clock clock) {
+        this.expiration = expiration;
+        this.clock = clock;
+        this.secret = Keys.hmacShaKeyFor(secretString.getBytes(StandardCharsets.UTF_8));
+        this.parser = Jwts.parserBuilder()
+                .setSigningKey(secret)
+                .setClock(() -> new Date(clock.millis()))
+                .build();
+        this.verifiedTokens = Caffeine.newBuilder()
+                .maximumSize(cacheMaxSize)
+                .expireAfter(new TokenExpiry(cacheTtl, clock))
+                .ticker(() -> TimeUnit.MILLISECONDS.toNanos(clock.millis()))
+                .build();
     }
 
-    public String generateToken(String username) {
+    public String generateToken(User user) {
         return Jwts.builder()
-                .setSubject(username)
-                .setIssuedAt(new Date(System.currentTimeMillis()))
-                .setExpiration(new Date(System.currentTimeMillis() + expiration))
+                .setSubject(user.getUsername())
+                .claim(USER_ID_CLAIM, user.getId())
+                .claim(ROLES_CLAIM, user.getRoles().stream()
+                        .map(role -> role.getName().name())
+                        .toList())
+                .claim(VERSION_CLAIM, user.getVersion())
+                .setIssuedAt(new Date(clock.millis()))
+                .setExpiration(new Date(clock.millis() + expiration))
                 .signWith(secret)
                 .compact();
     }
 
-    public boolean isValidToken(String token) {
-        try {
-            Jws<Claims> claimsJws = Jwts.parserBuilder()
-                    .setSigningKey(secret)
-                    .build()
-                    .parseClaimsJws(token);
+    /**
+     * Verifies the token and returns its claims. A token that was already verified
+     * is served from the cache without checking the signature again.
+     *
+     * @throws JwtException if the token is malformed, has a wrong signature or is expired
+     */
+    public JwtClaims parseToken(String token) {
+        String digest = digest(token);
+        JwtClaims cached = verifiedTokens.getIfPresent(digest);
+        if (cached != null && !cached.isExpired(clock.instant())) {
+            return cached;
+        }
 
-            return !claimsJws.getBody().getExpiration().before(new Date());
+        JwtClaims claims = verify(token);
+        verifiedTokens.put(digest, claims);
+        return claims;
+    }
+
+    private JwtClaims verify(String token) {
+        Claims body;
+        try {
+            body = parser.parseClaimsJws(token).getBody();
         } catch (JwtException | IllegalArgumentException e) {
             throw new JwtException("Expired or invalid JWT token");
         }
+
+        if (body.getIssuedAt() == null || body.getExpiration() == null
+                || body.getExpiration().before(new Date(clock.millis()))) {
+            throw new JwtException("Expired or invalid JWT token");
+        }
+        return new JwtClaims(
+                body.getSubject(),
+                body.getIssuedAt().toInstant(),
+                body.getExpiration().toInstant(),
+                body.get(USER_ID_CLAIM, Long.class),
+                getRoles(body),
+                body.get(VERSION_CLAIM, Long.class));
     }
 
-    private <T> T getClaimFromToken(String token, Function<Claims, T> claimsResolver) {
-        final Claims claims = Jwts.parserBuilder()
-                .setSigningKey(secret)
-                .build()
-                .parseClaimsJws(token)
-                .getBody();
-        return claimsResolver.apply(claims);
+    private static List<String> getRoles(Claims body) {
+        Object roles = body.get(ROLES_CLAIM);
+        if (!(roles instanceof List)) {
+            return null;
+        }
+        return ((List<?>) roles).stream()
+                .map(String::valueOf)
+                .toList();
     }
 
-    public String getUsername(String token) {
-        return getClaimFromToken(token, Claims::getSubject);
+    private static String digest(String token) {
+        try {
+            byte[] hash = MessageDigest.getInstance(TOKEN_DIGEST_ALGORITHM)
+                    .digest(token.getBytes(StandardCharsets.UTF_8));
+            return Base64.getEncoder().withoutPadding().encodeToString(hash);
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("Cannot create token digest", e);
+        }
+    }
+
+    /**
+     * Keeps a verified token no longer than the configured ttl and never past its
+     * own expiration.
+     */
+    private static class TokenExpiry implements Expiry<String, JwtClaims> {
+        private final Duration cacheTtl;
+        private final Clock clock;
+
+        TokenExpiry(Duration cacheTtl, Clock clock) {
+            this.cacheTtl = cacheTtl;
+            this.clock = clock;
+        }
+
+        @Override
+        public long expireAfterCreate(String digest, JwtClaims claims, long currentTime) {
+            Duration untilExpiration = Duration.between(clock.instant(),
+                    claims.getExpiration());
+            if (untilExpiration.isNegative()) {
+                return 0;
+            }
+            return Math.min(untilExpiration.toNanos(), cacheTtl.toNanos());
+        }
+
+        @Override
+        public long expireAfterUpdate(String digest, JwtClaims claims, long currentTime,
+                                      long currentDuration) {
+            return expireAfterCreate(digest, claims, currentTime);
+        }
+
+        @Override
+        public long expireAfterRead(String digest, JwtClaims claims, long currentTime,
+                                    long currentDuration) {
+            return currentDuration;
+        }
     }
 }
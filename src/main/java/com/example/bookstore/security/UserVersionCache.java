@@ -0,0 +1,36 @@
+package com.example.bookstore.security;
+
+import com.example.bookstore.repository.UserRepository;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.github.benmanes.caffeine.cache.LoadingCache;
+import java.time.Duration;
+import java.util.Optional;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+/**
+ * Short-lived cache of {@code users.version}. A token carries the version of the
+ * user at login time; role changes bump the version and soft-deleted users have
+ * no version at all, so both invalidate older tokens once the entry expires.
+ */
+@Component
+public class UserVersionCache {
+    private final LoadingCache<Long, Optional<Long>> versions;
+
+    public UserVersionCache(
+            UserRepository userRepository,
+            @Value("${jwt.user-version.max-size:10000}") long maxSize,
+            @Value("${jwt.user-version.ttl:30s}") Duration ttl
+    ) {
+        this.versions = Caffeine.newBuilder()
+                .maximumSize(maxSize)
+                .expireAfterWrite(ttl)
+                .build(userRepository::findVersionById);
+    }
+
+    public boolean isCurrent(Long userId, Long version) {
+        return versions.get(userId)
+                .map(current -> current.equals(version))
+                .orElse(false);
+    }
+}
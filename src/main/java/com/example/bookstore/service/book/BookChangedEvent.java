@@ -0,0 +1,28 @@
+package com.example.bookstore.service.book;
+
+import com.example.bookstore.dto.book.BookDto;
+import lombok.Getter;
+import lombok.RequiredArgsConstructor;
+
+/**
+ * Published after a book was created, updated or deleted, so in-memory indexes can
+ * follow the database without a rebuild.
+ */
+@Getter
+@RequiredArgsConstructor
+public class BookChangedEvent {
+    private final Long bookId;
+    private final BookDto book;
+
+    public static BookChangedEvent saved(BookDto book) {
+        return new BookChangedEvent(book.getId(), book);
+    }
+
+    public static BookChangedEvent deleted(Long bookId) {
+        return new BookChangedEvent(bookId, null);
+    }
+
+    public boolean isDeleted() {
+        return book == null;
+    }
+}
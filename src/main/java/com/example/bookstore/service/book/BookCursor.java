@@ -0,0 +1,70 @@
+package com.example.bookstore.service.book;
+
+import com.example.bookstore.exception.InvalidCursorException;
+import com.example.bookstore.model.Book;
+import java.math.BigDecimal;
+import java.nio.charset.StandardCharsets;
+import java.util.Base64;
+import lombok.Getter;
+import lombok.RequiredArgsConstructor;
+
+/**
+ * Position in a keyset-paginated book listing: the sort key plus the id and sort
+ * value of the last returned book. Clients only see it as an opaque token.
+ */
+@Getter
+@RequiredArgsConstructor
+public class BookCursor {
+    private static final String SEPARATOR = "\n";
+    private static final String FIRST_TITLE = "";
+    private static final BigDecimal FIRST_PRICE = BigDecimal.ONE.negate();
+
+    private final BookSortKey sortKey;
+    private final Long id;
+    private final String title;
+    private final BigDecimal price;
+
+    /**
+     * Cursor placed before the first book. Prices are never negative, titles are
+     * never blank and ids start at one, so these values sort before every row.
+     */
+    public static BookCursor first(BookSortKey sortKey) {
+        return new BookCursor(sortKey, 0L, FIRST_TITLE, FIRST_PRICE);
+    }
+
+    public static BookCursor after(BookSortKey sortKey, Book book) {
+        return new BookCursor(sortKey, book.getId(), book.getTitle(), book.getPrice());
+    }
+
+    public static BookCursor decode(String token) {
+        String[] parts;
+        try {
+            parts = new String(Base64.getUrlDecoder().decode(token), StandardCharsets.UTF_8)
+                    .split(SEPARATOR, 3);
+        } catch (IllegalArgumentException e) {
+            throw new InvalidCursorException("Invalid cursor: " + token, e);
+        }
+        if (parts.length != 3) {
+            throw new InvalidCursorException("Invalid cursor: " + token);
+        }
+
+        try {
+            BookSortKey sortKey = BookSortKey.valueOf(parts[0]);
+            Long id = Long.valueOf(parts[1]);
+            if (sortKey == BookSortKey.PRICE) {
+                return new BookCursor(sortKey, id, FIRST_TITLE, new BigDecimal(parts[2]));
+            }
+            return new BookCursor(sortKey, id, parts[2], FIRST_PRICE);
+        } catch (IllegalArgumentException e) {
+            throw new InvalidCursorException("Invalid cursor: " + token, e);
+        }
+    }
+
+    public String encode() {
+        String value = sortKey == BookSortKey.PRICE ? price.toPlainString() : title;
+        String raw = sortKey.name() + SEPARATOR + id + SEPARATOR
+                + (sortKey == BookSortKey.ID ? "" : value);
+        return Base64.getUrlEncoder().withoutPadding()
+                .encodeToString(raw.getBytes(StandardCharsets.UTF_8));
+    }
+}
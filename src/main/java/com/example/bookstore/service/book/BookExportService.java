@@ -0,0 +1,18 @@
+package com.example.bookstore.service.book;
+
+import com.example.bookstore.dto.book.BookDto;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.util.function.Consumer;
+import org.springframework.stereotype.Service;
+
+@Service
+public interface BookExportService {
+    void exportBooks(OutputStream out) throws IOException;
+
+    /**
+     * Passes every book to {@code consumer} in id order, reading them from one
+     * forward-only result set.
+     */
+    void forEachBook(Consumer<BookDto> consumer);
+}
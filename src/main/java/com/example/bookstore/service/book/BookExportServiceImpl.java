@@ -0,0 +1,115 @@
+package com.example.bookstore.service.book;
+
+import com.example.bookstore.dto.book.BookDto;
+import com.example.bookstore.mapper.BookMapper;
+import com.example.bookstore.model.Book;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import jakarta.persistence.EntityManager;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.UncheckedIOException;
+import java.util.HashSet;
+import java.util.function.Consumer;
+import org.hibernate.CacheMode;
+import org.hibernate.ScrollMode;
+import org.hibernate.ScrollableResults;
+import org.hibernate.Session;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+/**
+ * Reads the whole catalog from one forward-only result set of (book, category id)
+ * rows ordered by book id. The persistence context is cleared every
+ * {@code book.export.clear-interval} books, so memory use does not grow with the
+ * catalog size.
+ */
+@Service
+public class BookExportServiceImpl implements BookExportService {
+    private static final String SELECT_BOOKS_WITH_CATEGORY_IDS =
+            "SELECT b, c.id FROM Book b LEFT JOIN b.categories c ORDER BY b.id";
+    private static final byte LINE_SEPARATOR = '\n';
+
+    private final EntityManager entityManager;
+    private final TransactionTemplate transactionTemplate;
+    private final BookMapper bookMapper;
+    private final ObjectMapper objectMapper;
+    private final int fetchSize;
+    private final int clearInterval;
+
+    public BookExportServiceImpl(
+            EntityManager entityManager,
+            PlatformTransactionManager transactionManager,
+            BookMapper bookMapper,
+            ObjectMapper objectMapper,
+            @Value("${book.export.fetch-size:1000}") int fetchSize,
+            @Value("${book.export.clear-interval:1000}") int clearInterval
+    ) {
+        this.entityManager = entityManager;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        this.transactionTemplate.setReadOnly(true);
+        this.bookMapper = bookMapper;
+        this.objectMapper = objectMapper;
+        this.fetchSize = fetchSize;
+        this.clearInterval = clearInterval;
+    }
+
+    @Override
+    public void exportBooks(OutputStream out) throws IOException {
+        try {
+            forEachBook(book -> write(out, book));
+        } catch (UncheckedIOException e) {
+            throw e.getCause();
+        }
+        out.flush();
+    }
+
+    @Override
+    public void forEachBook(Consumer<BookDto> consumer) {
+        transactionTemplate.executeWithoutResult(status -> scrollBooks(consumer));
+    }
+
+    private void scrollBooks(Consumer<BookDto> consumer) {
+        Session session = entityManager.unwrap(Session.class);
+        try (ScrollableResults<Object[]> rows = session
+                .createQuery(SELECT_BOOKS_WITH_CATEGORY_IDS, Object[].class)
+                .setFetchSize(fetchSize)
+                .setReadOnly(true)
+                .setCacheMode(CacheMode.IGNORE)
+                .scroll(ScrollMode.FORWARD_ONLY)) {
+            BookDto current = null;
+            int processed = 0;
+            while (rows.next()) {
+                Object[] row = rows.get();
+                Book book = (Book) row[0];
+                if (current == null || !current.getId().equals(book.getId())) {
+                    if (current != null) {
+                        consumer.accept(current);
+                        processed++;
+                        if (processed % clearInterval == 0) {
+                            session.clear();
+                        }
+                    }
+                    current = bookMapper.toDtoWithoutCategoryIds(book);
+                    current.setCategoryIds(new HashSet<>());
+                }
+                if (row[1] != null) {
+                    current.getCategoryIds().add((Long) row[1]);
+                }
+            }
+            if (current != null) {
+                consumer.accept(current);
+            }
+        }
+    }
+
+    private void write(OutputStream out, BookDto book) {
+        try {
+            out.write(objectMapper.writeValueAsBytes(book));
+            out.write(LINE_SEPARATOR);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+}
@@ -0,0 +1,6 @@
+package com.example.bookstore.service.book;
+
+public enum BookImportFormat {
+    CSV,
+    NDJSON
+}
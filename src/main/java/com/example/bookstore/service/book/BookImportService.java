@@ -0,0 +1,10 @@
+package com.example.bookstore.service.book;
+
+import com.example.bookstore.dto.book.BookImportResponseDto;
+import java.io.InputStream;
+import org.springframework.stereotype.Service;
+
+@Service
+public interface BookImportService {
+    BookImportResponseDto importBooks(InputStream content, BookImportFormat format);
+}
@@ -0,0 +1,413 @@
+package com.example.bookstore.service.book;
+
+import com.example.bookstore.dto.book.BookDto;
+import com.example.bookstore.dto.book.BookImportErrorDto;
+import com.example.bookstore.dto.book.BookImportResponseDto;
+import com.example.bookstore.dto.book.CreateBookRequestDto;
+import com.example.bookstore.exception.BookImportException;
+import com.example.bookstore.repository.BookRepository;
+import com.example.bookstore.service.coalescing.CoalescedWrite;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import jakarta.persistence.EntityManagerFactory;
+import jakarta.validation.ConstraintViolation;
+import jakarta.validation.Validator;
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.math.BigDecimal;
+import java.nio.charset.StandardCharsets;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.Statement;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.stream.Collectors;
+import org.hibernate.Cache;
+import org.hibernate.SessionFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.dao.IncorrectResultSizeDataAccessException;
+import org.springframework.jdbc.core.ConnectionCallback;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.namedparam.NamedParameterJdbcTemplate;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionTemplate;
+
+/**
+ * Imports books with plain JDBC batches instead of one {@code BookRepository.save}
+ * per row. Books keep their identity ids; the generated ids of a batch are used to
+ * insert the {@code books_categories} rows and to publish a {@link BookChangedEvent}
+ * per book once its batch is committed and the cached book id queries are evicted.
+ * A batch the database rejects, e.g. because another import inserted one of its
+ * isbns in the meantime, is inserted again row by row, so only the rows that fail
+ * are reported and the others are still imported.
+ */
+@Service
+public class BookImportServiceImpl implements BookImportService {
+    private static final String INSERT_BOOK = "INSERT INTO books "
+            + "(title, author, isbn, price, description, cover_image, is_deleted) "
+            + "VALUES (?, ?, ?, ?, ?, ?, false)";
+    private static final String INSERT_BOOK_CATEGORY =
+            "INSERT INTO books_categories (book_id, category_id) VALUES (?, ?)";
+    private static final String SELECT_CATEGORY_IDS =
+            "SELECT id FROM categories WHERE is_deleted = false";
+    private static final String SELECT_EXISTING_ISBNS =
+            "SELECT isbn FROM books WHERE isbn IN (:isbns)";
+    private static final List<String> CSV_COLUMNS = List.of(
+            "title", "author", "isbn", "price", "description", "coverImage", "categoryIds");
+    private static final String CATEGORY_IDS_SEPARATOR = ";";
+
+    private final JdbcTemplate jdbcTemplate;
+    private final NamedParameterJdbcTemplate namedParameterJdbcTemplate;
+    private final TransactionTemplate transactionTemplate;
+    private final Validator validator;
+    private final ObjectMapper objectMapper;
+    private final Cache secondLevelCache;
+    private final ApplicationEventPublisher eventPublisher;
+    private final int batchSize;
+    private final int maxReportedErrors;
+
+    public BookImportServiceImpl(
+            JdbcTemplate jdbcTemplate,
+            NamedParameterJdbcTemplate namedParameterJdbcTemplate,
+            TransactionTemplate transactionTemplate,
+            Validator validator,
+            ObjectMapper objectMapper,
+            EntityManagerFactory entityManagerFactory,
+            ApplicationEventPublisher eventPublisher,
+            @Value("${book.import.batch-size:1000}") int batchSize,
+            @Value("${book.import.max-reported-errors:1000}") int maxReportedErrors
+    ) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.namedParameterJdbcTemplate = namedParameterJdbcTemplate;
+        this.transactionTemplate = transactionTemplate;
+        this.validator = validator;
+        this.objectMapper = objectMapper;
+        this.secondLevelCache = entityManagerFactory.unwrap(SessionFactory.class).getCache();
+        this.eventPublisher = eventPublisher;
+        this.batchSize = batchSize;
+        this.maxReportedErrors = maxReportedErrors;
+    }
+
+    @Override
+    @CoalescedWrite
+    public BookImportResponseDto importBooks(InputStream content, BookImportFormat format) {
+        long start = System.nanoTime();
+        BookImportResponseDto response = new BookImportResponseDto();
+        Set<Long> categoryIds = new HashSet<>(
+                jdbcTemplate.queryForList(SELECT_CATEGORY_IDS, Long.class));
+        Set<String> seenIsbns = new HashSet<>();
+        List<ImportRow> batch = new ArrayList<>(batchSize);
+
+        try (BufferedReader reader = new BufferedReader(
+                new InputStreamReader(content, StandardCharsets.UTF_8))) {
+            Map<String, Integer> header = format == BookImportFormat.CSV
+                    ? parseHeader(reader.readLine())
+                    : null;
+            long lineNumber = format == BookImportFormat.CSV ? 1 : 0;
+
+            for (String line = reader.readLine(); line != null; line = reader.readLine()) {
+                lineNumber++;
+                if (line.isBlank()) {
+                    continue;
+                }
+                response.setTotalRows(response.getTotalRows() + 1);
+
+                ImportRow row = parseRow(lineNumber, line, header, response);
+                if (row == null) {
+                    continue;
+                }
+                List<String> errors = validate(row.request, categoryIds);
+                if (errors.isEmpty() && !seenIsbns.add(row.request.getIsbn())) {
+                    errors.add("isbn is duplicated in the file");
+                }
+                if (!errors.isEmpty()) {
+                    reject(response, row.line, row.request.getIsbn(), errors);
+                    continue;
+                }
+
+                batch.add(row);
+                if (batch.size() == batchSize) {
+                    insertBatch(batch, response);
+                    batch.clear();
+                }
+            }
+        } catch (IOException e) {
+            throw new BookImportException("Cannot read import content", e);
+        }
+        insertBatch(batch, response);
+
+        long durationNanos = System.nanoTime() - start;
+        response.setDurationMillis(durationNanos / 1_000_000);
+        response.setRowsPerSecond(durationNanos == 0
+                ? 0
+                : response.getImportedRows() * 1_000_000_000d / durationNanos);
+        return response;
+    }
+
+    private void insertBatch(List<ImportRow> batch, BookImportResponseDto response) {
+        if (batch.isEmpty()) {
+            return;
+        }
+        Set<String> existingIsbns = new HashSet<>(namedParameterJdbcTemplate.queryForList(
+                SELECT_EXISTING_ISBNS, Map.of("isbns", getIsbns(batch)), String.class));
+        List<ImportRow> rows = new ArrayList<>(batch.size());
+        for (ImportRow row : batch) {
+            if (existingIsbns.contains(row.request.getIsbn())) {
+                reject(response, row.line, row.request.getIsbn(),
+                        List.of("book with this isbn already exists"));
+            } else {
+                rows.add(row);
+            }
+        }
+        if (rows.isEmpty()) {
+            return;
+        }
+
+        try {
+            insertRows(rows, response);
+        } catch (DataIntegrityViolationException e) {
+            // The whole batch is rolled back, so find the rows that cannot be inserted
+            for (ImportRow row : rows) {
+                try {
+                    insertRows(List.of(row), response);
+                } catch (DataIntegrityViolationException rowException) {
+                    reject(response, row.line, row.request.getIsbn(), List.of(
+                            "cannot insert row: "
+                                    + rowException.getMostSpecificCause().getMessage()));
+                }
+            }
+        }
+    }
+
+    private void insertRows(List<ImportRow> rows, BookImportResponseDto response) {
+        List<Long> ids = transactionTemplate.execute(status -> {
+            List<Long> bookIds = insertBooks(rows);
+            insertBookCategories(rows, bookIds);
+            return bookIds;
+        });
+        secondLevelCache.evictQueryRegion(BookRepository.QUERY_CACHE_REGION);
+        response.setImportedRows(response.getImportedRows() + rows.size());
+        for (int i = 0; i < rows.size(); i++) {
+            eventPublisher.publishEvent(BookChangedEvent.saved(
+                    toDto(ids.get(i), rows.get(i).request)));
+        }
+    }
+
+    /**
+     * Inserts the books with one batch and returns their generated ids in the order of
+     * the rows.
+     */
+    private List<Long> insertBooks(List<ImportRow> rows) {
+        return jdbcTemplate.execute((ConnectionCallback<List<Long>>) connection -> {
+            try (PreparedStatement ps = connection.prepareStatement(
+                    INSERT_BOOK, Statement.RETURN_GENERATED_KEYS)) {
+                for (ImportRow row : rows) {
+                    ps.setString(1, row.request.getTitle());
+                    ps.setString(2, row.request.getAuthor());
+                    ps.setString(3, row.request.getIsbn());
+                    ps.setBigDecimal(4, row.request.getPrice());
+                    ps.setString(5, row.request.getDescription());
+                    ps.setString(6, row.request.getCoverImage());
+                    ps.addBatch();
+                }
+                ps.executeBatch();
+                List<Long> ids = new ArrayList<>(rows.size());
+                try (ResultSet keys = ps.getGeneratedKeys()) {
+                    while (keys.next()) {
+                        ids.add(keys.getLong(1));
+                    }
+                }
+                if (ids.size() != rows.size()) {
+                    throw new IncorrectResultSizeDataAccessException(
+                            "Unexpected number of generated book ids", rows.size(), ids.size());
+                }
+                return ids;
+            }
+        });
+    }
+
+    private void insertBookCategories(List<ImportRow> rows, List<Long> bookIds) {
+        List<long[]> bookCategories = new ArrayList<>();
+        for (int i = 0; i < rows.size(); i++) {
+            CreateBookRequestDto request = rows.get(i).request;
+            if (request.getCategoryIds() == null) {
+                continue;
+            }
+            Long bookId = bookIds.get(i);
+            for (Long categoryId : request.getCategoryIds()) {
+                bookCategories.add(new long[] {bookId, categoryId});
+            }
+        }
+        if (bookCategories.isEmpty()) {
+            return;
+        }
+        jdbcTemplate.batchUpdate(INSERT_BOOK_CATEGORY, bookCategories, bookCategories.size(),
+                (ps, bookCategory) -> {
+                    ps.setLong(1, bookCategory[0]);
+                    ps.setLong(2, bookCategory[1]);
+                });
+    }
+
+    private ImportRow parseRow(
+            long lineNumber,
+            String line,
+            Map<String, Integer> header,
+            BookImportResponseDto response
+    ) {
+        try {
+            CreateBookRequestDto request = header == null
+                    ? objectMapper.readValue(line, CreateBookRequestDto.class)
+                    : fromCsv(header, parseCsvLine(line));
+            return new ImportRow(lineNumber, request);
+        } catch (JsonProcessingException | IllegalArgumentException e) {
+            reject(response, lineNumber, null, List.of("malformed row: " + e.getMessage()));
+            return null;
+        }
+    }
+
+    private List<String> validate(CreateBookRequestDto request, Set<Long> categoryIds) {
+        List<String> errors = validator.validate(request).stream()
+                .map(BookImportServiceImpl::getErrorMessage)
+                .sorted()
+                .collect(Collectors.toCollection(ArrayList::new));
+        if (request.getCategoryIds() != null) {
+            request.getCategoryIds().stream()
+                    .filter(categoryId -> !categoryIds.contains(categoryId))
+                    .forEach(categoryId -> errors.add("category not found: " + categoryId));
+        }
+        return errors;
+    }
+
+    private void reject(
+            BookImportResponseDto response,
+            long line,
+            String isbn,
+            List<String> messages
+    ) {
+        response.setFailedRows(response.getFailedRows() + 1);
+        if (response.getErrors().size() < maxReportedErrors) {
+            BookImportErrorDto error = new BookImportErrorDto();
+            error.setLine(line);
+            error.setIsbn(isbn);
+            error.setMessages(messages);
+            response.getErrors().add(error);
+        }
+    }
+
+    private static String getErrorMessage(ConstraintViolation<CreateBookRequestDto> violation) {
+        return violation.getPropertyPath() + " " + violation.getMessage();
+    }
+
+    private static BookDto toDto(Long id, CreateBookRequestDto request) {
+        BookDto book = new BookDto();
+        book.setId(id);
+        book.setTitle(request.getTitle());
+        book.setAuthor(request.getAuthor());
+        book.setIsbn(request.getIsbn());
+        book.setPrice(request.getPrice());
+        book.setDescription(request.getDescription());
+        book.setCoverImage(request.getCoverImage());
+        book.setCategoryIds(request.getCategoryIds() == null
+                ? Set.of() : request.getCategoryIds());
+        return book;
+    }
+
+    private static List<String> getIsbns(List<ImportRow> rows) {
+        return rows.stream()
+                .map(row -> row.request.getIsbn())
+                .toList();
+    }
+
+    private static Map<String, Integer> parseHeader(String line) {
+        if (line == null) {
+            throw new BookImportException("CSV content is empty");
+        }
+        List<String> columns = parseCsvLine(line);
+        Map<String, Integer> header = new HashMap<>();
+        for (int i = 0; i < columns.size(); i++) {
+            header.put(columns.get(i).trim(), i);
+        }
+        if (!header.keySet().containsAll(CSV_COLUMNS.subList(0, 4))) {
+            throw new BookImportException(
+                    "CSV header must contain title, author, isbn and price columns, got: " + line);
+        }
+        return header;
+    }
+
+    private static CreateBookRequestDto fromCsv(Map<String, Integer> header, List<String> values) {
+        CreateBookRequestDto request = new CreateBookRequestDto();
+        request.setTitle(getValue(header, values, CSV_COLUMNS.get(0)));
+        request.setAuthor(getValue(header, values, CSV_COLUMNS.get(1)));
+        request.setIsbn(getValue(header, values, CSV_COLUMNS.get(2)));
+        String price = getValue(header, values, CSV_COLUMNS.get(3));
+        request.setPrice(price == null ? null : new BigDecimal(price));
+        request.setDescription(getValue(header, values, CSV_COLUMNS.get(4)));
+        request.setCoverImage(getValue(header, values, CSV_COLUMNS.get(5)));
+        String categoryIds = getValue(header, values, CSV_COLUMNS.get(6));
+        if (categoryIds != null) {
+            request.setCategoryIds(Arrays.stream(categoryIds.split(CATEGORY_IDS_SEPARATOR))
+                    .map(String::trim)
+                    .map(Long::valueOf)
+                    .collect(Collectors.toSet()));
+        }
+        return request;
+    }
+
+    private static String getValue(Map<String, Integer> header, List<String> values, String name) {
+        Integer index = header.get(name);
+        if (index == null || index >= values.size() || values.get(index).isBlank()) {
+            return null;
+        }
+        return values.get(index).trim();
+    }
+
+    /**
+     * Splits one CSV line on commas. Values may be quoted with {@code "} and a quote
+     * inside a quoted value is written as {@code ""}; values cannot span lines.
+     */
+    private static List<String> parseCsvLine(String line) {
+        List<String> values = new ArrayList<>();
+        StringBuilder value = new StringBuilder();
+        boolean quoted = false;
+        int i = 0;
+        while (i < line.length()) {
+            char c = line.charAt(i);
+            if (quoted && c == '"' && i + 1 < line.length() && line.charAt(i + 1) == '"') {
+                value.append('"');
+                i++;
+            } else if (c == '"') {
+                quoted = !quoted;
+            } else if (c == ',' && !quoted) {
+                values.add(value.toString());
+                value.setLength(0);
+            } else {
+                value.append(c);
+            }
+            i++;
+        }
+        if (quoted) {
+            throw new IllegalArgumentException("unterminated quoted value");
+        }
+        values.add(value.toString());
+        return values;
+    }
+
+    private static class ImportRow {
+        private final long line;
+        private final CreateBookRequestDto request;
+
+        ImportRow(long line, CreateBookRequestDto request) {
+            this.line = line;
+            this.request = request;
+        }
+    }
+}
@@ -0,0 +1,35 @@
+package com.example.bookstore.service.book;
+
+import com.example.bookstore.dto.book.BookDto;
+import com.example.bookstore.dto.book.BookPricePatchDto;
+import com.example.bookstore.dto.book.BookPricesPatchResponseDto;
+import com.example.bookstore.dto.book.PatchBookRequestDto;
+import com.example.bookstore.dto.book.RepriceBooksRequestDto;
+import com.example.bookstore.dto.book.RepriceBooksResponseDto;
+import java.util.List;
+import org.springframework.stereotype.Service;
+
+@Service
+public interface BookPatchService {
+    /**
+     * Updates only the non-null fields of the request with one UPDATE statement;
+     * categories are replaced only when {@code categoryIds} is given.
+     */
+    BookDto patchById(Long id, PatchBookRequestDto requestDto);
+
+    /**
+     * Sets the price of every book of the list in JDBC batches; ids without a book
+     * are reported instead of failing the request.
+     */
+    BookPricesPatchResponseDto patchPrices(List<BookPricePatchDto> prices);
+
+    /**
+     * Changes the price of every book of the category by a percentage or an amount,
+     * never below zero, with one UPDATE joined to {@code books_categories} per chunk
+     * of books. Each chunk commits on its own, so row locks are held for one chunk
+     * only. A chunk that fails stops the request with the last committed book id;
+     * sending the request again with that {@code afterBookId} continues after it
+     * without repricing the committed books twice.
+     */
+    RepriceBooksResponseDto repriceByCategoryId(Long categoryId, RepriceBooksRequestDto requestDto);
+}
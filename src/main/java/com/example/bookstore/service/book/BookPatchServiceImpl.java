@@ -0,0 +1,309 @@
+package com.example.bookstore.service.book;
+
+import com.example.bookstore.config.CacheConfig;
+import com.example.bookstore.dto.book.BookDto;
+import com.example.bookstore.dto.book.BookPricePatchDto;
+import com.example.bookstore.dto.book.BookPricesPatchResponseDto;
+import com.example.bookstore.dto.book.PatchBookRequestDto;
+import com.example.bookstore.dto.book.RepriceBooksRequestDto;
+import com.example.bookstore.dto.book.RepriceBooksResponseDto;
+import com.example.bookstore.exception.BookRepriceInterruptedException;
+import com.example.bookstore.exception.DuplicateIsbnException;
+import com.example.bookstore.exception.EntityNotFoundException;
+import com.example.bookstore.mapper.BookMapper;
+import com.example.bookstore.model.Book;
+import com.example.bookstore.repository.BookRepository;
+import com.example.bookstore.service.coalescing.CoalescedWrite;
+import jakarta.persistence.EntityManagerFactory;
+import java.math.BigDecimal;
+import java.sql.Statement;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.StringJoiner;
+import org.hibernate.Cache;
+import org.hibernate.SessionFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.cache.CacheManager;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.dao.DataAccessException;
+import org.springframework.dao.DuplicateKeyException;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.RowCallbackHandler;
+import org.springframework.jdbc.core.namedparam.MapSqlParameterSource;
+import org.springframework.jdbc.core.namedparam.NamedParameterJdbcTemplate;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.TransactionException;
+import org.springframework.transaction.support.TransactionTemplate;
+
+/**
+ * Writes book patches with plain JDBC instead of loading the {@link Book} and
+ * saving it back. A JPA bulk update would invalidate the whole second-level cache
+ * region of books, so the changed books are evicted one by one from it and from
+ * the books cache after the commit, and the cached book id queries are evicted
+ * too. A patched book is read once more straight from the database, past both
+ * caches and any read in flight, to answer and to publish a
+ * {@link BookChangedEvent} for the search indexes; price changes are published
+ * as a {@link BookPriceChangedEvent} with the new prices instead.
+ */
+@Service
+public class BookPatchServiceImpl implements BookPatchService {
+    private static final String UPDATE_PRICE =
+            "UPDATE books SET price = ? WHERE id = ? AND is_deleted = false";
+    private static final String SELECT_BOOK_EXISTS =
+            "SELECT COUNT(*) FROM books WHERE id = ? AND is_deleted = false";
+    private static final String DELETE_BOOK_CATEGORIES =
+            "DELETE FROM books_categories WHERE book_id = ?";
+    private static final String INSERT_BOOK_CATEGORY =
+            "INSERT INTO books_categories (book_id, category_id) VALUES (?, ?)";
+    private static final String SELECT_CATEGORY_COUNT =
+            "SELECT COUNT(*) FROM categories WHERE id IN (:ids) AND is_deleted = false";
+    private static final String SELECT_CATEGORY_EXISTS =
+            "SELECT COUNT(*) FROM categories WHERE id = ? AND is_deleted = false";
+    private static final String SELECT_CATEGORY_BOOK_IDS = "SELECT book_id FROM books_categories "
+            + "WHERE category_id = ? AND book_id > ? ORDER BY book_id LIMIT ?";
+    private static final String REPRICE_CATEGORY_BOOKS = "UPDATE books b "
+            + "JOIN books_categories bc ON bc.book_id = b.id "
+            + "SET b.price = GREATEST(0, %s) "
+            + "WHERE bc.category_id = :categoryId AND bc.book_id IN (:ids) "
+            + "AND b.is_deleted = false";
+    private static final String SELECT_PRICES =
+            "SELECT id, price FROM books WHERE id IN (:ids) AND is_deleted = false";
+    private static final String CATEGORIES_ROLE = Book.class.getName() + ".categories";
+
+    private final JdbcTemplate jdbcTemplate;
+    private final NamedParameterJdbcTemplate namedParameterJdbcTemplate;
+    private final TransactionTemplate transactionTemplate;
+    private final BookRepository bookRepository;
+    private final BookMapper bookMapper;
+    private final CacheManager cacheManager;
+    private final Cache secondLevelCache;
+    private final ApplicationEventPublisher eventPublisher;
+    private final int batchSize;
+
+    public BookPatchServiceImpl(
+            JdbcTemplate jdbcTemplate,
+            NamedParameterJdbcTemplate namedParameterJdbcTemplate,
+            TransactionTemplate transactionTemplate,
+            BookRepository bookRepository,
+            BookMapper bookMapper,
+            CacheManager cacheManager,
+            EntityManagerFactory entityManagerFactory,
+            ApplicationEventPublisher eventPublisher,
+            @Value("${book.patch.batch-size:1000}") int batchSize
+    ) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.namedParameterJdbcTemplate = namedParameterJdbcTemplate;
+        this.transactionTemplate = transactionTemplate;
+        this.bookRepository = bookRepository;
+        this.bookMapper = bookMapper;
+        this.cacheManager = cacheManager;
+        this.secondLevelCache = entityManagerFactory.unwrap(SessionFactory.class).getCache();
+        this.eventPublisher = eventPublisher;
+        this.batchSize = batchSize;
+    }
+
+    @Override
+    @CoalescedWrite
+    public BookDto patchById(Long id, PatchBookRequestDto requestDto) {
+        MapSqlParameterSource parameters = new MapSqlParameterSource("id", id);
+        StringJoiner assignments = new StringJoiner(", ");
+        assign(assignments, parameters, "title", requestDto.getTitle());
+        assign(assignments, parameters, "author", requestDto.getAuthor());
+        assign(assignments, parameters, "isbn", requestDto.getIsbn());
+        assign(assignments, parameters, "price", requestDto.getPrice());
+        assign(assignments, parameters, "description", requestDto.getDescription());
+        assign(assignments, parameters, "cover_image", requestDto.getCoverImage());
+        if (assignments.length() == 0 && requestDto.getCategoryIds() == null) {
+            return findBook(id);
+        }
+        if (requestDto.getCategoryIds() == null) {
+            updateBook(id, assignments, parameters);
+        } else {
+            checkCategoriesExist(requestDto);
+            transactionTemplate.executeWithoutResult(status -> {
+                if (assignments.length() == 0) {
+                    checkBookExists(id);
+                } else {
+                    updateBook(id, assignments, parameters);
+                }
+                replaceCategories(id, requestDto);
+            });
+            secondLevelCache.evictCollectionData(CATEGORIES_ROLE, id);
+        }
+        evict(id);
+        evictBookQueries();
+        BookDto book = findBook(id);
+        eventPublisher.publishEvent(BookChangedEvent.saved(book));
+        return book;
+    }
+
+    @Override
+    @CoalescedWrite
+    public BookPricesPatchResponseDto patchPrices(List<BookPricePatchDto> prices) {
+        final long start = System.nanoTime();
+        int[][] updateCounts = transactionTemplate.execute(status ->
+                jdbcTemplate.batchUpdate(UPDATE_PRICE, prices, batchSize, (ps, patch) -> {
+                    ps.setBigDecimal(1, patch.getPrice());
+                    ps.setLong(2, patch.getId());
+                }));
+        BookPricesPatchResponseDto response = new BookPricesPatchResponseDto();
+        Map<Long, BigDecimal> updatedPrices = new LinkedHashMap<>();
+        int updatedRows = 0;
+        int index = 0;
+        for (int[] batchCounts : updateCounts) {
+            for (int updateCount : batchCounts) {
+                BookPricePatchDto patch = prices.get(index++);
+                if (updateCount > 0 || updateCount == Statement.SUCCESS_NO_INFO) {
+                    updatedRows++;
+                    updatedPrices.put(patch.getId(), patch.getPrice());
+                    evict(patch.getId());
+                } else {
+                    response.getMissingIds().add(patch.getId());
+                }
+            }
+        }
+        response.setUpdatedRows(updatedRows);
+        if (!updatedPrices.isEmpty()) {
+            evictBookQueries();
+            eventPublisher.publishEvent(new BookPriceChangedEvent(updatedPrices));
+        }
+        response.setDurationMillis((System.nanoTime() - start) / 1_000_000);
+        return response;
+    }
+
+    @Override
+    @CoalescedWrite
+    public RepriceBooksResponseDto repriceByCategoryId(
+            Long categoryId,
+            RepriceBooksRequestDto requestDto
+    ) {
+        final long start = System.nanoTime();
+        Integer categories = jdbcTemplate.queryForObject(
+                SELECT_CATEGORY_EXISTS, Integer.class, categoryId);
+        if (categories == null || categories == 0) {
+            throw new EntityNotFoundException("Can't find category with id: " + categoryId);
+        }
+        String sql = String.format(REPRICE_CATEGORY_BOOKS,
+                requestDto.getType().getPriceExpression());
+        RepriceBooksResponseDto response = new RepriceBooksResponseDto();
+        long lastBookId = requestDto.getAfterBookId() == null ? 0 : requestDto.getAfterBookId();
+        response.setLastBookId(lastBookId);
+        while (true) {
+            List<Long> ids = jdbcTemplate.queryForList(
+                    SELECT_CATEGORY_BOOK_IDS, Long.class, categoryId, lastBookId, batchSize);
+            if (ids.isEmpty()) {
+                break;
+            }
+            MapSqlParameterSource parameters = new MapSqlParameterSource()
+                    .addValue("categoryId", categoryId)
+                    .addValue("ids", ids)
+                    .addValue("value", requestDto.getValue());
+            Integer updated;
+            try {
+                updated = transactionTemplate.execute(status ->
+                        namedParameterJdbcTemplate.update(sql, parameters));
+            } catch (DataAccessException | TransactionException e) {
+                throw new BookRepriceInterruptedException("Repricing stopped after book id "
+                        + lastBookId + ", send the request again with afterBookId "
+                        + lastBookId + " to continue", lastBookId, e);
+            }
+            lastBookId = ids.get(ids.size() - 1);
+            response.setUpdatedRows(response.getUpdatedRows() + updated);
+            response.setChunks(response.getChunks() + 1);
+            response.setLastBookId(lastBookId);
+            ids.forEach(this::evict);
+            evictBookQueries();
+            publishPrices(ids);
+        }
+        response.setDurationMillis((System.nanoTime() - start) / 1_000_000);
+        return response;
+    }
+
+    private void updateBook(Long id, StringJoiner assignments, MapSqlParameterSource parameters) {
+        String sql = "UPDATE books SET " + assignments
+                + " WHERE id = :id AND is_deleted = false";
+        int updated;
+        try {
+            updated = namedParameterJdbcTemplate.update(sql, parameters);
+        } catch (DuplicateKeyException e) {
+            throw new DuplicateIsbnException(
+                    "Book with isbn " + parameters.getValue("isbn") + " already exists", e);
+        }
+        if (updated == 0) {
+            throw new EntityNotFoundException("Can't found book with id: " + id);
+        }
+    }
+
+    private void checkBookExists(Long id) {
+        Integer count = jdbcTemplate.queryForObject(SELECT_BOOK_EXISTS, Integer.class, id);
+        if (count == null || count == 0) {
+            throw new EntityNotFoundException("Can't found book with id: " + id);
+        }
+    }
+
+    private void checkCategoriesExist(PatchBookRequestDto requestDto) {
+        if (requestDto.getCategoryIds().isEmpty()) {
+            return;
+        }
+        Integer count = namedParameterJdbcTemplate.queryForObject(SELECT_CATEGORY_COUNT,
+                Map.of("ids", requestDto.getCategoryIds()), Integer.class);
+        if (count == null || count != requestDto.getCategoryIds().size()) {
+            throw new EntityNotFoundException(
+                    "Can't find categories with ids: " + requestDto.getCategoryIds());
+        }
+    }
+
+    private void replaceCategories(Long id, PatchBookRequestDto requestDto) {
+        jdbcTemplate.update(DELETE_BOOK_CATEGORIES, id);
+        if (requestDto.getCategoryIds().isEmpty()) {
+            return;
+        }
+        jdbcTemplate.batchUpdate(INSERT_BOOK_CATEGORY, requestDto.getCategoryIds(),
+                requestDto.getCategoryIds().size(), (ps, categoryId) -> {
+                    ps.setLong(1, id);
+                    ps.setLong(2, categoryId);
+                });
+    }
+
+    private BookDto findBook(Long id) {
+        return bookRepository.findAllFromDatabaseByIdIn(List.of(id)).stream()
+                .findFirst()
+                .map(bookMapper::toDto)
+                .orElseThrow(() -> new EntityNotFoundException("Can't found book with id: " + id));
+    }
+
+    private void publishPrices(List<Long> ids) {
+        Map<Long, BigDecimal> prices = new LinkedHashMap<>();
+        namedParameterJdbcTemplate.query(SELECT_PRICES, Map.of("ids", ids),
+                (RowCallbackHandler) rs -> prices.put(rs.getLong(1), rs.getBigDecimal(2)));
+        if (!prices.isEmpty()) {
+            eventPublisher.publishEvent(new BookPriceChangedEvent(prices));
+        }
+    }
+
+    private void evict(Long id) {
+        secondLevelCache.evictEntityData(Book.class, id);
+        cacheManager.getCache(CacheConfig.BOOKS_CACHE).evict(id);
+    }
+
+    private void evictBookQueries() {
+        secondLevelCache.evictQueryRegion(BookRepository.QUERY_CACHE_REGION);
+    }
+
+    /**
+     * Adds {@code column = :column} for a field of the request that is set; the
+     * column names are constants, so no user input reaches the SQL text.
+     */
+    private static void assign(
+            StringJoiner assignments,
+            MapSqlParameterSource parameters,
+            String column,
+            Object value
+    ) {
+        if (value != null) {
+            assignments.add(column + " = :" + column);
+            parameters.addValue(column, value);
+        }
+    }
+}
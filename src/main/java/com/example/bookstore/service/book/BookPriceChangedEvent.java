@@ -0,0 +1,17 @@
+package com.example.bookstore.service.book;
+
+import java.math.BigDecimal;
+import java.util.Map;
+import lombok.Getter;
+import lombok.RequiredArgsConstructor;
+
+/**
+ * Published after only the prices of existing books changed. It carries the new
+ * prices by book id, so the books don't have to be read again to update the
+ * in-memory indexes.
+ */
+@Getter
+@RequiredArgsConstructor
+public class BookPriceChangedEvent {
+    private final Map<Long, BigDecimal> prices;
+}
@@ -0,0 +1,20 @@
+package com.example.bookstore.service.book;
+
+/**
+ * How a category reprice changes each price; {@code value} is the percentage or
+ * the amount to add, negative to lower prices.
+ */
+public enum BookRepriceType {
+    PERCENT("ROUND(b.price * (100 + :value) / 100, 2)"),
+    AMOUNT("b.price + :value");
+
+    private final String priceExpression;
+
+    BookRepriceType(String priceExpression) {
+        this.priceExpression = priceExpression;
+    }
+
+    public String getPriceExpression() {
+        return priceExpression;
+    }
+}
@@ -1,8 +1,11 @@
 package com.example.bookstore.service.book;
 
+import com.example.bookstore.dto.book.BookBatchItemDto;
 import com.example.bookstore.dto.book.BookDto;
 import com.example.bookstore.dto.book.BookDtoWithoutCategoryIds;
 import com.example.bookstore.dto.book.CreateBookRequestDto;
+import com.example.bookstore.dto.common.CursorPageResponseDto;
+import com.example.bookstore.dto.common.SliceResponseDto;
 import java.util.List;
 import org.springframework.data.domain.Pageable;
 import org.springframework.stereotype.Service;
@@ -11,7 +14,7 @@ import org.springframework.stereotype.Service;
 public interface BookService {
     BookDto save(CreateBookRequestDto requestDto);
 
-    List<BookDto> findAll(Pageable pageable);
+    SliceResponseDto<BookDto> findAll(Pageable pageable);
 
     BookDto findById(Long id);
 
@@ -19,5 +22,22 @@ public interface BookService {
 
     void deleteById(Long id);
 
+    /**
+     * Returns the books with the given ids in the order of the ids; missing ids are skipped.
+     */
+    List<BookDto> findAllByIds(List<Long> ids);
+
+    /**
+     * Returns one item per requested id in the order of the ids, marking the ids that
+     * do not exist. Cached books are taken from the cache, the rest is read with one
+     * query.
+     */
+    List<BookBatchItemDto> findBatch(List<Long> ids);
+
     List<BookDtoWithoutCategoryIds> findAllByCategoryId(Long categoryId, Pageable pageable);
+
+    CursorPageResponseDto<BookDto> findAllAfter(String after, BookSortKey sortKey, int size);
+
+    CursorPageResponseDto<BookDtoWithoutCategoryIds> findAllByCategoryIdAfter(
+            Long categoryId, String after, BookSortKey sortKey, int size);
 }
@@ -1,39 +1,70 @@
 package com.example.bookstore.service.book;
 
+import com.example.bookstore.config.CacheConfig;
+import com.example.bookstore.dto.book.BookBatchItemDto;
 import com.example.bookstore.dto.book.BookDto;
 import com.example.bookstore.dto.book.BookDtoWithoutCategoryIds;
 import com.example.bookstore.dto.book.CreateBookRequestDto;
+import com.example.bookstore.dto.common.CursorPageResponseDto;
+import com.example.bookstore.dto.common.SliceResponseDto;
 import com.example.bookstore.exception.EntityNotFoundException;
+import com.example.bookstore.exception.InvalidBatchException;
 import com.example.bookstore.mapper.BookMapper;
 import com.example.bookstore.model.Book;
 import com.example.bookstore.repository.BookRepository;
+import com.example.bookstore.service.coalescing.CoalescedRead;
+import com.example.bookstore.service.coalescing.CoalescedWrite;
+import java.util.HashMap;
+import java.util.LinkedHashSet;
 import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
+import java.util.function.Function;
+import java.util.stream.Collectors;
 import lombok.RequiredArgsConstructor;
+import org.springframework.cache.Cache;
+import org.springframework.cache.CacheManager;
+import org.springframework.cache.annotation.CacheEvict;
+import org.springframework.cache.annotation.Cacheable;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.data.domain.PageRequest;
 import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Slice;
 import org.springframework.stereotype.Service;
 
 @RequiredArgsConstructor
 @Service
 public class BookServiceImpl implements BookService {
+    private static final int MAX_CURSOR_PAGE_SIZE = 100;
+    private static final int MAX_BATCH_SIZE = 100;
+
     private final BookRepository bookRepository;
     private final BookMapper bookMapper;
+    private final ApplicationEventPublisher eventPublisher;
+    private final CacheManager cacheManager;
 
     @Override
+    @CoalescedWrite
     public BookDto save(CreateBookRequestDto requestDto) {
         Book model = bookMapper.toModel(requestDto);
 
         Book savedBook = bookRepository.save(model);
-        return bookMapper.toDto(savedBook);
+        return published(bookMapper.toDto(savedBook));
     }
 
     @Override
-    public List<BookDto> findAll(Pageable pageable) {
-        return bookRepository.findAll(pageable).stream()
+    @CoalescedRead
+    public SliceResponseDto<BookDto> findAll(Pageable pageable) {
+        Slice<Long> ids = bookRepository.findIds(pageable);
+        List<BookDto> books = findAllByIdsInOrder(ids.getContent()).stream()
                 .map(bookMapper::toDto)
                 .toList();
+        return SliceResponseDto.of(books, ids.hasNext());
     }
 
     @Override
+    @Cacheable(cacheNames = CacheConfig.BOOKS_CACHE, key = "#id", sync = true)
     public BookDto findById(Long id) {
         Book byId = bookRepository.findById(id)
                 .orElseThrow(() -> new EntityNotFoundException("Cannot find book with id: " + id));
@@ -42,6 +73,8 @@ public class BookServiceImpl implements BookService {
     }
 
     @Override
+    @CoalescedWrite
+    @CacheEvict(cacheNames = CacheConfig.BOOKS_CACHE, key = "#id")
     public BookDto updateById(Long id, CreateBookRequestDto requestDto) {
         if (!bookRepository.existsById(id)) {
             throw new EntityNotFoundException("Can't found book with id: " + id);
@@ -50,18 +83,172 @@ public class BookServiceImpl implements BookService {
         book.setId(id);
 
         Book savedBook = bookRepository.save(book);
-        return bookMapper.toDto(savedBook);
+        return published(bookMapper.toDto(savedBook));
     }
 
     @Override
+    @CoalescedWrite
+    @CacheEvict(cacheNames = CacheConfig.BOOKS_CACHE, key = "#id")
     public void deleteById(Long id) {
         bookRepository.deleteById(id);
+        eventPublisher.publishEvent(BookChangedEvent.deleted(id));
+    }
+
+    @Override
+    @CoalescedRead
+    public List<BookDto> findAllByIds(List<Long> ids) {
+        return findAllByIdsInOrder(ids).stream()
+                .map(bookMapper::toDto)
+                .toList();
+    }
+
+    @Override
+    @CoalescedRead
+    public List<BookBatchItemDto> findBatch(List<Long> ids) {
+        if (ids.size() > MAX_BATCH_SIZE) {
+            throw new InvalidBatchException(
+                    "At most " + MAX_BATCH_SIZE + " ids can be requested at once");
+        }
+        Cache cache = cacheManager.getCache(CacheConfig.BOOKS_CACHE);
+        Map<Long, BookDto> booksById = new HashMap<>();
+        Set<Long> uncachedIds = new LinkedHashSet<>();
+        for (Long id : ids) {
+            if (id == null) {
+                throw new InvalidBatchException("Ids must not be empty");
+            }
+            BookDto cached = cache == null ? null : cache.get(id, BookDto.class);
+            if (cached != null) {
+                booksById.put(id, cached);
+            } else {
+                uncachedIds.add(id);
+            }
+        }
+        if (!uncachedIds.isEmpty()) {
+            for (Book book : bookRepository.findAllByIdIn(uncachedIds)) {
+                BookDto bookDto = bookMapper.toDto(book);
+                booksById.put(book.getId(), bookDto);
+                if (cache != null) {
+                    cache.putIfAbsent(book.getId(), bookDto);
+                }
+            }
+        }
+        return ids.stream()
+                .map(id -> BookBatchItemDto.of(id, booksById.get(id)))
+                .toList();
     }
 
     @Override
+    @CoalescedRead
     public List<BookDtoWithoutCategoryIds> findAllByCategoryId(Long id, Pageable pageable) {
         return bookRepository.findAllByCategoryId(id, pageable).stream()
                 .map(bookMapper::toDtoWithoutCategories)
                 .toList();
     }
+
+    @Override
+    @CoalescedRead
+    public CursorPageResponseDto<BookDto> findAllAfter(
+            String after,
+            BookSortKey sortKey,
+            int size
+    ) {
+        BookCursor cursor = getCursor(after, sortKey);
+        int limit = limitPageSize(size);
+        Pageable pageable = PageRequest.of(0, limit + 1);
+
+        List<Long> ids = findIdsAfter(cursor, pageable);
+
+        List<Book> books = findAllByIdsInOrder(ids.subList(0, Math.min(limit, ids.size())));
+        return toCursorPage(books, ids.size() > limit, cursor.getSortKey(), bookMapper::toDto);
+    }
+
+    @Override
+    @CoalescedRead
+    public CursorPageResponseDto<BookDtoWithoutCategoryIds> findAllByCategoryIdAfter(
+            Long categoryId,
+            String after,
+            BookSortKey sortKey,
+            int size
+    ) {
+        BookCursor cursor = getCursor(after, sortKey);
+        int limit = limitPageSize(size);
+        Pageable pageable = PageRequest.of(0, limit + 1);
+
+        List<Long> ids = findIdsInCategoryAfter(categoryId, cursor, pageable);
+
+        List<Book> books = findAllByIdsInOrder(ids.subList(0, Math.min(limit, ids.size())));
+        return toCursorPage(books, ids.size() > limit, cursor.getSortKey(),
+                bookMapper::toDtoWithoutCategories);
+    }
+
+    private List<Long> findIdsAfter(BookCursor cursor, Pageable pageable) {
+        switch (cursor.getSortKey()) {
+            case TITLE:
+                return bookRepository.findIdsAfterTitle(
+                        cursor.getTitle(), cursor.getId(), pageable);
+            case PRICE:
+                return bookRepository.findIdsAfterPrice(
+                        cursor.getPrice(), cursor.getId(), pageable);
+            default:
+                return bookRepository.findIdsAfterId(cursor.getId(), pageable);
+        }
+    }
+
+    private List<Long> findIdsInCategoryAfter(
+            Long categoryId,
+            BookCursor cursor,
+            Pageable pageable
+    ) {
+        switch (cursor.getSortKey()) {
+            case TITLE:
+                return bookRepository.findIdsByCategoryIdAfterTitle(
+                        categoryId, cursor.getTitle(), cursor.getId(), pageable);
+            case PRICE:
+                return bookRepository.findIdsByCategoryIdAfterPrice(
+                        categoryId, cursor.getPrice(), cursor.getId(), pageable);
+            default:
+                return bookRepository.findIdsByCategoryIdAfterId(
+                        categoryId, cursor.getId(), pageable);
+        }
+    }
+
+    private List<Book> findAllByIdsInOrder(List<Long> ids) {
+        if (ids.isEmpty()) {
+            return List.of();
+        }
+        Map<Long, Book> booksById = bookRepository.findAllByIdIn(ids).stream()
+                .collect(Collectors.toMap(Book::getId, Function.identity()));
+
+        return ids.stream()
+                .map(booksById::get)
+                .filter(Objects::nonNull)
+                .toList();
+    }
+
+    private BookDto published(BookDto book) {
+        eventPublisher.publishEvent(BookChangedEvent.saved(book));
+        return book;
+    }
+
+    private static BookCursor getCursor(String after, BookSortKey sortKey) {
+        return after == null ? BookCursor.first(sortKey) : BookCursor.decode(after);
+    }
+
+    private static int limitPageSize(int size) {
+        return Math.max(1, Math.min(size, MAX_CURSOR_PAGE_SIZE));
+    }
+
+    private static <T> CursorPageResponseDto<T> toCursorPage(
+            List<Book> books,
+            boolean hasNext,
+            BookSortKey sortKey,
+            Function<Book, T> mapper
+    ) {
+        CursorPageResponseDto<T> page = new CursorPageResponseDto<>();
+        page.setContent(books.stream().map(mapper).toList());
+        if (hasNext && !books.isEmpty()) {
+            page.setNextCursor(BookCursor.after(sortKey, books.get(books.size() - 1)).encode());
+        }
+        return page;
+    }
 }
@@ -0,0 +1,11 @@
+package com.example.bookstore.service.book;
+
+/**
+ * Sort orders supported by keyset pagination. Each one is backed by a seek query
+ * in {@code BookRepository} and a composite index ending with the book id.
+ */
+public enum BookSortKey {
+    ID,
+    TITLE,
+    PRICE
+}
@@ -0,0 +1,14 @@
+package com.example.bookstore.service.category;
+
+import lombok.Getter;
+import lombok.RequiredArgsConstructor;
+
+/**
+ * Published after a category was soft-deleted. Its {@code books_categories} rows
+ * stay, so in-memory indexes have to drop the category themselves.
+ */
+@Getter
+@RequiredArgsConstructor
+public class CategoryDeletedEvent {
+    private final Long categoryId;
+}
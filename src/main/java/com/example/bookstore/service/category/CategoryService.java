@@ -2,13 +2,13 @@ package com.example.bookstore.service.category;
 
 import com.example.bookstore.dto.category.CategoryRequestDto;
 import com.example.bookstore.dto.category.CategoryResponseDto;
-import java.util.List;
+import com.example.bookstore.dto.common.SliceResponseDto;
 import org.springframework.data.domain.Pageable;
 import org.springframework.stereotype.Service;
 
 @Service
 public interface CategoryService {
-    List<CategoryResponseDto> findAll(Pageable pageable);
+    SliceResponseDto<CategoryResponseDto> findAll(Pageable pageable);
 
     CategoryResponseDto getById(Long id);
 
@@ -1,30 +1,49 @@
 package com.example.bookstore.service.category;
 
+import com.example.bookstore.config.CacheConfig;
 import com.example.bookstore.dto.category.CategoryRequestDto;
 import com.example.bookstore.dto.category.CategoryResponseDto;
+import com.example.bookstore.dto.common.SliceResponseDto;
 import com.example.bookstore.exception.EntityNotFoundException;
 import com.example.bookstore.mapper.CategoryMapper;
+import com.example.bookstore.model.Book;
 import com.example.bookstore.model.Category;
+import com.example.bookstore.repository.BookRepository;
 import com.example.bookstore.repository.CategoryRepository;
+import com.example.bookstore.service.coalescing.CoalescedRead;
+import com.example.bookstore.service.coalescing.CoalescedWrite;
+import jakarta.persistence.EntityManagerFactory;
 import java.util.List;
 import lombok.RequiredArgsConstructor;
+import org.hibernate.Cache;
+import org.springframework.cache.CacheManager;
+import org.springframework.context.ApplicationEventPublisher;
 import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Slice;
 import org.springframework.stereotype.Service;
 
 @Service
 @RequiredArgsConstructor
 public class CategoryServiceImpl implements CategoryService {
+    private static final String BOOK_CATEGORIES_REGION = Book.class.getName() + ".categories";
+
     private final CategoryRepository categoryRepository;
+    private final BookRepository bookRepository;
     private final CategoryMapper categoryMapper;
+    private final EntityManagerFactory entityManagerFactory;
+    private final CacheManager cacheManager;
+    private final ApplicationEventPublisher eventPublisher;
 
     @Override
-    public List<CategoryResponseDto> findAll(Pageable pageable) {
-        return categoryRepository.findAll(pageable).stream()
+    public SliceResponseDto<CategoryResponseDto> findAll(Pageable pageable) {
+        Slice<Category> categories = categoryRepository.findAllBy(pageable);
+        return SliceResponseDto.of(categories.stream()
                 .map(categoryMapper::toDto)
-                .toList();
+                .toList(), categories.hasNext());
     }
 
     @Override
+    @CoalescedRead
     public CategoryResponseDto getById(Long id) {
         Category category = categoryRepository.findById(id).orElseThrow(
                 () -> new EntityNotFoundException("Cannot find category with id: " + id));
@@ -33,12 +52,14 @@ public class CategoryServiceImpl implements CategoryService {
     }
 
     @Override
+    @CoalescedWrite
     public CategoryResponseDto save(CategoryRequestDto request) {
         return categoryMapper
                 .toDto(categoryRepository.save(categoryMapper.toEntity(request)));
     }
 
     @Override
+    @CoalescedWrite
     public CategoryResponseDto updateById(Long id, CategoryRequestDto request) {
         if (!categoryRepository.existsById(id)) {
             throw new EntityNotFoundException("Can't found category with id: " + id);
@@ -51,7 +72,17 @@ public class CategoryServiceImpl implements CategoryService {
     }
 
     @Override
+    @CoalescedWrite
     public void deleteById(Long id) {
         categoryRepository.deleteById(id);
+        // The delete has committed, but the Book.categories entries and cached BookDtos
+        // of its books still hold the soft-deleted category
+        List<Long> bookIds = bookRepository.findIdsByCategoryId(id);
+        Cache secondLevelCache = entityManagerFactory.getCache().unwrap(Cache.class);
+        for (Long bookId : bookIds) {
+            secondLevelCache.evictCollectionData(BOOK_CATEGORIES_REGION, bookId);
+            cacheManager.getCache(CacheConfig.BOOKS_CACHE).evict(bookId);
+        }
+        eventPublisher.publishEvent(new CategoryDeletedEvent(id));
     }
 }
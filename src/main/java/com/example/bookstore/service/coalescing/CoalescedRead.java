@@ -0,0 +1,19 @@
+package com.example.bookstore.service.coalescing;
+
+import java.lang.annotation.ElementType;
+import java.lang.annotation.Retention;
+import java.lang.annotation.RetentionPolicy;
+import java.lang.annotation.Target;
+
+/**
+ * Marks a read-only service method whose concurrent calls with equal arguments may
+ * share one execution; see {@link CoalescedReadAspect}. Callers that joined another
+ * call get their own copy of its result, made through JSON, so the result must
+ * round-trip through Jackson, and the arguments need {@code equals} and
+ * {@code hashCode}. Methods that change what is read are marked with
+ * {@link CoalescedWrite}.
+ */
+@Target(ElementType.METHOD)
+@Retention(RetentionPolicy.RUNTIME)
+public @interface CoalescedRead {
+}
@@ -0,0 +1,170 @@
+package com.example.bookstore.service.coalescing;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.JavaType;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import java.io.IOException;
+import java.lang.reflect.Method;
+import java.util.Arrays;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import lombok.RequiredArgsConstructor;
+import org.aspectj.lang.ProceedingJoinPoint;
+import org.aspectj.lang.annotation.Around;
+import org.aspectj.lang.annotation.Aspect;
+import org.aspectj.lang.reflect.MethodSignature;
+import org.springframework.stereotype.Component;
+import org.springframework.util.ClassUtils;
+
+/**
+ * Single flight for {@link CoalescedRead} methods: the first call for a method and
+ * arguments runs it and publishes the outcome through a future, and calls for the
+ * same method and arguments that arrive before it finishes wait for that future
+ * instead of running their own query. Nothing is kept after the call completes,
+ * so this only collapses bursts and is no cache.
+ *
+ * <p>Every {@link CoalescedWrite} method moves a write generation on when it starts
+ * and again when it ends, and a call only joins one started in the same generation,
+ * so no read that starts after a write is answered with data read before it. The
+ * calling thread of the running call keeps the result, and the calls that joined it
+ * each get a copy deserialized from one JSON snapshot, so none of them can change
+ * what another one sees.
+ *
+ * <p>Counted in {@value #METRIC} with the tags {@code method} and {@code outcome},
+ * which is {@code executed} for calls that ran the method and {@code collapsed} for
+ * calls that waited for another one.
+ */
+@Aspect
+@Component
+@RequiredArgsConstructor
+public class CoalescedReadAspect {
+    static final String METRIC = "service.reads.coalescing";
+
+    private final MeterRegistry meterRegistry;
+    private final ObjectMapper objectMapper;
+    private final AtomicLong writeGeneration = new AtomicLong();
+    private final Map<Call, Flight> inFlight = new ConcurrentHashMap<>();
+    private final Map<Method, Counter[]> counters = new ConcurrentHashMap<>();
+
+    @Around("@annotation(com.example.bookstore.service.coalescing.CoalescedWrite)")
+    public Object separate(ProceedingJoinPoint joinPoint) throws Throwable {
+        writeGeneration.incrementAndGet();
+        try {
+            return joinPoint.proceed();
+        } finally {
+            writeGeneration.incrementAndGet();
+        }
+    }
+
+    @Around("@annotation(com.example.bookstore.service.coalescing.CoalescedRead)")
+    public Object coalesce(ProceedingJoinPoint joinPoint) throws Throwable {
+        Method method = ((MethodSignature) joinPoint.getSignature()).getMethod();
+        Call call = new Call(method, joinPoint.getArgs());
+        Flight own = new Flight(writeGeneration.get());
+        Flight flight = inFlight.compute(call, (key, running) -> {
+            if (running != null && running.generation == own.generation) {
+                running.joiners.incrementAndGet();
+                return running;
+            }
+            return own;
+        });
+        Counter[] methodCounters = counters.computeIfAbsent(method,
+                m -> createCounters(ClassUtils.getUserClass(joinPoint.getTarget()), m));
+        if (flight != own) {
+            methodCounters[1].increment();
+            return copy(await(flight.future), method);
+        }
+        methodCounters[0].increment();
+        Object result;
+        try {
+            result = joinPoint.proceed();
+        } catch (Throwable e) {
+            inFlight.remove(call, own);
+            own.future.completeExceptionally(e);
+            throw e;
+        }
+        // Nobody can join once the flight is removed, so joiners is final from here
+        inFlight.remove(call, own);
+        if (own.joiners.get() == 0 || result == null) {
+            own.future.complete(null);
+        } else {
+            try {
+                own.future.complete(objectMapper.writeValueAsBytes(result));
+            } catch (JsonProcessingException e) {
+                own.future.completeExceptionally(new IllegalStateException(
+                        "Cannot copy the result of " + method.getName(), e));
+            }
+        }
+        return result;
+    }
+
+    private Object copy(byte[] snapshot, Method method) throws IOException {
+        if (snapshot == null) {
+            return null;
+        }
+        JavaType type = objectMapper.getTypeFactory().constructType(method.getGenericReturnType());
+        return objectMapper.readValue(snapshot, type);
+    }
+
+    private Counter[] createCounters(Class<?> targetClass, Method method) {
+        String name = targetClass.getSimpleName() + "." + method.getName();
+        return new Counter[] {
+                meterRegistry.counter(METRIC, "method", name, "outcome", "executed"),
+                meterRegistry.counter(METRIC, "method", name, "outcome", "collapsed")
+        };
+    }
+
+    /**
+     * Rethrows what the shared call threw, e.g. {@code EntityNotFoundException},
+     * rather than the {@link CompletionException} around it.
+     */
+    private static byte[] await(CompletableFuture<byte[]> running) throws Throwable {
+        try {
+            return running.join();
+        } catch (CompletionException e) {
+            throw e.getCause();
+        }
+    }
+
+    private static final class Flight {
+        private final long generation;
+        private final CompletableFuture<byte[]> future = new CompletableFuture<>();
+        private final AtomicInteger joiners = new AtomicInteger();
+
+        Flight(long generation) {
+            this.generation = generation;
+        }
+    }
+
+    private static final class Call {
+        private final Method method;
+        private final Object[] args;
+        private final int hash;
+
+        Call(Method method, Object[] args) {
+            this.method = method;
+            this.args = args;
+            this.hash = 31 * method.hashCode() + Arrays.hashCode(args);
+        }
+
+        @Override
+        public boolean equals(Object other) {
+            if (!(other instanceof Call)) {
+                return false;
+            }
+            Call call = (Call) other;
+            return method.equals(call.method) && Arrays.equals(args, call.args);
+        }
+
+        @Override
+        public int hashCode() {
+            return hash;
+        }
+    }
+}
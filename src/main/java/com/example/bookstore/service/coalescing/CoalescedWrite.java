@@ -0,0 +1,17 @@
+package com.example.bookstore.service.coalescing;
+
+import java.lang.annotation.ElementType;
+import java.lang.annotation.Retention;
+import java.lang.annotation.RetentionPolicy;
+import java.lang.annotation.Target;
+
+/**
+ * Marks a service method that changes data read by {@link CoalescedRead} methods.
+ * A coalesced read that starts while or after it runs never joins one that started
+ * before it, so it cannot be answered with what was read before the change; see
+ * {@link CoalescedReadAspect}.
+ */
+@Target(ElementType.METHOD)
+@Retention(RetentionPolicy.RUNTIME)
+public @interface CoalescedWrite {
+}
@@ -1,28 +1,37 @@
 package com.example.bookstore.service.order;
 
+import com.example.bookstore.dto.common.SliceResponseDto;
 import com.example.bookstore.dto.order.CreateOrderRequestDto;
 import com.example.bookstore.dto.order.OrderItemResponseDto;
 import com.example.bookstore.dto.order.OrderResponseDto;
 import com.example.bookstore.dto.order.UpdateOrderRequestDto;
+import com.example.bookstore.exception.ConcurrentCartModificationException;
 import com.example.bookstore.exception.EntityNotFoundException;
 import com.example.bookstore.mapper.OrderItemMapper;
 import com.example.bookstore.mapper.OrderMapper;
 import com.example.bookstore.model.Order;
 import com.example.bookstore.model.OrderItem;
 import com.example.bookstore.model.ShoppingCart;
-import com.example.bookstore.model.User;
 import com.example.bookstore.repository.CartItemRepository;
 import com.example.bookstore.repository.OrderItemRepository;
 import com.example.bookstore.repository.OrderRepository;
 import com.example.bookstore.repository.ShoppingCartRepository;
+import com.example.bookstore.service.shoppingcart.ShoppingCartChangedEvent;
+import com.example.bookstore.service.shoppingcart.ShoppingCartService;
+import com.example.bookstore.service.shoppingcart.ShoppingCartVersions;
 import jakarta.transaction.Transactional;
 import java.math.BigDecimal;
 import java.time.LocalDateTime;
 import java.util.List;
+import java.util.Map;
+import java.util.Objects;
 import java.util.Set;
+import java.util.function.Function;
 import java.util.stream.Collectors;
 import lombok.RequiredArgsConstructor;
+import org.springframework.context.ApplicationEventPublisher;
 import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Slice;
 import org.springframework.stereotype.Service;
 
 @Service
@@ -34,17 +43,30 @@ public class OrderServiceImpl implements OrderService {
     private final CartItemRepository cartItemRepository;
     private final OrderItemRepository orderItemRepository;
     private final ShoppingCartRepository shoppingCartRepository;
+    private final ShoppingCartService shoppingCartService;
+    private final ShoppingCartVersions shoppingCartVersions;
+    private final ApplicationEventPublisher eventPublisher;
 
     @Override
-    public List<OrderResponseDto> getOrderHistory(User user, Pageable pageable) {
-        return orderRepository.findOrdersByUser(user, pageable).stream()
+    public SliceResponseDto<OrderResponseDto> getOrderHistory(Long userId, Pageable pageable) {
+        Slice<Long> ids = orderRepository.findIdsByUserId(userId, pageable);
+        if (ids.isEmpty()) {
+            return SliceResponseDto.of(List.of(), false);
+        }
+        Map<Long, Order> ordersById = orderRepository.findAllByIdIn(ids.getContent()).stream()
+                .collect(Collectors.toMap(Order::getId, Function.identity()));
+
+        List<OrderResponseDto> orders = ids.stream()
+                .map(ordersById::get)
+                .filter(Objects::nonNull)
                 .map(orderMapper::toDto)
                 .toList();
+        return SliceResponseDto.of(orders, ids.hasNext());
     }
 
     @Override
-    public Set<OrderItemResponseDto> getOrderItemsByOrderId(User user, Long orderId) {
-        Order order = orderRepository.findByIdAndUser(orderId, user).orElseThrow(
+    public Set<OrderItemResponseDto> getOrderItemsByOrderId(Long userId, Long orderId) {
+        Order order = orderRepository.findByIdAndUserId(orderId, userId).orElseThrow(
                 () -> new EntityNotFoundException("Cannot find order by id: " + orderId));
 
         return order.getOrderItems().stream()
@@ -53,8 +75,8 @@ public class OrderServiceImpl implements OrderService {
     }
 
     @Override
-    public OrderItemResponseDto getOrderItemByIdByOrderId(User user, Long orderId, Long itemId) {
-        Order order = orderRepository.findByIdAndUser(orderId, user).orElseThrow(
+    public OrderItemResponseDto getOrderItemByIdByOrderId(Long userId, Long orderId, Long itemId) {
+        Order order = orderRepository.findByIdAndUserId(orderId, userId).orElseThrow(
                 () -> new EntityNotFoundException("Cannot find order by id: " + orderId));
 
         return orderItemMapper.toDto(
@@ -64,8 +86,9 @@ public class OrderServiceImpl implements OrderService {
 
     @Override
     @Transactional
-    public OrderResponseDto createOrder(User user, CreateOrderRequestDto requestDto) {
-        ShoppingCart shoppingCart = shoppingCartRepository.findByUser(user).orElseThrow();
+    public OrderResponseDto createOrder(Long userId, CreateOrderRequestDto requestDto) {
+        shoppingCartService.flush(userId);
+        ShoppingCart shoppingCart = shoppingCartRepository.findByUserId(userId).orElseThrow();
         Order order = orderMapper.toEntity(requestDto);
 
         BigDecimal total = shoppingCart.getCartItems().stream()
@@ -79,20 +102,25 @@ public class OrderServiceImpl implements OrderService {
         order.setUser(shoppingCart.getUser());
         order.setTotal(total);
         order.setOrderItems(orderItems);
-        Order save = orderRepository.saveAndFlush(order);
+        final Order save = orderRepository.saveAndFlush(order);
 
         cartItemRepository.deleteByShoppingCartIAndId(shoppingCart.getUser().getId());
+        if (!shoppingCartVersions.increment(userId, shoppingCart.getVersion())) {
+            throw new ConcurrentCartModificationException(
+                    "Shopping cart has been changed while ordering, please try again");
+        }
+        eventPublisher.publishEvent(new ShoppingCartChangedEvent(userId));
 
         return orderMapper.toDto(save);
     }
 
     @Override
     public OrderResponseDto updateOrderStatusById(
-            User user,
+            Long userId,
             Long orderId,
             UpdateOrderRequestDto requestDto
     ) {
-        Order order = orderRepository.findByIdAndUser(orderId, user).orElseThrow(
+        Order order = orderRepository.findByIdAndUserId(orderId, userId).orElseThrow(
                 () -> new EntityNotFoundException("Cannot find order by id: " + orderId));
 
         order.setStatus(requestDto.getStatus());
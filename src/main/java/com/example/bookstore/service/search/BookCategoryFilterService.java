@@ -0,0 +1,15 @@
+package com.example.bookstore.service.search;
+
+import com.example.bookstore.dto.book.BookDto;
+import com.example.bookstore.dto.common.SliceResponseDto;
+import org.springframework.data.domain.Pageable;
+import org.springframework.stereotype.Service;
+
+@Service
+public interface BookCategoryFilterService {
+    /**
+     * Returns a page of the books matching a {@link CategoryFilter} expression in id
+     * order; the sort of the pageable is ignored.
+     */
+    SliceResponseDto<BookDto> findAllByCategoryFilter(String filter, Pageable pageable);
+}
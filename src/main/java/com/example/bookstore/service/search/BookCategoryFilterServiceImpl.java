@@ -0,0 +1,106 @@
+package com.example.bookstore.service.search;
+
+import com.example.bookstore.dto.book.BookDto;
+import com.example.bookstore.dto.common.SliceResponseDto;
+import com.example.bookstore.service.book.BookService;
+import com.example.bookstore.service.category.CategoryDeletedEvent;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+import lombok.RequiredArgsConstructor;
+import org.roaringbitmap.PeekableIntIterator;
+import org.roaringbitmap.RoaringBitmap;
+import org.springframework.context.event.EventListener;
+import org.springframework.data.domain.Pageable;
+import org.springframework.stereotype.Service;
+
+/**
+ * Keeps a compressed bitmap of book ids per category, so a filter over several
+ * categories is bitmap algebra instead of one {@code books_categories} join per
+ * category. Only the ids of the requested page are read from the database.
+ */
+@RequiredArgsConstructor
+@Service
+public class BookCategoryFilterServiceImpl implements BookCategoryFilterService, BookIndex {
+    private final BookService bookService;
+    private final ReadWriteLock lock = new ReentrantReadWriteLock();
+    private final Map<Long, RoaringBitmap> booksByCategoryId = new HashMap<>();
+    private final RoaringBitmap allBooks = new RoaringBitmap();
+
+    @Override
+    public SliceResponseDto<BookDto> findAllByCategoryFilter(String filter, Pageable pageable) {
+        CategoryFilter categoryFilter = CategoryFilter.parse(filter);
+        List<Long> ids = new ArrayList<>(pageable.getPageSize());
+        boolean hasNext;
+        lock.readLock().lock();
+        try {
+            RoaringBitmap books = categoryFilter.evaluate(booksByCategoryId::get, allBooks);
+            long offset = pageable.getOffset();
+            hasNext = books.getLongCardinality() > offset + pageable.getPageSize();
+            if (offset < books.getLongCardinality()) {
+                PeekableIntIterator iterator = books.getIntIterator();
+                iterator.advanceIfNeeded(books.select((int) offset));
+                while (iterator.hasNext() && ids.size() < pageable.getPageSize()) {
+                    ids.add((long) iterator.next());
+                }
+            }
+        } finally {
+            lock.readLock().unlock();
+        }
+        return SliceResponseDto.of(ids.isEmpty() ? List.of() : bookService.findAllByIds(ids),
+                hasNext);
+    }
+
+    @Override
+    public void index(BookDto book) {
+        int id = Math.toIntExact(book.getId());
+        lock.writeLock().lock();
+        try {
+            removeFromCategories(id);
+            allBooks.add(id);
+            if (book.getCategoryIds() != null) {
+                for (Long categoryId : book.getCategoryIds()) {
+                    booksByCategoryId.computeIfAbsent(categoryId, c -> new RoaringBitmap())
+                            .add(id);
+                }
+            }
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    @Override
+    public void remove(Long bookId) {
+        int id = Math.toIntExact(bookId);
+        lock.writeLock().lock();
+        try {
+            removeFromCategories(id);
+            allBooks.remove(id);
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    @EventListener
+    public void onCategoryDeleted(CategoryDeletedEvent event) {
+        lock.writeLock().lock();
+        try {
+            booksByCategoryId.remove(event.getCategoryId());
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    /**
+     * Books have a handful of categories out of a few hundred, so checking every
+     * bitmap is cheaper than remembering the categories of every book.
+     */
+    private void removeFromCategories(int id) {
+        for (RoaringBitmap books : booksByCategoryId.values()) {
+            books.remove(id);
+        }
+    }
+}
@@ -0,0 +1,24 @@
+package com.example.bookstore.service.search;
+
+import com.example.bookstore.dto.book.BookFacetsResponseDto;
+import java.math.BigDecimal;
+import org.springframework.stereotype.Service;
+
+@Service
+public interface BookFacetService {
+    /**
+     * Counts the books matching all given filters per category, author and price
+     * range. Every filter is optional.
+     *
+     * @param categories {@link CategoryFilter} expression
+     * @param author     exact author name
+     * @param minPrice   inclusive lower price bound
+     * @param maxPrice   inclusive upper price bound
+     */
+    BookFacetsResponseDto getFacets(
+            String categories,
+            String author,
+            BigDecimal minPrice,
+            BigDecimal maxPrice
+    );
+}
@@ -0,0 +1,68 @@
+package com.example.bookstore.service.search;
+
+import com.example.bookstore.dto.book.BookDto;
+import com.example.bookstore.dto.book.BookFacetsResponseDto;
+import com.example.bookstore.service.category.CategoryDeletedEvent;
+import java.math.BigDecimal;
+import java.math.RoundingMode;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Service;
+
+/**
+ * Answers facet counts from a {@link FacetIndex} instead of one
+ * {@code GROUP BY} query per facet over the filtered books.
+ */
+@Service
+public class BookFacetServiceImpl implements BookFacetService, BookIndex {
+    private static final int[] PRICE_BOUNDS = {10_00, 25_00, 50_00, 100_00};
+    private static final int MAX_AUTHORS = 20;
+
+    private final FacetIndex facetIndex = new FacetIndex(PRICE_BOUNDS, MAX_AUTHORS,
+            Runtime.getRuntime().availableProcessors());
+
+    @Override
+    public BookFacetsResponseDto getFacets(
+            String categories,
+            String author,
+            BigDecimal minPrice,
+            BigDecimal maxPrice
+    ) {
+        CategoryFilter categoryFilter = categories == null || categories.isBlank()
+                ? null : CategoryFilter.parse(categories);
+        return facetIndex.count(categoryFilter, author,
+                minPrice == null ? Integer.MIN_VALUE : toCents(minPrice, RoundingMode.CEILING),
+                maxPrice == null ? Integer.MAX_VALUE : toCents(maxPrice, RoundingMode.FLOOR));
+    }
+
+    @Override
+    public void index(BookDto book) {
+        facetIndex.put(book.getId(),
+                book.getPrice() == null ? 0 : toCents(book.getPrice(), RoundingMode.HALF_UP),
+                book.getAuthor(), book.getCategoryIds());
+    }
+
+    @Override
+    public void remove(Long bookId) {
+        facetIndex.remove(bookId);
+    }
+
+    @Override
+    public void updatePrice(Long bookId, BigDecimal price) {
+        facetIndex.setPrice(bookId, price == null ? 0 : toCents(price, RoundingMode.HALF_UP));
+    }
+
+    @EventListener
+    public void onCategoryDeleted(CategoryDeletedEvent event) {
+        facetIndex.removeCategory(event.getCategoryId());
+    }
+
+    /**
+     * Prices outside the int range of cents are clamped, which only matters for
+     * filter bounds.
+     */
+    private static int toCents(BigDecimal price, RoundingMode roundingMode) {
+        BigDecimal cents = price.movePointRight(2).setScale(0, roundingMode);
+        return cents.max(BigDecimal.valueOf(Integer.MIN_VALUE))
+                .min(BigDecimal.valueOf(Integer.MAX_VALUE)).intValue();
+    }
+}
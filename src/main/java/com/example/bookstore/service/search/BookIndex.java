@@ -0,0 +1,24 @@
+package com.example.bookstore.service.search;
+
+import com.example.bookstore.dto.book.BookDto;
+import java.math.BigDecimal;
+
+/**
+ * In-memory structure over the catalog. {@link BookIndexer} fills every bean of this
+ * type at startup and forwards later book changes to it.
+ */
+public interface BookIndex {
+    /**
+     * Adds the book or replaces the previously indexed version with the same id.
+     */
+    void index(BookDto book);
+
+    void remove(Long bookId);
+
+    /**
+     * Changes only the price of an indexed book; indexes that don't keep prices
+     * ignore it.
+     */
+    default void updatePrice(Long bookId, BigDecimal price) {
+    }
+}
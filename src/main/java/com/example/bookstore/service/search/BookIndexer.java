@@ -0,0 +1,77 @@
+package com.example.bookstore.service.search;
+
+import com.example.bookstore.dto.book.BookDto;
+import com.example.bookstore.service.book.BookChangedEvent;
+import com.example.bookstore.service.book.BookExportService;
+import com.example.bookstore.service.book.BookPriceChangedEvent;
+import java.util.ArrayList;
+import java.util.List;
+import lombok.RequiredArgsConstructor;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Component;
+
+/**
+ * Loads all {@link BookIndex} beans from one scan of the books table once the
+ * application is ready and keeps them in sync with {@link BookChangedEvent}s and
+ * {@link BookPriceChangedEvent}s.
+ * Changes published while the initial scan runs are applied after it, so an older
+ * row read by the scan cannot overwrite a newer change.
+ */
+@Component
+@RequiredArgsConstructor
+public class BookIndexer {
+    private final List<BookIndex> indexes;
+    private final BookExportService bookExportService;
+    private final List<Runnable> pendingEvents = new ArrayList<>();
+    private boolean loading;
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void load() {
+        synchronized (pendingEvents) {
+            loading = true;
+        }
+        try {
+            bookExportService.forEachBook(this::index);
+        } finally {
+            synchronized (pendingEvents) {
+                pendingEvents.forEach(Runnable::run);
+                pendingEvents.clear();
+                loading = false;
+            }
+        }
+    }
+
+    @EventListener
+    public void onBookChanged(BookChangedEvent event) {
+        applyAfterLoad(() -> apply(event));
+    }
+
+    @EventListener
+    public void onBookPriceChanged(BookPriceChangedEvent event) {
+        applyAfterLoad(() -> event.getPrices().forEach((bookId, price) ->
+                indexes.forEach(index -> index.updatePrice(bookId, price))));
+    }
+
+    private void applyAfterLoad(Runnable change) {
+        synchronized (pendingEvents) {
+            if (loading) {
+                pendingEvents.add(change);
+                return;
+            }
+            change.run();
+        }
+    }
+
+    private void apply(BookChangedEvent event) {
+        if (event.isDeleted()) {
+            indexes.forEach(index -> index.remove(event.getBookId()));
+        } else {
+            index(event.getBook());
+        }
+    }
+
+    private void index(BookDto book) {
+        indexes.forEach(index -> index.index(book));
+    }
+}
@@ -0,0 +1,13 @@
+package com.example.bookstore.service.search;
+
+import com.example.bookstore.dto.book.BookDto;
+import org.springframework.stereotype.Service;
+
+@Service
+public interface BookIsbnService {
+    /**
+     * Finds a book by its ISBN-13 or the ISBN-10 of the same edition; hyphens and
+     * spaces are ignored.
+     */
+    BookDto findByIsbn(String isbn);
+}
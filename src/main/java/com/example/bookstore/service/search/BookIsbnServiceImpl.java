@@ -0,0 +1,118 @@
+package com.example.bookstore.service.search;
+
+import com.example.bookstore.dto.book.BookDto;
+import com.example.bookstore.exception.EntityNotFoundException;
+import com.example.bookstore.service.book.BookService;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+import org.springframework.stereotype.Service;
+
+/**
+ * Resolves ISBNs to book ids with {@link OffHeapLongMap}s keyed by the ISBN-13 as a
+ * number, so a million books cost about 64 MB of direct memory and no heap objects.
+ * The book itself comes from {@link BookService#findById}, which is cached.
+ */
+@Service
+public class BookIsbnServiceImpl implements BookIsbnService, BookIndex {
+    private static final int EXPECTED_BOOKS = 1 << 16;
+    private static final long ISBN_10_PREFIX = 9_780_000_000_000L;
+
+    private final BookService bookService;
+    private final ReadWriteLock lock = new ReentrantReadWriteLock();
+    private final OffHeapLongMap idsByIsbn = new OffHeapLongMap(EXPECTED_BOOKS);
+    private final OffHeapLongMap isbnsById = new OffHeapLongMap(EXPECTED_BOOKS);
+
+    public BookIsbnServiceImpl(BookService bookService) {
+        this.bookService = bookService;
+    }
+
+    @Override
+    public BookDto findByIsbn(String isbn) {
+        long isbn13 = toIsbn13(isbn);
+        long id = OffHeapLongMap.MISSING;
+        if (isbn13 >= 0) {
+            lock.readLock().lock();
+            try {
+                id = idsByIsbn.get(isbn13);
+            } finally {
+                lock.readLock().unlock();
+            }
+        }
+        if (id == OffHeapLongMap.MISSING) {
+            throw new EntityNotFoundException("Cannot find book with isbn: " + isbn);
+        }
+        return bookService.findById(id);
+    }
+
+    @Override
+    public void index(BookDto book) {
+        long isbn13 = toIsbn13(book.getIsbn());
+        lock.writeLock().lock();
+        try {
+            unmap(book.getId());
+            if (isbn13 >= 0) {
+                idsByIsbn.put(isbn13, book.getId());
+                isbnsById.put(book.getId(), isbn13);
+            }
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    @Override
+    public void remove(Long bookId) {
+        lock.writeLock().lock();
+        try {
+            unmap(bookId);
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    private void unmap(long bookId) {
+        long isbn13 = isbnsById.remove(bookId);
+        if (isbn13 != OffHeapLongMap.MISSING && idsByIsbn.get(isbn13) == bookId) {
+            idsByIsbn.remove(isbn13);
+        }
+    }
+
+    /**
+     * Returns the ISBN-13 as a number, converting an ISBN-10 to its 978 form, or -1
+     * if the value has neither length. Check digits are not verified here, so books
+     * stored before validation still resolve.
+     */
+    private static long toIsbn13(String isbn) {
+        if (isbn == null) {
+            return -1;
+        }
+        long number = 0;
+        int digits = 0;
+        boolean tenCheck = false;
+        for (int i = 0; i < isbn.length(); i++) {
+            char c = isbn.charAt(i);
+            if (c >= '0' && c <= '9' && !tenCheck) {
+                number = number * 10 + c - '0';
+                digits++;
+            } else if ((c == 'X' || c == 'x') && digits == 9 && !tenCheck) {
+                tenCheck = true;
+                digits++;
+            } else if (c != '-' && c != ' ') {
+                return -1;
+            }
+        }
+        if (digits == 13 && !tenCheck) {
+            return number;
+        }
+        if (digits != 10) {
+            return -1;
+        }
+        long body = ISBN_10_PREFIX + (tenCheck ? number : number / 10) * 10;
+        int sum = 0;
+        long rest = body / 10;
+        for (int i = 0; i < 12; i++) {
+            sum += (int) (rest % 10) * (i % 2 == 0 ? 3 : 1);
+            rest /= 10;
+        }
+        return body + (10 - sum % 10) % 10;
+    }
+}
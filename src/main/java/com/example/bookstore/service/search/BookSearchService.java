@@ -0,0 +1,20 @@
+package com.example.bookstore.service.search;
+
+import com.example.bookstore.dto.book.BookDto;
+import java.util.List;
+import org.springframework.stereotype.Service;
+
+@Service
+public interface BookSearchService {
+    /**
+     * Returns up to {@code size} books that match any word of the query, the most
+     * relevant first.
+     */
+    List<BookDto> search(String query, int size);
+
+    /**
+     * Same as {@link #search(String, int)}, but also matches titles and authors that
+     * differ from a query word by a typo or two.
+     */
+    List<BookDto> fuzzySearch(String query, int size);
+}
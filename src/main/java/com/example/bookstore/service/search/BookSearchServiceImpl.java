@@ -0,0 +1,105 @@
+package com.example.bookstore.service.search;
+
+import com.example.bookstore.dto.book.BookDto;
+import com.example.bookstore.service.book.BookService;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import lombok.RequiredArgsConstructor;
+import org.springframework.stereotype.Service;
+
+/**
+ * Full-text search over title, author and description served from an
+ * {@link InvertedIndex}. A term found in the title counts three times, in the
+ * author twice. Only the matching ids come from the index; the books themselves
+ * are read by id.
+ *
+ * <p>The fuzzy mode first replaces every query word with the title and author
+ * words of the {@link TrigramIndex} within one edit (two for words longer than
+ * six chars, none up to three), weighting a word by {@code 1 / (1 + distance)}.
+ */
+@RequiredArgsConstructor
+@Service
+public class BookSearchServiceImpl implements BookSearchService, BookIndex {
+    private static final int TITLE_WEIGHT = 3;
+    private static final int AUTHOR_WEIGHT = 2;
+    private static final int DESCRIPTION_WEIGHT = 1;
+    private static final int MAX_SEARCH_SIZE = 100;
+    private static final int MAX_SIMILAR_TERMS = 5;
+
+    private final BookService bookService;
+    private final InvertedIndex invertedIndex = new InvertedIndex();
+    private final TrigramIndex trigramIndex = new TrigramIndex();
+    private final Map<Long, Set<String>> fuzzyTermsByBookId = new HashMap<>();
+
+    @Override
+    public List<BookDto> search(String query, int size) {
+        List<String> terms = Tokenizer.tokenize(query);
+        return findAllByIds(invertedIndex.search(terms, Math.min(size, MAX_SEARCH_SIZE)));
+    }
+
+    @Override
+    public List<BookDto> fuzzySearch(String query, int size) {
+        Map<String, Double> weightedTerms = new HashMap<>();
+        for (String term : Tokenizer.tokenize(query)) {
+            weightedTerms.put(term, 1d);
+            int maxDistance = getMaxDistance(term);
+            if (maxDistance > 0) {
+                trigramIndex.findSimilar(term, maxDistance, MAX_SIMILAR_TERMS)
+                        .forEach((similar, distance) -> weightedTerms.merge(
+                                similar, 1d / (1 + distance), Math::max));
+            }
+        }
+        return findAllByIds(invertedIndex.search(weightedTerms,
+                Math.min(size, MAX_SEARCH_SIZE)));
+    }
+
+    @Override
+    public synchronized void index(BookDto book) {
+        Map<String, Integer> termFrequencies = new HashMap<>();
+        addTerms(termFrequencies, book.getTitle(), TITLE_WEIGHT);
+        addTerms(termFrequencies, book.getAuthor(), AUTHOR_WEIGHT);
+        addTerms(termFrequencies, book.getDescription(), DESCRIPTION_WEIGHT);
+        invertedIndex.put(book.getId(), termFrequencies);
+
+        Set<String> fuzzyTerms = new HashSet<>(Tokenizer.tokenize(book.getTitle()));
+        fuzzyTerms.addAll(Tokenizer.tokenize(book.getAuthor()));
+        fuzzyTerms.forEach(trigramIndex::add);
+        Set<String> previousTerms = fuzzyTermsByBookId.put(book.getId(), fuzzyTerms);
+        if (previousTerms != null) {
+            previousTerms.forEach(trigramIndex::remove);
+        }
+    }
+
+    @Override
+    public synchronized void remove(Long bookId) {
+        invertedIndex.remove(bookId);
+        Set<String> previousTerms = fuzzyTermsByBookId.remove(bookId);
+        if (previousTerms != null) {
+            previousTerms.forEach(trigramIndex::remove);
+        }
+    }
+
+    private List<BookDto> findAllByIds(long[] ids) {
+        if (ids.length == 0) {
+            return List.of();
+        }
+        return bookService.findAllByIds(Arrays.stream(ids).boxed().toList());
+    }
+
+    private static int getMaxDistance(String term) {
+        if (term.length() <= 3) {
+            return 0;
+        }
+        return term.length() <= 6 ? 1 : 2;
+    }
+
+    private static void addTerms(Map<String, Integer> termFrequencies, String text, int weight) {
+        for (String term : Tokenizer.tokenize(text)) {
+            termFrequencies.merge(term, weight, Integer::sum);
+        }
+    }
+}
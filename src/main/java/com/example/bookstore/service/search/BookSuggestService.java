@@ -0,0 +1,13 @@
+package com.example.bookstore.service.search;
+
+import java.util.List;
+import org.springframework.stereotype.Service;
+
+@Service
+public interface BookSuggestService {
+    /**
+     * Returns up to {@code size} titles and authors that start with the prefix,
+     * the most popular first.
+     */
+    List<String> suggest(String prefix, int size);
+}
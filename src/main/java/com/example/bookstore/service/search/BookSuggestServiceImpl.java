@@ -0,0 +1,226 @@
+package com.example.bookstore.service.search;
+
+import com.example.bookstore.dto.book.BookDto;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.regex.Pattern;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Service;
+
+/**
+ * Suggests titles and authors from a {@link CompletionTrie}. Every book adds one
+ * plus the number of its copies sold to the score of its title and of its author,
+ * so an author with many books or a best seller comes first. Sales are read once,
+ * when the first book is indexed. Keys are resolved to trie ordinals, so a book only
+ * keeps its score and the ordinals of its title and author, and a key only its count
+ * of books. Titles, authors and this bookkeeping take about 230 MB per million books.
+ */
+@Service
+public class BookSuggestServiceImpl implements BookSuggestService, BookIndex {
+    private static final String SELECT_SOLD_QUANTITIES = "SELECT book_id, SUM(quantity) AS sold "
+            + "FROM order_items WHERE is_deleted = false GROUP BY book_id";
+    private static final Pattern WHITESPACE = Pattern.compile("\\s+");
+
+    private final JdbcTemplate jdbcTemplate;
+    private final CompletionTrie trie;
+    private final int maxSize;
+    private final SuggestedBooks books = new SuggestedBooks();
+    /**
+     * Number of books per trie ordinal; a key leaves the trie with its last book.
+     */
+    private int[] bookCounts = new int[16];
+    private Map<Long, Long> soldQuantities;
+
+    public BookSuggestServiceImpl(
+            JdbcTemplate jdbcTemplate,
+            @Value("${book.suggest.max-size:10}") int maxSize
+    ) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.maxSize = maxSize;
+        this.trie = new CompletionTrie(maxSize);
+    }
+
+    @Override
+    public List<String> suggest(String prefix, int size) {
+        String key = normalize(prefix).stripLeading();
+        if (key.isEmpty()) {
+            return List.of();
+        }
+        return trie.complete(key, Math.min(size, maxSize));
+    }
+
+    @Override
+    public synchronized void index(BookDto book) {
+        if (soldQuantities == null) {
+            soldQuantities = loadSoldQuantities();
+        }
+        remove(book.getId());
+        long score = 1 + soldQuantities.getOrDefault(book.getId(), 0L);
+        books.put(book.getId(), score, add(book.getTitle(), score),
+                add(book.getAuthor(), score));
+    }
+
+    @Override
+    public synchronized void remove(Long bookId) {
+        int slot = books.slotOf(bookId);
+        if (slot >= 0) {
+            subtract(books.titles[slot], books.scores[slot]);
+            subtract(books.authors[slot], books.scores[slot]);
+            books.remove(slot);
+        }
+    }
+
+    /**
+     * Returns the trie ordinal of the text, or -1 if it is blank.
+     */
+    private int add(String text, long score) {
+        String key = normalize(text).strip();
+        if (key.isEmpty()) {
+            return -1;
+        }
+        int ordinal = trie.ordinalOf(key);
+        if (ordinal >= 0) {
+            bookCounts[ordinal]++;
+            trie.setScore(ordinal, trie.scoreOf(ordinal) + score);
+            return ordinal;
+        }
+        ordinal = trie.put(key, text.strip(), score);
+        if (ordinal >= bookCounts.length) {
+            bookCounts = Arrays.copyOf(bookCounts, Math.max(ordinal + 1, bookCounts.length * 2));
+        }
+        bookCounts[ordinal] = 1;
+        return ordinal;
+    }
+
+    private void subtract(int ordinal, long score) {
+        if (ordinal < 0) {
+            return;
+        }
+        if (--bookCounts[ordinal] == 0) {
+            trie.remove(ordinal);
+        } else {
+            trie.setScore(ordinal, trie.scoreOf(ordinal) - score);
+        }
+    }
+
+    private Map<Long, Long> loadSoldQuantities() {
+        Map<Long, Long> quantities = new HashMap<>();
+        jdbcTemplate.query(SELECT_SOLD_QUANTITIES, rs -> {
+            quantities.put(rs.getLong("book_id"), rs.getLong("sold"));
+        });
+        return quantities;
+    }
+
+    private static String normalize(String text) {
+        if (text == null) {
+            return "";
+        }
+        return WHITESPACE.matcher(text.toLowerCase(Locale.ROOT)).replaceAll(" ");
+    }
+
+    /**
+     * Indexed books in an open-addressing table keyed by id with linear probing. The
+     * slot of a book indexes its score and the trie ordinals of its title and author.
+     */
+    private static class SuggestedBooks {
+        private static final long FREE = Long.MIN_VALUE;
+
+        private long[] ids;
+        private long[] scores;
+        private int[] titles;
+        private int[] authors;
+        private int mask;
+        private int size;
+
+        SuggestedBooks() {
+            allocate(16);
+        }
+
+        int slotOf(long id) {
+            int slot = home(id);
+            while (ids[slot] != FREE) {
+                if (ids[slot] == id) {
+                    return slot;
+                }
+                slot = (slot + 1) & mask;
+            }
+            return -1;
+        }
+
+        /**
+         * Adds a book that is not in the table.
+         */
+        void put(long id, long score, int title, int author) {
+            if (++size > ids.length / 2) {
+                resize();
+            }
+            int slot = home(id);
+            while (ids[slot] != FREE) {
+                slot = (slot + 1) & mask;
+            }
+            ids[slot] = id;
+            scores[slot] = score;
+            titles[slot] = title;
+            authors[slot] = author;
+        }
+
+        /**
+         * Shifts later books of the probe run back into the freed slot, so lookups
+         * never need tombstones.
+         */
+        void remove(int slot) {
+            int hole = slot;
+            int next = (hole + 1) & mask;
+            while (ids[next] != FREE) {
+                if (((next - home(ids[next])) & mask) >= ((next - hole) & mask)) {
+                    ids[hole] = ids[next];
+                    scores[hole] = scores[next];
+                    titles[hole] = titles[next];
+                    authors[hole] = authors[next];
+                    hole = next;
+                }
+                next = (next + 1) & mask;
+            }
+            ids[hole] = FREE;
+            size--;
+        }
+
+        private int home(long id) {
+            long hash = id * 0x9E3779B97F4A7C15L;
+            return (int) (hash ^ (hash >>> 32)) & mask;
+        }
+
+        private void resize() {
+            long[] oldIds = ids;
+            long[] oldScores = scores;
+            int[] oldTitles = titles;
+            int[] oldAuthors = authors;
+            allocate(oldIds.length * 2);
+            for (int i = 0; i < oldIds.length; i++) {
+                if (oldIds[i] != FREE) {
+                    int slot = home(oldIds[i]);
+                    while (ids[slot] != FREE) {
+                        slot = (slot + 1) & mask;
+                    }
+                    ids[slot] = oldIds[i];
+                    scores[slot] = oldScores[i];
+                    titles[slot] = oldTitles[i];
+                    authors[slot] = oldAuthors[i];
+                }
+            }
+        }
+
+        private void allocate(int capacity) {
+            ids = new long[capacity];
+            Arrays.fill(ids, FREE);
+            scores = new long[capacity];
+            titles = new int[capacity];
+            authors = new int[capacity];
+            mask = capacity - 1;
+        }
+    }
+}
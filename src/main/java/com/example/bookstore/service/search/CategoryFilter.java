@@ -0,0 +1,201 @@
+package com.example.bookstore.service.search;
+
+import com.example.bookstore.exception.InvalidCategoryFilterException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+import java.util.function.LongFunction;
+import org.roaringbitmap.RoaringBitmap;
+
+/**
+ * Parsed category filter such as {@code 1 AND (2 OR 3) NOT 4}, where the numbers
+ * are category ids. {@code NOT} binds tighter than {@code AND}, which binds tighter
+ * than {@code OR}; an operand followed by {@code NOT x} means {@code AND NOT x}.
+ * Keywords are case-insensitive.
+ */
+public abstract class CategoryFilter {
+    private static final int MAX_LENGTH = 1000;
+
+    /**
+     * @throws InvalidCategoryFilterException if the expression is malformed
+     */
+    public static CategoryFilter parse(String expression) {
+        if (expression == null || expression.isBlank() || expression.length() > MAX_LENGTH) {
+            throw new InvalidCategoryFilterException(
+                    "Category filter must have 1 to " + MAX_LENGTH + " chars");
+        }
+        Parser parser = new Parser(tokenize(expression));
+        CategoryFilter filter = parser.parseOr();
+        if (parser.position < parser.tokens.size()) {
+            throw new InvalidCategoryFilterException(
+                    "Unexpected '" + parser.tokens.get(parser.position) + "' in category filter");
+        }
+        return filter;
+    }
+
+    /**
+     * Returns the ids of the matching books. The result may be one of the bitmaps
+     * passed in and must not be modified.
+     *
+     * @param categoryBitmaps books of a category, or {@code null} for an unknown one
+     * @param allBooks        every indexed book, the universe of {@code NOT}
+     */
+    abstract RoaringBitmap evaluate(LongFunction<RoaringBitmap> categoryBitmaps,
+                                    RoaringBitmap allBooks);
+
+    private static List<String> tokenize(String expression) {
+        List<String> tokens = new ArrayList<>();
+        int start = -1;
+        for (int i = 0; i <= expression.length(); i++) {
+            char c = i < expression.length() ? expression.charAt(i) : ' ';
+            boolean separator = Character.isWhitespace(c) || c == '(' || c == ')';
+            if (separator && start >= 0) {
+                tokens.add(expression.substring(start, i).toUpperCase(Locale.ROOT));
+                start = -1;
+            }
+            if (c == '(' || c == ')') {
+                tokens.add(String.valueOf(c));
+            } else if (!separator && start < 0) {
+                start = i;
+            }
+        }
+        return tokens;
+    }
+
+    private static class Parser {
+        private final List<String> tokens;
+        private int position;
+
+        Parser(List<String> tokens) {
+            this.tokens = tokens;
+        }
+
+        CategoryFilter parseOr() {
+            CategoryFilter filter = parseAnd();
+            while (accept("OR")) {
+                filter = new Or(filter, parseAnd());
+            }
+            return filter;
+        }
+
+        CategoryFilter parseAnd() {
+            CategoryFilter filter = parseNot();
+            while (true) {
+                if (accept("AND") || "NOT".equals(peek())) {
+                    filter = new And(filter, parseNot());
+                } else {
+                    return filter;
+                }
+            }
+        }
+
+        CategoryFilter parseNot() {
+            if (accept("NOT")) {
+                return new Not(parseNot());
+            }
+            return parseOperand();
+        }
+
+        CategoryFilter parseOperand() {
+            String token = peek();
+            if (token == null) {
+                throw new InvalidCategoryFilterException("Category filter ends unexpectedly");
+            }
+            position++;
+            if (token.equals("(")) {
+                CategoryFilter filter = parseOr();
+                if (!accept(")")) {
+                    throw new InvalidCategoryFilterException("Missing ')' in category filter");
+                }
+                return filter;
+            }
+            try {
+                return new CategoryOperand(Long.parseLong(token));
+            } catch (NumberFormatException e) {
+                throw new InvalidCategoryFilterException(
+                        "Expected a category id in category filter, got '" + token + "'", e);
+            }
+        }
+
+        private String peek() {
+            return position < tokens.size() ? tokens.get(position) : null;
+        }
+
+        private boolean accept(String token) {
+            if (token.equals(peek())) {
+                position++;
+                return true;
+            }
+            return false;
+        }
+    }
+
+    private static class CategoryOperand extends CategoryFilter {
+        private static final RoaringBitmap EMPTY = new RoaringBitmap();
+
+        private final long categoryId;
+
+        CategoryOperand(long categoryId) {
+            this.categoryId = categoryId;
+        }
+
+        @Override
+        RoaringBitmap evaluate(LongFunction<RoaringBitmap> categoryBitmaps,
+                               RoaringBitmap allBooks) {
+            RoaringBitmap books = categoryBitmaps.apply(categoryId);
+            return books == null ? EMPTY : books;
+        }
+    }
+
+    private static class And extends CategoryFilter {
+        private final CategoryFilter left;
+        private final CategoryFilter right;
+
+        And(CategoryFilter left, CategoryFilter right) {
+            this.left = left;
+            this.right = right;
+        }
+
+        @Override
+        RoaringBitmap evaluate(LongFunction<RoaringBitmap> categoryBitmaps,
+                               RoaringBitmap allBooks) {
+            RoaringBitmap books = left.evaluate(categoryBitmaps, allBooks);
+            if (right instanceof Not) {
+                return RoaringBitmap.andNot(books,
+                        ((Not) right).operand.evaluate(categoryBitmaps, allBooks));
+            }
+            return RoaringBitmap.and(books, right.evaluate(categoryBitmaps, allBooks));
+        }
+    }
+
+    private static class Or extends CategoryFilter {
+        private final CategoryFilter left;
+        private final CategoryFilter right;
+
+        Or(CategoryFilter left, CategoryFilter right) {
+            this.left = left;
+            this.right = right;
+        }
+
+        @Override
+        RoaringBitmap evaluate(LongFunction<RoaringBitmap> categoryBitmaps,
+                               RoaringBitmap allBooks) {
+            return RoaringBitmap.or(left.evaluate(categoryBitmaps, allBooks),
+                    right.evaluate(categoryBitmaps, allBooks));
+        }
+    }
+
+    private static class Not extends CategoryFilter {
+        private final CategoryFilter operand;
+
+        Not(CategoryFilter operand) {
+            this.operand = operand;
+        }
+
+        @Override
+        RoaringBitmap evaluate(LongFunction<RoaringBitmap> categoryBitmaps,
+                               RoaringBitmap allBooks) {
+            return RoaringBitmap.andNot(allBooks, operand.evaluate(categoryBitmaps, allBooks));
+        }
+    }
+}
@@ -0,0 +1,458 @@
+package com.example.bookstore.service.search;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+/**
+ * Radix trie that answers "best completions of a prefix" without visiting the
+ * subtree below the prefix.
+ *
+ * <p>Chains of single-child nodes are collapsed into one node with a multi-char
+ * label, and every node keeps the ordinals of the best {@code maxCompletions} keys
+ * below it in a small {@code int[]} ordered by score; a leaf has no array as its
+ * only completion is its own key. A lookup walks at most {@code prefix.length()}
+ * nodes and copies that array. Adding a key or raising its score only re-offers it
+ * to the nodes on its path; removing a key or lowering its score rebuilds the
+ * arrays on its path from the children.
+ *
+ * <p>A key is found by walking its path, and its ordinal indexes the key, text and
+ * score arrays, so there is no map from keys to ordinals. Memory budget with
+ * compressed oops: about 170 MB per million distinct keys of ~25 chars for nodes,
+ * labels, top arrays and the keys, not counting the texts.
+ * {@code CompletionTrieBenchmark} measures lookups.
+ */
+public class CompletionTrie {
+    private static final int[] EMPTY = new int[0];
+
+    private final ReadWriteLock lock = new ReentrantReadWriteLock();
+    private final int maxCompletions;
+    private final Node root = new Node("", EMPTY);
+    private String[] keys = new String[16];
+    private String[] texts = new String[16];
+    private long[] scores = new long[16];
+    private int[] freeOrdinals = new int[16];
+    private int freeCount;
+    private int ordinalCount;
+    private int size;
+
+    public CompletionTrie(int maxCompletions) {
+        this.maxCompletions = maxCompletions;
+    }
+
+    /**
+     * Adds the key or updates its text and score.
+     *
+     * @param key  normalized form that prefixes are matched against
+     * @param text what a lookup returns for the key
+     * @return the ordinal of the key, valid until the key is removed
+     */
+    public int put(String key, String text, long score) {
+        lock.writeLock().lock();
+        try {
+            int ordinal = lookup(key);
+            if (ordinal < 0) {
+                ordinal = allocate(key, text, score);
+                insert(key, ordinal);
+                return ordinal;
+            }
+            texts[ordinal] = text;
+            rescore(ordinal, score);
+            return ordinal;
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    /**
+     * Returns the ordinal of the key, or -1 if it is not in the trie.
+     */
+    public int ordinalOf(String key) {
+        lock.readLock().lock();
+        try {
+            return lookup(key);
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    public long scoreOf(int ordinal) {
+        lock.readLock().lock();
+        try {
+            return scores[ordinal];
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /**
+     * Changes the score of a key by its ordinal and keeps its text.
+     */
+    public void setScore(int ordinal, long score) {
+        lock.writeLock().lock();
+        try {
+            rescore(ordinal, score);
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    public void remove(String key) {
+        lock.writeLock().lock();
+        try {
+            int ordinal = lookup(key);
+            if (ordinal >= 0) {
+                release(ordinal);
+            }
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    /**
+     * Removes a key by its ordinal, which may then be handed out to a new key.
+     */
+    public void remove(int ordinal) {
+        lock.writeLock().lock();
+        try {
+            release(ordinal);
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    public int size() {
+        lock.readLock().lock();
+        try {
+            return size;
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /**
+     * Returns the texts of up to {@code limit} keys that start with the prefix,
+     * the highest score first and alphabetically on equal scores.
+     */
+    public List<String> complete(String prefix, int limit) {
+        lock.readLock().lock();
+        try {
+            Node node = find(prefix);
+            if (node == null) {
+                return List.of();
+            }
+            int[] top = topOf(node);
+            int count = Math.min(limit, top.length);
+            List<String> completions = new ArrayList<>(count);
+            for (int i = 0; i < count; i++) {
+                completions.add(texts[top[i]]);
+            }
+            return completions;
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    private Node find(String prefix) {
+        Node node = root;
+        int offset = 0;
+        while (offset < prefix.length()) {
+            Node child = node.findChild(prefix.charAt(offset));
+            if (child == null) {
+                return null;
+            }
+            int common = commonPrefixLength(child.label, prefix, offset);
+            if (offset + common == prefix.length()) {
+                return child;
+            }
+            if (common < child.label.length()) {
+                return null;
+            }
+            offset += common;
+            node = child;
+        }
+        return node;
+    }
+
+    /**
+     * Walks whole labels only, so it finds the node of the exact key.
+     */
+    private int lookup(String key) {
+        Node node = root;
+        int offset = 0;
+        while (offset < key.length()) {
+            Node child = node.findChild(key.charAt(offset));
+            if (child == null || !key.startsWith(child.label, offset)) {
+                return -1;
+            }
+            offset += child.label.length();
+            node = child;
+        }
+        return node == root ? -1 : node.ordinal;
+    }
+
+    private void rescore(int ordinal, long score) {
+        long previousScore = scores[ordinal];
+        scores[ordinal] = score;
+        if (score >= previousScore) {
+            offerOnPath(keys[ordinal], ordinal);
+        } else {
+            rebuildPath(root, keys[ordinal], 0);
+        }
+    }
+
+    private void release(int ordinal) {
+        delete(root, keys[ordinal], 0);
+        keys[ordinal] = null;
+        texts[ordinal] = null;
+        freeOrdinals[freeCount++] = ordinal;
+        size--;
+    }
+
+    private void insert(String key, int ordinal) {
+        Node node = root;
+        int offset = 0;
+        while (true) {
+            node.top = offer(topOf(node), ordinal);
+            if (offset == key.length()) {
+                node.ordinal = ordinal;
+                return;
+            }
+            Node child = node.findChild(key.charAt(offset));
+            if (child == null) {
+                Node leaf = new Node(key.substring(offset));
+                leaf.ordinal = ordinal;
+                node.addChild(leaf);
+                return;
+            }
+            int common = commonPrefixLength(child.label, key, offset);
+            if (common < child.label.length()) {
+                Node middle = new Node(child.label.substring(0, common), topOf(child));
+                node.replaceChild(middle);
+                child.label = child.label.substring(common);
+                middle.addChild(child);
+                child = middle;
+            }
+            node = child;
+            offset += common;
+        }
+    }
+
+    private void offerOnPath(String key, int ordinal) {
+        Node node = root;
+        int offset = 0;
+        while (true) {
+            if (node.children != null) {
+                node.top = offer(node.top, ordinal);
+            }
+            if (offset == key.length()) {
+                return;
+            }
+            Node child = node.findChild(key.charAt(offset));
+            offset += child.label.length();
+            node = child;
+        }
+    }
+
+    private void rebuildPath(Node node, String key, int offset) {
+        if (offset < key.length()) {
+            Node child = node.findChild(key.charAt(offset));
+            rebuildPath(child, key, offset + child.label.length());
+        }
+        rebuild(node);
+    }
+
+    private void delete(Node node, String key, int offset) {
+        if (offset == key.length()) {
+            node.ordinal = -1;
+            rebuild(node);
+            return;
+        }
+        Node child = node.findChild(key.charAt(offset));
+        delete(child, key, offset + child.label.length());
+        if (child.ordinal < 0 && child.children == null) {
+            node.removeChild(child);
+        } else if (child.ordinal < 0 && child.children.length == 1) {
+            Node grandchild = child.children[0];
+            grandchild.label = child.label + grandchild.label;
+            node.replaceChild(grandchild);
+        }
+        rebuild(node);
+    }
+
+    private void rebuild(Node node) {
+        if (node.children == null) {
+            node.top = node == root ? EMPTY : null;
+            return;
+        }
+        int[] top = node.ordinal < 0 ? EMPTY : new int[] {node.ordinal};
+        for (Node child : node.children) {
+            for (int ordinal : topOf(child)) {
+                top = offer(top, ordinal);
+            }
+        }
+        node.top = top;
+    }
+
+    /**
+     * Leaves do not store an array, their only completion is their own key.
+     */
+    private static int[] topOf(Node node) {
+        if (node.top != null) {
+            return node.top;
+        }
+        return node.ordinal < 0 ? EMPTY : new int[] {node.ordinal};
+    }
+
+    /**
+     * Returns {@code top} with the ordinal moved to its place by score, or dropped if
+     * it does not make the first {@code maxCompletions}.
+     */
+    private int[] offer(int[] top, int ordinal) {
+        int length = top.length;
+        int existing = indexOf(top, ordinal);
+        if (existing < 0 && length == maxCompletions && isBetter(top[length - 1], ordinal)) {
+            return top;
+        }
+        if (existing >= 0) {
+            top = Arrays.copyOf(top, length);
+            System.arraycopy(top, existing + 1, top, existing, length - existing - 1);
+            length--;
+        }
+        int position = 0;
+        while (position < length && isBetter(top[position], ordinal)) {
+            position++;
+        }
+        if (position >= maxCompletions) {
+            return length == top.length ? top : Arrays.copyOf(top, length);
+        }
+        int[] result = new int[Math.min(length + 1, maxCompletions)];
+        System.arraycopy(top, 0, result, 0, position);
+        result[position] = ordinal;
+        System.arraycopy(top, position, result, position + 1, result.length - position - 1);
+        return result;
+    }
+
+    private boolean isBetter(int ordinal, int other) {
+        return scores[ordinal] > scores[other]
+                || scores[ordinal] == scores[other] && keys[ordinal].compareTo(keys[other]) < 0;
+    }
+
+    private int allocate(String key, String text, long score) {
+        int ordinal;
+        if (freeCount > 0) {
+            ordinal = freeOrdinals[--freeCount];
+        } else {
+            ordinal = ordinalCount++;
+            if (ordinal == keys.length) {
+                keys = Arrays.copyOf(keys, ordinal * 2);
+                texts = Arrays.copyOf(texts, ordinal * 2);
+                scores = Arrays.copyOf(scores, ordinal * 2);
+                freeOrdinals = Arrays.copyOf(freeOrdinals, ordinal * 2);
+            }
+        }
+        keys[ordinal] = key;
+        texts[ordinal] = text;
+        scores[ordinal] = score;
+        size++;
+        return ordinal;
+    }
+
+    private static int indexOf(int[] array, int value) {
+        for (int i = 0; i < array.length; i++) {
+            if (array[i] == value) {
+                return i;
+            }
+        }
+        return -1;
+    }
+
+    private static int commonPrefixLength(String label, String key, int offset) {
+        int max = Math.min(label.length(), key.length() - offset);
+        int length = 0;
+        while (length < max && label.charAt(length) == key.charAt(offset + length)) {
+            length++;
+        }
+        return length;
+    }
+
+    /**
+     * Children are kept sorted by the first char of their labels, which are distinct.
+     * The first chars are repeated in {@code firstChars}, so finding a child does not
+     * load the labels of its siblings.
+     */
+    private static class Node {
+        private String label;
+        private char[] firstChars;
+        private Node[] children;
+        private int[] top;
+        private int ordinal = -1;
+
+        Node(String label) {
+            this.label = label;
+        }
+
+        Node(String label, int[] top) {
+            this.label = label;
+            this.top = top;
+        }
+
+        Node findChild(char first) {
+            int index = indexOfChild(first);
+            return index >= 0 ? children[index] : null;
+        }
+
+        void addChild(Node child) {
+            char first = child.label.charAt(0);
+            if (children == null) {
+                firstChars = new char[] {first};
+                children = new Node[] {child};
+                return;
+            }
+            int insertion = -indexOfChild(first) - 1;
+            char[] grownChars = new char[firstChars.length + 1];
+            System.arraycopy(firstChars, 0, grownChars, 0, insertion);
+            grownChars[insertion] = first;
+            System.arraycopy(firstChars, insertion, grownChars, insertion + 1,
+                    firstChars.length - insertion);
+            Node[] grown = new Node[children.length + 1];
+            System.arraycopy(children, 0, grown, 0, insertion);
+            grown[insertion] = child;
+            System.arraycopy(children, insertion, grown, insertion + 1,
+                    children.length - insertion);
+            firstChars = grownChars;
+            children = grown;
+        }
+
+        /**
+         * Replaces a child with a node whose label starts with the same char.
+         */
+        void replaceChild(Node replacement) {
+            children[indexOfChild(replacement.label.charAt(0))] = replacement;
+        }
+
+        void removeChild(Node child) {
+            if (children.length == 1) {
+                firstChars = null;
+                children = null;
+                return;
+            }
+            int index = indexOfChild(child.label.charAt(0));
+            char[] shrunkChars = new char[firstChars.length - 1];
+            System.arraycopy(firstChars, 0, shrunkChars, 0, index);
+            System.arraycopy(firstChars, index + 1, shrunkChars, index,
+                    shrunkChars.length - index);
+            Node[] shrunk = new Node[children.length - 1];
+            System.arraycopy(children, 0, shrunk, 0, index);
+            System.arraycopy(children, index + 1, shrunk, index, shrunk.length - index);
+            firstChars = shrunkChars;
+            children = shrunk;
+        }
+
+        private int indexOfChild(char first) {
+            return firstChars == null ? -1 : Arrays.binarySearch(firstChars, first);
+        }
+    }
+}
@@ -0,0 +1,350 @@
+package com.example.bookstore.service.search;
+
+import com.example.bookstore.dto.book.BookFacetsResponseDto;
+import com.example.bookstore.dto.book.FacetCountDto;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+import java.util.stream.IntStream;
+import org.roaringbitmap.PeekableIntIterator;
+import org.roaringbitmap.RoaringBitmap;
+
+/**
+ * Columnar copy of the book attributes that facets are counted on.
+ *
+ * <p>Every book gets a dense int ordinal that indexes the {@code priceCents},
+ * {@code authorOrdinals} and {@code categoryOrdinals} columns, and authors and
+ * categories get dense ordinals of their own, so counting is one walk over the
+ * matching book ordinals that bumps plain {@code int[]} counters. The category filter
+ * is evaluated on per-category bitmaps of book ordinals first. Large results are split
+ * into one ordinal range per core and counted in parallel. A changed book overwrites
+ * its row in place; the ordinal of a removed book is reused by the next new one.
+ */
+public class FacetIndex {
+    private static final int PARALLEL_THRESHOLD = 100_000;
+    private static final Comparator<FacetCountDto> BY_COUNT_DESC =
+            Comparator.comparingLong(FacetCountDto::getCount).reversed()
+                    .thenComparing(FacetCountDto::getValue);
+
+    private final int[] priceBounds;
+    private final String[] priceLabels;
+    private final int maxAuthors;
+    private final int parallelism;
+    private final ReadWriteLock lock = new ReentrantReadWriteLock();
+    private final Map<Long, Integer> ordinalsByBookId = new HashMap<>();
+    private final Map<Long, RoaringBitmap> booksByCategoryId = new HashMap<>();
+    private final Map<Long, Integer> ordinalsByCategoryId = new HashMap<>();
+    private final List<Long> categories = new ArrayList<>();
+    private final Map<String, Integer> ordinalsByAuthor = new HashMap<>();
+    private final List<String> authors = new ArrayList<>();
+    private final RoaringBitmap liveBooks = new RoaringBitmap();
+    private int[] priceCents = new int[16];
+    private int[] authorOrdinals = new int[16];
+    private int[][] categoryOrdinals = new int[16][];
+    private int[] freeOrdinals = new int[16];
+    private int freeCount;
+    private int ordinalCount;
+
+    /**
+     * @param priceBounds ascending upper bounds in cents of all price buckets but the
+     *                    last, which has no upper bound
+     */
+    public FacetIndex(int[] priceBounds, int maxAuthors, int parallelism) {
+        this.priceBounds = priceBounds.clone();
+        this.priceLabels = getPriceLabels(priceBounds);
+        this.maxAuthors = maxAuthors;
+        this.parallelism = parallelism;
+    }
+
+    public void put(long bookId, int price, String author, Set<Long> categoryIds) {
+        lock.writeLock().lock();
+        try {
+            Integer ordinal = ordinalsByBookId.get(bookId);
+            if (ordinal == null) {
+                ordinal = allocate();
+                ordinalsByBookId.put(bookId, ordinal);
+                liveBooks.add(ordinal);
+            } else {
+                removeFromCategories(ordinal);
+            }
+            priceCents[ordinal] = price;
+            authorOrdinals[ordinal] = ordinalsByAuthor.computeIfAbsent(author, a -> {
+                authors.add(a);
+                return authors.size() - 1;
+            });
+            Set<Long> bookCategoryIds = categoryIds == null ? Set.of() : categoryIds;
+            int[] bookCategories = new int[bookCategoryIds.size()];
+            int count = 0;
+            for (Long categoryId : bookCategoryIds) {
+                booksByCategoryId.computeIfAbsent(categoryId, c -> new RoaringBitmap())
+                        .add(ordinal);
+                bookCategories[count++] = ordinalsByCategoryId.computeIfAbsent(categoryId, c -> {
+                    categories.add(c);
+                    return categories.size() - 1;
+                });
+            }
+            categoryOrdinals[ordinal] = bookCategories;
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    /**
+     * Overwrites the price of an indexed book and ignores books that aren't indexed.
+     */
+    public void setPrice(long bookId, int price) {
+        lock.writeLock().lock();
+        try {
+            Integer ordinal = ordinalsByBookId.get(bookId);
+            if (ordinal != null) {
+                priceCents[ordinal] = price;
+            }
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    public void remove(long bookId) {
+        lock.writeLock().lock();
+        try {
+            Integer ordinal = ordinalsByBookId.remove(bookId);
+            if (ordinal != null) {
+                removeFromCategories(ordinal);
+                liveBooks.remove(ordinal);
+                freeOrdinals[freeCount++] = ordinal;
+            }
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    public void removeCategory(long categoryId) {
+        lock.writeLock().lock();
+        try {
+            booksByCategoryId.remove(categoryId);
+            ordinalsByCategoryId.remove(categoryId);
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    /**
+     * Counts the books matching all given filters per category, author and price
+     * bucket. Authors are limited to the most frequent ones.
+     *
+     * @param categoryFilter category expression, or {@code null} for any category
+     * @param author         exact author, or {@code null} for any author
+     */
+    public BookFacetsResponseDto count(
+            CategoryFilter categoryFilter,
+            String author,
+            int minPriceCents,
+            int maxPriceCents
+    ) {
+        lock.readLock().lock();
+        try {
+            Integer authorOrdinal = author == null ? null : ordinalsByAuthor.get(author);
+            RoaringBitmap candidates;
+            if (author != null && authorOrdinal == null) {
+                candidates = new RoaringBitmap();
+            } else if (categoryFilter == null) {
+                candidates = liveBooks;
+            } else {
+                candidates = categoryFilter.evaluate(booksByCategoryId::get, liveBooks);
+            }
+            RowFilter rowFilter = new RowFilter(
+                    authorOrdinal == null ? -1 : authorOrdinal, minPriceCents, maxPriceCents);
+
+            int chunks = candidates.getCardinality() < PARALLEL_THRESHOLD ? 1 : parallelism;
+            int chunkSize = ordinalCount / chunks + 1;
+            Counts[] chunkCounts = new Counts[chunks];
+            IntStream chunkIndexes = IntStream.range(0, chunks);
+            (chunks > 1 ? chunkIndexes.parallel() : chunkIndexes).forEach(chunk ->
+                    chunkCounts[chunk] = countRange(candidates, rowFilter,
+                            chunk * chunkSize, Math.min(ordinalCount, (chunk + 1) * chunkSize)));
+
+            Counts counts = chunkCounts[0];
+            for (int i = 1; i < chunks; i++) {
+                counts.add(chunkCounts[i]);
+            }
+            return toResponse(counts);
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    private Counts countRange(RoaringBitmap candidates, RowFilter rowFilter, int from, int to) {
+        Counts counts = new Counts(authors.size(), categories.size(), priceLabels.length);
+        PeekableIntIterator iterator = candidates.getIntIterator();
+        iterator.advanceIfNeeded(from);
+        while (iterator.hasNext() && iterator.peekNext() < to) {
+            int ordinal = iterator.next();
+            int price = priceCents[ordinal];
+            int authorOrdinal = authorOrdinals[ordinal];
+            if (!rowFilter.matches(authorOrdinal, price)) {
+                continue;
+            }
+            counts.total++;
+            counts.authorCounts[authorOrdinal]++;
+            for (int category : categoryOrdinals[ordinal]) {
+                counts.categoryCounts[category]++;
+            }
+            counts.priceCounts[getPriceBucket(price)]++;
+        }
+        return counts;
+    }
+
+    private BookFacetsResponseDto toResponse(Counts counts) {
+        BookFacetsResponseDto response = new BookFacetsResponseDto();
+        response.setTotal(counts.total);
+
+        List<FacetCountDto> categoryCounts = new ArrayList<>();
+        ordinalsByCategoryId.forEach((categoryId, category) -> {
+            if (counts.categoryCounts[category] > 0) {
+                categoryCounts.add(FacetCountDto.of(String.valueOf(categoryId),
+                        counts.categoryCounts[category]));
+            }
+        });
+        categoryCounts.sort(BY_COUNT_DESC);
+        response.setCategories(categoryCounts);
+
+        int[] topAuthors = getTopAuthors(counts.authorCounts);
+        List<FacetCountDto> authorCounts = new ArrayList<>(topAuthors.length);
+        for (int author : topAuthors) {
+            authorCounts.add(FacetCountDto.of(authors.get(author), counts.authorCounts[author]));
+        }
+        response.setAuthors(authorCounts);
+
+        List<FacetCountDto> priceCounts = new ArrayList<>(priceLabels.length);
+        for (int i = 0; i < priceLabels.length; i++) {
+            priceCounts.add(FacetCountDto.of(priceLabels[i], counts.priceCounts[i]));
+        }
+        response.setPrices(priceCounts);
+        return response;
+    }
+
+    /**
+     * Selects the most frequent authors into a small sorted array, so the thousands of
+     * authors with few books are neither boxed nor sorted.
+     */
+    private int[] getTopAuthors(int[] authorCounts) {
+        int[] top = new int[maxAuthors];
+        int size = 0;
+        for (int author = 0; author < authorCounts.length; author++) {
+            if (authorCounts[author] == 0
+                    || size == maxAuthors && !isBefore(author, top[size - 1], authorCounts)) {
+                continue;
+            }
+            int position = Math.min(size, maxAuthors - 1);
+            while (position > 0 && isBefore(author, top[position - 1], authorCounts)) {
+                top[position] = top[position - 1];
+                position--;
+            }
+            top[position] = author;
+            size = Math.min(size + 1, maxAuthors);
+        }
+        return Arrays.copyOf(top, size);
+    }
+
+    private boolean isBefore(int author, int other, int[] authorCounts) {
+        return authorCounts[author] > authorCounts[other]
+                || authorCounts[author] == authorCounts[other]
+                && authors.get(author).compareTo(authors.get(other)) < 0;
+    }
+
+    private int getPriceBucket(int price) {
+        int bucket = 0;
+        while (bucket < priceBounds.length && price >= priceBounds[bucket]) {
+            bucket++;
+        }
+        return bucket;
+    }
+
+    private void removeFromCategories(int ordinal) {
+        for (int category : categoryOrdinals[ordinal]) {
+            RoaringBitmap books = booksByCategoryId.get(categories.get(category));
+            if (books != null) {
+                books.remove(ordinal);
+            }
+        }
+    }
+
+    private int allocate() {
+        if (freeCount > 0) {
+            return freeOrdinals[--freeCount];
+        }
+        int ordinal = ordinalCount++;
+        if (ordinal == priceCents.length) {
+            priceCents = Arrays.copyOf(priceCents, ordinal * 2);
+            authorOrdinals = Arrays.copyOf(authorOrdinals, ordinal * 2);
+            categoryOrdinals = Arrays.copyOf(categoryOrdinals, ordinal * 2);
+            freeOrdinals = Arrays.copyOf(freeOrdinals, ordinal * 2);
+        }
+        return ordinal;
+    }
+
+    private static String[] getPriceLabels(int[] priceBounds) {
+        String[] labels = new String[priceBounds.length + 1];
+        int lower = 0;
+        for (int i = 0; i < priceBounds.length; i++) {
+            labels[i] = formatCents(lower) + "-" + formatCents(priceBounds[i]);
+            lower = priceBounds[i];
+        }
+        labels[priceBounds.length] = formatCents(lower) + "+";
+        return labels;
+    }
+
+    private static String formatCents(int cents) {
+        return cents % 100 == 0
+                ? String.valueOf(cents / 100) : String.format("%d.%02d", cents / 100, cents % 100);
+    }
+
+    private static class RowFilter {
+        private final int authorOrdinal;
+        private final int minPriceCents;
+        private final int maxPriceCents;
+
+        RowFilter(int authorOrdinal, int minPriceCents, int maxPriceCents) {
+            this.authorOrdinal = authorOrdinal;
+            this.minPriceCents = minPriceCents;
+            this.maxPriceCents = maxPriceCents;
+        }
+
+        boolean matches(int author, int price) {
+            return (authorOrdinal < 0 || author == authorOrdinal)
+                    && price >= minPriceCents && price <= maxPriceCents;
+        }
+    }
+
+    private static class Counts {
+        private final int[] authorCounts;
+        private final int[] categoryCounts;
+        private final int[] priceCounts;
+        private long total;
+
+        Counts(int authors, int categories, int priceBuckets) {
+            authorCounts = new int[authors];
+            categoryCounts = new int[categories];
+            priceCounts = new int[priceBuckets];
+        }
+
+        void add(Counts other) {
+            addTo(authorCounts, other.authorCounts);
+            addTo(categoryCounts, other.categoryCounts);
+            addTo(priceCounts, other.priceCounts);
+            total += other.total;
+        }
+
+        private static void addTo(int[] counts, int[] otherCounts) {
+            for (int i = 0; i < counts.length; i++) {
+                counts[i] += otherCounts[i];
+            }
+        }
+    }
+}
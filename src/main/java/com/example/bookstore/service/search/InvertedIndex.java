@@ -0,0 +1,505 @@
+package com.example.bookstore.service.search;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+/**
+ * Term to document index ranked with Okapi BM25.
+ *
+ * <p>Documents get dense int ordinals in insertion order, so every postings list is
+ * a pair of growing {@code int[]} (ordinals and term frequencies) that is already
+ * sorted and can be merged document-at-a-time without boxing. Removing or replacing
+ * a document only marks its ordinal as deleted; the postings are rewritten once
+ * deleted documents exceed a quarter of the live ones. Document frequencies include
+ * not yet compacted deletes, which only slightly skews idf.
+ *
+ * <p>Searches use block-max WAND: every postings list keeps, per block of
+ * {@value #BLOCK_SIZE} postings, the highest term frequency and the shortest document,
+ * which bound the BM25 score any document of the block can get for the term. Once the
+ * top documents are found, documents whose bound cannot beat the worst of them are
+ * skipped block by block without being scored, so frequent terms cost far less than a
+ * full merge of their postings.
+ */
+public class InvertedIndex {
+    private static final double K1 = 1.2;
+    private static final double B = 0.75;
+    private static final int MIN_DELETED_TO_COMPACT = 64;
+    private static final int INITIAL_CAPACITY = 16;
+    private static final int BLOCK_SIZE = 128;
+    private static final int NO_MORE_DOCUMENTS = Integer.MAX_VALUE;
+    // Bounds are computed differently from scores, so rounding must not let them fall below
+    private static final double BOUND_SLACK = 1 + 1e-9;
+
+    private final ReadWriteLock lock = new ReentrantReadWriteLock();
+    private final Map<String, Postings> postingsByTerm = new HashMap<>();
+    private final Map<Long, Integer> ordinalsByBookId = new HashMap<>();
+    private long[] bookIds = new long[INITIAL_CAPACITY];
+    private int[] documentLengths = new int[INITIAL_CAPACITY];
+    private BitSet deleted = new BitSet();
+    private int documentCount;
+    private int deletedCount;
+    private long totalLength;
+
+    /**
+     * Adds the document or replaces the one indexed under the same book id.
+     *
+     * @param termFrequencies weighted number of occurrences of every term
+     */
+    public void put(long bookId, Map<String, Integer> termFrequencies) {
+        lock.writeLock().lock();
+        try {
+            delete(bookId);
+            int ordinal = documentCount++;
+            if (ordinal == bookIds.length) {
+                bookIds = Arrays.copyOf(bookIds, ordinal * 2);
+                documentLengths = Arrays.copyOf(documentLengths, ordinal * 2);
+            }
+            int length = 0;
+            for (int frequency : termFrequencies.values()) {
+                length += frequency;
+            }
+            for (Map.Entry<String, Integer> entry : termFrequencies.entrySet()) {
+                postingsByTerm.computeIfAbsent(entry.getKey(), term -> new Postings())
+                        .add(ordinal, entry.getValue(), length);
+            }
+            bookIds[ordinal] = bookId;
+            documentLengths[ordinal] = length;
+            totalLength += length;
+            ordinalsByBookId.put(bookId, ordinal);
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    public void remove(long bookId) {
+        lock.writeLock().lock();
+        try {
+            delete(bookId);
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    public int size() {
+        lock.readLock().lock();
+        try {
+            return ordinalsByBookId.size();
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /**
+     * Returns the ids of the best scoring documents that contain any of the terms,
+     * best first.
+     */
+    public long[] search(List<String> terms, int limit) {
+        Map<String, Double> weightedTerms = new LinkedHashMap<>();
+        terms.forEach(term -> weightedTerms.put(term, 1d));
+        return search(weightedTerms, limit);
+    }
+
+    /**
+     * Same as {@link #search(List, int)} with the score of every term multiplied by
+     * its weight, which must not be negative.
+     */
+    public long[] search(Map<String, Double> weightedTerms, int limit) {
+        lock.readLock().lock();
+        try {
+            int liveCount = ordinalsByBookId.size();
+            List<Postings> postingsList = new ArrayList<>();
+            List<Double> weights = new ArrayList<>();
+            weightedTerms.forEach((term, weight) -> {
+                Postings termPostings = postingsByTerm.get(term);
+                if (termPostings != null) {
+                    postingsList.add(termPostings);
+                    weights.add(weight);
+                }
+            });
+            if (postingsList.isEmpty() || limit <= 0 || liveCount == 0) {
+                return new long[0];
+            }
+            Postings[] postings = postingsList.toArray(Postings[]::new);
+            double[] idf = new double[postings.length];
+            for (int i = 0; i < postings.length; i++) {
+                int frequency = Math.min(postings[i].size, liveCount);
+                idf[i] = weights.get(i)
+                        * Math.log(1 + (liveCount - frequency + 0.5) / (frequency + 0.5));
+            }
+            double averageLength = Math.max(1d, (double) totalLength / liveCount);
+
+            TopDocs top = new TopDocs(Math.min(limit, liveCount));
+            double[] maxScores = new double[postings.length];
+            for (int i = 0; i < postings.length; i++) {
+                maxScores[i] = bound(idf[i], postings[i].maxFrequency, postings[i].minLength,
+                        averageLength);
+            }
+            int[] positions = new int[postings.length];
+            int[] currents = new int[postings.length];
+            int[] blockEnds = new int[postings.length];
+            double[] blockMaxScores = new double[postings.length];
+            int[] order = new int[postings.length];
+            for (int i = 0; i < postings.length; i++) {
+                currents[i] = postings[i].ordinals[0];
+                blockEnds[i] = -1;
+                order[i] = i;
+            }
+            while (true) {
+                sortByCurrent(order, currents);
+                double threshold = top.isFull() ? top.minScore() : Double.NEGATIVE_INFINITY;
+
+                // The first terms whose bounds together could beat the threshold
+                int pivot = -1;
+                double maxScore = 0;
+                for (int i = 0; i < order.length && currents[order[i]] != NO_MORE_DOCUMENTS;
+                        i++) {
+                    maxScore += maxScores[order[i]];
+                    if (maxScore > threshold) {
+                        pivot = i;
+                        break;
+                    }
+                }
+                if (pivot < 0) {
+                    break;
+                }
+                int ordinal = currents[order[pivot]];
+                while (pivot + 1 < order.length && currents[order[pivot + 1]] == ordinal) {
+                    pivot++;
+                }
+
+                double blockMaxScore = Double.POSITIVE_INFINITY;
+                int nextOrdinal = NO_MORE_DOCUMENTS;
+                if (top.isFull()) {
+                    blockMaxScore = 0;
+                    nextOrdinal = pivot + 1 < order.length
+                            ? currents[order[pivot + 1]] : NO_MORE_DOCUMENTS;
+                    for (int i = 0; i <= pivot; i++) {
+                        int term = order[i];
+                        if (ordinal > blockEnds[term]) {
+                            // Blocks only move forward, so the bound is cached per block
+                            int block = postings[term].findBlock(positions[term], ordinal);
+                            blockEnds[term] = block < 0
+                                    ? NO_MORE_DOCUMENTS : postings[term].lastOrdinal(block);
+                            blockMaxScores[term] = block < 0 ? 0 : bound(idf[term],
+                                    postings[term].blockMaxFrequencies[block],
+                                    postings[term].blockMinLengths[block], averageLength);
+                        }
+                        blockMaxScore += blockMaxScores[term];
+                        if (blockEnds[term] != NO_MORE_DOCUMENTS) {
+                            nextOrdinal = Math.min(nextOrdinal, blockEnds[term] + 1);
+                        }
+                    }
+                }
+
+                if (blockMaxScore <= threshold) {
+                    // No document up to the end of the shortest of these blocks can compete
+                    for (int i = 0; i <= pivot; i++) {
+                        advance(postings, positions, currents, order[i],
+                                Math.max(nextOrdinal, ordinal + 1));
+                    }
+                } else if (currents[order[0]] == ordinal) {
+                    double lengthNorm =
+                            K1 * (1 - B + B * documentLengths[ordinal] / averageLength);
+                    double score = 0;
+                    for (int i = 0; i < postings.length; i++) {
+                        if (currents[i] == ordinal) {
+                            int frequency = postings[i].frequencies[positions[i]];
+                            score += idf[i] * frequency * (K1 + 1) / (frequency + lengthNorm);
+                            int position = ++positions[i];
+                            currents[i] = position < postings[i].size
+                                    ? postings[i].ordinals[position] : NO_MORE_DOCUMENTS;
+                        }
+                    }
+                    if (!deleted.get(ordinal)) {
+                        top.offer(ordinal, score);
+                    }
+                } else {
+                    for (int i = 0; i < pivot; i++) {
+                        advance(postings, positions, currents, order[i], ordinal);
+                    }
+                }
+            }
+
+            int[] ordinals = top.sorted();
+            long[] result = new long[ordinals.length];
+            for (int i = 0; i < ordinals.length; i++) {
+                result[i] = bookIds[ordinals[i]];
+            }
+            return result;
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /**
+     * Highest BM25 score of a term for a document with at most the given frequency and at
+     * least the given length.
+     */
+    private static double bound(double idf, int frequency, int length, double averageLength) {
+        double lengthNorm = K1 * (1 - B + B * length / averageLength);
+        return idf * frequency * (K1 + 1) / (frequency + lengthNorm) * BOUND_SLACK;
+    }
+
+    /**
+     * Orders the terms by the ordinal their postings are at; insertion sort, as there
+     * are few terms and they are mostly in order already.
+     */
+    private static void sortByCurrent(int[] order, int[] currents) {
+        for (int i = 1; i < order.length; i++) {
+            int term = order[i];
+            int j = i - 1;
+            while (j >= 0 && currents[order[j]] > currents[term]) {
+                order[j + 1] = order[j];
+                j--;
+            }
+            order[j + 1] = term;
+        }
+    }
+
+    private static void advance(Postings[] postings, int[] positions, int[] currents,
+                                int term, int ordinal) {
+        int position = postings[term].advance(positions[term], ordinal);
+        positions[term] = position;
+        currents[term] = position < postings[term].size
+                ? postings[term].ordinals[position] : NO_MORE_DOCUMENTS;
+    }
+
+    private void delete(long bookId) {
+        Integer ordinal = ordinalsByBookId.remove(bookId);
+        if (ordinal == null) {
+            return;
+        }
+        deleted.set(ordinal);
+        deletedCount++;
+        totalLength -= documentLengths[ordinal];
+        if (deletedCount >= MIN_DELETED_TO_COMPACT && deletedCount * 4 > ordinalsByBookId.size()) {
+            compact();
+        }
+    }
+
+    private void compact() {
+        int[] newOrdinals = new int[documentCount];
+        int liveCount = 0;
+        for (int ordinal = 0; ordinal < documentCount; ordinal++) {
+            if (deleted.get(ordinal)) {
+                newOrdinals[ordinal] = -1;
+            } else {
+                newOrdinals[ordinal] = liveCount;
+                bookIds[liveCount] = bookIds[ordinal];
+                documentLengths[liveCount] = documentLengths[ordinal];
+                ordinalsByBookId.put(bookIds[liveCount], liveCount);
+                liveCount++;
+            }
+        }
+        Iterator<Postings> iterator = postingsByTerm.values().iterator();
+        while (iterator.hasNext()) {
+            Postings postings = iterator.next();
+            postings.remap(newOrdinals, documentLengths);
+            if (postings.size == 0) {
+                iterator.remove();
+            }
+        }
+        documentCount = liveCount;
+        deletedCount = 0;
+        deleted = new BitSet(liveCount);
+    }
+
+    /**
+     * Ordinals and frequencies of a term, with the highest frequency and the shortest
+     * document of every block of {@value #BLOCK_SIZE} postings and of the whole list.
+     */
+    private static class Postings {
+        private int[] ordinals = new int[2];
+        private int[] frequencies = new int[2];
+        private int[] blockMaxFrequencies = new int[1];
+        private int[] blockMinLengths = new int[1];
+        private int maxFrequency;
+        private int minLength = Integer.MAX_VALUE;
+        private int size;
+
+        void add(int ordinal, int frequency, int length) {
+            if (size == ordinals.length) {
+                ordinals = Arrays.copyOf(ordinals, size * 2);
+                frequencies = Arrays.copyOf(frequencies, size * 2);
+            }
+            ordinals[size] = ordinal;
+            frequencies[size] = frequency;
+            addToBlock(size, frequency, length);
+            size++;
+        }
+
+        void remap(int[] newOrdinals, int[] documentLengths) {
+            int newSize = 0;
+            for (int i = 0; i < size; i++) {
+                int ordinal = newOrdinals[ordinals[i]];
+                if (ordinal >= 0) {
+                    ordinals[newSize] = ordinal;
+                    frequencies[newSize] = frequencies[i];
+                    newSize++;
+                }
+            }
+            size = newSize;
+            if (size < ordinals.length / 4) {
+                ordinals = Arrays.copyOf(ordinals, Math.max(2, size));
+                frequencies = Arrays.copyOf(frequencies, Math.max(2, size));
+            }
+            blockMaxFrequencies = new int[Math.max(1, (size + BLOCK_SIZE - 1) / BLOCK_SIZE)];
+            blockMinLengths = new int[blockMaxFrequencies.length];
+            maxFrequency = 0;
+            minLength = Integer.MAX_VALUE;
+            for (int i = 0; i < size; i++) {
+                addToBlock(i, frequencies[i], documentLengths[ordinals[i]]);
+            }
+        }
+
+        /**
+         * Returns the block that would hold the ordinal, searching from the block of the
+         * position, or -1 if it is after the last posting.
+         */
+        int findBlock(int position, int ordinal) {
+            int blockCount = (size + BLOCK_SIZE - 1) / BLOCK_SIZE;
+            for (int block = position / BLOCK_SIZE; block < blockCount; block++) {
+                if (lastOrdinal(block) >= ordinal) {
+                    return block;
+                }
+            }
+            return -1;
+        }
+
+        int lastOrdinal(int block) {
+            return ordinals[Math.min(size, (block + 1) * BLOCK_SIZE) - 1];
+        }
+
+        /**
+         * Returns the first position from the given one whose ordinal is not below the
+         * target, or {@code size}.
+         */
+        int advance(int position, int ordinal) {
+            int block = findBlock(position, ordinal);
+            if (block < 0) {
+                return size;
+            }
+            int from = Math.max(position, block * BLOCK_SIZE);
+            int to = Math.min(size, (block + 1) * BLOCK_SIZE);
+            int found = Arrays.binarySearch(ordinals, from, to, ordinal);
+            return found >= 0 ? found : -found - 1;
+        }
+
+        private void addToBlock(int position, int frequency, int length) {
+            int block = position / BLOCK_SIZE;
+            if (block == blockMaxFrequencies.length) {
+                blockMaxFrequencies = Arrays.copyOf(blockMaxFrequencies, block * 2);
+                blockMinLengths = Arrays.copyOf(blockMinLengths, block * 2);
+            }
+            if (position % BLOCK_SIZE == 0) {
+                blockMaxFrequencies[block] = frequency;
+                blockMinLengths[block] = length;
+            } else {
+                blockMaxFrequencies[block] = Math.max(blockMaxFrequencies[block], frequency);
+                blockMinLengths[block] = Math.min(blockMinLengths[block], length);
+            }
+            maxFrequency = Math.max(maxFrequency, frequency);
+            minLength = Math.min(minLength, length);
+        }
+    }
+
+    /**
+     * Bounded min-heap of (ordinal, score) pairs kept in parallel primitive arrays.
+     * On equal scores the lower ordinal, i.e. the earlier indexed book, wins.
+     */
+    private static class TopDocs {
+        private final int[] ordinals;
+        private final double[] scores;
+        private int size;
+
+        TopDocs(int capacity) {
+            ordinals = new int[capacity];
+            scores = new double[capacity];
+        }
+
+        void offer(int ordinal, double score) {
+            if (size < ordinals.length) {
+                ordinals[size] = ordinal;
+                scores[size] = score;
+                siftUp(size++);
+            } else if (score > scores[0]) {
+                ordinals[0] = ordinal;
+                scores[0] = score;
+                siftDown(0, size);
+            }
+        }
+
+        boolean isFull() {
+            return size == ordinals.length;
+        }
+
+        double minScore() {
+            return scores[0];
+        }
+
+        /**
+         * Empties the heap and returns the ordinals from the best to the worst score.
+         */
+        int[] sorted() {
+            int[] result = new int[size];
+            for (int last = size - 1; last >= 0; last--) {
+                result[last] = ordinals[0];
+                swap(0, last);
+                siftDown(0, last);
+            }
+            size = 0;
+            return result;
+        }
+
+        private void siftUp(int index) {
+            while (index > 0) {
+                int parent = (index - 1) / 2;
+                if (!less(index, parent)) {
+                    return;
+                }
+                swap(index, parent);
+                index = parent;
+            }
+        }
+
+        private void siftDown(int index, int heapSize) {
+            while (true) {
+                int smallest = index;
+                int left = index * 2 + 1;
+                int right = left + 1;
+                if (left < heapSize && less(left, smallest)) {
+                    smallest = left;
+                }
+                if (right < heapSize && less(right, smallest)) {
+                    smallest = right;
+                }
+                if (smallest == index) {
+                    return;
+                }
+                swap(index, smallest);
+                index = smallest;
+            }
+        }
+
+        private boolean less(int i, int j) {
+            return scores[i] < scores[j] || scores[i] == scores[j] && ordinals[i] > ordinals[j];
+        }
+
+        private void swap(int i, int j) {
+            int ordinal = ordinals[i];
+            ordinals[i] = ordinals[j];
+            ordinals[j] = ordinal;
+            double score = scores[i];
+            scores[i] = scores[j];
+            scores[j] = score;
+        }
+    }
+}
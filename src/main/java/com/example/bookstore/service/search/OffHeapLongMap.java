@@ -0,0 +1,156 @@
+package com.example.bookstore.service.search;
+
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+
+/**
+ * Open-addressing hash map from non-negative {@code long} keys to {@code long}
+ * values, stored in a direct {@link ByteBuffer} outside the Java heap.
+ *
+ * <p>Every slot is 16 bytes: the key plus one, so that a zeroed slot is empty, and
+ * the value. Collisions are resolved by linear probing and removals shift the
+ * following entries back instead of leaving tombstones, so lookups never scan
+ * more than the run of occupied slots. The table doubles at half load, which
+ * makes it 32 to 64 bytes per entry and none of them visible to the garbage
+ * collector. Not thread-safe; concurrent {@link #get} calls are fine.
+ */
+public class OffHeapLongMap {
+    public static final long MISSING = -1;
+
+    private static final int SLOT_BYTES = 16;
+    private static final int MAX_CAPACITY = 1 << 26;
+    private static final long FIBONACCI_MULTIPLIER = 0x9E3779B97F4A7C15L;
+
+    private ByteBuffer slots;
+    private int capacity;
+    private int shift;
+    private int size;
+
+    public OffHeapLongMap(int expectedSize) {
+        int initialCapacity = Integer.highestOneBit(Math.max(8, expectedSize * 2 - 1)) << 1;
+        allocate(Math.min(initialCapacity, MAX_CAPACITY));
+    }
+
+    /**
+     * Returns the value of the key, or {@link #MISSING}.
+     */
+    public long get(long key) {
+        long stored = key + 1;
+        int slot = slotOf(key);
+        while (true) {
+            long current = keyAt(slot);
+            if (current == stored) {
+                return valueAt(slot);
+            }
+            if (current == 0) {
+                return MISSING;
+            }
+            slot = (slot + 1) & (capacity - 1);
+        }
+    }
+
+    public void put(long key, long value) {
+        if (key < 0) {
+            throw new IllegalArgumentException("Key must not be negative: " + key);
+        }
+        if (size + 1 > capacity / 2) {
+            grow();
+        }
+        long stored = key + 1;
+        int slot = slotOf(key);
+        while (true) {
+            long current = keyAt(slot);
+            if (current == 0) {
+                write(slot, stored, value);
+                size++;
+                return;
+            }
+            if (current == stored) {
+                slots.putLong(slot * SLOT_BYTES + Long.BYTES, value);
+                return;
+            }
+            slot = (slot + 1) & (capacity - 1);
+        }
+    }
+
+    /**
+     * Removes the key and returns its value, or {@link #MISSING}.
+     */
+    public long remove(long key) {
+        long stored = key + 1;
+        int slot = slotOf(key);
+        while (true) {
+            long current = keyAt(slot);
+            if (current == 0) {
+                return MISSING;
+            }
+            if (current == stored) {
+                break;
+            }
+            slot = (slot + 1) & (capacity - 1);
+        }
+        final long value = valueAt(slot);
+        int mask = capacity - 1;
+        int hole = slot;
+        for (int next = (hole + 1) & mask; keyAt(next) != 0; next = (next + 1) & mask) {
+            int home = slotOf(keyAt(next) - 1);
+            if (((next - home) & mask) >= ((next - hole) & mask)) {
+                write(hole, keyAt(next), valueAt(next));
+                hole = next;
+            }
+        }
+        write(hole, 0, 0);
+        size--;
+        return value;
+    }
+
+    public int size() {
+        return size;
+    }
+
+    private void grow() {
+        if (capacity == MAX_CAPACITY) {
+            throw new IllegalStateException("Off-heap map is full at " + size + " entries");
+        }
+        ByteBuffer previous = slots;
+        int previousCapacity = capacity;
+        allocate(capacity * 2);
+        for (int slot = 0; slot < previousCapacity; slot++) {
+            long stored = previous.getLong(slot * SLOT_BYTES);
+            if (stored != 0) {
+                int target = slotOf(stored - 1);
+                while (keyAt(target) != 0) {
+                    target = (target + 1) & (capacity - 1);
+                }
+                write(target, stored, previous.getLong(slot * SLOT_BYTES + Long.BYTES));
+            }
+        }
+    }
+
+    private void allocate(int newCapacity) {
+        slots = ByteBuffer.allocateDirect(newCapacity * SLOT_BYTES).order(ByteOrder.nativeOrder());
+        capacity = newCapacity;
+        shift = Long.SIZE - Integer.numberOfTrailingZeros(newCapacity);
+    }
+
+    /**
+     * Fibonacci hashing: the high bits of the product spread sequential keys such
+     * as ISBNs of one publisher evenly.
+     */
+    private int slotOf(long key) {
+        return (int) ((key * FIBONACCI_MULTIPLIER) >>> shift);
+    }
+
+    private long keyAt(int slot) {
+        return slots.getLong(slot * SLOT_BYTES);
+    }
+
+    private long valueAt(int slot) {
+        return slots.getLong(slot * SLOT_BYTES + Long.BYTES);
+    }
+
+    private void write(int slot, long stored, long value) {
+        slots.putLong(slot * SLOT_BYTES, stored);
+        slots.putLong(slot * SLOT_BYTES + Long.BYTES, value);
+    }
+}
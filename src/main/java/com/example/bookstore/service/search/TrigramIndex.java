@@ -0,0 +1,265 @@
+package com.example.bookstore.service.search;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+/**
+ * Finds indexed terms within a small edit distance of a misspelled one.
+ *
+ * <p>Every term is padded with a boundary char and split into trigrams, each of
+ * which maps to the int ordinals of the terms containing it. A lookup counts how
+ * many trigrams every term shares with the query. One edit changes at most four
+ * trigrams, so only terms that share enough of them and differ little in length
+ * get their distance (Levenshtein with adjacent transpositions) computed, which
+ * gives up on a term once a whole row exceeds the bound. Terms are counted by
+ * reference, so a term shared by several books stays until the last of them is
+ * removed.
+ */
+public class TrigramIndex {
+    private static final char BOUNDARY = '\u0000';
+    private static final int TRIGRAMS_PER_EDIT = 4;
+
+    private final ReadWriteLock lock = new ReentrantReadWriteLock();
+    private final Map<Long, Postings> postingsByTrigram = new HashMap<>();
+    private final Map<String, Integer> ordinalsByTerm = new HashMap<>();
+    private final ThreadLocal<int[]> sharedCounts = ThreadLocal.withInitial(() -> new int[0]);
+    private String[] terms = new String[16];
+    private int[] lengths = new int[16];
+    private int[] references = new int[16];
+    private int[] freeOrdinals = new int[16];
+    private int freeCount;
+    private int ordinalCount;
+
+    public void add(String term) {
+        lock.writeLock().lock();
+        try {
+            Integer ordinal = ordinalsByTerm.get(term);
+            if (ordinal != null) {
+                references[ordinal]++;
+                return;
+            }
+            int newOrdinal = allocate(term);
+            for (long trigram : trigrams(term)) {
+                postingsByTrigram.computeIfAbsent(trigram, t -> new Postings()).add(newOrdinal);
+            }
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    public void remove(String term) {
+        lock.writeLock().lock();
+        try {
+            Integer ordinal = ordinalsByTerm.get(term);
+            if (ordinal == null || --references[ordinal] > 0) {
+                return;
+            }
+            ordinalsByTerm.remove(term);
+            for (long trigram : trigrams(term)) {
+                Postings postings = postingsByTrigram.get(trigram);
+                postings.remove(ordinal);
+                if (postings.size == 0) {
+                    postingsByTrigram.remove(trigram);
+                }
+            }
+            terms[ordinal] = null;
+            freeOrdinals[freeCount++] = ordinal;
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    /**
+     * Returns up to {@code limit} indexed terms within {@code maxDistance} edits of
+     * the term, mapped to their distance, the closest first.
+     */
+    public Map<String, Integer> findSimilar(String term, int maxDistance, int limit) {
+        lock.readLock().lock();
+        try {
+            long[] trigrams = trigrams(term);
+            int[] counts = getCounts();
+            int[] candidates = new int[16];
+            int candidateCount = 0;
+            for (long trigram : trigrams) {
+                Postings postings = postingsByTrigram.get(trigram);
+                if (postings == null) {
+                    continue;
+                }
+                for (int i = 0; i < postings.size; i++) {
+                    int ordinal = postings.ordinals[i];
+                    if (counts[ordinal]++ == 0) {
+                        if (candidateCount == candidates.length) {
+                            candidates = Arrays.copyOf(candidates, candidateCount * 2);
+                        }
+                        candidates[candidateCount++] = ordinal;
+                    }
+                }
+            }
+
+            int minShared = trigrams.length - TRIGRAMS_PER_EDIT * maxDistance;
+            List<Match> matches = new ArrayList<>();
+            int[][] rows = new int[3][term.length() + 1];
+            for (int i = 0; i < candidateCount; i++) {
+                int ordinal = candidates[i];
+                int shared = counts[ordinal];
+                counts[ordinal] = 0;
+                if (shared < minShared
+                        || Math.abs(lengths[ordinal] - term.length()) > maxDistance) {
+                    continue;
+                }
+                int distance = distance(term, terms[ordinal], maxDistance, rows);
+                if (distance <= maxDistance) {
+                    matches.add(new Match(terms[ordinal], distance));
+                }
+            }
+            matches.sort((first, second) -> first.distance != second.distance
+                    ? Integer.compare(first.distance, second.distance)
+                    : first.term.compareTo(second.term));
+
+            Map<String, Integer> similar = new LinkedHashMap<>();
+            for (Match match : matches.subList(0, Math.min(limit, matches.size()))) {
+                similar.put(match.term, match.distance);
+            }
+            return similar;
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /**
+     * Optimal string alignment distance, or {@code maxDistance + 1} as soon as it is
+     * known to exceed {@code maxDistance}.
+     */
+    private static int distance(String source, String target, int maxDistance, int[][] rows) {
+        int[] previous = rows[0];
+        int[] current = rows[1];
+        int[] beforePrevious = rows[2];
+        for (int i = 0; i <= source.length(); i++) {
+            previous[i] = i;
+        }
+        for (int j = 1; j <= target.length(); j++) {
+            current[0] = j;
+            int rowMinimum = j;
+            for (int i = 1; i <= source.length(); i++) {
+                int cost = source.charAt(i - 1) == target.charAt(j - 1) ? 0 : 1;
+                int value = Math.min(Math.min(current[i - 1] + 1, previous[i] + 1),
+                        previous[i - 1] + cost);
+                if (i > 1 && j > 1 && source.charAt(i - 1) == target.charAt(j - 2)
+                        && source.charAt(i - 2) == target.charAt(j - 1)) {
+                    value = Math.min(value, beforePrevious[i - 2] + 1);
+                }
+                current[i] = value;
+                rowMinimum = Math.min(rowMinimum, value);
+            }
+            if (rowMinimum > maxDistance) {
+                return maxDistance + 1;
+            }
+            int[] recycled = beforePrevious;
+            beforePrevious = previous;
+            previous = current;
+            current = recycled;
+        }
+        return Math.min(previous[source.length()], maxDistance + 1);
+    }
+
+    private int[] getCounts() {
+        int[] counts = sharedCounts.get();
+        if (counts.length < ordinalCount) {
+            counts = new int[terms.length];
+            sharedCounts.set(counts);
+        }
+        return counts;
+    }
+
+    private int allocate(String term) {
+        int ordinal;
+        if (freeCount > 0) {
+            ordinal = freeOrdinals[--freeCount];
+        } else {
+            ordinal = ordinalCount++;
+            if (ordinal == terms.length) {
+                terms = Arrays.copyOf(terms, ordinal * 2);
+                lengths = Arrays.copyOf(lengths, ordinal * 2);
+                references = Arrays.copyOf(references, ordinal * 2);
+                freeOrdinals = Arrays.copyOf(freeOrdinals, ordinal * 2);
+            }
+        }
+        terms[ordinal] = term;
+        lengths[ordinal] = term.length();
+        references[ordinal] = 1;
+        ordinalsByTerm.put(term, ordinal);
+        return ordinal;
+    }
+
+    /**
+     * Distinct trigrams of the term padded with one boundary char on each side,
+     * packed as three 16-bit chars.
+     */
+    private static long[] trigrams(String term) {
+        int length = term.length() + 2;
+        long[] trigrams = new long[length - 2];
+        int count = 0;
+        for (int i = 0; i < length - 2; i++) {
+            long trigram = (long) charAt(term, i - 1) << 32
+                    | (long) charAt(term, i) << 16
+                    | charAt(term, i + 1);
+            if (indexOf(trigrams, count, trigram) < 0) {
+                trigrams[count++] = trigram;
+            }
+        }
+        return count == trigrams.length ? trigrams : Arrays.copyOf(trigrams, count);
+    }
+
+    private static char charAt(String term, int index) {
+        return index < 0 || index >= term.length() ? BOUNDARY : term.charAt(index);
+    }
+
+    private static int indexOf(long[] array, int length, long value) {
+        for (int i = 0; i < length; i++) {
+            if (array[i] == value) {
+                return i;
+            }
+        }
+        return -1;
+    }
+
+    private static class Match {
+        private final String term;
+        private final int distance;
+
+        Match(String term, int distance) {
+            this.term = term;
+            this.distance = distance;
+        }
+    }
+
+    /**
+     * Unordered ordinals of the terms that contain one trigram.
+     */
+    private static class Postings {
+        private int[] ordinals = new int[2];
+        private int size;
+
+        void add(int ordinal) {
+            if (size == ordinals.length) {
+                ordinals = Arrays.copyOf(ordinals, size * 2);
+            }
+            ordinals[size++] = ordinal;
+        }
+
+        void remove(int ordinal) {
+            for (int i = 0; i < size; i++) {
+                if (ordinals[i] == ordinal) {
+                    ordinals[i] = ordinals[--size];
+                    return;
+                }
+            }
+        }
+    }
+}
@@ -0,0 +1,12 @@
+package com.example.bookstore.service.shoppingcart;
+
+/**
+ * Operations of a cart batch: {@code ADD} takes a book id and a quantity and merges
+ * into the item of that book if there is one, {@code UPDATE} takes a cart item id
+ * and a quantity, {@code REMOVE} takes a cart item id.
+ */
+public enum CartOperationType {
+    ADD,
+    UPDATE,
+    REMOVE
+}
@@ -0,0 +1,15 @@
+package com.example.bookstore.service.shoppingcart;
+
+import lombok.Getter;
+import lombok.RequiredArgsConstructor;
+
+/**
+ * Published when a cart has been changed without going through
+ * {@link ShoppingCartService}, e.g. emptied by an order, so copies of it kept in
+ * memory are read again once the change is committed.
+ */
+@Getter
+@RequiredArgsConstructor
+public class ShoppingCartChangedEvent {
+    private final Long userId;
+}
@@ -1,8 +1,11 @@
 package com.example.bookstore.service.shoppingcart;
 
+import com.example.bookstore.dto.shoppingcart.CartItemResponseDto;
+import com.example.bookstore.dto.shoppingcart.CartOperationDto;
 import com.example.bookstore.dto.shoppingcart.CreateCartItemRequestDto;
 import com.example.bookstore.dto.shoppingcart.ShoppingCartResponseDto;
 import com.example.bookstore.dto.shoppingcart.UpdateCartItemRequestDto;
+import java.util.List;
 import org.springframework.stereotype.Service;
 
 @Service
@@ -16,6 +19,32 @@ public interface ShoppingCartService {
                                            Long cartItemId,
                                            UpdateCartItemRequestDto requestDto);
 
+    /**
+     * Same as {@link #updateCartItem} but answers with the changed item only, read
+     * with its book in one query instead of the whole cart.
+     */
+    CartItemResponseDto updateCartItemQuantity(Long userId,
+                                               Long cartItemId,
+                                               UpdateCartItemRequestDto requestDto);
+
     ShoppingCartResponseDto deleteCartItem(Long userId,
                                            Long cartItemId);
+
+    /**
+     * Same as {@link #deleteCartItem} without reading the cart afterwards.
+     */
+    void removeCartItem(Long userId, Long cartItemId);
+
+    /**
+     * Applies the operations in order in one transaction with one JDBC batch per
+     * kind of write and returns the resulting cart; nothing is written if one of
+     * them fails.
+     */
+    ShoppingCartResponseDto applyBatch(Long userId, List<CartOperationDto> operations);
+
+    /**
+     * Makes sure all changes of the cart are in the database before it is read with
+     * the repositories, e.g. when an order is created from it.
+     */
+    void flush(Long userId);
 }
@@ -1,53 +1,92 @@
 package com.example.bookstore.service.shoppingcart;
 
 import com.example.bookstore.dto.shoppingcart.CartItemResponseDto;
+import com.example.bookstore.dto.shoppingcart.CartOperationDto;
 import com.example.bookstore.dto.shoppingcart.CreateCartItemRequestDto;
 import com.example.bookstore.dto.shoppingcart.ShoppingCartResponseDto;
 import com.example.bookstore.dto.shoppingcart.UpdateCartItemRequestDto;
+import com.example.bookstore.exception.ConcurrentCartModificationException;
 import com.example.bookstore.exception.EntityNotFoundException;
+import com.example.bookstore.exception.InvalidBatchException;
 import com.example.bookstore.mapper.CartItemMapper;
 import com.example.bookstore.mapper.ShoppingCartMapper;
-import com.example.bookstore.model.CartItem;
 import com.example.bookstore.model.ShoppingCart;
 import com.example.bookstore.repository.BookRepository;
 import com.example.bookstore.repository.CartItemRepository;
 import com.example.bookstore.repository.ShoppingCartRepository;
-import lombok.RequiredArgsConstructor;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.function.Supplier;
+import java.util.stream.Collectors;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.dao.ConcurrencyFailureException;
+import org.springframework.dao.DuplicateKeyException;
+import org.springframework.dao.OptimisticLockingFailureException;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.ParameterizedPreparedStatementSetter;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionTemplate;
 
 @Service
-@RequiredArgsConstructor
 public class ShoppingCartServiceImpl implements ShoppingCartService {
+    private static final String SELECT_CART_ITEMS = "SELECT id, book_id, quantity "
+            + "FROM cart_items WHERE shopping_cart_id = ? AND is_deleted = false";
+    private static final String INSERT_CART_ITEM = "INSERT INTO cart_items "
+            + "(shopping_cart_id, book_id, quantity, is_deleted) VALUES (?, ?, ?, false)";
+    private static final String UPDATE_CART_ITEM_QUANTITY =
+            "UPDATE cart_items SET quantity = ? WHERE id = ? AND shopping_cart_id = ?";
+    private static final String DELETE_CART_ITEM =
+            "UPDATE cart_items SET is_deleted = true WHERE id = ? AND shopping_cart_id = ?";
+
     private final ShoppingCartRepository shoppingCartRepository;
     private final ShoppingCartMapper shoppingCartMapper;
     private final CartItemRepository cartItemRepository;
     private final CartItemMapper cartItemMapper;
     private final BookRepository bookRepository;
+    private final JdbcTemplate jdbcTemplate;
+    private final ShoppingCartVersions shoppingCartVersions;
+    private final TransactionTemplate transactionTemplate;
+    private final int maxAttempts;
+
+    public ShoppingCartServiceImpl(
+            ShoppingCartRepository shoppingCartRepository,
+            ShoppingCartMapper shoppingCartMapper,
+            CartItemRepository cartItemRepository,
+            CartItemMapper cartItemMapper,
+            BookRepository bookRepository,
+            JdbcTemplate jdbcTemplate,
+            ShoppingCartVersions shoppingCartVersions,
+            TransactionTemplate transactionTemplate,
+            @Value("${cart.max-attempts:3}") int maxAttempts
+    ) {
+        this.shoppingCartRepository = shoppingCartRepository;
+        this.shoppingCartMapper = shoppingCartMapper;
+        this.cartItemRepository = cartItemRepository;
+        this.cartItemMapper = cartItemMapper;
+        this.bookRepository = bookRepository;
+        this.jdbcTemplate = jdbcTemplate;
+        this.shoppingCartVersions = shoppingCartVersions;
+        this.transactionTemplate = transactionTemplate;
+        this.maxAttempts = maxAttempts;
+    }
 
     @Override
     public ShoppingCartResponseDto getByUserId(Long userId) {
         return shoppingCartMapper.toDto(getShoppingCart(userId));
     }
 
+    /**
+     * Adding is a batch of one operation, so a book already in the cart gets its
+     * quantity increased and the unique index on the live items of a cart turns a
+     * concurrent add of the same book into a retry instead of a second item.
+     */
     @Override
     public ShoppingCartResponseDto addCartItem(Long userId, CreateCartItemRequestDto requestDto) {
-        ShoppingCart shoppingCart = getShoppingCart(userId);
-        CartItem cartItem = cartItemMapper.toModel(requestDto);
-
-        if (shoppingCart.getCartItems().stream()
-                .anyMatch(item -> item.getBook().getId().equals(requestDto.getBookId()))) {
-            throw new RuntimeException("This book already added in shopping cart");
-        }
-
-        cartItem.setShoppingCart(shoppingCart);
-        CartItem save = cartItemRepository.save(cartItem);
-        CartItemResponseDto dto = cartItemMapper.toDto(save);
-        dto.setBookTitle(bookRepository.findById(dto.getBookId()).orElseThrow().getTitle());
-
-        ShoppingCartResponseDto resultDto = shoppingCartMapper.toDto(shoppingCart);
-        resultDto.getCartItems().add(dto);
-
-        return resultDto;
+        return withCartVersion(userId, () -> applyOperations(userId, List.of(
+                CartOperationDto.add(requestDto.getBookId(), requestDto.getQuantity()))));
     }
 
     @Override
@@ -56,37 +95,231 @@ public class ShoppingCartServiceImpl implements ShoppingCartService {
             Long cartItemId,
             UpdateCartItemRequestDto requestDto
     ) {
-        if (getShoppingCart(userId).getCartItems()
-                .stream()
-                .noneMatch(item -> item.getId().equals(cartItemId))) {
-            throw new RuntimeException("User cannot update other's cart item by: " + cartItemId);
-        }
+        return withCartVersion(userId, () -> {
+            updateQuantity(userId, cartItemId, requestDto);
+            return shoppingCartMapper.toDto(getShoppingCart(userId));
+        });
+    }
 
-        CartItem cartItemFromDb = cartItemRepository.findById(cartItemId).orElseThrow(
-                () -> new EntityNotFoundException("Can't find cart item by id " + cartItemId));
+    @Override
+    public CartItemResponseDto updateCartItemQuantity(
+            Long userId,
+            Long cartItemId,
+            UpdateCartItemRequestDto requestDto
+    ) {
+        return withCartVersion(userId, () -> {
+            updateQuantity(userId, cartItemId, requestDto);
+            return cartItemMapper.toDto(cartItemRepository.findWithBookById(cartItemId)
+                    .orElseThrow(() -> new EntityNotFoundException(
+                            "Can't find cart item by id " + cartItemId)));
+        });
+    }
 
-        CartItem cartItem = cartItemMapper.toModel(requestDto);
-        cartItemFromDb.setQuantity(cartItem.getQuantity());
-        cartItemRepository.save(cartItemFromDb);
+    @Override
+    public ShoppingCartResponseDto deleteCartItem(Long userId, Long cartItemId) {
+        return withCartVersion(userId, () -> {
+            deleteItem(userId, cartItemId);
+            return shoppingCartMapper.toDto(getShoppingCart(userId));
+        });
+    }
 
-        return shoppingCartMapper.toDto(getShoppingCart(userId));
+    @Override
+    public void removeCartItem(Long userId, Long cartItemId) {
+        withCartVersion(userId, () -> {
+            deleteItem(userId, cartItemId);
+            return null;
+        });
     }
 
-    // todo fix output delay
+    /**
+     * Every change is written right away, so there is nothing to flush.
+     */
     @Override
-    public ShoppingCartResponseDto deleteCartItem(Long userId, Long cartItemId) {
-        if (getShoppingCart(userId).getCartItems()
-                .stream()
-                .noneMatch(item -> item.getId().equals(cartItemId))) {
-            throw new RuntimeException("User cannot delete other's cart item by: " + cartItemId);
+    public void flush(Long userId) {
+    }
+
+    @Override
+    public ShoppingCartResponseDto applyBatch(Long userId, List<CartOperationDto> operations) {
+        return withCartVersion(userId, () -> applyOperations(userId, operations));
+    }
+
+    /**
+     * Runs the change in its own transaction and commits it only if the version of
+     * the cart is still the one read first, moving it on by one, so no row is locked
+     * while the change is computed. If another request changed the cart in between or
+     * added the same book first, the attempt is rolled back and the change starts
+     * over on fresh data, at most {@code cart.max-attempts} times.
+     */
+    private <T> T withCartVersion(Long userId, Supplier<T> change) {
+        for (int attempt = 1; ; attempt++) {
+            try {
+                return transactionTemplate.execute(status -> {
+                    Long version = shoppingCartVersions.get(userId);
+                    T result = change.get();
+                    if (!shoppingCartVersions.increment(userId, version)) {
+                        throw new OptimisticLockingFailureException(
+                                "Shopping cart " + userId + " has been changed concurrently");
+                    }
+                    return result;
+                });
+            } catch (ConcurrencyFailureException | DuplicateKeyException e) {
+                if (attempt >= maxAttempts) {
+                    throw new ConcurrentCartModificationException(
+                            "Shopping cart has been changed concurrently, please try again", e);
+                }
+            }
         }
+    }
+
+    private ShoppingCartResponseDto applyOperations(
+            Long userId,
+            List<CartOperationDto> operations
+    ) {
+        Map<Long, CartLine> linesById = new HashMap<>();
+        Map<Long, CartLine> linesByBookId = new LinkedHashMap<>();
+        jdbcTemplate.query(SELECT_CART_ITEMS, rs -> {
+            CartLine line = new CartLine(rs.getLong("id"), rs.getLong("book_id"),
+                    rs.getInt("quantity"));
+            linesById.put(line.id, line);
+            linesByBookId.put(line.bookId, line);
+        }, userId);
+
+        for (int i = 0; i < operations.size(); i++) {
+            CartOperationDto operation = operations.get(i);
+            if (operation.getType() == CartOperationType.ADD) {
+                require(i, operation.getBookId() != null && operation.getQuantity() != null,
+                        "ADD needs bookId and quantity");
+                CartLine line = linesByBookId.get(operation.getBookId());
+                if (line == null) {
+                    linesByBookId.put(operation.getBookId(),
+                            new CartLine(null, operation.getBookId(), operation.getQuantity()));
+                } else {
+                    line.setQuantity(line.quantity + operation.getQuantity());
+                }
+            } else if (operation.getType() == CartOperationType.UPDATE) {
+                require(i, operation.getCartItemId() != null && operation.getQuantity() != null,
+                        "UPDATE needs cartItemId and quantity");
+                getLine(linesById, operation.getCartItemId()).setQuantity(operation.getQuantity());
+            } else {
+                require(i, operation.getCartItemId() != null, "REMOVE needs cartItemId");
+                CartLine line = getLine(linesById, operation.getCartItemId());
+                line.deleted = true;
+                linesByBookId.remove(line.bookId);
+            }
+        }
+
+        List<CartLine> added = linesByBookId.values().stream()
+                .filter(line -> line.id == null)
+                .toList();
+        checkBooksExist(added);
+        batchUpdate(INSERT_CART_ITEM, added, (ps, line) -> {
+            ps.setLong(1, userId);
+            ps.setLong(2, line.bookId);
+            ps.setInt(3, line.quantity);
+        });
+        batchUpdate(UPDATE_CART_ITEM_QUANTITY, linesById.values().stream()
+                .filter(line -> line.changed && !line.deleted)
+                .toList(), (ps, line) -> {
+                    ps.setInt(1, line.quantity);
+                    ps.setLong(2, line.id);
+                    ps.setLong(3, userId);
+                });
+        batchUpdate(DELETE_CART_ITEM, linesById.values().stream()
+                .filter(line -> line.deleted)
+                .toList(), (ps, line) -> {
+                    ps.setLong(1, line.id);
+                    ps.setLong(2, userId);
+                });
 
-        cartItemRepository.deleteById(cartItemId);
         return shoppingCartMapper.toDto(getShoppingCart(userId));
     }
 
+    /**
+     * Loads the cart with its items and their books in one query; responses are
+     * built from it instead of walking the lazy items one query per book.
+     */
     private ShoppingCart getShoppingCart(Long userId) {
-        return shoppingCartRepository.findById(userId).orElseThrow(
+        return shoppingCartRepository.findByUserId(userId).orElseThrow(
                 () -> new EntityNotFoundException("Cannot find shopping cart by id: " + userId));
     }
+
+    /**
+     * The cart id is part of the UPDATE, so an item of another user's cart is not
+     * found rather than read first to check its owner.
+     */
+    private void updateQuantity(
+            Long userId,
+            Long cartItemId,
+            UpdateCartItemRequestDto requestDto
+    ) {
+        if (cartItemRepository.updateQuantityByIdAndShoppingCartId(
+                cartItemId, userId, requestDto.getQuantity()) == 0) {
+            throw new EntityNotFoundException("Can't find cart item by id " + cartItemId);
+        }
+    }
+
+    private void deleteItem(Long userId, Long cartItemId) {
+        if (cartItemRepository.deleteByIdAndShoppingCartId(cartItemId, userId) == 0) {
+            throw new EntityNotFoundException("Can't find cart item by id " + cartItemId);
+        }
+    }
+
+    private void batchUpdate(
+            String sql,
+            List<CartLine> lines,
+            ParameterizedPreparedStatementSetter<CartLine> setter
+    ) {
+        if (!lines.isEmpty()) {
+            jdbcTemplate.batchUpdate(sql, lines, lines.size(), setter);
+        }
+    }
+
+    private void checkBooksExist(List<CartLine> added) {
+        if (added.isEmpty()) {
+            return;
+        }
+        Set<Long> bookIds = added.stream()
+                .map(line -> line.bookId)
+                .collect(Collectors.toSet());
+        bookRepository.findAllById(bookIds).forEach(book -> bookIds.remove(book.getId()));
+        if (!bookIds.isEmpty()) {
+            throw new EntityNotFoundException("Can't find books by ids: " + bookIds);
+        }
+    }
+
+    private static CartLine getLine(Map<Long, CartLine> linesById, Long cartItemId) {
+        CartLine line = linesById.get(cartItemId);
+        if (line == null || line.deleted) {
+            throw new EntityNotFoundException("Can't find cart item by id " + cartItemId);
+        }
+        return line;
+    }
+
+    private static void require(int index, boolean condition, String message) {
+        if (!condition) {
+            throw new InvalidBatchException("Operation " + index + ": " + message);
+        }
+    }
+
+    /**
+     * A cart item as the batch leaves it; {@code id} is null for items the batch adds.
+     */
+    private static class CartLine {
+        private final Long id;
+        private final long bookId;
+        private int quantity;
+        private boolean changed;
+        private boolean deleted;
+
+        private CartLine(Long id, long bookId, int quantity) {
+            this.id = id;
+            this.bookId = bookId;
+            this.quantity = quantity;
+        }
+
+        private void setQuantity(int quantity) {
+            this.quantity = quantity;
+            this.changed = true;
+        }
+    }
 }
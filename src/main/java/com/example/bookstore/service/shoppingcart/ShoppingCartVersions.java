@@ -0,0 +1,70 @@
+package com.example.bookstore.service.shoppingcart;
+
+import com.example.bookstore.exception.EntityNotFoundException;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import lombok.RequiredArgsConstructor;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Component;
+
+/**
+ * The version of a shopping cart is the optimistic lock that every writer of the
+ * cart goes through: synchronous changes, the write-behind flush and ordering. A
+ * writer reads it before computing its change and moves it on in the same
+ * transaction, which only succeeds if nobody else moved it on in between, so the
+ * writer that loses rolls back instead of overwriting the other change.
+ */
+@Component
+@RequiredArgsConstructor
+public class ShoppingCartVersions {
+    private static final String SELECT_CART_VERSION =
+            "SELECT version FROM shopping_carts WHERE user_id = ?";
+    private static final String INCREMENT_CART_VERSION =
+            "UPDATE shopping_carts SET version = version + 1 WHERE user_id = ? AND version = ?";
+
+    private final JdbcTemplate jdbcTemplate;
+
+    public Long get(Long userId) {
+        return jdbcTemplate.queryForList(SELECT_CART_VERSION, Long.class, userId).stream()
+                .findFirst()
+                .orElseThrow(() -> new EntityNotFoundException(
+                        "Cannot find shopping cart by id: " + userId));
+    }
+
+    /**
+     * Moves the version of the cart on if it still is the given one.
+     *
+     * @return false if the cart has been changed since the version was read
+     */
+    public boolean increment(Long userId, Long version) {
+        return jdbcTemplate.update(INCREMENT_CART_VERSION, userId, version) > 0;
+    }
+
+    /**
+     * Same as {@link #increment} for many carts with one JDBC batch.
+     *
+     * @return the users whose cart has been changed since its version was read
+     */
+    public Set<Long> incrementAll(Map<Long, Long> versionsByUserId) {
+        List<Map.Entry<Long, Long>> versions = new ArrayList<>(versionsByUserId.entrySet());
+        int[][] updateCounts = jdbcTemplate.batchUpdate(INCREMENT_CART_VERSION, versions,
+                versions.size(), (ps, version) -> {
+                    ps.setLong(1, version.getKey());
+                    ps.setLong(2, version.getValue());
+                });
+        Set<Long> changedUserIds = new HashSet<>();
+        int index = 0;
+        for (int[] batchCounts : updateCounts) {
+            for (int updateCount : batchCounts) {
+                Long userId = versions.get(index++).getKey();
+                if (updateCount == 0) {
+                    changedUserIds.add(userId);
+                }
+            }
+        }
+        return changedUserIds;
+    }
+}
@@ -0,0 +1,525 @@
+package com.example.bookstore.service.shoppingcart;
+
+import com.example.bookstore.dto.shoppingcart.CartItemResponseDto;
+import com.example.bookstore.dto.shoppingcart.CartOperationDto;
+import com.example.bookstore.dto.shoppingcart.CreateCartItemRequestDto;
+import com.example.bookstore.dto.shoppingcart.ShoppingCartResponseDto;
+import com.example.bookstore.dto.shoppingcart.UpdateCartItemRequestDto;
+import com.example.bookstore.exception.ConcurrentCartModificationException;
+import com.example.bookstore.exception.EntityNotFoundException;
+import jakarta.annotation.PreDestroy;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.locks.Condition;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.function.Function;
+import java.util.function.Supplier;
+import java.util.stream.Collectors;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.context.annotation.Primary;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.TransactionDefinition;
+import org.springframework.transaction.event.TransactionalEventListener;
+import org.springframework.transaction.support.TransactionTemplate;
+
+/**
+ * Keeps the carts of active users in memory and writes quantity changes and removals
+ * to {@code cart_items} later, coalesced per item, in one JDBC batch per kind of write
+ * for all the carts changed since the last flush.
+ *
+ * <p>Each cart is guarded by one of a fixed number of locks picked by the user id, so
+ * clicks of one user are applied in order while other users are not blocked. The locks
+ * only guard the copies in memory; carts are read and written without holding any of
+ * them. A cart being flushed is marked as such, so another flush of it waits for that
+ * one and an older snapshot is never written over a newer one. Flushes run in their own
+ * transaction, so a rolled back caller does not lose the flushed changes.
+ *
+ * <p>A cart remembers the version it was loaded with, and a flush moves that version on
+ * through {@link ShoppingCartVersions}. If the cart has been changed in the database
+ * since, its changes are not written: the cart is loaded again and they are applied to
+ * the items it still has, the way a synchronous change is retried on fresh data. Adding
+ * items and batches go through {@link ShoppingCartServiceImpl} synchronously after the
+ * pending changes are written, and changes made elsewhere, e.g. by an order, are
+ * announced with a {@link ShoppingCartChangedEvent}; both make the next access read the
+ * cart again. Clean carts are dropped {@code cart.write-behind.max-age} after they were
+ * loaded, however often they are used, so no copy outlives that.
+ */
+@Service
+@Primary
+@ConditionalOnProperty(name = "cart.write-behind.enabled", havingValue = "true")
+public class WriteBehindShoppingCartService implements ShoppingCartService {
+    private static final String UPDATE_CART_ITEM_QUANTITY = "UPDATE cart_items SET quantity = ? "
+            + "WHERE id = ? AND shopping_cart_id = ? AND is_deleted = false";
+    private static final String DELETE_CART_ITEM =
+            "UPDATE cart_items SET is_deleted = true WHERE id = ? AND shopping_cart_id = ?";
+
+    private final ShoppingCartServiceImpl shoppingCartService;
+    private final JdbcTemplate jdbcTemplate;
+    private final ShoppingCartVersions shoppingCartVersions;
+    private final TransactionTemplate transactionTemplate;
+    private final Map<Long, CachedCart> carts = new ConcurrentHashMap<>();
+    private final ReentrantLock[] cartLocks;
+    private final Condition[] flushesDone;
+    private final long[] invalidations;
+    private final long maxAgeNanos;
+    private final int maxAttempts;
+
+    public WriteBehindShoppingCartService(
+            ShoppingCartServiceImpl shoppingCartService,
+            JdbcTemplate jdbcTemplate,
+            ShoppingCartVersions shoppingCartVersions,
+            PlatformTransactionManager transactionManager,
+            @Value("${cart.write-behind.stripes:64}") int stripes,
+            @Value("${cart.write-behind.max-age:10m}") Duration maxAge,
+            @Value("${cart.max-attempts:3}") int maxAttempts) {
+        this.shoppingCartService = shoppingCartService;
+        this.jdbcTemplate = jdbcTemplate;
+        this.shoppingCartVersions = shoppingCartVersions;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        this.transactionTemplate.setPropagationBehavior(
+                TransactionDefinition.PROPAGATION_REQUIRES_NEW);
+        this.cartLocks = new ReentrantLock[stripes];
+        this.flushesDone = new Condition[stripes];
+        for (int i = 0; i < stripes; i++) {
+            cartLocks[i] = new ReentrantLock();
+            flushesDone[i] = cartLocks[i].newCondition();
+        }
+        this.invalidations = new long[stripes];
+        this.maxAgeNanos = maxAge.toNanos();
+        this.maxAttempts = maxAttempts;
+    }
+
+    @Override
+    public ShoppingCartResponseDto getByUserId(Long userId) {
+        return withLoadedCart(userId, CachedCart::toDto);
+    }
+
+    @Override
+    public ShoppingCartResponseDto addCartItem(Long userId, CreateCartItemRequestDto requestDto) {
+        return writeThrough(userId, () -> shoppingCartService.addCartItem(userId, requestDto));
+    }
+
+    @Override
+    public ShoppingCartResponseDto updateCartItem(Long userId,
+                                                  Long cartItemId,
+                                                  UpdateCartItemRequestDto requestDto) {
+        return withLoadedCart(userId, cart -> {
+            cart.setQuantity(cartItemId, requestDto.getQuantity());
+            return cart.toDto();
+        });
+    }
+
+    @Override
+    public CartItemResponseDto updateCartItemQuantity(Long userId,
+                                                      Long cartItemId,
+                                                      UpdateCartItemRequestDto requestDto) {
+        return withLoadedCart(userId, cart -> copyOf(
+                cart.setQuantity(cartItemId, requestDto.getQuantity())));
+    }
+
+    @Override
+    public ShoppingCartResponseDto deleteCartItem(Long userId, Long cartItemId) {
+        return withLoadedCart(userId, cart -> {
+            cart.remove(cartItemId);
+            return cart.toDto();
+        });
+    }
+
+    @Override
+    public void removeCartItem(Long userId, Long cartItemId) {
+        withLoadedCart(userId, cart -> {
+            cart.remove(cartItemId);
+            return null;
+        });
+    }
+
+    @Override
+    public ShoppingCartResponseDto applyBatch(Long userId, List<CartOperationDto> operations) {
+        return writeThrough(userId, () -> shoppingCartService.applyBatch(userId, operations));
+    }
+
+    /**
+     * Writes the pending changes of the cart, after a flush of it that is already
+     * running, e.g. before an order is created from it. The cart stays in memory until
+     * a {@link ShoppingCartChangedEvent} tells that the order has changed it.
+     */
+    @Override
+    public void flush(Long userId) {
+        for (int attempt = 1; ; attempt++) {
+            PendingWrites writes = new PendingWrites();
+            boolean stale = withCart(userId, () -> {
+                CachedCart cart = awaitFlush(userId);
+                if (cart != null && !cart.stale) {
+                    cart.drainTo(writes);
+                }
+                return cart != null && cart.stale;
+            });
+            if (stale) {
+                withLoadedCart(userId, cart -> null);
+            } else if (write(writes).isEmpty()) {
+                return;
+            }
+            if (attempt >= maxAttempts) {
+                throw new ConcurrentCartModificationException(
+                        "Shopping cart has been changed concurrently, please try again");
+            }
+        }
+    }
+
+    /**
+     * Writes the changes of all carts with one batch per kind of write and drops the
+     * clean carts loaded longer than {@code cart.write-behind.max-age} ago. If the
+     * write fails, the changes are put back into their carts.
+     */
+    @Scheduled(fixedDelayString = "${cart.write-behind.flush-interval:1000}")
+    @PreDestroy
+    public void flushAll() {
+        for (Long userId : carts.keySet()) {
+            boolean stale = withCart(userId, () -> {
+                CachedCart cart = carts.get(userId);
+                return cart != null && cart.stale && !cart.isClean();
+            });
+            if (stale) {
+                withLoadedCart(userId, cart -> null);
+            }
+        }
+        PendingWrites writes = new PendingWrites();
+        for (Long userId : carts.keySet()) {
+            withCart(userId, () -> {
+                CachedCart cart = carts.get(userId);
+                if (cart != null && !cart.flushing && !cart.stale) {
+                    cart.drainTo(writes);
+                }
+                return null;
+            });
+        }
+        write(writes);
+        long loadedBefore = System.nanoTime() - maxAgeNanos;
+        for (Long userId : carts.keySet()) {
+            withCart(userId, () -> {
+                CachedCart cart = carts.get(userId);
+                if (cart != null && !cart.flushing && cart.isClean()
+                        && (cart.stale || cart.loadedNanos - loadedBefore <= 0)) {
+                    carts.remove(userId);
+                }
+                return null;
+            });
+        }
+    }
+
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onShoppingCartChanged(ShoppingCartChangedEvent event) {
+        invalidate(event.getUserId());
+    }
+
+    private ShoppingCartResponseDto writeThrough(Long userId,
+                                                 Supplier<ShoppingCartResponseDto> write) {
+        flush(userId);
+        ShoppingCartResponseDto shoppingCart = write.get();
+        invalidate(userId);
+        return shoppingCart;
+    }
+
+    /**
+     * Makes the next access read the cart again; pending changes are kept and applied
+     * to what is read.
+     */
+    private void invalidate(Long userId) {
+        withCart(userId, () -> {
+            invalidations[stripe(userId)]++;
+            CachedCart cart = carts.get(userId);
+            if (cart != null && cart.isClean() && !cart.flushing) {
+                carts.remove(userId);
+            } else if (cart != null) {
+                cart.stale = true;
+            }
+            return null;
+        });
+    }
+
+    /**
+     * Runs the action on the cart in memory under its lock. A missing or stale cart is
+     * loaded without holding the lock first; a load that overlapped an invalidation of
+     * the stripe is thrown away and done again.
+     */
+    private <T> T withLoadedCart(Long userId, Function<CachedCart, T> action) {
+        ReentrantLock lock = cartLocks[stripe(userId)];
+        while (true) {
+            long invalidation;
+            lock.lock();
+            try {
+                CachedCart cart = carts.get(userId);
+                if (cart != null && cart.stale) {
+                    cart = awaitFlush(userId);
+                }
+                if (cart != null && !cart.stale) {
+                    return action.apply(cart);
+                }
+                invalidation = invalidations[stripe(userId)];
+            } finally {
+                lock.unlock();
+            }
+            CachedCart loaded = load(userId);
+            lock.lock();
+            try {
+                CachedCart cart = carts.get(userId);
+                if (invalidations[stripe(userId)] == invalidation
+                        && (cart == null || cart.stale && !cart.flushing)) {
+                    carts.put(userId, cart == null ? loaded : loaded.rebase(cart));
+                }
+            } finally {
+                lock.unlock();
+            }
+        }
+    }
+
+    private CachedCart load(Long userId) {
+        // Read first, so changes made while the cart is read fail the version check
+        Long version = shoppingCartVersions.get(userId);
+        return CachedCart.of(shoppingCartService.getByUserId(userId), version);
+    }
+
+    /**
+     * Must be called holding the lock of the cart; waits until the cart is not being
+     * flushed and returns it.
+     */
+    private CachedCart awaitFlush(Long userId) {
+        CachedCart cart = carts.get(userId);
+        while (cart != null && cart.flushing) {
+            flushesDone[stripe(userId)].awaitUninterruptibly();
+            cart = carts.get(userId);
+        }
+        return cart;
+    }
+
+    /**
+     * Writes the drained changes without holding any cart lock, then hands the carts
+     * back: written carts move on to the next version, and the changes of the others
+     * are put back. Returns the users whose carts have been changed in the database
+     * since they were loaded; those carts are marked stale.
+     */
+    private Set<Long> write(PendingWrites writes) {
+        if (writes.carts.isEmpty()) {
+            return Set.of();
+        }
+        Set<Long> changedUserIds;
+        try {
+            changedUserIds = transactionTemplate.execute(status -> writeBatches(writes));
+        } catch (RuntimeException e) {
+            writes.carts.forEach((userId, cart) -> withCart(userId, () -> {
+                cart.flushed(false, false);
+                flushesDone[stripe(userId)].signalAll();
+                return null;
+            }));
+            throw e;
+        }
+        writes.carts.forEach((userId, cart) -> withCart(userId, () -> {
+            boolean changed = changedUserIds.contains(userId);
+            cart.flushed(!changed, changed);
+            flushesDone[stripe(userId)].signalAll();
+            return null;
+        }));
+        return changedUserIds;
+    }
+
+    private Set<Long> writeBatches(PendingWrites writes) {
+        Set<Long> changedUserIds = shoppingCartVersions.incrementAll(writes.versions);
+        List<PendingWrite> quantities = writes.quantities.stream()
+                .filter(write -> !changedUserIds.contains(write.userId))
+                .toList();
+        List<PendingWrite> deletes = writes.deletes.stream()
+                .filter(write -> !changedUserIds.contains(write.userId))
+                .toList();
+        if (!quantities.isEmpty()) {
+            jdbcTemplate.batchUpdate(UPDATE_CART_ITEM_QUANTITY, quantities,
+                    quantities.size(), (ps, write) -> {
+                        ps.setInt(1, write.quantity);
+                        ps.setLong(2, write.cartItemId);
+                        ps.setLong(3, write.shoppingCartId);
+                    });
+        }
+        if (!deletes.isEmpty()) {
+            jdbcTemplate.batchUpdate(DELETE_CART_ITEM, deletes,
+                    deletes.size(), (ps, write) -> {
+                        ps.setLong(1, write.cartItemId);
+                        ps.setLong(2, write.shoppingCartId);
+                    });
+        }
+        return changedUserIds;
+    }
+
+    private <T> T withCart(Long userId, Supplier<T> action) {
+        ReentrantLock lock = cartLocks[stripe(userId)];
+        lock.lock();
+        try {
+            return action.get();
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    private int stripe(Long userId) {
+        return Math.floorMod(userId.hashCode(), cartLocks.length);
+    }
+
+    private static CartItemResponseDto copyOf(CartItemResponseDto item) {
+        CartItemResponseDto copy = new CartItemResponseDto();
+        copy.setId(item.getId());
+        copy.setBookId(item.getBookId());
+        copy.setBookTitle(item.getBookTitle());
+        copy.setQuantity(item.getQuantity());
+        return copy;
+    }
+
+    private static class CachedCart {
+        private final Long id;
+        private final Long userId;
+        private final long loadedNanos = System.nanoTime();
+        private final Map<Long, CartItemResponseDto> items = new LinkedHashMap<>();
+        private final Map<Long, Integer> pendingQuantities = new HashMap<>();
+        private final Set<Long> pendingDeletes = new HashSet<>();
+        private final Map<Long, Integer> flushingQuantities = new HashMap<>();
+        private final Set<Long> flushingDeletes = new HashSet<>();
+        private long version;
+        private boolean flushing;
+        private boolean stale;
+
+        private CachedCart(Long id, Long userId, long version) {
+            this.id = id;
+            this.userId = userId;
+            this.version = version;
+        }
+
+        private static CachedCart of(ShoppingCartResponseDto shoppingCart, long version) {
+            CachedCart cart = new CachedCart(shoppingCart.getId(), shoppingCart.getUserId(),
+                    version);
+            shoppingCart.getCartItems()
+                    .forEach(item -> cart.items.put(item.getId(), copyOf(item)));
+            return cart;
+        }
+
+        private CartItemResponseDto setQuantity(Long cartItemId, Integer quantity) {
+            CartItemResponseDto item = getItem(cartItemId);
+            item.setQuantity(quantity);
+            pendingQuantities.put(cartItemId, quantity);
+            return item;
+        }
+
+        private void remove(Long cartItemId) {
+            getItem(cartItemId);
+            items.remove(cartItemId);
+            pendingQuantities.remove(cartItemId);
+            pendingDeletes.add(cartItemId);
+        }
+
+        private CartItemResponseDto getItem(Long cartItemId) {
+            CartItemResponseDto item = items.get(cartItemId);
+            if (item == null) {
+                throw new EntityNotFoundException("Can't find cart item by id " + cartItemId);
+            }
+            return item;
+        }
+
+        /**
+         * Applies the pending changes of the stale copy to the items this fresh copy
+         * still has; changes of items that are gone, e.g. ordered, are dropped.
+         */
+        private CachedCart rebase(CachedCart staleCart) {
+            staleCart.pendingQuantities.forEach((cartItemId, quantity) -> {
+                if (items.containsKey(cartItemId)) {
+                    setQuantity(cartItemId, quantity);
+                }
+            });
+            staleCart.pendingDeletes.forEach(cartItemId -> {
+                if (items.containsKey(cartItemId)) {
+                    remove(cartItemId);
+                }
+            });
+            return this;
+        }
+
+        private void drainTo(PendingWrites writes) {
+            if (isClean()) {
+                return;
+            }
+            flushing = true;
+            writes.carts.put(userId, this);
+            writes.versions.put(userId, version);
+            pendingQuantities.forEach((cartItemId, quantity) -> writes.quantities.add(
+                    new PendingWrite(userId, id, cartItemId, quantity)));
+            pendingDeletes.forEach(cartItemId -> writes.deletes.add(
+                    new PendingWrite(userId, id, cartItemId, 0)));
+            flushingQuantities.putAll(pendingQuantities);
+            flushingDeletes.addAll(pendingDeletes);
+            pendingQuantities.clear();
+            pendingDeletes.clear();
+        }
+
+        /**
+         * Ends a flush of this cart; changes that were not written are put back unless
+         * newer ones replaced them in the meantime.
+         */
+        private void flushed(boolean written, boolean changedInDatabase) {
+            if (written) {
+                version++;
+            } else {
+                flushingQuantities.forEach((cartItemId, quantity) -> {
+                    if (!pendingDeletes.contains(cartItemId)) {
+                        pendingQuantities.putIfAbsent(cartItemId, quantity);
+                    }
+                });
+                pendingDeletes.addAll(flushingDeletes);
+            }
+            stale |= changedInDatabase;
+            flushingQuantities.clear();
+            flushingDeletes.clear();
+            flushing = false;
+        }
+
+        private boolean isClean() {
+            return pendingQuantities.isEmpty() && pendingDeletes.isEmpty();
+        }
+
+        private ShoppingCartResponseDto toDto() {
+            ShoppingCartResponseDto shoppingCart = new ShoppingCartResponseDto();
+            shoppingCart.setId(id);
+            shoppingCart.setUserId(userId);
+            shoppingCart.setCartItems(items.values().stream()
+                    .map(WriteBehindShoppingCartService::copyOf)
+                    .collect(Collectors.toSet()));
+            return shoppingCart;
+        }
+    }
+
+    private static class PendingWrites {
+        private final List<PendingWrite> quantities = new ArrayList<>();
+        private final List<PendingWrite> deletes = new ArrayList<>();
+        private final Map<Long, Long> versions = new HashMap<>();
+        private final Map<Long, CachedCart> carts = new HashMap<>();
+    }
+
+    private static class PendingWrite {
+        private final Long userId;
+        private final Long shoppingCartId;
+        private final Long cartItemId;
+        private final int quantity;
+
+        private PendingWrite(Long userId, Long shoppingCartId, Long cartItemId, int quantity) {
+            this.userId = userId;
+            this.shoppingCartId = shoppingCartId;
+            this.cartItemId = cartItemId;
+            this.quantity = quantity;
+        }
+    }
+}
@@ -2,39 +2,65 @@ package com.example.bookstore.validation;
 
 import jakarta.validation.ConstraintValidator;
 import jakarta.validation.ConstraintValidatorContext;
-import java.util.regex.Pattern;
 
+/**
+ * Accepts an ISBN-10 (the last char may be {@code X}) or an ISBN-13 without
+ * separators whose check digit matches. The digits are checked in one pass over
+ * the chars, without a regex or any allocation. A {@code null} isbn is left to
+ * {@code @NotBlank}, so optional isbns can be validated too.
+ */
 public class IsbnValidator implements ConstraintValidator<Isbn, String> {
-    private static final String ISBN_PATTERN = "^\\d{10,13}$";
+    private static final int ISBN_10_LENGTH = 10;
+    private static final int ISBN_13_LENGTH = 13;
 
     @Override
     public boolean isValid(String isbn, ConstraintValidatorContext constraintValidatorContext) {
-        return isbn != null && Pattern.compile(ISBN_PATTERN).matcher(isbn).matches();
+        return isbn == null || isValidIsbn(isbn);
     }
 
-    /*
-    @Override
-    public boolean isValid(String value, ConstraintValidatorContext context) {
-        char[] isbn = value.toCharArray();
-        int sum = 0;
+    public static boolean isValidIsbn(CharSequence isbn) {
+        if (isbn == null) {
+            return false;
+        }
+        if (isbn.length() == ISBN_10_LENGTH) {
+            return isValidIsbn10(isbn);
+        }
+        return isbn.length() == ISBN_13_LENGTH && isValidIsbn13(isbn);
+    }
 
-        if (isbn.length == 10) {
-            for (int i = 0; i < 10; i++) {
-                sum += i * isbn[i];
+    /**
+     * The digits weighted 10 down to 1 sum to a multiple of 11; {@code X} stands for
+     * a check digit of 10.
+     */
+    private static boolean isValidIsbn10(CharSequence isbn) {
+        int sum = 0;
+        for (int i = 0; i < ISBN_10_LENGTH; i++) {
+            char c = isbn.charAt(i);
+            int digit;
+            if (c >= '0' && c <= '9') {
+                digit = c - '0';
+            } else if (i == ISBN_10_LENGTH - 1 && (c == 'X' || c == 'x')) {
+                digit = 10;
+            } else {
+                return false;
             }
+            sum += (ISBN_10_LENGTH - i) * digit;
+        }
+        return sum % 11 == 0;
+    }
 
-            return isbn[9] == sum % 11;
-        } else {
-            if (isbn.length == 13) {
-                for (int i = 0; i < 12; i++) {
-                    sum += i % 2 == 0 ? isbn[i] : 3 * isbn[i];
-                }
-
-                return isbn[12] == 10 - (sum % 10);
+    /**
+     * The digits weighted alternately 1 and 3 sum to a multiple of 10.
+     */
+    private static boolean isValidIsbn13(CharSequence isbn) {
+        int sum = 0;
+        for (int i = 0; i < ISBN_13_LENGTH; i++) {
+            char c = isbn.charAt(i);
+            if (c < '0' || c > '9') {
+                return false;
             }
+            sum += (i % 2 == 0 ? 1 : 3) * (c - '0');
         }
-
-        return false;
+        return sum % 10 == 0;
     }
-     */
 }
@@ -0,0 +1,58 @@
+package com.example.bookstore.benchmark;
+
+import com.example.bookstore.service.search.CompletionTrie;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Lookup latency of {@code /api/books/suggest} over a million generated titles.
+ * Run with {@code java -cp <test classpath> org.openjdk.jmh.Main CompletionTrieBenchmark}.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.SampleTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(value = 1, jvmArgs = "-Xmx2g")
+public class CompletionTrieBenchmark {
+    private static final String[] WORDS = {"the", "java", "history", "of", "spring", "war",
+            "peace", "garden", "secret", "night", "city", "river", "code", "clean", "world",
+            "little", "prince", "dark", "light", "mountain"};
+
+    @Param("1000000")
+    private int titles;
+
+    @Param({"j", "cle", "clean code of t"})
+    private String prefix;
+
+    private CompletionTrie trie;
+
+    @Setup
+    public void setup() {
+        trie = new CompletionTrie(10);
+        Random random = new Random(42);
+        for (int i = 0; i < titles; i++) {
+            String title = WORDS[random.nextInt(WORDS.length)] + " "
+                    + WORDS[random.nextInt(WORDS.length)] + " "
+                    + WORDS[random.nextInt(WORDS.length)] + " " + i;
+            trie.put(title, title, random.nextInt(1000));
+        }
+    }
+
+    @Benchmark
+    public List<String> complete() {
+        return trie.complete(prefix, 10);
+    }
+}
@@ -0,0 +1,68 @@
+package com.example.bookstore.benchmark;
+
+import com.example.bookstore.service.search.InvertedIndex;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Latency of {@code /api/books/search} over a million generated books whose words
+ * follow a Zipf like distribution, so the first words are in most books and the last
+ * ones in few. Run with
+ * {@code java -cp <test classpath> org.openjdk.jmh.Main InvertedIndexBenchmark}.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.SampleTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(value = 1, jvmArgs = "-Xmx4g")
+public class InvertedIndexBenchmark {
+    private static final int VOCABULARY = 5000;
+    private static final int WORDS_PER_BOOK = 12;
+
+    @Param("1000000")
+    private int books;
+
+    @Param({"w0 w1", "w0 w1 w2 w3", "w0 w1 w4000", "w2500"})
+    private String query;
+
+    private InvertedIndex index;
+    private Map<String, Double> weightedTerms;
+
+    @Setup
+    public void setup() {
+        index = new InvertedIndex();
+        Random random = new Random(42);
+        for (int i = 0; i < books; i++) {
+            Map<String, Integer> termFrequencies = new HashMap<>();
+            for (int j = 0; j < WORDS_PER_BOOK; j++) {
+                // Inverse transform of a 1/x density over [1, VOCABULARY]
+                int word = (int) Math.pow(VOCABULARY, random.nextDouble()) - 1;
+                termFrequencies.merge("w" + word, 1 + random.nextInt(3), Integer::sum);
+            }
+            index.put(i, termFrequencies);
+        }
+        weightedTerms = new HashMap<>();
+        for (String term : query.split(" ")) {
+            weightedTerms.put(term, 1d);
+        }
+    }
+
+    @Benchmark
+    public long[] search() {
+        return index.search(weightedTerms, 10);
+    }
+}
@@ -0,0 +1,88 @@
+package com.example.bookstore.benchmark;
+
+import com.example.bookstore.service.search.OffHeapLongMap;
+import com.example.bookstore.validation.IsbnValidator;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+import java.util.regex.Pattern;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Cost of {@code /api/books/isbn/{isbn}} before the book is loaded: the off-heap
+ * ISBN index against a boxed {@link HashMap}, and the checksum validator against
+ * the previous regex one. Run with
+ * {@code java -cp <test classpath> org.openjdk.jmh.Main IsbnBenchmark}.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(value = 1, jvmArgs = "-Xmx2g")
+public class IsbnBenchmark {
+    private static final long FIRST_ISBN = 9_780_000_000_000L;
+    private static final String ISBN_PATTERN = "^\\d{10,13}$";
+
+    @Param("1000000")
+    private int books;
+
+    private OffHeapLongMap offHeapIndex;
+    private Map<Long, Long> heapIndex;
+    private long[] isbns;
+    private String[] isbnTexts;
+    private int next;
+
+    @Setup
+    public void setup() {
+        offHeapIndex = new OffHeapLongMap(books);
+        heapIndex = new HashMap<>();
+        Random random = new Random(42);
+        isbns = new long[1024];
+        isbnTexts = new String[isbns.length];
+        for (int i = 0; i < books; i++) {
+            long isbn = FIRST_ISBN + i * 10L;
+            offHeapIndex.put(isbn, i + 1);
+            heapIndex.put(isbn, i + 1L);
+        }
+        for (int i = 0; i < isbns.length; i++) {
+            isbns[i] = FIRST_ISBN + random.nextInt(books) * 10L;
+            isbnTexts[i] = String.valueOf(isbns[i]);
+        }
+    }
+
+    @Benchmark
+    public long offHeapLookup() {
+        return offHeapIndex.get(isbns[next++ & (isbns.length - 1)]);
+    }
+
+    @Benchmark
+    public Long heapLookup() {
+        return heapIndex.get(isbns[next++ & (isbns.length - 1)]);
+    }
+
+    @Benchmark
+    public boolean checksumValidation() {
+        return IsbnValidator.isValidIsbn(isbnTexts[next++ & (isbnTexts.length - 1)]);
+    }
+
+    /**
+     * The previous validator compiled the pattern on every call.
+     */
+    @Benchmark
+    public boolean regexValidation() {
+        return Pattern.compile(ISBN_PATTERN)
+                .matcher(isbnTexts[next++ & (isbnTexts.length - 1)]).matches();
+    }
+}
@@ -0,0 +1,94 @@
+package com.example.bookstore.benchmark;
+
+import com.example.bookstore.model.Role;
+import com.example.bookstore.model.User;
+import com.example.bookstore.security.JwtClaims;
+import com.example.bookstore.security.JwtUtil;
+import io.jsonwebtoken.Jwts;
+import io.jsonwebtoken.security.Keys;
+import java.nio.charset.StandardCharsets;
+import java.security.Key;
+import java.time.Duration;
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+/**
+ * Per-request cost of token verification in {@code JwtAuthenticationFilter}.
+ * Run with {@code java -cp <test classpath> org.openjdk.jmh.Main JwtUtilBenchmark}.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(3)
+public class JwtUtilBenchmark {
+    private static final String SECRET = "secretsecretsecretsecretsecretsecret";
+    private static final long EXPIRATION = 3000000;
+
+    private Key key;
+    private JwtUtil cachingJwtUtil;
+    private JwtUtil nonCachingJwtUtil;
+    private String token;
+
+    @Setup
+    public void setup() {
+        key = Keys.hmacShaKeyFor(SECRET.getBytes(StandardCharsets.UTF_8));
+        cachingJwtUtil = new JwtUtil(SECRET, EXPIRATION, 10000, Duration.ofMinutes(5));
+        nonCachingJwtUtil = new JwtUtil(SECRET, EXPIRATION, 10000, Duration.ZERO);
+        token = cachingJwtUtil.generateToken(getUser());
+    }
+
+    /**
+     * The previous filter path: {@code isValidToken} and {@code getUsername} each
+     * built a parser and verified the signature.
+     */
+    @Benchmark
+    public void doubleParse(Blackhole blackhole) {
+        blackhole.consume(Jwts.parserBuilder()
+                .setSigningKey(key)
+                .build()
+                .parseClaimsJws(token)
+                .getBody()
+                .getExpiration());
+        blackhole.consume(Jwts.parserBuilder()
+                .setSigningKey(key)
+                .build()
+                .parseClaimsJws(token)
+                .getBody()
+                .getSubject());
+    }
+
+    @Benchmark
+    public JwtClaims singleParse() {
+        return nonCachingJwtUtil.parseToken(token);
+    }
+
+    @Benchmark
+    public JwtClaims cachedParse() {
+        return cachingJwtUtil.parseToken(token);
+    }
+
+    private static User getUser() {
+        Role role = new Role();
+        role.setName(Role.RoleName.ROLE_USER);
+
+        User user = new User();
+        user.setId(1L);
+        user.setEmail("user@gmail.com");
+        user.setVersion(0L);
+        user.setRoles(Set.of(role));
+        return user;
+    }
+}
@@ -0,0 +1,29 @@
+package com.example.bookstore.config;
+
+import java.util.ArrayList;
+import java.util.List;
+import org.hibernate.resource.jdbc.spi.StatementInspector;
+
+/**
+ * Records every SQL statement Hibernate prepares. Register it with
+ * {@code spring.jpa.properties.hibernate.session_factory.statement_inspector}.
+ */
+public class SqlStatementCollector implements StatementInspector {
+    private static final List<String> STATEMENTS = new ArrayList<>();
+
+    public static synchronized void clear() {
+        STATEMENTS.clear();
+    }
+
+    public static synchronized List<String> getStatements() {
+        return List.copyOf(STATEMENTS);
+    }
+
+    @Override
+    public String inspect(String sql) {
+        synchronized (SqlStatementCollector.class) {
+            STATEMENTS.add(sql);
+        }
+        return sql;
+    }
+}
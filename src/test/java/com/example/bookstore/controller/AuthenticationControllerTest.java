@@ -0,0 +1,123 @@
+package com.example.bookstore.controller;
+
+import static org.springframework.security.test.web.servlet.setup.SecurityMockMvcConfigurers.springSecurity;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.header;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+import com.example.bookstore.dto.user.UserLoginRequestDto;
+import com.example.bookstore.security.BlockingPassword;
+import com.example.bookstore.security.JwtClaims;
+import com.example.bookstore.security.JwtUtil;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.MediaType;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.security.crypto.bcrypt.BCryptPasswordEncoder;
+import org.springframework.security.crypto.password.PasswordEncoder;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.MvcResult;
+import org.springframework.test.web.servlet.setup.MockMvcBuilders;
+import org.springframework.web.context.WebApplicationContext;
+
+@SpringBootTest(webEnvironment = SpringBootTest.WebEnvironment.RANDOM_PORT, properties = {
+        "security.password.bcrypt-strength=4",
+        "security.password.hashing.pool-size=1",
+        "security.password.hashing.queue-capacity=1",
+        "security.password.hashing.retry-after=2s"})
+class AuthenticationControllerTest {
+    private static final String EMAIL = "login@gmail.com";
+    private static final String PASSWORD = "password";
+
+    private static MockMvc mockMvc;
+    @Autowired
+    private ObjectMapper objectMapper;
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+    @Autowired
+    private JwtUtil jwtUtil;
+    @Autowired
+    private PasswordEncoder passwordEncoder;
+
+    @BeforeAll
+    static void beforeAll(@Autowired WebApplicationContext applicationContext) {
+        mockMvc = MockMvcBuilders
+                .webAppContextSetup(applicationContext)
+                .apply(springSecurity())
+                .build();
+    }
+
+    @BeforeEach
+    void setUp() {
+        jdbcTemplate.update("INSERT INTO users "
+                + "(email, password, first_name, last_name, is_deleted) "
+                + "VALUES (?, ?, 'first_name', 'last_name', false)",
+                EMAIL, new BCryptPasswordEncoder(5).encode(PASSWORD));
+    }
+
+    @AfterEach
+    void tearDown() {
+        jdbcTemplate.update("DELETE FROM users WHERE email = ?", EMAIL);
+    }
+
+    @Test
+    void login_StoredHashWithOtherCost_RehashesAndIssuesTokenWithNewVersion() throws Exception {
+        MvcResult result = mockMvc.perform(post("/auth/login")
+                        .content(objectMapper.writeValueAsString(getLoginRequest()))
+                        .contentType(MediaType.APPLICATION_JSON))
+                .andExpect(status().isOk())
+                .andReturn();
+
+        String token = objectMapper.readTree(result.getResponse().getContentAsString())
+                .get("token").asText();
+        JwtClaims claims = jwtUtil.parseToken(token);
+        Map<String, Object> stored = jdbcTemplate.queryForMap(
+                "SELECT password, version FROM users WHERE email = ?", EMAIL);
+        Assertions.assertTrue(((String) stored.get("password")).startsWith("$2a$04$"));
+        Assertions.assertEquals(1L, ((Number) stored.get("version")).longValue());
+        Assertions.assertEquals(1L, claims.getVersion());
+    }
+
+    @Test
+    void login_HashingSaturated_ReturnsServiceUnavailableWithRetryAfter() throws Exception {
+        String hash = passwordEncoder.encode(PASSWORD);
+        BlockingPassword running = new BlockingPassword(PASSWORD);
+        BlockingPassword queued = new BlockingPassword(PASSWORD);
+        final CompletableFuture<Boolean> runningMatch = CompletableFuture.supplyAsync(
+                () -> passwordEncoder.matches(running, hash));
+        Assertions.assertTrue(running.awaitHashing());
+        final CompletableFuture<Boolean> queuedMatch = CompletableFuture.supplyAsync(
+                () -> passwordEncoder.matches(queued, hash));
+        Assertions.assertTrue(BlockingPassword.awaitQueued(passwordEncoder, 1));
+
+        try {
+            mockMvc.perform(post("/auth/login")
+                            .content(objectMapper.writeValueAsString(getLoginRequest()))
+                            .contentType(MediaType.APPLICATION_JSON))
+                    .andExpect(status().isServiceUnavailable())
+                    .andExpect(header().string(HttpHeaders.RETRY_AFTER, "2"));
+        } finally {
+            running.release();
+            queued.release();
+        }
+        Assertions.assertTrue(runningMatch.get(5, TimeUnit.SECONDS));
+        Assertions.assertTrue(queuedMatch.get(5, TimeUnit.SECONDS));
+    }
+
+    private static UserLoginRequestDto getLoginRequest() {
+        UserLoginRequestDto request = new UserLoginRequestDto();
+        request.setEmail(EMAIL);
+        request.setPassword(PASSWORD);
+        return request;
+    }
+}
@@ -1,19 +1,25 @@
 package com.example.bookstore.controller;
 
 import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
 import static org.springframework.security.test.web.servlet.setup.SecurityMockMvcConfigurers.springSecurity;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.asyncDispatch;
 import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.delete;
 import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
 import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
 import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.put;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.request;
 import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
 
 import com.example.bookstore.dto.book.BookDto;
 import com.example.bookstore.dto.book.CreateBookRequestDto;
+import com.example.bookstore.dto.common.SliceResponseDto;
+import com.fasterxml.jackson.core.type.TypeReference;
 import com.fasterxml.jackson.databind.ObjectMapper;
 import java.math.BigDecimal;
 import java.sql.Connection;
 import java.sql.SQLException;
+import java.time.Duration;
 import java.util.HashSet;
 import javax.sql.DataSource;
 import lombok.SneakyThrows;
@@ -137,9 +143,25 @@ class BookControllerTest {
                 .andExpect(status().isOk())
                 .andReturn();
         // Then
-        BookDto[] actual = objectMapper.readValue(result.getResponse()
-                .getContentAsByteArray(), BookDto[].class);
-        assertEquals(expectedSize, actual.length);
+        SliceResponseDto<BookDto> actual = objectMapper.readValue(result.getResponse()
+                .getContentAsByteArray(), new TypeReference<>() {});
+        assertEquals(expectedSize, actual.getContent().size());
+        assertFalse(actual.isHasNext());
+    }
+
+    @Test
+    @WithMockUser(username = "admin", roles = {"ADMIN"})
+    void exportNdjson_UsesExportTimeout() throws Exception {
+        // When
+        MvcResult result = mockMvc.perform(get("/api/books/export"))
+                .andExpect(request().asyncStarted())
+                .andReturn();
+
+        // Then
+        assertEquals(Duration.ofMinutes(30).toMillis(),
+                result.getRequest().getAsyncContext().getTimeout());
+        mockMvc.perform(asyncDispatch(result))
+                .andExpect(status().isOk());
     }
 
     @Test
@@ -149,7 +171,7 @@ class BookControllerTest {
         CreateBookRequestDto updatedBook = new CreateBookRequestDto();
         updatedBook.setPrice(new BigDecimal("199.99"));
         updatedBook.setAuthor("updatedAuthor");
-        updatedBook.setIsbn("1000000000001");
+        updatedBook.setIsbn("9781000000009");
         updatedBook.setTitle("updateName");
         updatedBook.setCategoryIds(new HashSet<>());
 
@@ -10,6 +10,8 @@ import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.
 
 import com.example.bookstore.dto.category.CategoryRequestDto;
 import com.example.bookstore.dto.category.CategoryResponseDto;
+import com.example.bookstore.dto.common.SliceResponseDto;
+import com.fasterxml.jackson.core.type.TypeReference;
 import com.fasterxml.jackson.databind.ObjectMapper;
 import java.sql.Connection;
 import java.sql.SQLException;
@@ -139,9 +141,10 @@ class CategoryControllerTest {
                 .andExpect(status().isOk())
                 .andReturn();
 
-        CategoryResponseDto[] actual = objectMapper.readValue(
-                result.getResponse().getContentAsString(), CategoryResponseDto[].class);
-        Assertions.assertEquals(3, actual.length);
+        SliceResponseDto<CategoryResponseDto> actual = objectMapper.readValue(
+                result.getResponse().getContentAsString(), new TypeReference<>() {});
+        Assertions.assertEquals(3, actual.getContent().size());
+        Assertions.assertFalse(actual.isHasNext());
     }
 
     @Test
@@ -0,0 +1,101 @@
+package com.example.bookstore.repository;
+
+import com.example.bookstore.config.SqlStatementCollector;
+import com.example.bookstore.model.Book;
+import java.math.BigDecimal;
+import java.util.List;
+import java.util.Locale;
+import org.hibernate.Hibernate;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.jdbc.AutoConfigureTestDatabase;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Slice;
+import org.springframework.data.domain.Sort;
+import org.springframework.test.context.jdbc.Sql;
+
+@DataJpaTest(properties = "spring.jpa.properties.hibernate.session_factory.statement_inspector"
+        + "=com.example.bookstore.config.SqlStatementCollector")
+@Sql(scripts = {
+        "classpath:databases/category/01-insert-3-categories.sql",
+        "classpath:databases/book/01-insert-3-books.sql",
+        "classpath:databases/book/02-set-books-categories.sql"},
+        executionPhase = Sql.ExecutionPhase.BEFORE_TEST_METHOD)
+@Sql(scripts = {
+        "classpath:databases/book/04-delete-books-categories.sql",
+        "classpath:databases/category/02-delete-categories.sql",
+        "classpath:databases/book/03-delete-books.sql"},
+        executionPhase = Sql.ExecutionPhase.AFTER_TEST_METHOD)
+@AutoConfigureTestDatabase(replace = AutoConfigureTestDatabase.Replace.NONE)
+public class BookPagingQueryTest {
+    @Autowired
+    private BookRepository bookRepository;
+
+    @BeforeEach
+    public void setUp() {
+        SqlStatementCollector.clear();
+    }
+
+    @Test
+    public void findIds_LimitsRowsInSqlWithoutJoin() {
+        Slice<Long> slice = bookRepository.findIds(PageRequest.of(0, 2, Sort.by("title")));
+
+        Assertions.assertEquals(List.of(3L, 4L), slice.getContent());
+        Assertions.assertTrue(slice.hasNext());
+
+        List<String> statements = getStatements();
+        Assertions.assertEquals(1, statements.size(), statements.toString());
+        String idQuery = statements.get(0);
+        Assertions.assertTrue(idQuery.contains("limit"), idQuery);
+        Assertions.assertFalse(idQuery.contains("join"), idQuery);
+    }
+
+    @Test
+    public void findAllByIdIn_LoadsBooksWithCategoriesInOneQuery() {
+        List<Book> books = bookRepository.findAllByIdIn(List.of(4L, 5L));
+
+        Assertions.assertEquals(2, books.size());
+        books.forEach(book -> Assertions.assertTrue(Hibernate.isInitialized(book.getCategories())));
+        int categoryCount = books.stream().mapToInt(book -> book.getCategories().size()).sum();
+        Assertions.assertEquals(3, categoryCount);
+
+        List<String> statements = getStatements();
+        Assertions.assertEquals(1, statements.size(), statements.toString());
+        Assertions.assertTrue(statements.get(0).contains("join"), statements.get(0));
+        Assertions.assertFalse(statements.get(0).contains("limit"), statements.get(0));
+    }
+
+    @Test
+    public void findIdsAfterTitle_SameTitle_SkipsOnlyUpToLastId() {
+        Assertions.assertEquals(List.of(4L, 5L),
+                bookRepository.findIdsAfterTitle("book2", 0L, PageRequest.of(0, 2)));
+        Assertions.assertEquals(List.of(5L),
+                bookRepository.findIdsAfterTitle("book2", 4L, PageRequest.of(0, 1)));
+    }
+
+    @Test
+    public void findIdsByCategoryIdAfterId_SeeksOnJoinTable() {
+        List<Long> ids = bookRepository.findIdsByCategoryIdAfterId(1L, 3L, PageRequest.of(0, 1));
+
+        Assertions.assertEquals(List.of(4L), ids);
+        String idQuery = getStatements().get(0);
+        Assertions.assertTrue(idQuery.contains("bc.book_id > ?"), idQuery);
+    }
+
+    @Test
+    public void findIdsByCategoryIdAfterPrice_OrdersByPriceAndId() {
+        Assertions.assertEquals(List.of(5L), bookRepository.findIdsByCategoryIdAfterPrice(
+                1L, new BigDecimal("150"), 4L, PageRequest.of(0, 10)));
+        Assertions.assertEquals(List.of(4L), bookRepository.findIdsByCategoryIdAfterTitle(
+                2L, "", 0L, PageRequest.of(0, 10)));
+    }
+
+    private static List<String> getStatements() {
+        return SqlStatementCollector.getStatements().stream()
+                .map(sql -> sql.toLowerCase(Locale.ROOT))
+                .toList();
+    }
+}
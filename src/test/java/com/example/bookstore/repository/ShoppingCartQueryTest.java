@@ -0,0 +1,75 @@
+package com.example.bookstore.repository;
+
+import com.example.bookstore.config.SqlStatementCollector;
+import com.example.bookstore.dto.shoppingcart.ShoppingCartResponseDto;
+import com.example.bookstore.mapper.impl.BookMapperImpl;
+import com.example.bookstore.mapper.impl.CartItemMapperImpl;
+import com.example.bookstore.mapper.impl.ShoppingCartMapperImpl;
+import com.example.bookstore.service.shoppingcart.ShoppingCartServiceImpl;
+import java.util.List;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.jdbc.AutoConfigureTestDatabase;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.boot.test.autoconfigure.orm.jpa.TestEntityManager;
+import org.springframework.context.annotation.Import;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.context.jdbc.Sql;
+
+@DataJpaTest(properties = "spring.jpa.properties.hibernate.session_factory.statement_inspector"
+        + "=com.example.bookstore.config.SqlStatementCollector")
+@Import({
+        ShoppingCartServiceImpl.class,
+        ShoppingCartMapperImpl.class,
+        CartItemMapperImpl.class,
+        BookMapperImpl.class})
+@Sql(scripts = {
+        "classpath:databases/cart-item/04-delete-all-cart-items.sql",
+        "classpath:databases/user/02-delete-user-and-cart.sql",
+        "classpath:databases/book/03-delete-books.sql",
+        "classpath:databases/user/01-insert-user-and-cart.sql",
+        "classpath:databases/book/01-insert-3-books.sql",
+        "classpath:databases/cart-item/01-insert-cart-item.sql"},
+        executionPhase = Sql.ExecutionPhase.BEFORE_TEST_METHOD)
+@Sql(scripts = {
+        "classpath:databases/cart-item/04-delete-all-cart-items.sql",
+        "classpath:databases/user/02-delete-user-and-cart.sql",
+        "classpath:databases/book/03-delete-books.sql"},
+        executionPhase = Sql.ExecutionPhase.AFTER_TEST_METHOD)
+@AutoConfigureTestDatabase(replace = AutoConfigureTestDatabase.Replace.NONE)
+public class ShoppingCartQueryTest {
+    @Autowired
+    private ShoppingCartServiceImpl shoppingCartService;
+
+    @Autowired
+    private TestEntityManager entityManager;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Test
+    public void getByUserId_StatementCountDoesNotGrowWithItems() {
+        for (long bookId = 3; bookId <= 5; bookId++) {
+            jdbcTemplate.update("INSERT INTO cart_items (shopping_cart_id, book_id, quantity) "
+                    + "VALUES (2, ?, 1)", bookId);
+        }
+
+        List<String> oneItemStatements = getStatements(1L, 1);
+        List<String> threeItemsStatements = getStatements(2L, 3);
+
+        Assertions.assertEquals(1, oneItemStatements.size(), oneItemStatements.toString());
+        Assertions.assertEquals(1, threeItemsStatements.size(), threeItemsStatements.toString());
+    }
+
+    private List<String> getStatements(Long userId, int expectedItems) {
+        entityManager.clear();
+        SqlStatementCollector.clear();
+
+        ShoppingCartResponseDto cart = shoppingCartService.getByUserId(userId);
+
+        Assertions.assertEquals(expectedItems, cart.getCartItems().size());
+        cart.getCartItems().forEach(item -> Assertions.assertNotNull(item.getBookTitle()));
+        return SqlStatementCollector.getStatements();
+    }
+}
@@ -0,0 +1,57 @@
+package com.example.bookstore.repository;
+
+import com.example.bookstore.model.User;
+import com.example.bookstore.security.CustomUserDetailsService;
+import java.util.Optional;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.jdbc.AutoConfigureTestDatabase;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.boot.test.autoconfigure.orm.jpa.TestEntityManager;
+import org.springframework.context.annotation.Import;
+import org.springframework.test.context.jdbc.Sql;
+
+@DataJpaTest
+@Import(CustomUserDetailsService.class)
+@Sql(scripts = {
+        "classpath:databases/user/02-delete-user-and-cart.sql",
+        "classpath:databases/user/01-insert-user-and-cart.sql"},
+        executionPhase = Sql.ExecutionPhase.BEFORE_TEST_METHOD)
+@Sql(scripts = {
+        "classpath:databases/user/02-delete-user-and-cart.sql"},
+        executionPhase = Sql.ExecutionPhase.AFTER_TEST_METHOD)
+@AutoConfigureTestDatabase(replace = AutoConfigureTestDatabase.Replace.NONE)
+public class UserRepositoryTest {
+    @Autowired
+    private UserRepository userRepository;
+
+    @Autowired
+    private CustomUserDetailsService customUserDetailsService;
+
+    @Autowired
+    private TestEntityManager entityManager;
+
+    @Test
+    public void updatePassword_DetachedUser_BumpsVersion() {
+        User user = userRepository.findByEmail("test1@gmail.com").orElseThrow();
+        Long version = user.getVersion();
+        entityManager.detach(user);
+
+        customUserDetailsService.updatePassword(user, "2222");
+
+        Assertions.assertEquals(version + 1, user.getVersion());
+        Assertions.assertEquals(Optional.of(version + 1), userRepository.findVersionById(1L));
+        Assertions.assertEquals("2222",
+                userRepository.findByEmail("test1@gmail.com").orElseThrow().getPassword());
+    }
+
+    @Test
+    public void findVersionById_SoftDeletedUser_ReturnsEmpty() {
+        userRepository.deleteById(1L);
+        entityManager.flush();
+
+        Assertions.assertEquals(Optional.empty(), userRepository.findVersionById(1L));
+        Assertions.assertTrue(userRepository.findVersionById(2L).isPresent());
+    }
+}
@@ -0,0 +1,73 @@
+package com.example.bookstore.security;
+
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import org.springframework.security.crypto.password.PasswordEncoder;
+
+/**
+ * Password that blocks the hashing it is passed to, and so holds its thread of
+ * {@link BoundedBcryptPasswordEncoder}, until released; BCrypt reads the password
+ * only once it runs.
+ */
+public class BlockingPassword implements CharSequence {
+    private final String password;
+    private final CountDownLatch hashing = new CountDownLatch(1);
+    private final CountDownLatch release = new CountDownLatch(1);
+
+    public BlockingPassword(String password) {
+        this.password = password;
+    }
+
+    /**
+     * Waits until the hashing has started and is blocked.
+     */
+    public boolean awaitHashing() throws InterruptedException {
+        return hashing.await(5, TimeUnit.SECONDS);
+    }
+
+    /**
+     * Waits until the encoder has the given number of calls waiting in its queue.
+     */
+    public static boolean awaitQueued(PasswordEncoder passwordEncoder, int tasks)
+            throws InterruptedException {
+        BoundedBcryptPasswordEncoder encoder = (BoundedBcryptPasswordEncoder) passwordEncoder;
+        long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(5);
+        while (encoder.getQueuedTasks() < tasks) {
+            if (System.nanoTime() > deadline) {
+                return false;
+            }
+            Thread.sleep(1);
+        }
+        return true;
+    }
+
+    public void release() {
+        release.countDown();
+    }
+
+    @Override
+    public int length() {
+        return password.length();
+    }
+
+    @Override
+    public char charAt(int index) {
+        return password.charAt(index);
+    }
+
+    @Override
+    public CharSequence subSequence(int start, int end) {
+        return password.subSequence(start, end);
+    }
+
+    @Override
+    public String toString() {
+        hashing.countDown();
+        try {
+            release.await();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        return password;
+    }
+}
@@ -0,0 +1,62 @@
+package com.example.bookstore.security;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import com.example.bookstore.exception.PasswordHashingRejectedException;
+import java.time.Duration;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.security.crypto.bcrypt.BCryptPasswordEncoder;
+
+public class BoundedBcryptPasswordEncoderTest {
+    private static final Duration RETRY_AFTER = Duration.ofSeconds(2);
+
+    private final BoundedBcryptPasswordEncoder passwordEncoder =
+            new BoundedBcryptPasswordEncoder(4, 1, 1, RETRY_AFTER);
+
+    @AfterEach
+    public void tearDown() {
+        passwordEncoder.destroy();
+    }
+
+    @Test
+    public void matches_PoolBusyAndQueueFull_ThrowsRejectedException() throws Exception {
+        // Given
+        String hash = passwordEncoder.encode("password");
+        BlockingPassword running = new BlockingPassword("password");
+        BlockingPassword queued = new BlockingPassword("password");
+        final CompletableFuture<Boolean> runningMatch = CompletableFuture.supplyAsync(
+                () -> passwordEncoder.matches(running, hash));
+        assertTrue(running.awaitHashing());
+        final CompletableFuture<Boolean> queuedMatch = CompletableFuture.supplyAsync(
+                () -> passwordEncoder.matches(queued, hash));
+        assertTrue(BlockingPassword.awaitQueued(passwordEncoder, 1));
+
+        // When
+        PasswordHashingRejectedException exception = assertThrows(
+                PasswordHashingRejectedException.class,
+                () -> passwordEncoder.matches("password", hash));
+
+        // Then
+        assertEquals(RETRY_AFTER, exception.getRetryAfter());
+        running.release();
+        queued.release();
+        assertTrue(runningMatch.get(5, TimeUnit.SECONDS));
+        assertTrue(queuedMatch.get(5, TimeUnit.SECONDS));
+        assertTrue(passwordEncoder.matches("password", hash));
+    }
+
+    @Test
+    public void upgradeEncoding_OtherCost_ReturnsTrue() {
+        assertTrue(passwordEncoder.upgradeEncoding(new BCryptPasswordEncoder(5).encode("pass")));
+        assertTrue(passwordEncoder.upgradeEncoding("$2a$10$GnqctCmdSX4cUc3ebFX7aOaFWOfdJxQ"));
+        assertFalse(passwordEncoder.upgradeEncoding(passwordEncoder.encode("pass")));
+        assertFalse(passwordEncoder.upgradeEncoding("1111"));
+        assertFalse(passwordEncoder.upgradeEncoding(null));
+    }
+}
@@ -0,0 +1,143 @@
+package com.example.bookstore.security;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.verifyNoInteractions;
+import static org.mockito.Mockito.when;
+
+import com.example.bookstore.model.Role;
+import com.example.bookstore.model.User;
+import com.example.bookstore.repository.UserRepository;
+import io.jsonwebtoken.JwtException;
+import io.jsonwebtoken.Jwts;
+import io.jsonwebtoken.security.Keys;
+import jakarta.servlet.FilterChain;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.Date;
+import java.util.Optional;
+import java.util.Set;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.mock.web.MockHttpServletResponse;
+import org.springframework.security.core.context.SecurityContextHolder;
+import org.springframework.security.core.userdetails.UserDetailsService;
+
+@ExtendWith(MockitoExtension.class)
+public class JwtAuthenticationFilterTest {
+    private static final String SECRET = "secretsecretsecretsecretsecretsecret";
+
+    @Mock
+    private UserRepository userRepository;
+
+    @Mock
+    private UserDetailsService userDetailsService;
+
+    @Mock
+    private FilterChain filterChain;
+
+    private JwtUtil jwtUtil;
+
+    private JwtAuthenticationFilter jwtAuthenticationFilter;
+
+    @BeforeEach
+    public void setUp() {
+        jwtUtil = new JwtUtil(SECRET, 60_000, 100, Duration.ofMinutes(5));
+        jwtAuthenticationFilter = new JwtAuthenticationFilter(
+                jwtUtil,
+                userDetailsService,
+                new UserVersionCache(userRepository, 100, Duration.ofSeconds(30)),
+                true);
+    }
+
+    @AfterEach
+    public void tearDown() {
+        SecurityContextHolder.clearContext();
+    }
+
+    @Test
+    public void doFilter_CurrentVersion_AuthenticatesFromClaims() throws Exception {
+        // Given
+        MockHttpServletRequest request = getRequest(jwtUtil.generateToken(getUser(3L)));
+        MockHttpServletResponse response = new MockHttpServletResponse();
+        when(userRepository.findVersionById(1L)).thenReturn(Optional.of(3L));
+
+        // When
+        jwtAuthenticationFilter.doFilter(request, response, filterChain);
+
+        // Then
+        AuthenticatedUser principal = (AuthenticatedUser) SecurityContextHolder.getContext()
+                .getAuthentication().getPrincipal();
+        assertEquals(1L, principal.getId());
+        assertEquals("user@gmail.com", principal.getUsername());
+        verify(filterChain).doFilter(request, response);
+        verifyNoInteractions(userDetailsService);
+    }
+
+    @Test
+    public void doFilter_VersionChangedSinceLogin_RejectsToken() {
+        // Given
+        MockHttpServletRequest request = getRequest(jwtUtil.generateToken(getUser(3L)));
+        when(userRepository.findVersionById(1L)).thenReturn(Optional.of(4L));
+
+        // When
+        // Then
+        assertThrows(JwtException.class, () -> jwtAuthenticationFilter
+                .doFilter(request, new MockHttpServletResponse(), filterChain));
+        verifyNoInteractions(filterChain);
+    }
+
+    @Test
+    public void doFilter_SoftDeletedUser_RejectsToken() {
+        // Given
+        MockHttpServletRequest request = getRequest(jwtUtil.generateToken(getUser(3L)));
+        when(userRepository.findVersionById(1L)).thenReturn(Optional.empty());
+
+        // When
+        // Then
+        assertThrows(JwtException.class, () -> jwtAuthenticationFilter
+                .doFilter(request, new MockHttpServletResponse(), filterChain));
+        verifyNoInteractions(filterChain);
+    }
+
+    @Test
+    public void doFilter_LegacyTokenWithoutVersion_RejectsToken() {
+        // Given
+        String token = Jwts.builder()
+                .setSubject("user@gmail.com")
+                .setIssuedAt(new Date())
+                .setExpiration(new Date(System.currentTimeMillis() + 60_000))
+                .signWith(Keys.hmacShaKeyFor(SECRET.getBytes(StandardCharsets.UTF_8)))
+                .compact();
+        MockHttpServletRequest request = getRequest(token);
+
+        // When
+        // Then
+        assertThrows(JwtException.class, () -> jwtAuthenticationFilter
+                .doFilter(request, new MockHttpServletResponse(), filterChain));
+        verifyNoInteractions(userRepository, userDetailsService, filterChain);
+    }
+
+    private static MockHttpServletRequest getRequest(String token) {
+        MockHttpServletRequest request = new MockHttpServletRequest();
+        request.addHeader("Authorization", "Bearer " + token);
+        return request;
+    }
+
+    private static User getUser(Long version) {
+        Role role = new Role();
+        role.setName(Role.RoleName.ROLE_USER);
+        User user = new User();
+        user.setId(1L);
+        user.setEmail("user@gmail.com");
+        user.setRoles(Set.of(role));
+        user.setVersion(version);
+        return user;
+    }
+}
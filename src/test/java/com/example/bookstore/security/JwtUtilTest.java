@@ -0,0 +1,108 @@
+package com.example.bookstore.security;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotSame;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+import com.example.bookstore.model.Role;
+import com.example.bookstore.model.User;
+import io.jsonwebtoken.JwtException;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.Set;
+import org.junit.jupiter.api.Test;
+
+public class JwtUtilTest {
+    private static final String SECRET = "secretsecretsecretsecretsecretsecret";
+
+    private final MutableClock clock = new MutableClock(Instant.parse("2024-01-01T00:00:00Z"));
+
+    @Test
+    public void parseToken_SameTokenTwice_ReturnsCachedClaims() {
+        // Given
+        JwtUtil jwtUtil = new JwtUtil(SECRET, 3_600_000, 100, Duration.ofMinutes(5), clock);
+        String token = jwtUtil.generateToken(getUser());
+
+        // When
+        JwtClaims first = jwtUtil.parseToken(token);
+        JwtClaims second = jwtUtil.parseToken(token);
+
+        // Then
+        assertSame(first, second);
+        assertEquals("user@gmail.com", second.getUsername());
+        assertEquals(1L, second.getUserId());
+        assertEquals(3L, second.getVersion());
+    }
+
+    @Test
+    public void parseToken_CacheTtlElapsed_VerifiesTokenAgain() {
+        // Given
+        JwtUtil jwtUtil = new JwtUtil(SECRET, 3_600_000, 100, Duration.ofMinutes(5), clock);
+        String token = jwtUtil.generateToken(getUser());
+        JwtClaims first = jwtUtil.parseToken(token);
+
+        // When
+        clock.advance(Duration.ofMinutes(6));
+        JwtClaims second = jwtUtil.parseToken(token);
+
+        // Then
+        assertNotSame(first, second);
+        assertEquals(first.getExpiration(), second.getExpiration());
+    }
+
+    @Test
+    public void parseToken_TokenExpiresBeforeCacheTtl_ThrowsJwtException() {
+        // Given
+        JwtUtil jwtUtil = new JwtUtil(SECRET, 60_000, 100, Duration.ofMinutes(5), clock);
+        String token = jwtUtil.generateToken(getUser());
+        jwtUtil.parseToken(token);
+
+        // When
+        clock.advance(Duration.ofSeconds(61));
+
+        // Then
+        assertThrows(JwtException.class, () -> jwtUtil.parseToken(token));
+    }
+
+    @Test
+    public void parseToken_TamperedCachedToken_ThrowsJwtException() {
+        // Given
+        JwtUtil jwtUtil = new JwtUtil(SECRET, 3_600_000, 100, Duration.ofMinutes(5), clock);
+        String token = jwtUtil.generateToken(getUser());
+        JwtClaims claims = jwtUtil.parseToken(token);
+        String[] parts = token.split("\\.");
+        String tampered = parts[0] + "." + parts[1] + "."
+                + (parts[2].charAt(0) == 'A' ? 'B' : 'A') + parts[2].substring(1);
+
+        // When
+        // Then
+        assertThrows(JwtException.class, () -> jwtUtil.parseToken(tampered));
+        assertSame(claims, jwtUtil.parseToken(token));
+    }
+
+    @Test
+    public void parseToken_TokenFromOtherSecret_ThrowsJwtException() {
+        // Given
+        JwtUtil otherJwtUtil = new JwtUtil("othersecretothersecretothersecret", 3_600_000,
+                100, Duration.ofMinutes(5), clock);
+        JwtUtil jwtUtil = new JwtUtil(SECRET, 3_600_000, 100, Duration.ofMinutes(5), clock);
+
+        // When
+        String token = otherJwtUtil.generateToken(getUser());
+
+        // Then
+        assertThrows(JwtException.class, () -> jwtUtil.parseToken(token));
+    }
+
+    private static User getUser() {
+        Role role = new Role();
+        role.setName(Role.RoleName.ROLE_USER);
+        User user = new User();
+        user.setId(1L);
+        user.setEmail("user@gmail.com");
+        user.setRoles(Set.of(role));
+        user.setVersion(3L);
+        return user;
+    }
+}
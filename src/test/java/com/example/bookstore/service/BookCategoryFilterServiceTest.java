@@ -0,0 +1,111 @@
+package com.example.bookstore.service;
+
+import static com.example.bookstore.service.BookFixtures.getBookDto;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.ArgumentMatchers.anyList;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import com.example.bookstore.dto.book.BookDto;
+import com.example.bookstore.dto.common.SliceResponseDto;
+import com.example.bookstore.exception.InvalidCategoryFilterException;
+import com.example.bookstore.service.book.BookService;
+import com.example.bookstore.service.category.CategoryDeletedEvent;
+import com.example.bookstore.service.search.BookCategoryFilterServiceImpl;
+import java.util.List;
+import java.util.Set;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.data.domain.PageRequest;
+
+@ExtendWith(MockitoExtension.class)
+public class BookCategoryFilterServiceTest {
+    private static final long FANTASY = 1L;
+    private static final long YOUNG_ADULT = 2L;
+    private static final long HORROR = 3L;
+
+    @Mock
+    private BookService bookService;
+
+    @InjectMocks
+    private BookCategoryFilterServiceImpl bookCategoryFilterService;
+
+    @BeforeEach
+    public void setUp() {
+        bookCategoryFilterService.index(getBookDto(1L, Set.of(FANTASY, YOUNG_ADULT)));
+        bookCategoryFilterService.index(getBookDto(2L, Set.of(FANTASY, YOUNG_ADULT, HORROR)));
+        bookCategoryFilterService.index(getBookDto(3L, Set.of(FANTASY)));
+        bookCategoryFilterService.index(getBookDto(4L, Set.of(HORROR)));
+        bookCategoryFilterService.index(getBookDto(5L, Set.of()));
+    }
+
+    @Test
+    public void findAllByCategoryFilter_AndNot_ReadsOnlyMatchingIds() {
+        // Given
+        List<BookDto> books = List.of(new BookDto());
+        when(bookService.findAllByIds(List.of(1L))).thenReturn(books);
+
+        // When
+        SliceResponseDto<BookDto> result = bookCategoryFilterService
+                .findAllByCategoryFilter("1 and 2 NOT 3", PageRequest.of(0, 10));
+
+        // Then
+        assertEquals(books, result.getContent());
+        assertFalse(result.isHasNext());
+    }
+
+    @Test
+    public void findAllByCategoryFilter_OrAndParentheses_ReturnsExpectedIds() {
+        // When
+        bookCategoryFilterService.findAllByCategoryFilter("NOT (1 OR 3) OR 3 AND NOT 2",
+                PageRequest.of(0, 10));
+
+        // Then
+        verify(bookService).findAllByIds(List.of(4L, 5L));
+    }
+
+    @Test
+    public void findAllByCategoryFilter_SecondPage_ReturnsSliceOfIds() {
+        // When
+        SliceResponseDto<BookDto> result = bookCategoryFilterService
+                .findAllByCategoryFilter("1", PageRequest.of(1, 2));
+
+        // Then
+        verify(bookService).findAllByIds(List.of(3L));
+        assertFalse(result.isHasNext());
+    }
+
+    @Test
+    public void findAllByCategoryFilter_UpdatedRemovedAndDeleted_FollowsChanges() {
+        // Given
+        bookCategoryFilterService.index(getBookDto(3L, Set.of(HORROR)));
+        bookCategoryFilterService.remove(2L);
+        bookCategoryFilterService.onCategoryDeleted(new CategoryDeletedEvent(YOUNG_ADULT));
+
+        // When
+        bookCategoryFilterService.findAllByCategoryFilter("3", PageRequest.of(0, 1));
+        SliceResponseDto<BookDto> youngAdult = bookCategoryFilterService
+                .findAllByCategoryFilter("2", PageRequest.of(0, 10));
+
+        // Then
+        verify(bookService).findAllByIds(List.of(3L));
+        assertTrue(youngAdult.getContent().isEmpty());
+    }
+
+    @Test
+    public void findAllByCategoryFilter_InvalidExpression_ThrowsException() {
+        for (String filter : List.of("", "1 AND", "(1 OR 2", "1 2", "fantasy", "1 OR )")) {
+            assertThrows(InvalidCategoryFilterException.class, () -> bookCategoryFilterService
+                    .findAllByCategoryFilter(filter, PageRequest.of(0, 10)), filter);
+        }
+        verify(bookService, never()).findAllByIds(anyList());
+    }
+}
@@ -0,0 +1,90 @@
+package com.example.bookstore.service;
+
+import static com.example.bookstore.service.BookFixtures.getBook;
+import static com.example.bookstore.service.BookFixtures.getBookDto;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyInt;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import com.example.bookstore.dto.book.BookDto;
+import com.example.bookstore.mapper.BookMapper;
+import com.example.bookstore.model.Book;
+import com.example.bookstore.service.book.BookExportServiceImpl;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import jakarta.persistence.EntityManager;
+import java.io.ByteArrayOutputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.Set;
+import org.hibernate.CacheMode;
+import org.hibernate.ScrollMode;
+import org.hibernate.ScrollableResults;
+import org.hibernate.Session;
+import org.hibernate.query.Query;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.transaction.PlatformTransactionManager;
+
+@ExtendWith(MockitoExtension.class)
+public class BookExportServiceTest {
+    @Mock
+    private EntityManager entityManager;
+
+    @Mock
+    private PlatformTransactionManager transactionManager;
+
+    @Mock
+    private BookMapper bookMapper;
+
+    @Mock
+    private Session session;
+
+    @Mock
+    private Query<Object[]> query;
+
+    @Mock
+    private ScrollableResults<Object[]> rows;
+
+    @Test
+    public void exportBooks_WritesOneLinePerBookAndClearsSession() throws Exception {
+        // Given
+        Book first = getBook(1L);
+        Book second = getBook(2L);
+        when(entityManager.unwrap(Session.class)).thenReturn(session);
+        when(session.createQuery(anyString(), eq(Object[].class))).thenReturn(query);
+        when(query.setFetchSize(anyInt())).thenReturn(query);
+        when(query.setReadOnly(true)).thenReturn(query);
+        when(query.setCacheMode(CacheMode.IGNORE)).thenReturn(query);
+        when(query.scroll(ScrollMode.FORWARD_ONLY)).thenReturn(rows);
+        when(rows.next()).thenReturn(true, true, true, false);
+        when(rows.get()).thenReturn(
+                new Object[] {first, 1L}, new Object[] {first, 2L}, new Object[] {second, null});
+        when(bookMapper.toDtoWithoutCategoryIds(any(Book.class)))
+                .thenAnswer(invocation -> getBookDto(invocation.<Book>getArgument(0).getId()));
+        BookExportServiceImpl exportService = new BookExportServiceImpl(
+                entityManager, transactionManager, bookMapper, new ObjectMapper(), 100, 1);
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+
+        // When
+        exportService.exportBooks(out);
+
+        // Then
+        String[] lines = out.toString(StandardCharsets.UTF_8).split("\n");
+        assertEquals(2, lines.length);
+        ObjectMapper objectMapper = new ObjectMapper();
+        BookDto firstDto = objectMapper.readValue(lines[0], BookDto.class);
+        BookDto secondDto = objectMapper.readValue(lines[1], BookDto.class);
+        assertEquals(1L, firstDto.getId());
+        assertEquals(Set.of(1L, 2L), firstDto.getCategoryIds());
+        assertEquals(2L, secondDto.getId());
+        assertEquals(Set.of(), secondDto.getCategoryIds());
+        verify(session, times(1)).clear();
+        verify(rows).close();
+    }
+}
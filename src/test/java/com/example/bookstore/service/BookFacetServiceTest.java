@@ -0,0 +1,166 @@
+package com.example.bookstore.service;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+import com.example.bookstore.dto.book.BookDto;
+import com.example.bookstore.dto.book.BookFacetsResponseDto;
+import com.example.bookstore.dto.book.FacetCountDto;
+import com.example.bookstore.exception.InvalidCategoryFilterException;
+import com.example.bookstore.service.category.CategoryDeletedEvent;
+import com.example.bookstore.service.search.BookFacetServiceImpl;
+import java.math.BigDecimal;
+import java.util.List;
+import java.util.Random;
+import java.util.Set;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+public class BookFacetServiceTest {
+    private static final long FANTASY = 1L;
+    private static final long HORROR = 2L;
+
+    private BookFacetServiceImpl bookFacetService;
+
+    @BeforeEach
+    public void setUp() {
+        bookFacetService = new BookFacetServiceImpl();
+        bookFacetService.index(getBook(1L, "Tolkien", "9.99", Set.of(FANTASY)));
+        bookFacetService.index(getBook(2L, "Tolkien", "24.50", Set.of(FANTASY)));
+        bookFacetService.index(getBook(3L, "King", "15.00", Set.of(HORROR)));
+        bookFacetService.index(getBook(4L, "King", "120.00", Set.of(FANTASY, HORROR)));
+        bookFacetService.index(getBook(5L, "Pratchett", "10.00", Set.of(FANTASY)));
+    }
+
+    @Test
+    public void getFacets_NoFilters_CountsAllBooks() {
+        // When
+        BookFacetsResponseDto facets = bookFacetService.getFacets(null, null, null, null);
+
+        // Then
+        assertEquals(5, facets.getTotal());
+        assertEquals(List.of(FacetCountDto.of("1", 4), FacetCountDto.of("2", 2)),
+                facets.getCategories());
+        assertEquals(List.of(FacetCountDto.of("King", 2), FacetCountDto.of("Tolkien", 2),
+                FacetCountDto.of("Pratchett", 1)), facets.getAuthors());
+        assertEquals(List.of(FacetCountDto.of("0-10", 1), FacetCountDto.of("10-25", 3),
+                FacetCountDto.of("25-50", 0), FacetCountDto.of("50-100", 0),
+                FacetCountDto.of("100+", 1)), facets.getPrices());
+    }
+
+    @Test
+    public void getFacets_AllFilters_CountsOnlyMatchingBooks() {
+        // When
+        BookFacetsResponseDto facets = bookFacetService.getFacets("1 OR 2", "King",
+                new BigDecimal("10"), new BigDecimal("100"));
+
+        // Then
+        assertEquals(1, facets.getTotal());
+        assertEquals(List.of(FacetCountDto.of("2", 1)), facets.getCategories());
+        assertEquals(List.of(FacetCountDto.of("King", 1)), facets.getAuthors());
+        assertEquals(1, facets.getPrices().get(1).getCount());
+    }
+
+    @Test
+    public void getFacets_UnknownAuthor_CountsNothing() {
+        // When
+        BookFacetsResponseDto facets = bookFacetService.getFacets(null, "Nobody", null, null);
+
+        // Then
+        assertEquals(0, facets.getTotal());
+        assertEquals(List.of(), facets.getCategories());
+        assertEquals(List.of(), facets.getAuthors());
+    }
+
+    @Test
+    public void getFacets_AfterUpdateAndRemove_ReflectsChanges() {
+        // Given
+        bookFacetService.index(getBook(4L, "Pratchett", "20.00", Set.of(FANTASY)));
+        bookFacetService.remove(3L);
+        bookFacetService.onCategoryDeleted(new CategoryDeletedEvent(HORROR));
+        bookFacetService.index(getBook(6L, "King", "30.00", Set.of(HORROR)));
+
+        // When
+        BookFacetsResponseDto facets = bookFacetService.getFacets(null, null, null, null);
+
+        // Then
+        assertEquals(5, facets.getTotal());
+        assertEquals(List.of(FacetCountDto.of("1", 4), FacetCountDto.of("2", 1)),
+                facets.getCategories());
+        assertEquals(List.of(FacetCountDto.of("Pratchett", 2), FacetCountDto.of("Tolkien", 2),
+                FacetCountDto.of("King", 1)), facets.getAuthors());
+    }
+
+    @Test
+    public void updatePrice_IndexedAndUnknownBooks_MovesOnlyIndexedBookToNewBucket() {
+        // Given
+        bookFacetService.updatePrice(1L, new BigDecimal("60.00"));
+        bookFacetService.updatePrice(99L, new BigDecimal("5.00"));
+
+        // When
+        BookFacetsResponseDto facets = bookFacetService.getFacets(null, null, null, null);
+
+        // Then
+        assertEquals(5, facets.getTotal());
+        assertEquals(List.of(FacetCountDto.of("0-10", 0), FacetCountDto.of("10-25", 3),
+                FacetCountDto.of("25-50", 0), FacetCountDto.of("50-100", 1),
+                FacetCountDto.of("100+", 1)), facets.getPrices());
+    }
+
+    @Test
+    public void getFacets_InvalidCategoryFilter_ThrowsException() {
+        assertThrows(InvalidCategoryFilterException.class,
+                () -> bookFacetService.getFacets("1 AND", null, null, null));
+    }
+
+    @Test
+    public void getFacets_LargeCatalog_MatchesBruteForceCounts() {
+        // Given
+        Random random = new Random(42);
+        int bookCount = 150_000;
+        int[] prices = new int[bookCount];
+        int[] authors = new int[bookCount];
+        boolean[] horror = new boolean[bookCount];
+        bookFacetService = new BookFacetServiceImpl();
+        for (int i = 0; i < bookCount; i++) {
+            prices[i] = random.nextInt(150_00);
+            authors[i] = random.nextInt(10);
+            horror[i] = random.nextBoolean();
+            bookFacetService.index(getBook(i + 1L, "Author " + authors[i],
+                    BigDecimal.valueOf(prices[i], 2).toPlainString(),
+                    horror[i] ? Set.of(FANTASY, HORROR) : Set.of(FANTASY)));
+        }
+        long expectedHorror = 0;
+        long expectedAuthor = 0;
+        long expectedCheap = 0;
+        for (int i = 0; i < bookCount; i++) {
+            if (prices[i] <= 50_00) {
+                expectedHorror += horror[i] ? 1 : 0;
+                expectedAuthor += authors[i] == 3 ? 1 : 0;
+                expectedCheap += prices[i] < 10_00 ? 1 : 0;
+            }
+        }
+
+        // When
+        BookFacetsResponseDto facets = bookFacetService.getFacets("1", null, null,
+                new BigDecimal("50.00"));
+
+        // Then
+        assertEquals(expectedHorror, facets.getCategories().stream()
+                .filter(facetCount -> facetCount.getValue().equals("2"))
+                .findFirst().orElseThrow().getCount());
+        assertEquals(expectedAuthor, facets.getAuthors().stream()
+                .filter(facetCount -> facetCount.getValue().equals("Author 3"))
+                .findFirst().orElseThrow().getCount());
+        assertEquals(expectedCheap, facets.getPrices().get(0).getCount());
+    }
+
+    private BookDto getBook(Long id, String author, String price, Set<Long> categoryIds) {
+        BookDto book = new BookDto();
+        book.setId(id);
+        book.setAuthor(author);
+        book.setPrice(new BigDecimal(price));
+        book.setCategoryIds(categoryIds);
+        return book;
+    }
+}
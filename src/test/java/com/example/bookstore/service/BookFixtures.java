@@ -0,0 +1,50 @@
+package com.example.bookstore.service;
+
+import com.example.bookstore.dto.book.BookDto;
+import com.example.bookstore.model.Book;
+import java.util.Set;
+
+/**
+ * Books and book DTOs with only the fields a test looks at.
+ */
+public final class BookFixtures {
+    private BookFixtures() {
+    }
+
+    public static Book getBook(Long id) {
+        Book book = new Book();
+        book.setId(id);
+        return book;
+    }
+
+    public static Book getBook(Long id, String title) {
+        Book book = getBook(id);
+        book.setTitle(title);
+        return book;
+    }
+
+    public static BookDto getBookDto(Long id) {
+        BookDto bookDto = new BookDto();
+        bookDto.setId(id);
+        return bookDto;
+    }
+
+    public static BookDto getBookDto(Long id, String title, String author) {
+        BookDto bookDto = getBookDto(id);
+        bookDto.setTitle(title);
+        bookDto.setAuthor(author);
+        return bookDto;
+    }
+
+    public static BookDto getBookDto(Long id, String title, String author, String description) {
+        BookDto bookDto = getBookDto(id, title, author);
+        bookDto.setDescription(description);
+        return bookDto;
+    }
+
+    public static BookDto getBookDto(Long id, Set<Long> categoryIds) {
+        BookDto bookDto = getBookDto(id);
+        bookDto.setCategoryIds(categoryIds);
+        return bookDto;
+    }
+}
@@ -0,0 +1,247 @@
+package com.example.bookstore.service;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyMap;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.lenient;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import com.example.bookstore.dto.book.BookImportErrorDto;
+import com.example.bookstore.dto.book.BookImportResponseDto;
+import com.example.bookstore.exception.BookImportException;
+import com.example.bookstore.repository.BookRepository;
+import com.example.bookstore.service.book.BookChangedEvent;
+import com.example.bookstore.service.book.BookImportFormat;
+import com.example.bookstore.service.book.BookImportServiceImpl;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import jakarta.persistence.EntityManagerFactory;
+import jakarta.validation.Validation;
+import java.io.ByteArrayInputStream;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import org.hibernate.Cache;
+import org.hibernate.SessionFactory;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.ArgumentCaptor;
+import org.mockito.ArgumentMatchers;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.dao.DuplicateKeyException;
+import org.springframework.jdbc.core.ConnectionCallback;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.namedparam.NamedParameterJdbcTemplate;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+@ExtendWith(MockitoExtension.class)
+public class BookImportServiceTest {
+    private static final String CSV_HEADER =
+            "title,author,isbn,price,description,coverImage,categoryIds\n";
+
+    @Mock
+    private JdbcTemplate jdbcTemplate;
+
+    @Mock
+    private NamedParameterJdbcTemplate namedParameterJdbcTemplate;
+
+    @Mock
+    private PlatformTransactionManager transactionManager;
+
+    @Mock
+    private EntityManagerFactory entityManagerFactory;
+
+    @Mock
+    private SessionFactory sessionFactory;
+
+    @Mock
+    private Cache secondLevelCache;
+
+    @Mock
+    private ApplicationEventPublisher eventPublisher;
+
+    @Mock
+    private Connection connection;
+
+    @Mock
+    private PreparedStatement preparedStatement;
+
+    @Mock
+    private ResultSet generatedKeys;
+
+    private final AtomicInteger addedRows = new AtomicInteger();
+
+    private BookImportServiceImpl bookImportService;
+
+    @BeforeEach
+    public void setUp() {
+        when(entityManagerFactory.unwrap(SessionFactory.class)).thenReturn(sessionFactory);
+        when(sessionFactory.getCache()).thenReturn(secondLevelCache);
+        bookImportService = new BookImportServiceImpl(
+                jdbcTemplate,
+                namedParameterJdbcTemplate,
+                new TransactionTemplate(transactionManager),
+                Validation.buildDefaultValidatorFactory().getValidator(),
+                new ObjectMapper(),
+                entityManagerFactory,
+                eventPublisher,
+                2,
+                10);
+        when(jdbcTemplate.queryForList(anyString(), eq(Long.class))).thenReturn(List.of(1L));
+    }
+
+    @Test
+    public void importBooks_ValidCsv_InsertsInBatches() throws SQLException {
+        // Given
+        givenGeneratedKeys();
+        when(namedParameterJdbcTemplate.queryForList(anyString(), anyMap(), eq(String.class)))
+                .thenReturn(List.of());
+        String csv = CSV_HEADER
+                + "book1,author1,9780000000019,10.50,,,\n"
+                + "\"book, two\",author2,9780000000026,20,\"a \"\"quoted\"\" text\",,\n"
+                + "book3,author3,9780000000033,30,,,\n";
+
+        // When
+        BookImportResponseDto response =
+                bookImportService.importBooks(toStream(csv), BookImportFormat.CSV);
+
+        // Then
+        assertEquals(3, response.getTotalRows());
+        assertEquals(3, response.getImportedRows());
+        assertEquals(0, response.getFailedRows());
+        verify(preparedStatement, times(2)).executeBatch();
+        verify(preparedStatement, times(3)).addBatch();
+        verify(secondLevelCache, times(2)).evictQueryRegion(BookRepository.QUERY_CACHE_REGION);
+        ArgumentCaptor<BookChangedEvent> events = ArgumentCaptor.forClass(BookChangedEvent.class);
+        verify(eventPublisher, times(3)).publishEvent(events.capture());
+        assertEquals(List.of(1L, 2L, 3L), events.getAllValues().stream()
+                .map(event -> event.getBook().getId())
+                .toList());
+    }
+
+    @Test
+    public void importBooks_InvalidRows_ReportsErrorsPerLine() {
+        // Given
+        when(namedParameterJdbcTemplate.queryForList(anyString(), anyMap(), eq(String.class)))
+                .thenReturn(List.of("9780000000040"));
+        String ndjson = "{\"title\":\"t\",\"author\":\"a\",\"isbn\":\"12\",\"price\":1}\n"
+                + "not json\n"
+                + "{\"title\":\"t\",\"author\":\"a\",\"isbn\":\"9780000000033\",\"price\":1,"
+                + "\"categoryIds\":[7]}\n"
+                + "{\"title\":\"t\",\"author\":\"a\",\"isbn\":\"9780000000040\",\"price\":1}\n";
+
+        // When
+        BookImportResponseDto response =
+                bookImportService.importBooks(toStream(ndjson), BookImportFormat.NDJSON);
+
+        // Then
+        assertEquals(4, response.getTotalRows());
+        assertEquals(0, response.getImportedRows());
+        assertEquals(4, response.getFailedRows());
+        List<Long> lines = response.getErrors().stream()
+                .map(BookImportErrorDto::getLine)
+                .toList();
+        assertEquals(List.of(1L, 2L, 3L, 4L), lines);
+        assertEquals(List.of("category not found: 7"), response.getErrors().get(2).getMessages());
+        assertEquals(List.of("book with this isbn already exists"),
+                response.getErrors().get(3).getMessages());
+        verify(jdbcTemplate, never()).execute(ArgumentMatchers.<ConnectionCallback<Object>>any());
+    }
+
+    @Test
+    public void importBooks_DuplicateIsbnInFile_RejectsSecondRow() throws SQLException {
+        // Given
+        givenGeneratedKeys();
+        when(namedParameterJdbcTemplate.queryForList(anyString(), anyMap(), eq(String.class)))
+                .thenReturn(List.of());
+        String csv = CSV_HEADER
+                + "book1,author1,9780000000019,10,,,\n"
+                + "book2,author2,9780000000019,20,,,\n";
+
+        // When
+        BookImportResponseDto response =
+                bookImportService.importBooks(toStream(csv), BookImportFormat.CSV);
+
+        // Then
+        assertEquals(1, response.getImportedRows());
+        assertEquals(1, response.getFailedRows());
+        assertEquals(3L, response.getErrors().get(0).getLine());
+    }
+
+    @Test
+    public void importBooks_BatchRejectedByDatabase_InsertsRowByRowAndReportsFailedRow()
+            throws SQLException {
+        // Given
+        givenGeneratedKeys();
+        when(namedParameterJdbcTemplate.queryForList(anyString(), anyMap(), eq(String.class)))
+                .thenReturn(List.of());
+        when(preparedStatement.executeBatch())
+                .thenThrow(new DuplicateKeyException("Duplicate entry '9780000000026'"))
+                .thenReturn(new int[] {1})
+                .thenThrow(new DuplicateKeyException("Duplicate entry '9780000000026'"));
+        String csv = CSV_HEADER
+                + "book1,author1,9780000000019,10,,,\n"
+                + "book2,author2,9780000000026,20,,,\n";
+
+        // When
+        BookImportResponseDto response =
+                bookImportService.importBooks(toStream(csv), BookImportFormat.CSV);
+
+        // Then
+        assertEquals(1, response.getImportedRows());
+        assertEquals(1, response.getFailedRows());
+        assertEquals(3L, response.getErrors().get(0).getLine());
+        assertEquals(List.of("cannot insert row: Duplicate entry '9780000000026'"),
+                response.getErrors().get(0).getMessages());
+        verify(preparedStatement, times(3)).executeBatch();
+        verify(eventPublisher, times(1)).publishEvent(any(BookChangedEvent.class));
+    }
+
+    @Test
+    public void importBooks_CsvWithoutRequiredColumns_ThrowsException() {
+        Assertions.assertThrows(BookImportException.class, () -> bookImportService
+                .importBooks(toStream("title,isbn\nbook,9780000000019\n"), BookImportFormat.CSV));
+    }
+
+    /**
+     * Runs the insert callbacks on a connection whose statements generate one id per
+     * added row, counting on from 1.
+     */
+    private void givenGeneratedKeys() throws SQLException {
+        AtomicLong ids = new AtomicLong();
+        when(jdbcTemplate.execute(ArgumentMatchers.<ConnectionCallback<Object>>any()))
+                .thenAnswer(invocation -> invocation.<ConnectionCallback<Object>>getArgument(0)
+                        .doInConnection(connection));
+        when(connection.prepareStatement(anyString(), eq(Statement.RETURN_GENERATED_KEYS)))
+                .thenAnswer(invocation -> {
+                    addedRows.set(0);
+                    return preparedStatement;
+                });
+        lenient().doAnswer(invocation -> addedRows.incrementAndGet())
+                .when(preparedStatement).addBatch();
+        lenient().when(preparedStatement.getGeneratedKeys()).thenReturn(generatedKeys);
+        lenient().when(generatedKeys.next())
+                .thenAnswer(invocation -> addedRows.getAndDecrement() > 0);
+        lenient().when(generatedKeys.getLong(1)).thenAnswer(invocation -> ids.incrementAndGet());
+    }
+
+    private static InputStream toStream(String content) {
+        return new ByteArrayInputStream(content.getBytes(StandardCharsets.UTF_8));
+    }
+}
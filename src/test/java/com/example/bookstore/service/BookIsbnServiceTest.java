@@ -0,0 +1,127 @@
+package com.example.bookstore.service;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.Mockito.lenient;
+
+import com.example.bookstore.dto.book.BookDto;
+import com.example.bookstore.exception.EntityNotFoundException;
+import com.example.bookstore.service.book.BookService;
+import com.example.bookstore.service.search.BookIsbnServiceImpl;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Random;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+
+@ExtendWith(MockitoExtension.class)
+public class BookIsbnServiceTest {
+    @Mock
+    private BookService bookService;
+
+    @InjectMocks
+    private BookIsbnServiceImpl bookIsbnService;
+
+    @BeforeEach
+    public void setUp() {
+        lenient().when(bookService.findById(anyLong())).thenAnswer(invocation -> {
+            BookDto book = new BookDto();
+            book.setId(invocation.getArgument(0));
+            return book;
+        });
+    }
+
+    @Test
+    public void findByIsbn_Isbn13WithHyphens_ReturnsBook() {
+        // Given
+        bookIsbnService.index(getBook(1L, "9780306406157"));
+
+        // When
+        BookDto actual = bookIsbnService.findByIsbn("978-0-306-40615-7");
+
+        // Then
+        assertEquals(1L, actual.getId());
+    }
+
+    @Test
+    public void findByIsbn_Isbn10OfSameEdition_ReturnsBook() {
+        // Given
+        bookIsbnService.index(getBook(1L, "9780306406157"));
+        bookIsbnService.index(getBook(2L, "080442957X"));
+
+        // When
+        BookDto first = bookIsbnService.findByIsbn("0306406152");
+        BookDto second = bookIsbnService.findByIsbn("9780804429573");
+
+        // Then
+        assertEquals(1L, first.getId());
+        assertEquals(2L, second.getId());
+    }
+
+    @Test
+    public void findByIsbn_AfterIsbnChangeAndRemove_ThrowsException() {
+        // Given
+        bookIsbnService.index(getBook(1L, "9780306406157"));
+        bookIsbnService.index(getBook(1L, "9780804429573"));
+        bookIsbnService.index(getBook(2L, "9781234567897"));
+        bookIsbnService.remove(2L);
+
+        // When
+        BookDto actual = bookIsbnService.findByIsbn("9780804429573");
+
+        // Then
+        assertEquals(1L, actual.getId());
+        assertThrows(EntityNotFoundException.class,
+                () -> bookIsbnService.findByIsbn("9780306406157"));
+        assertThrows(EntityNotFoundException.class,
+                () -> bookIsbnService.findByIsbn("9781234567897"));
+        assertThrows(EntityNotFoundException.class,
+                () -> bookIsbnService.findByIsbn("not-an-isbn"));
+    }
+
+    @Test
+    public void findByIsbn_RandomChanges_MatchesHashMap() {
+        // Given
+        Random random = new Random(42);
+        Map<Long, Long> isbnsById = new HashMap<>();
+        Map<Long, Long> idsByIsbn = new HashMap<>();
+        for (int i = 0; i < 300_000; i++) {
+            long id = random.nextInt(100_000) + 1;
+            Long previousIsbn = isbnsById.remove(id);
+            if (previousIsbn != null && Long.valueOf(id).equals(idsByIsbn.get(previousIsbn))) {
+                idsByIsbn.remove(previousIsbn);
+            }
+            if (random.nextInt(4) == 0) {
+                bookIsbnService.remove(id);
+            } else {
+                long isbn = 9_780_000_000_000L + random.nextInt(200_000);
+                bookIsbnService.index(getBook(id, String.valueOf(isbn)));
+                isbnsById.put(id, isbn);
+                idsByIsbn.put(isbn, id);
+            }
+        }
+
+        // Then
+        idsByIsbn.forEach((isbn, id) ->
+                assertEquals(id, bookIsbnService.findByIsbn(String.valueOf(isbn)).getId()));
+        for (long isbn = 9_780_000_000_000L; isbn < 9_780_000_200_000L; isbn += 97) {
+            String value = String.valueOf(isbn);
+            if (!idsByIsbn.containsKey(isbn)) {
+                assertThrows(EntityNotFoundException.class,
+                        () -> bookIsbnService.findByIsbn(value));
+            }
+        }
+    }
+
+    private BookDto getBook(Long id, String isbn) {
+        BookDto book = new BookDto();
+        book.setId(id);
+        book.setIsbn(isbn);
+        return book;
+    }
+}
@@ -0,0 +1,361 @@
+package com.example.bookstore.service;
+
+import static com.example.bookstore.service.BookFixtures.getBookDto;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyInt;
+import static org.mockito.ArgumentMatchers.anyMap;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.doAnswer;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.verifyNoInteractions;
+import static org.mockito.Mockito.when;
+
+import com.example.bookstore.config.CacheConfig;
+import com.example.bookstore.dto.book.BookDto;
+import com.example.bookstore.dto.book.BookPricePatchDto;
+import com.example.bookstore.dto.book.BookPricesPatchResponseDto;
+import com.example.bookstore.dto.book.PatchBookRequestDto;
+import com.example.bookstore.dto.book.RepriceBooksRequestDto;
+import com.example.bookstore.dto.book.RepriceBooksResponseDto;
+import com.example.bookstore.exception.BookRepriceInterruptedException;
+import com.example.bookstore.exception.DuplicateIsbnException;
+import com.example.bookstore.exception.EntityNotFoundException;
+import com.example.bookstore.mapper.BookMapper;
+import com.example.bookstore.model.Book;
+import com.example.bookstore.repository.BookRepository;
+import com.example.bookstore.service.book.BookChangedEvent;
+import com.example.bookstore.service.book.BookPatchServiceImpl;
+import com.example.bookstore.service.book.BookPriceChangedEvent;
+import com.example.bookstore.service.book.BookRepriceType;
+import jakarta.persistence.EntityManagerFactory;
+import java.math.BigDecimal;
+import java.sql.ResultSet;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+import org.hibernate.Cache;
+import org.hibernate.SessionFactory;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.ArgumentCaptor;
+import org.mockito.ArgumentMatchers;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.cache.CacheManager;
+import org.springframework.cache.concurrent.ConcurrentMapCacheManager;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.dao.DuplicateKeyException;
+import org.springframework.dao.QueryTimeoutException;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.ParameterizedPreparedStatementSetter;
+import org.springframework.jdbc.core.RowCallbackHandler;
+import org.springframework.jdbc.core.namedparam.MapSqlParameterSource;
+import org.springframework.jdbc.core.namedparam.NamedParameterJdbcTemplate;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+@ExtendWith(MockitoExtension.class)
+public class BookPatchServiceTest {
+    @Mock
+    private JdbcTemplate jdbcTemplate;
+
+    @Mock
+    private NamedParameterJdbcTemplate namedParameterJdbcTemplate;
+
+    @Mock
+    private PlatformTransactionManager transactionManager;
+
+    @Mock
+    private BookRepository bookRepository;
+
+    @Mock
+    private BookMapper bookMapper;
+
+    @Mock
+    private EntityManagerFactory entityManagerFactory;
+
+    @Mock
+    private SessionFactory sessionFactory;
+
+    @Mock
+    private Cache secondLevelCache;
+
+    @Mock
+    private ApplicationEventPublisher eventPublisher;
+
+    private CacheManager cacheManager;
+
+    private BookPatchServiceImpl bookPatchService;
+
+    @BeforeEach
+    public void setUp() {
+        when(entityManagerFactory.unwrap(SessionFactory.class)).thenReturn(sessionFactory);
+        when(sessionFactory.getCache()).thenReturn(secondLevelCache);
+        cacheManager = new ConcurrentMapCacheManager(CacheConfig.BOOKS_CACHE);
+        bookPatchService = new BookPatchServiceImpl(
+                jdbcTemplate,
+                namedParameterJdbcTemplate,
+                new TransactionTemplate(transactionManager),
+                bookRepository,
+                bookMapper,
+                cacheManager,
+                entityManagerFactory,
+                eventPublisher,
+                2);
+    }
+
+    @Test
+    public void patchById_SomeFields_UpdatesOnlyThoseColumns() {
+        // Given
+        PatchBookRequestDto requestDto = new PatchBookRequestDto();
+        requestDto.setTitle("New title");
+        requestDto.setPrice(BigDecimal.TEN);
+        BookDto book = getBookDto(1L);
+        cacheManager.getCache(CacheConfig.BOOKS_CACHE).put(1L, book);
+        when(namedParameterJdbcTemplate.update(anyString(), any(MapSqlParameterSource.class)))
+                .thenReturn(1);
+        givenBooksInDatabase(book);
+
+        // When
+        BookDto result = bookPatchService.patchById(1L, requestDto);
+
+        // Then
+        assertSame(book, result);
+        ArgumentCaptor<String> sql = ArgumentCaptor.forClass(String.class);
+        ArgumentCaptor<MapSqlParameterSource> parameters =
+                ArgumentCaptor.forClass(MapSqlParameterSource.class);
+        verify(namedParameterJdbcTemplate).update(sql.capture(), parameters.capture());
+        assertEquals("UPDATE books SET title = :title, price = :price "
+                + "WHERE id = :id AND is_deleted = false", sql.getValue());
+        assertEquals("New title", parameters.getValue().getValue("title"));
+        assertEquals(BigDecimal.TEN, parameters.getValue().getValue("price"));
+        verify(secondLevelCache).evictEntityData(Book.class, 1L);
+        verify(secondLevelCache).evictQueryRegion(BookRepository.QUERY_CACHE_REGION);
+        assertNull(cacheManager.getCache(CacheConfig.BOOKS_CACHE).get(1L));
+        verify(eventPublisher).publishEvent(any(BookChangedEvent.class));
+        verify(transactionManager, never()).getTransaction(any());
+    }
+
+    @Test
+    public void patchById_MissingBook_ThrowsException() {
+        // Given
+        PatchBookRequestDto requestDto = new PatchBookRequestDto();
+        requestDto.setAuthor("Author");
+        when(namedParameterJdbcTemplate.update(anyString(), any(MapSqlParameterSource.class)))
+                .thenReturn(0);
+
+        // When
+        // Then
+        assertThrows(EntityNotFoundException.class,
+                () -> bookPatchService.patchById(1L, requestDto));
+        verify(bookRepository, never()).findAllFromDatabaseByIdIn(any());
+        verify(eventPublisher, never()).publishEvent(any());
+    }
+
+    @Test
+    public void patchById_DuplicateIsbn_ThrowsException() {
+        // Given
+        PatchBookRequestDto requestDto = new PatchBookRequestDto();
+        requestDto.setIsbn("9780306406157");
+        when(namedParameterJdbcTemplate.update(anyString(), any(MapSqlParameterSource.class)))
+                .thenThrow(new DuplicateKeyException("Duplicate entry"));
+
+        // When
+        // Then
+        assertThrows(DuplicateIsbnException.class,
+                () -> bookPatchService.patchById(1L, requestDto));
+        verify(eventPublisher, never()).publishEvent(any());
+    }
+
+    @Test
+    public void patchById_NoFields_ReturnsBookWithoutUpdate() {
+        // Given
+        BookDto book = getBookDto(1L);
+        givenBooksInDatabase(book);
+
+        // When
+        BookDto result = bookPatchService.patchById(1L, new PatchBookRequestDto());
+
+        // Then
+        assertSame(book, result);
+        verify(namedParameterJdbcTemplate, never())
+                .update(anyString(), any(MapSqlParameterSource.class));
+        verify(eventPublisher, never()).publishEvent(any());
+    }
+
+    @Test
+    public void patchPrices_SomeMissingIds_UpdatesInBatchesAndReportsMissing() {
+        // Given
+        List<BookPricePatchDto> prices = List.of(
+                BookPricePatchDto.of(1L, BigDecimal.ONE),
+                BookPricePatchDto.of(2L, BigDecimal.TEN),
+                BookPricePatchDto.of(3L, BigDecimal.ONE));
+        when(jdbcTemplate.batchUpdate(anyString(),
+                ArgumentMatchers.<Collection<BookPricePatchDto>>any(), anyInt(),
+                ArgumentMatchers.<ParameterizedPreparedStatementSetter<BookPricePatchDto>>any()))
+                .thenReturn(new int[][] {{1, 0}, {1}});
+
+        // When
+        BookPricesPatchResponseDto response = bookPatchService.patchPrices(prices);
+
+        // Then
+        assertEquals(2, response.getUpdatedRows());
+        assertEquals(List.of(2L), response.getMissingIds());
+        verify(jdbcTemplate).batchUpdate(anyString(), eq(prices), eq(2), any());
+        verify(secondLevelCache).evictEntityData(Book.class, 1L);
+        verify(secondLevelCache).evictEntityData(Book.class, 3L);
+        verify(secondLevelCache, never()).evictEntityData(Book.class, 2L);
+        verify(secondLevelCache).evictQueryRegion(BookRepository.QUERY_CACHE_REGION);
+        ArgumentCaptor<BookPriceChangedEvent> event =
+                ArgumentCaptor.forClass(BookPriceChangedEvent.class);
+        verify(eventPublisher).publishEvent(event.capture());
+        assertEquals(Map.of(1L, BigDecimal.ONE, 3L, BigDecimal.ONE), event.getValue().getPrices());
+        verifyNoInteractions(bookRepository);
+    }
+
+    @Test
+    public void repriceByCategoryId_TwoChunks_CommitsAndEvictsEachChunk() {
+        // Given
+        when(jdbcTemplate.queryForObject(anyString(), eq(Integer.class), eq(5L))).thenReturn(1);
+        when(jdbcTemplate.queryForList(anyString(), eq(Long.class), eq(5L), eq(0L), eq(2)))
+                .thenReturn(List.of(1L, 4L));
+        when(jdbcTemplate.queryForList(anyString(), eq(Long.class), eq(5L), eq(4L), eq(2)))
+                .thenReturn(List.of(7L));
+        when(jdbcTemplate.queryForList(anyString(), eq(Long.class), eq(5L), eq(7L), eq(2)))
+                .thenReturn(List.of());
+        when(namedParameterJdbcTemplate.update(anyString(), any(MapSqlParameterSource.class)))
+                .thenReturn(2, 1);
+        doAnswer(invocation -> {
+            Map<String, List<Long>> parameters = invocation.getArgument(1);
+            ResultSet resultSet = mock(ResultSet.class);
+            Long id = parameters.get("ids").get(0);
+            when(resultSet.getLong(1)).thenReturn(id);
+            when(resultSet.getBigDecimal(2)).thenReturn(BigDecimal.valueOf(id));
+            invocation.<RowCallbackHandler>getArgument(2).processRow(resultSet);
+            return null;
+        }).when(namedParameterJdbcTemplate)
+                .query(anyString(), anyMap(), any(RowCallbackHandler.class));
+
+        // When
+        RepriceBooksResponseDto response = bookPatchService.repriceByCategoryId(5L,
+                getRepriceRequest(BookRepriceType.PERCENT, BigDecimal.valueOf(-10)));
+
+        // Then
+        assertEquals(3, response.getUpdatedRows());
+        assertEquals(2, response.getChunks());
+        ArgumentCaptor<String> sql = ArgumentCaptor.forClass(String.class);
+        ArgumentCaptor<MapSqlParameterSource> parameters =
+                ArgumentCaptor.forClass(MapSqlParameterSource.class);
+        verify(namedParameterJdbcTemplate, times(2)).update(sql.capture(), parameters.capture());
+        assertEquals("UPDATE books b JOIN books_categories bc ON bc.book_id = b.id "
+                + "SET b.price = GREATEST(0, ROUND(b.price * (100 + :value) / 100, 2)) "
+                + "WHERE bc.category_id = :categoryId AND bc.book_id IN (:ids) "
+                + "AND b.is_deleted = false", sql.getValue());
+        assertEquals(List.of(7L), parameters.getValue().getValue("ids"));
+        assertEquals(7L, response.getLastBookId());
+        verify(transactionManager, times(2)).commit(any());
+        verify(secondLevelCache).evictEntityData(Book.class, 4L);
+        verify(secondLevelCache).evictEntityData(Book.class, 7L);
+        verify(secondLevelCache, times(2)).evictQueryRegion(BookRepository.QUERY_CACHE_REGION);
+        ArgumentCaptor<BookPriceChangedEvent> events =
+                ArgumentCaptor.forClass(BookPriceChangedEvent.class);
+        verify(eventPublisher, times(2)).publishEvent(events.capture());
+        assertEquals(Map.of(7L, BigDecimal.valueOf(7)), events.getValue().getPrices());
+        verifyNoInteractions(bookRepository);
+    }
+
+    @Test
+    public void repriceByCategoryId_SecondChunkFails_ReportsLastCommittedBookId() {
+        // Given
+        when(jdbcTemplate.queryForObject(anyString(), eq(Integer.class), eq(5L))).thenReturn(1);
+        when(jdbcTemplate.queryForList(anyString(), eq(Long.class), eq(5L), eq(0L), eq(2)))
+                .thenReturn(List.of(1L, 4L));
+        when(jdbcTemplate.queryForList(anyString(), eq(Long.class), eq(5L), eq(4L), eq(2)))
+                .thenReturn(List.of(7L));
+        when(namedParameterJdbcTemplate.update(anyString(), any(MapSqlParameterSource.class)))
+                .thenReturn(2)
+                .thenThrow(new QueryTimeoutException("timeout"));
+        RepriceBooksRequestDto requestDto =
+                getRepriceRequest(BookRepriceType.AMOUNT, BigDecimal.ONE);
+
+        // When
+        BookRepriceInterruptedException exception = assertThrows(
+                BookRepriceInterruptedException.class,
+                () -> bookPatchService.repriceByCategoryId(5L, requestDto));
+
+        // Then
+        assertEquals(4L, exception.getLastBookId());
+        verify(transactionManager).commit(any());
+        verify(transactionManager).rollback(any());
+        verify(secondLevelCache).evictEntityData(Book.class, 4L);
+        verify(secondLevelCache, never()).evictEntityData(Book.class, 7L);
+        verify(namedParameterJdbcTemplate).query(anyString(),
+                eq(Map.of("ids", List.of(1L, 4L))), any(RowCallbackHandler.class));
+    }
+
+    @Test
+    public void repriceByCategoryId_AfterBookId_ContinuesAfterIt() {
+        // Given
+        when(jdbcTemplate.queryForObject(anyString(), eq(Integer.class), eq(5L))).thenReturn(1);
+        when(jdbcTemplate.queryForList(anyString(), eq(Long.class), eq(5L), eq(4L), eq(2)))
+                .thenReturn(List.of(7L));
+        when(jdbcTemplate.queryForList(anyString(), eq(Long.class), eq(5L), eq(7L), eq(2)))
+                .thenReturn(List.of());
+        when(namedParameterJdbcTemplate.update(anyString(), any(MapSqlParameterSource.class)))
+                .thenReturn(1);
+        RepriceBooksRequestDto requestDto =
+                getRepriceRequest(BookRepriceType.AMOUNT, BigDecimal.ONE);
+        requestDto.setAfterBookId(4L);
+
+        // When
+        RepriceBooksResponseDto response = bookPatchService.repriceByCategoryId(5L, requestDto);
+
+        // Then
+        assertEquals(1, response.getUpdatedRows());
+        assertEquals(7L, response.getLastBookId());
+        verify(secondLevelCache, never()).evictEntityData(Book.class, 4L);
+    }
+
+    @Test
+    public void repriceByCategoryId_MissingCategory_ThrowsException() {
+        // Given
+        when(jdbcTemplate.queryForObject(anyString(), eq(Integer.class), eq(5L))).thenReturn(0);
+        RepriceBooksRequestDto requestDto =
+                getRepriceRequest(BookRepriceType.AMOUNT, BigDecimal.ONE);
+
+        // When
+        // Then
+        assertThrows(EntityNotFoundException.class,
+                () -> bookPatchService.repriceByCategoryId(5L, requestDto));
+        verify(namedParameterJdbcTemplate, never())
+                .update(anyString(), any(MapSqlParameterSource.class));
+    }
+
+    private void givenBooksInDatabase(BookDto... bookDtos) {
+        List<Book> books = new ArrayList<>();
+        for (BookDto bookDto : bookDtos) {
+            Book book = new Book();
+            book.setId(bookDto.getId());
+            when(bookMapper.toDto(book)).thenReturn(bookDto);
+            books.add(book);
+        }
+        when(bookRepository.findAllFromDatabaseByIdIn(any())).thenReturn(books);
+    }
+
+    private RepriceBooksRequestDto getRepriceRequest(BookRepriceType type, BigDecimal value) {
+        RepriceBooksRequestDto requestDto = new RepriceBooksRequestDto();
+        requestDto.setType(type);
+        requestDto.setValue(value);
+        return requestDto;
+    }
+}
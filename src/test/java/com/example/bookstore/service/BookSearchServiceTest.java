@@ -0,0 +1,139 @@
+package com.example.bookstore.service;
+
+import static com.example.bookstore.service.BookFixtures.getBookDto;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.ArgumentMatchers.anyList;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import com.example.bookstore.dto.book.BookDto;
+import com.example.bookstore.service.book.BookService;
+import com.example.bookstore.service.search.BookSearchServiceImpl;
+import java.util.List;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+
+@ExtendWith(MockitoExtension.class)
+public class BookSearchServiceTest {
+    @Mock
+    private BookService bookService;
+
+    @InjectMocks
+    private BookSearchServiceImpl bookSearchService;
+
+    @Test
+    public void search_TitleMatch_RankedAboveDescriptionMatch() {
+        // Given
+        bookSearchService.index(getBookDto(1L, "Cooking at home", "Ann", "A book about java"));
+        bookSearchService.index(getBookDto(2L, "Effective Java", "Joshua Bloch", null));
+        bookSearchService.index(getBookDto(3L, "Gardening", "Bob", "Plants"));
+        List<BookDto> expected = List.of(new BookDto(), new BookDto());
+        when(bookService.findAllByIds(List.of(2L, 1L))).thenReturn(expected);
+
+        // When
+        List<BookDto> result = bookSearchService.search("JAVA", 10);
+
+        // Then
+        assertEquals(expected, result);
+    }
+
+    @Test
+    public void search_MoreMatchingTerms_RankedFirst() {
+        // Given
+        bookSearchService.index(getBookDto(1L, "Java", "Ann", null));
+        bookSearchService.index(getBookDto(2L, "Java concurrency", "Ann", null));
+        bookSearchService.index(getBookDto(3L, "Concurrency", "Ann", null));
+
+        // When
+        bookSearchService.search("java concurrency in practice", 2);
+
+        // Then
+        verify(bookService).findAllByIds(List.of(2L, 1L));
+    }
+
+    @Test
+    public void search_ReplacedAndRemovedBooks_NotFoundByOldTerms() {
+        // Given
+        bookSearchService.index(getBookDto(1L, "Java", "Ann", null));
+        bookSearchService.index(getBookDto(2L, "Java", "Bob", null));
+        bookSearchService.index(getBookDto(1L, "Kotlin", "Ann", null));
+        bookSearchService.remove(2L);
+
+        // When
+        List<BookDto> result = bookSearchService.search("java", 10);
+
+        // Then
+        assertTrue(result.isEmpty());
+        verify(bookService, never()).findAllByIds(anyList());
+    }
+
+    @Test
+    public void search_AfterManyRemovals_FindsRemainingBooks() {
+        // Given
+        for (long id = 1; id <= 200; id++) {
+            bookSearchService.index(getBookDto(id, "Book " + id, "Author", null));
+        }
+        for (long id = 1; id <= 150; id++) {
+            bookSearchService.remove(id);
+        }
+        bookSearchService.index(getBookDto(201L, "Book 175", "Author", null));
+
+        // When
+        bookSearchService.search("175", 10);
+
+        // Then
+        verify(bookService).findAllByIds(List.of(175L, 201L));
+    }
+
+    @Test
+    public void search_RareTermAfterManyCommonMatches_FindsBestBooks() {
+        // Given
+        for (long id = 1; id <= 1000; id++) {
+            bookSearchService.index(getBookDto(id, "Java " + id, "Author", null));
+        }
+        bookSearchService.index(getBookDto(500L, "Java clean code", "Author", null));
+        for (long id = 1001; id <= 1003; id++) {
+            bookSearchService.index(getBookDto(id, "Garden " + id, "Author", "Clean"));
+        }
+
+        // When
+        bookSearchService.search("java clean", 3);
+
+        // Then
+        verify(bookService).findAllByIds(List.of(500L, 1001L, 1002L));
+    }
+
+    @Test
+    public void fuzzySearch_MisspelledAuthor_FindsWithinOneEdit() {
+        // Given
+        bookSearchService.index(getBookDto(1L, "Effective Java", "Joshua Bloch", null));
+        bookSearchService.index(getBookDto(2L, "Blocks", "Ann Block", null));
+        bookSearchService.index(getBookDto(3L, "Gardening", "Bob", "Blcoh"));
+
+        // When
+        bookSearchService.fuzzySearch("blcoh", 10);
+
+        // Then
+        verify(bookService).findAllByIds(List.of(3L, 1L));
+    }
+
+    @Test
+    public void fuzzySearch_ShortOrRemovedTerms_NotMatched() {
+        // Given
+        bookSearchService.index(getBookDto(1L, "Java", "Ann", null));
+        bookSearchService.index(getBookDto(2L, "Concurrency", "Bob", null));
+        bookSearchService.remove(2L);
+
+        // When
+        List<BookDto> result = bookSearchService.fuzzySearch("jav concurency", 10);
+
+        // Then
+        assertTrue(result.isEmpty());
+        verify(bookService, never()).findAllByIds(anyList());
+    }
+}
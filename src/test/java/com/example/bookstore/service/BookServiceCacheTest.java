@@ -0,0 +1,157 @@
+package com.example.bookstore.service;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import com.example.bookstore.config.CacheConfig;
+import com.example.bookstore.dto.book.BookBatchItemDto;
+import com.example.bookstore.dto.book.BookDto;
+import com.example.bookstore.dto.book.CreateBookRequestDto;
+import com.example.bookstore.mapper.BookMapper;
+import com.example.bookstore.model.Book;
+import com.example.bookstore.repository.BookRepository;
+import com.example.bookstore.service.book.BookService;
+import com.example.bookstore.service.book.BookServiceImpl;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Optional;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.mock.mockito.MockBean;
+import org.springframework.cache.CacheManager;
+import org.springframework.cache.caffeine.CaffeineCacheManager;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.context.annotation.Import;
+import org.springframework.test.context.junit.jupiter.SpringJUnitConfig;
+
+@SpringJUnitConfig(BookServiceCacheTest.Config.class)
+public class BookServiceCacheTest {
+    private static final Long BOOK_ID = 1L;
+
+    @MockBean
+    private BookRepository bookRepository;
+
+    @MockBean
+    private BookMapper bookMapper;
+
+    @Autowired
+    private BookService bookService;
+
+    @Autowired
+    private CacheManager cacheManager;
+
+    @BeforeEach
+    public void setUp() {
+        cacheManager.getCache(CacheConfig.BOOKS_CACHE).clear();
+        Book book = new Book();
+        book.setId(BOOK_ID);
+        BookDto bookDto = new BookDto();
+        bookDto.setId(BOOK_ID);
+
+        when(bookRepository.findById(BOOK_ID)).thenReturn(Optional.of(book));
+        when(bookRepository.existsById(BOOK_ID)).thenReturn(true);
+        when(bookRepository.save(any(Book.class))).thenReturn(book);
+        when(bookMapper.toModel(any(CreateBookRequestDto.class))).thenReturn(new Book());
+        when(bookMapper.toDto(any(Book.class))).thenReturn(bookDto);
+    }
+
+    @Test
+    public void findById_RepeatedReads_LoadsOnce() {
+        bookService.findById(BOOK_ID);
+        bookService.findById(BOOK_ID);
+
+        verify(bookRepository, times(1)).findById(BOOK_ID);
+    }
+
+    @Test
+    public void findById_AfterUpdate_LoadsAgain() {
+        bookService.findById(BOOK_ID);
+        bookService.updateById(BOOK_ID, new CreateBookRequestDto());
+        bookService.findById(BOOK_ID);
+
+        verify(bookRepository, times(2)).findById(BOOK_ID);
+    }
+
+    @Test
+    public void findById_AfterDelete_LoadsAgain() {
+        bookService.findById(BOOK_ID);
+        bookService.deleteById(BOOK_ID);
+        bookService.findById(BOOK_ID);
+
+        verify(bookRepository, times(2)).findById(BOOK_ID);
+    }
+
+    @Test
+    public void findById_ConcurrentMisses_LoadOnce() throws Exception {
+        CountDownLatch loading = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+        Book book = new Book();
+        book.setId(BOOK_ID);
+        when(bookRepository.findById(BOOK_ID)).thenAnswer(invocation -> {
+            loading.countDown();
+            release.await(5, TimeUnit.SECONDS);
+            return Optional.of(book);
+        });
+
+        final CompletableFuture<BookDto> first =
+                CompletableFuture.supplyAsync(() -> bookService.findById(BOOK_ID));
+        loading.await(5, TimeUnit.SECONDS);
+        List<CompletableFuture<BookDto>> others = new ArrayList<>();
+        for (int i = 0; i < 4; i++) {
+            others.add(CompletableFuture.supplyAsync(() -> bookService.findById(BOOK_ID)));
+        }
+        release.countDown();
+
+        BookDto expected = first.get(5, TimeUnit.SECONDS);
+        for (CompletableFuture<BookDto> other : others) {
+            assertEquals(expected, other.get(5, TimeUnit.SECONDS));
+        }
+        verify(bookRepository, times(1)).findById(BOOK_ID);
+    }
+
+    @Test
+    public void findBatch_CachedAndUncachedIds_QueriesOnlyUncachedOnce() {
+        // Given
+        Book secondBook = new Book();
+        secondBook.setId(2L);
+        BookDto secondBookDto = new BookDto();
+        secondBookDto.setId(2L);
+        when(bookRepository.findAllByIdIn(Set.of(2L, 3L))).thenReturn(List.of(secondBook));
+        when(bookMapper.toDto(secondBook)).thenReturn(secondBookDto);
+        bookService.findById(BOOK_ID);
+
+        // When
+        List<BookBatchItemDto> items = bookService.findBatch(List.of(2L, BOOK_ID, 3L, 2L));
+        bookService.findBatch(List.of(2L, BOOK_ID));
+
+        // Then
+        assertEquals(List.of(2L, BOOK_ID, 3L, 2L),
+                items.stream().map(BookBatchItemDto::getId).toList());
+        assertTrue(items.get(0).isFound());
+        assertEquals(BOOK_ID, items.get(1).getBook().getId());
+        assertFalse(items.get(2).isFound());
+        assertEquals(secondBookDto, items.get(3).getBook());
+        verify(bookRepository, times(1)).findById(BOOK_ID);
+        verify(bookRepository, times(1)).findAllByIdIn(any());
+    }
+
+    @Configuration
+    @Import({CacheConfig.class, BookServiceImpl.class})
+    static class Config {
+        @Bean
+        CacheManager cacheManager() {
+            return new CaffeineCacheManager(CacheConfig.BOOKS_CACHE);
+        }
+    }
+}
@@ -1,6 +1,9 @@
 package com.example.bookstore.service;
 
+import static com.example.bookstore.service.BookFixtures.getBook;
+import static com.example.bookstore.service.BookFixtures.getBookDto;
 import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
 import static org.junit.jupiter.api.Assertions.assertNotNull;
 import static org.junit.jupiter.api.Assertions.assertThrows;
 import static org.mockito.ArgumentMatchers.any;
@@ -11,23 +14,31 @@ import static org.mockito.Mockito.when;
 import com.example.bookstore.dto.book.BookDto;
 import com.example.bookstore.dto.book.BookDtoWithoutCategoryIds;
 import com.example.bookstore.dto.book.CreateBookRequestDto;
+import com.example.bookstore.dto.common.CursorPageResponseDto;
+import com.example.bookstore.dto.common.SliceResponseDto;
 import com.example.bookstore.exception.EntityNotFoundException;
+import com.example.bookstore.exception.InvalidBatchException;
+import com.example.bookstore.exception.InvalidCursorException;
 import com.example.bookstore.mapper.BookMapper;
 import com.example.bookstore.model.Book;
 import com.example.bookstore.repository.BookRepository;
+import com.example.bookstore.service.book.BookCursor;
 import com.example.bookstore.service.book.BookServiceImpl;
+import com.example.bookstore.service.book.BookSortKey;
 import java.util.ArrayList;
 import java.util.List;
 import java.util.Optional;
+import java.util.stream.LongStream;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.ExtendWith;
 import org.mockito.InjectMocks;
 import org.mockito.Mock;
 import org.mockito.junit.jupiter.MockitoExtension;
-import org.springframework.data.domain.Page;
-import org.springframework.data.domain.PageImpl;
+import org.springframework.context.ApplicationEventPublisher;
 import org.springframework.data.domain.PageRequest;
 import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Slice;
+import org.springframework.data.domain.SliceImpl;
 
 @ExtendWith(MockitoExtension.class)
 public class BookServiceTest {
@@ -37,6 +48,9 @@ public class BookServiceTest {
     @Mock
     private BookMapper bookMapper;
 
+    @Mock
+    private ApplicationEventPublisher eventPublisher;
+
     @InjectMocks
     private BookServiceImpl bookService;
 
@@ -65,26 +79,26 @@ public class BookServiceTest {
     public void findAll_Success() {
         // Given
         Pageable pageable = PageRequest.of(0, 10);
-        List<Book> books = List.of(new Book(), new Book());
-        Page<Book> pageBooks = new PageImpl<>(books, pageable, books.size());
+        List<Long> ids = List.of(2L, 1L);
+        Slice<Long> sliceIds = new SliceImpl<>(ids, pageable, false);
 
-        when(bookRepository.findAll(pageable)).thenReturn(pageBooks);
+        when(bookRepository.findIds(pageable)).thenReturn(sliceIds);
+        when(bookRepository.findAllByIdIn(ids))
+                .thenReturn(List.of(getBook(1L, "book1"), getBook(2L, "book2")));
 
         List<BookDto> expectedDtos = new ArrayList<>();
-        expectedDtos.add(new BookDto());
-        expectedDtos.add(new BookDto());
+        expectedDtos.add(getBookDto(2L));
+        expectedDtos.add(getBookDto(1L));
         when(bookMapper.toDto(any(Book.class)))
-                .thenReturn(expectedDtos.get(0), expectedDtos.get(1));
+                .thenAnswer(invocation -> getBookDto(invocation.<Book>getArgument(0).getId()));
 
         // When
-        List<BookDto> result = bookService.findAll(pageable);
+        SliceResponseDto<BookDto> result = bookService.findAll(pageable);
 
         // Then
         assertNotNull(result);
-        assertEquals(expectedDtos.size(), result.size());
-        for (int i = 0; i < expectedDtos.size(); i++) {
-            assertEquals(expectedDtos.get(i), result.get(i));
-        }
+        assertFalse(result.isHasNext());
+        assertEquals(expectedDtos, result.getContent());
     }
 
     @Test
@@ -186,4 +200,43 @@ public class BookServiceTest {
             assertEquals(expectedDtos.get(i), result.get(i));
         }
     }
+
+    @Test
+    public void findAllAfter_MoreBooks_ReturnsPageInIdOrderWithNextCursor() {
+        // Given
+        Book first = getBook(3L, "A");
+        Book second = getBook(7L, "B");
+        BookDto firstDto = new BookDto();
+        BookDto secondDto = new BookDto();
+
+        when(bookRepository.findIdsAfterTitle("", 0L, PageRequest.of(0, 3)))
+                .thenReturn(List.of(3L, 7L, 9L));
+        when(bookRepository.findAllByIdIn(List.of(3L, 7L))).thenReturn(List.of(second, first));
+        when(bookMapper.toDto(first)).thenReturn(firstDto);
+        when(bookMapper.toDto(second)).thenReturn(secondDto);
+
+        // When
+        CursorPageResponseDto<BookDto> result =
+                bookService.findAllAfter(null, BookSortKey.TITLE, 2);
+
+        // Then
+        assertEquals(List.of(firstDto, secondDto), result.getContent());
+        BookCursor next = BookCursor.decode(result.getNextCursor());
+        assertEquals(BookSortKey.TITLE, next.getSortKey());
+        assertEquals(7L, next.getId());
+        assertEquals("B", next.getTitle());
+    }
+
+    @Test
+    public void findAllAfter_InvalidCursor_ThrowsException() {
+        assertThrows(InvalidCursorException.class,
+                () -> bookService.findAllAfter("not-a-cursor", BookSortKey.ID, 20));
+    }
+
+    @Test
+    public void findBatch_TooManyIds_ThrowsException() {
+        List<Long> ids = LongStream.rangeClosed(1, 101).boxed().toList();
+
+        assertThrows(InvalidBatchException.class, () -> bookService.findBatch(ids));
+    }
 }
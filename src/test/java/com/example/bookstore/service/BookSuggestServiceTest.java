@@ -0,0 +1,115 @@
+package com.example.bookstore.service;
+
+import static com.example.bookstore.service.BookFixtures.getBookDto;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+import com.example.bookstore.dto.book.BookDto;
+import com.example.bookstore.service.search.BookSuggestServiceImpl;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+@ExtendWith(MockitoExtension.class)
+public class BookSuggestServiceTest {
+    private static final int MAX_SIZE = 3;
+
+    @Mock
+    private JdbcTemplate jdbcTemplate;
+
+    private BookSuggestServiceImpl bookSuggestService;
+
+    @BeforeEach
+    public void setUp() {
+        bookSuggestService = new BookSuggestServiceImpl(jdbcTemplate, MAX_SIZE);
+    }
+
+    @Test
+    public void suggest_Prefix_ReturnsTitlesAndAuthorsByScore() {
+        // Given
+        bookSuggestService.index(getBookDto(1L, "Java Concurrency", "Brian Goetz"));
+        bookSuggestService.index(getBookDto(2L, "Effective Java", "Joshua Bloch"));
+        bookSuggestService.index(getBookDto(3L, "Java Puzzlers", "Joshua Bloch"));
+
+        // When
+        List<String> result = bookSuggestService.suggest("  J", 10);
+
+        // Then
+        assertEquals(List.of("Joshua Bloch", "Java Concurrency", "Java Puzzlers"), result);
+    }
+
+    @Test
+    public void suggest_UpdatedAndRemovedBooks_ReturnsCurrentTitles() {
+        // Given
+        bookSuggestService.index(getBookDto(1L, "Java", "Ann"));
+        bookSuggestService.index(getBookDto(2L, "Javascript", "Bob"));
+        bookSuggestService.index(getBookDto(1L, "Kotlin", "Ann"));
+        bookSuggestService.remove(2L);
+
+        // When
+        List<String> java = bookSuggestService.suggest("jav", 10);
+        List<String> kotlin = bookSuggestService.suggest("KOT", 10);
+
+        // Then
+        assertEquals(List.of(), java);
+        assertEquals(List.of("Kotlin"), kotlin);
+    }
+
+    @Test
+    public void suggest_RandomUpdates_MatchesFullScan() {
+        // Given
+        Random random = new Random(42);
+        Map<Long, BookDto> books = new HashMap<>();
+        for (int i = 0; i < 2000; i++) {
+            long id = random.nextInt(300);
+            if (random.nextInt(4) == 0) {
+                bookSuggestService.remove(id);
+                books.remove(id);
+            } else {
+                BookDto book = getBookDto(id, randomWord(random) + " " + randomWord(random),
+                        randomWord(random));
+                bookSuggestService.index(book);
+                books.put(id, book);
+            }
+        }
+
+        for (String prefix : List.of("a", "b", "ab", "ba", "abc", "c a", "bb")) {
+            // When
+            List<String> result = bookSuggestService.suggest(prefix, MAX_SIZE);
+
+            // Then
+            assertEquals(suggestByScan(books, prefix), result, prefix);
+        }
+    }
+
+    private static List<String> suggestByScan(Map<Long, BookDto> books, String prefix) {
+        Map<String, Long> scores = new HashMap<>();
+        for (BookDto book : books.values()) {
+            scores.merge(book.getTitle(), 1L, Long::sum);
+            scores.merge(book.getAuthor(), 1L, Long::sum);
+        }
+        return scores.entrySet().stream()
+                .filter(entry -> entry.getKey().startsWith(prefix))
+                .sorted(Map.Entry.<String, Long>comparingByValue(Comparator.reverseOrder())
+                        .thenComparing(Map.Entry.comparingByKey()))
+                .limit(MAX_SIZE)
+                .map(Map.Entry::getKey)
+                .toList();
+    }
+
+    private static String randomWord(Random random) {
+        StringBuilder word = new StringBuilder();
+        int length = 1 + random.nextInt(4);
+        for (int i = 0; i < length; i++) {
+            word.append((char) ('a' + random.nextInt(3)));
+        }
+        return word.toString();
+    }
+}
@@ -0,0 +1,212 @@
+package com.example.bookstore.service;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertInstanceOf;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import com.example.bookstore.dto.category.CategoryRequestDto;
+import com.example.bookstore.dto.category.CategoryResponseDto;
+import com.example.bookstore.exception.EntityNotFoundException;
+import com.example.bookstore.mapper.CategoryMapper;
+import com.example.bookstore.model.Category;
+import com.example.bookstore.repository.BookRepository;
+import com.example.bookstore.repository.CategoryRepository;
+import com.example.bookstore.service.category.CategoryService;
+import com.example.bookstore.service.category.CategoryServiceImpl;
+import com.example.bookstore.service.coalescing.CoalescedReadAspect;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import jakarta.persistence.EntityManagerFactory;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Optional;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.mock.mockito.MockBean;
+import org.springframework.cache.CacheManager;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.context.annotation.EnableAspectJAutoProxy;
+import org.springframework.context.annotation.Import;
+import org.springframework.test.annotation.DirtiesContext;
+import org.springframework.test.context.junit.jupiter.SpringJUnitConfig;
+
+@SpringJUnitConfig(CategoryServiceCoalescingTest.Config.class)
+@DirtiesContext(classMode = DirtiesContext.ClassMode.AFTER_EACH_TEST_METHOD)
+public class CategoryServiceCoalescingTest {
+    private static final Long CATEGORY_ID = 1L;
+    private static final int WAITING_CALLS = 4;
+
+    @MockBean
+    private CategoryRepository categoryRepository;
+
+    @MockBean
+    private BookRepository bookRepository;
+
+    @MockBean
+    private CategoryMapper categoryMapper;
+
+    @MockBean
+    private EntityManagerFactory entityManagerFactory;
+
+    @MockBean
+    private CacheManager cacheManager;
+
+    @Autowired
+    private CategoryService categoryService;
+
+    @Autowired
+    private MeterRegistry meterRegistry;
+
+    @Test
+    public void getById_ConcurrentCalls_LoadOnce() throws Exception {
+        // Given
+        CategoryResponseDto expected = new CategoryResponseDto();
+        expected.setId(CATEGORY_ID);
+        expected.setName("Fiction");
+        Category category = new Category();
+        when(categoryMapper.toDto(category)).thenReturn(expected);
+        CountDownLatch release = blockRepository(Optional.of(category));
+
+        // When
+        List<CompletableFuture<CategoryResponseDto>> calls = callConcurrently();
+        release.countDown();
+
+        // Then
+        int sameInstances = 0;
+        for (CompletableFuture<CategoryResponseDto> call : calls) {
+            CategoryResponseDto result = call.get(5, TimeUnit.SECONDS);
+            assertEquals(expected, result);
+            if (result == expected) {
+                sameInstances++;
+            }
+        }
+        assertEquals(1, sameInstances);
+        verify(categoryRepository, times(1)).findById(CATEGORY_ID);
+        assertEquals(1, count("executed"));
+        assertEquals(WAITING_CALLS, count("collapsed"));
+    }
+
+    @Test
+    public void getById_ConcurrentCallsForMissingCategory_AllThrowException() throws Exception {
+        // Given
+        CountDownLatch release = blockRepository(Optional.empty());
+
+        // When
+        List<CompletableFuture<CategoryResponseDto>> calls = callConcurrently();
+        release.countDown();
+
+        // Then
+        for (CompletableFuture<CategoryResponseDto> call : calls) {
+            ExecutionException exception = assertThrows(ExecutionException.class,
+                    () -> call.get(5, TimeUnit.SECONDS));
+            assertInstanceOf(EntityNotFoundException.class, exception.getCause());
+        }
+        verify(categoryRepository, times(1)).findById(CATEGORY_ID);
+    }
+
+    @Test
+    public void getById_CallAfterWrite_DoesNotJoinCallStartedBeforeIt() throws Exception {
+        // Given
+        Category category = new Category();
+        when(categoryMapper.toDto(category)).thenReturn(new CategoryResponseDto());
+        when(categoryMapper.toEntity(any())).thenReturn(new Category());
+        when(categoryRepository.existsById(CATEGORY_ID)).thenReturn(true);
+        final CountDownLatch release = blockRepository(Optional.of(category));
+        final CompletableFuture<CategoryResponseDto> beforeWrite =
+                CompletableFuture.supplyAsync(() -> categoryService.getById(CATEGORY_ID));
+        awaitCount("executed", 1);
+
+        // When
+        categoryService.updateById(CATEGORY_ID, new CategoryRequestDto());
+        final CompletableFuture<CategoryResponseDto> afterWrite =
+                CompletableFuture.supplyAsync(() -> categoryService.getById(CATEGORY_ID));
+        awaitCount("executed", 2);
+        release.countDown();
+
+        // Then
+        beforeWrite.get(5, TimeUnit.SECONDS);
+        afterWrite.get(5, TimeUnit.SECONDS);
+        verify(categoryRepository, times(2)).findById(CATEGORY_ID);
+        assertEquals(0, count("collapsed"));
+    }
+
+    @Test
+    public void getById_SequentialCalls_LoadEachTime() {
+        // Given
+        when(categoryRepository.findById(CATEGORY_ID)).thenReturn(Optional.of(new Category()));
+
+        // When
+        categoryService.getById(CATEGORY_ID);
+        categoryService.getById(CATEGORY_ID);
+
+        // Then
+        verify(categoryRepository, times(2)).findById(CATEGORY_ID);
+        assertEquals(0, count("collapsed"));
+    }
+
+    /**
+     * Makes the repository block until the returned latch is released, so that all
+     * calls overlap the first one.
+     */
+    private CountDownLatch blockRepository(Optional<Category> category) {
+        CountDownLatch release = new CountDownLatch(1);
+        when(categoryRepository.findById(CATEGORY_ID)).thenAnswer(invocation -> {
+            release.await(5, TimeUnit.SECONDS);
+            return category;
+        });
+        return release;
+    }
+
+    private List<CompletableFuture<CategoryResponseDto>> callConcurrently() throws Exception {
+        List<CompletableFuture<CategoryResponseDto>> calls = new ArrayList<>();
+        calls.add(CompletableFuture.supplyAsync(() -> categoryService.getById(CATEGORY_ID)));
+        awaitCount("executed", 1);
+        for (int i = 0; i < WAITING_CALLS; i++) {
+            calls.add(CompletableFuture.supplyAsync(() -> categoryService.getById(CATEGORY_ID)));
+        }
+        awaitCount("collapsed", WAITING_CALLS);
+        return calls;
+    }
+
+    private void awaitCount(String outcome, int expected) throws InterruptedException {
+        long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(5);
+        while (count(outcome) < expected && System.nanoTime() < deadline) {
+            Thread.sleep(1);
+        }
+        assertEquals(expected, count(outcome));
+    }
+
+    private double count(String outcome) {
+        return meterRegistry.find("service.reads.coalescing")
+                .tags("method", "CategoryServiceImpl.getById", "outcome", outcome)
+                .counters().stream()
+                .mapToDouble(Counter::count)
+                .sum();
+    }
+
+    @Configuration
+    @EnableAspectJAutoProxy
+    @Import({CategoryServiceImpl.class, CoalescedReadAspect.class})
+    static class Config {
+        @Bean
+        MeterRegistry meterRegistry() {
+            return new SimpleMeterRegistry();
+        }
+
+        @Bean
+        ObjectMapper objectMapper() {
+            return new ObjectMapper();
+        }
+    }
+}
@@ -1,19 +1,32 @@
 package com.example.bookstore.service;
 
 import static org.assertj.core.api.AssertionsForInterfaceTypes.assertThat;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertNull;
 import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.ArgumentMatchers.any;
 import static org.mockito.ArgumentMatchers.anyLong;
 import static org.mockito.Mockito.doNothing;
 import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.verifyNoMoreInteractions;
 import static org.mockito.Mockito.when;
 
+import com.example.bookstore.config.CacheConfig;
+import com.example.bookstore.dto.book.BookDto;
 import com.example.bookstore.dto.category.CategoryRequestDto;
 import com.example.bookstore.dto.category.CategoryResponseDto;
+import com.example.bookstore.dto.common.SliceResponseDto;
 import com.example.bookstore.exception.EntityNotFoundException;
 import com.example.bookstore.mapper.CategoryMapper;
+import com.example.bookstore.model.Book;
 import com.example.bookstore.model.Category;
+import com.example.bookstore.repository.BookRepository;
 import com.example.bookstore.repository.CategoryRepository;
+import com.example.bookstore.service.category.CategoryDeletedEvent;
 import com.example.bookstore.service.category.CategoryServiceImpl;
+import jakarta.persistence.Cache;
+import jakarta.persistence.EntityManagerFactory;
 import java.util.ArrayList;
 import java.util.List;
 import java.util.Optional;
@@ -23,20 +36,36 @@ import org.junit.jupiter.api.extension.ExtendWith;
 import org.mockito.InjectMocks;
 import org.mockito.Mock;
 import org.mockito.Mockito;
+import org.mockito.Spy;
 import org.mockito.junit.jupiter.MockitoExtension;
-import org.springframework.data.domain.Page;
-import org.springframework.data.domain.PageImpl;
+import org.springframework.cache.CacheManager;
+import org.springframework.cache.concurrent.ConcurrentMapCacheManager;
+import org.springframework.context.ApplicationEventPublisher;
 import org.springframework.data.domain.PageRequest;
 import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Slice;
+import org.springframework.data.domain.SliceImpl;
 
 @ExtendWith(MockitoExtension.class)
 public class CategoryServiceTest {
     @Mock
     private CategoryRepository categoryRepository;
 
+    @Mock
+    private BookRepository bookRepository;
+
     @Mock
     private CategoryMapper categoryMapper;
 
+    @Mock
+    private EntityManagerFactory entityManagerFactory;
+
+    @Mock
+    private ApplicationEventPublisher eventPublisher;
+
+    @Spy
+    private CacheManager cacheManager = new ConcurrentMapCacheManager(CacheConfig.BOOKS_CACHE);
+
     @InjectMocks
     private CategoryServiceImpl categoryService;
 
@@ -48,27 +77,28 @@ public class CategoryServiceTest {
 
         Pageable pageable = PageRequest.of(0, 10);
         List<Category> categories = List.of(category);
-        Page<Category> categoryPage = new PageImpl<>(categories, pageable, categories.size());
+        Slice<Category> categorySlice = new SliceImpl<>(categories, pageable, false);
 
-        when(categoryRepository.findAll(pageable)).thenReturn(categoryPage);
+        when(categoryRepository.findAllBy(pageable)).thenReturn(categorySlice);
         when(categoryMapper.toDto(category)).thenReturn(expected);
 
         // When
-        List<CategoryResponseDto> actual = categoryService.findAll(pageable);
+        SliceResponseDto<CategoryResponseDto> actual = categoryService.findAll(pageable);
 
         // Then
-        assertThat(actual).hasSize(1);
+        assertThat(actual.getContent()).hasSize(1);
+        assertFalse(actual.isHasNext());
     }
 
     @Test
     public void findAll_WhenRepositoryNotEmpty_Success() {
         // When
-        when(categoryRepository.findAll(Mockito.<Pageable>any()))
-                .thenReturn(new PageImpl<>(new ArrayList<>()));
+        when(categoryRepository.findAllBy(Mockito.<Pageable>any()))
+                .thenReturn(new SliceImpl<>(new ArrayList<>()));
 
         // Then
-        assertTrue(categoryService.findAll(null).isEmpty());
-        verify(categoryRepository).findAll(Mockito.<Pageable>any());
+        assertTrue(categoryService.findAll(null).getContent().isEmpty());
+        verify(categoryRepository).findAllBy(Mockito.<Pageable>any());
     }
 
     @Test
@@ -156,13 +186,29 @@ public class CategoryServiceTest {
     @Test
     public void deleteById_Test() {
         // Given
+        Cache cache = Mockito.mock(Cache.class);
+        org.hibernate.Cache hibernateCache = Mockito.mock(org.hibernate.Cache.class);
         doNothing().when(categoryRepository).deleteById(anyLong());
+        when(bookRepository.findIdsByCategoryId(1L)).thenReturn(List.of(2L, 5L));
+        when(entityManagerFactory.getCache()).thenReturn(cache);
+        when(cache.unwrap(org.hibernate.Cache.class)).thenReturn(hibernateCache);
+        org.springframework.cache.Cache books = cacheManager.getCache(CacheConfig.BOOKS_CACHE);
+        books.put(2L, new BookDto());
+        books.put(5L, new BookDto());
+        books.put(7L, new BookDto());
 
         // When
         categoryService.deleteById(1L);
 
         // Then
         verify(categoryRepository).deleteById(anyLong());
+        verify(hibernateCache).evictCollectionData(Book.class.getName() + ".categories", 2L);
+        verify(hibernateCache).evictCollectionData(Book.class.getName() + ".categories", 5L);
+        verifyNoMoreInteractions(hibernateCache);
+        assertNull(books.get(2L));
+        assertNull(books.get(5L));
+        assertNotNull(books.get(7L));
+        verify(eventPublisher).publishEvent(any(CategoryDeletedEvent.class));
     }
 
     private CategoryResponseDto toResponseDto(Category category) {
@@ -3,38 +3,61 @@ package com.example.bookstore.service;
 import static org.junit.jupiter.api.Assertions.assertEquals;
 import static org.junit.jupiter.api.Assertions.assertThrows;
 import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyInt;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.ArgumentMatchers.startsWith;
+import static org.mockito.Mockito.never;
 import static org.mockito.Mockito.times;
 import static org.mockito.Mockito.verify;
 import static org.mockito.Mockito.verifyNoMoreInteractions;
 
 import com.example.bookstore.dto.shoppingcart.CartItemResponseDto;
+import com.example.bookstore.dto.shoppingcart.CartOperationDto;
 import com.example.bookstore.dto.shoppingcart.CreateCartItemRequestDto;
 import com.example.bookstore.dto.shoppingcart.ShoppingCartResponseDto;
 import com.example.bookstore.dto.shoppingcart.UpdateCartItemRequestDto;
+import com.example.bookstore.exception.ConcurrentCartModificationException;
 import com.example.bookstore.exception.EntityNotFoundException;
+import com.example.bookstore.exception.InvalidBatchException;
 import com.example.bookstore.mapper.CartItemMapper;
 import com.example.bookstore.mapper.ShoppingCartMapper;
 import com.example.bookstore.model.Book;
 import com.example.bookstore.model.CartItem;
 import com.example.bookstore.model.ShoppingCart;
 import com.example.bookstore.model.User;
+import com.example.bookstore.repository.BookRepository;
 import com.example.bookstore.repository.CartItemRepository;
 import com.example.bookstore.repository.ShoppingCartRepository;
 import com.example.bookstore.service.shoppingcart.ShoppingCartServiceImpl;
+import com.example.bookstore.service.shoppingcart.ShoppingCartVersions;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.util.Collection;
 import java.util.HashSet;
+import java.util.List;
 import java.util.Optional;
 import java.util.Set;
+import java.util.concurrent.atomic.AtomicInteger;
 import java.util.stream.Collectors;
+import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.ExtendWith;
-import org.mockito.InjectMocks;
+import org.mockito.ArgumentCaptor;
+import org.mockito.ArgumentMatchers;
 import org.mockito.Mock;
 import org.mockito.Mockito;
 import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.dao.DuplicateKeyException;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.ParameterizedPreparedStatementSetter;
+import org.springframework.jdbc.core.RowCallbackHandler;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
 
 @ExtendWith(MockitoExtension.class)
 class ShoppingCartServiceTest {
-    @InjectMocks
     private ShoppingCartServiceImpl shoppingCartServiceImpl;
     @Mock
     private ShoppingCartRepository shoppingCartRepository;
@@ -44,6 +67,26 @@ class ShoppingCartServiceTest {
     private CartItemMapper cartItemMapper;
     @Mock
     private CartItemRepository cartItemRepository;
+    @Mock
+    private BookRepository bookRepository;
+    @Mock
+    private JdbcTemplate jdbcTemplate;
+    @Mock
+    private PlatformTransactionManager transactionManager;
+
+    @BeforeEach
+    void setUp() {
+        shoppingCartServiceImpl = new ShoppingCartServiceImpl(
+                shoppingCartRepository,
+                shoppingCartMapper,
+                cartItemRepository,
+                cartItemMapper,
+                bookRepository,
+                jdbcTemplate,
+                new ShoppingCartVersions(jdbcTemplate),
+                new TransactionTemplate(transactionManager),
+                3);
+    }
 
     @Test
     void getById_Success() {
@@ -53,7 +96,8 @@ class ShoppingCartServiceTest {
 
         ShoppingCartResponseDto expected = getShoppingCartResponse(shoppingCart);
 
-        Mockito.when(shoppingCartRepository.findById(userId)).thenReturn(Optional.of(shoppingCart));
+        Mockito.when(shoppingCartRepository.findByUserId(userId))
+                .thenReturn(Optional.of(shoppingCart));
         Mockito.when(shoppingCartMapper.toDto(shoppingCart)).thenReturn(expected);
 
         // When
@@ -62,40 +106,171 @@ class ShoppingCartServiceTest {
 
         // Then
         assertEquals(expected, actual);
-        verify(shoppingCartRepository, times(1)).findById(userId);
+        verify(shoppingCartRepository, times(1)).findByUserId(userId);
         verify(shoppingCartMapper, times(1)).toDto(shoppingCart);
         verifyNoMoreInteractions(shoppingCartRepository, shoppingCartMapper);
     }
 
     @Test
-    void addCartItem_Success() {
+    void addCartItem_BookAlreadyInCart_MergesQuantity() throws SQLException {
         // Given
         ShoppingCart shoppingCart = getShoppingCart();
         Long userId = shoppingCart.getUser().getId();
+        givenCartVersion(userId, 0L);
+        givenCartItems(userId, new long[][] {{1, 1, 1}});
+        CreateCartItemRequestDto duplicateCreateCartItemRequestDto =
+                getCreateCartItemRequestDtoByCartItem(getDuplicateCartItem(shoppingCart));
+        Mockito.when(shoppingCartRepository.findByUserId(userId)).thenReturn(
+                Optional.of(shoppingCart));
 
-        CartItem duplicateCartItem = getDuplicateCartItem(shoppingCart);
+        // When
+        shoppingCartServiceImpl.addCartItem(userId, duplicateCreateCartItemRequestDto);
 
-        CreateCartItemRequestDto duplicateCreateCartItemRequestDto =
-                getCreateCartItemRequestDtoByCartItem(duplicateCartItem);
+        // Then
+        PreparedStatement update = getSingleBatchedStatement("UPDATE cart_items SET quantity");
+        verify(update).setInt(1, 5);
+        verify(update).setLong(2, 1L);
+        verify(jdbcTemplate, never()).batchUpdate(startsWith("INSERT"),
+                ArgumentMatchers.<Collection<Object>>any(), anyInt(), any());
+        verify(shoppingCartMapper, times(1)).toDto(shoppingCart);
+        verifyNoMoreInteractions(cartItemRepository, cartItemMapper);
+    }
 
-        Mockito.when(cartItemMapper.toModel(duplicateCreateCartItemRequestDto)).thenReturn(
-                duplicateCartItem);
-        Mockito.when(shoppingCartRepository.findById(userId)).thenReturn(
+    @Test
+    void addCartItem_SameBookAddedConcurrently_RetriesAndMerges() throws SQLException {
+        // Given
+        ShoppingCart shoppingCart = getShoppingCart();
+        Long userId = shoppingCart.getUser().getId();
+        givenCartVersion(userId, 0L);
+        givenCartItems(userId, new long[][] {}, new long[][] {{1, 1, 1}});
+        Book book = new Book();
+        book.setId(1L);
+        Mockito.when(bookRepository.findAllById(Set.of(1L))).thenReturn(List.of(book));
+        Mockito.when(jdbcTemplate.batchUpdate(startsWith("INSERT"),
+                        ArgumentMatchers.<Collection<Object>>any(), anyInt(), any()))
+                .thenThrow(new DuplicateKeyException("Duplicate entry"));
+        Mockito.when(shoppingCartRepository.findByUserId(userId)).thenReturn(
                 Optional.of(shoppingCart));
+        CreateCartItemRequestDto requestDto =
+                getCreateCartItemRequestDtoByCartItem(getDuplicateCartItem(shoppingCart));
 
         // When
-        RuntimeException exception =
-                assertThrows(RuntimeException.class,
-                        () -> shoppingCartServiceImpl.addCartItem(
-                                userId, duplicateCreateCartItemRequestDto));
+        shoppingCartServiceImpl.addCartItem(userId, requestDto);
+
+        // Then
+        verify(getSingleBatchedStatement("UPDATE cart_items SET quantity")).setInt(1, 5);
+        verify(transactionManager, times(1)).rollback(any());
+    }
+
+    @Test
+    void updateCartItem_CartChangedConcurrently_RetriesOnFreshData() {
+        // Given
+        ShoppingCart shoppingCart = getShoppingCart();
+        Long userId = shoppingCart.getUser().getId();
+        Mockito.when(jdbcTemplate.queryForList(startsWith("SELECT version"), eq(Long.class),
+                eq(userId))).thenReturn(List.of(4L), List.of(5L));
+        Mockito.when(jdbcTemplate.update(startsWith("UPDATE shopping_carts"), eq(userId), eq(4L)))
+                .thenReturn(0);
+        Mockito.when(jdbcTemplate.update(startsWith("UPDATE shopping_carts"), eq(userId), eq(5L)))
+                .thenReturn(1);
+        Mockito.when(cartItemRepository.updateQuantityByIdAndShoppingCartId(1L, userId, 2))
+                .thenReturn(1);
+        Mockito.when(shoppingCartRepository.findByUserId(userId))
+                .thenReturn(Optional.of(shoppingCart));
+        ShoppingCartResponseDto expected = getShoppingCartResponse(shoppingCart);
+        Mockito.when(shoppingCartMapper.toDto(shoppingCart)).thenReturn(expected);
+        UpdateCartItemRequestDto requestDto = new UpdateCartItemRequestDto();
+        requestDto.setQuantity(2);
+
+        // When
+        ShoppingCartResponseDto actual =
+                shoppingCartServiceImpl.updateCartItem(userId, 1L, requestDto);
 
         // Then
-        String expected = "This book already added in shopping cart";
-        String actual = exception.getMessage();
         assertEquals(expected, actual);
-        verify(shoppingCartRepository, times(1)).findById(userId);
-        verify(cartItemMapper, times(1)).toModel(duplicateCreateCartItemRequestDto);
-        verifyNoMoreInteractions(shoppingCartRepository, cartItemMapper);
+        verify(cartItemRepository, times(2)).updateQuantityByIdAndShoppingCartId(1L, userId, 2);
+        verify(transactionManager, times(1)).rollback(any());
+        verify(transactionManager, times(1)).commit(any());
+    }
+
+    @Test
+    void removeCartItem_CartKeepsChanging_ThrowsConflictAfterMaxAttempts() {
+        // Given
+        Mockito.when(jdbcTemplate.queryForList(startsWith("SELECT version"), eq(Long.class),
+                eq(1L))).thenReturn(List.of(4L));
+        Mockito.when(jdbcTemplate.update(startsWith("UPDATE shopping_carts"), eq(1L), eq(4L)))
+                .thenReturn(0);
+        Mockito.when(cartItemRepository.deleteByIdAndShoppingCartId(1L, 1L)).thenReturn(1);
+
+        // When
+        // Then
+        assertThrows(ConcurrentCartModificationException.class,
+                () -> shoppingCartServiceImpl.removeCartItem(1L, 1L));
+        verify(cartItemRepository, times(3)).deleteByIdAndShoppingCartId(1L, 1L);
+        verify(transactionManager, never()).commit(any());
+    }
+
+    @Test
+    void applyBatch_MixedOperations_WritesOneBatchPerKind() throws SQLException {
+        // Given
+        Long userId = 1L;
+        givenCartVersion(userId, 0L);
+        givenCartItems(userId, new long[][] {{10, 1, 1}, {11, 2, 1}});
+        Book book = new Book();
+        book.setId(3L);
+        Mockito.when(bookRepository.findAllById(Set.of(3L))).thenReturn(List.of(book));
+        Mockito.when(shoppingCartRepository.findByUserId(userId))
+                .thenReturn(Optional.of(getShoppingCart()));
+        List<CartOperationDto> operations = List.of(
+                CartOperationDto.add(1L, 2),
+                CartOperationDto.add(3L, 1),
+                CartOperationDto.add(3L, 1),
+                CartOperationDto.update(11L, 5));
+
+        // When
+        shoppingCartServiceImpl.applyBatch(userId, operations);
+
+        // Then
+        PreparedStatement insert = getSingleBatchedStatement("INSERT");
+        verify(insert).setLong(2, 3L);
+        verify(insert).setInt(3, 2);
+        verify(jdbcTemplate).batchUpdate(startsWith("UPDATE cart_items SET quantity"),
+                ArgumentMatchers.<Collection<Object>>argThat(lines -> lines.size() == 2),
+                eq(2), any());
+        verify(jdbcTemplate, never()).batchUpdate(startsWith("UPDATE cart_items SET is_deleted"),
+                ArgumentMatchers.<Collection<Object>>any(), anyInt(), any());
+    }
+
+    @Test
+    void applyBatch_RemoveOfUnknownItem_ThrowsBeforeWriting() throws SQLException {
+        // Given
+        givenCartVersion(1L, 0L);
+        givenCartItems(1L, new long[][] {{10, 1, 1}});
+        List<CartOperationDto> operations = List.of(
+                CartOperationDto.remove(10L),
+                CartOperationDto.remove(10L));
+
+        // When
+        // Then
+        assertThrows(EntityNotFoundException.class,
+                () -> shoppingCartServiceImpl.applyBatch(1L, operations));
+        verify(jdbcTemplate, never()).batchUpdate(anyString(),
+                ArgumentMatchers.<Collection<Object>>any(), anyInt(), any());
+    }
+
+    @Test
+    void applyBatch_AddWithoutQuantity_ThrowsException() throws SQLException {
+        // Given
+        givenCartVersion(1L, 0L);
+        givenCartItems(1L, new long[][] {});
+        CartOperationDto operation = CartOperationDto.add(1L, null);
+
+        // When
+        InvalidBatchException exception = assertThrows(InvalidBatchException.class,
+                () -> shoppingCartServiceImpl.applyBatch(1L, List.of(operation)));
+
+        // Then
+        assertEquals("Operation 0: ADD needs bookId and quantity", exception.getMessage());
     }
 
     @Test
@@ -108,23 +283,17 @@ class ShoppingCartServiceTest {
 
         UpdateCartItemRequestDto updateCartItemRequestDto = new UpdateCartItemRequestDto();
         updateCartItemRequestDto.setQuantity(11);
-
-        CartItem updateCartItem = new CartItem();
-        updateCartItem.setQuantity(updateCartItemRequestDto.getQuantity());
+        givenCartVersion(userId, 0L);
 
         shoppingCart.getCartItems().forEach(
                 s -> s.setQuantity(updateCartItemRequestDto.getQuantity()));
 
         ShoppingCartResponseDto expected = getShoppingCartResponse(shoppingCart);
 
-        CartItem cartItemFromDb = shoppingCart.getCartItems().stream()
-                .findFirst()
-                .orElseThrow(() -> new RuntimeException("Can't get test CartItem"));
-
-        Mockito.when(cartItemRepository.findById(cartItemId))
-                .thenReturn(Optional.of(cartItemFromDb));
-        Mockito.when(cartItemMapper.toModel(updateCartItemRequestDto)).thenReturn(updateCartItem);
-        Mockito.when(shoppingCartRepository.findById(userId)).thenReturn(Optional.of(shoppingCart));
+        Mockito.when(cartItemRepository.updateQuantityByIdAndShoppingCartId(cartItemId, userId,
+                updateCartItemRequestDto.getQuantity())).thenReturn(1);
+        Mockito.when(shoppingCartRepository.findByUserId(userId))
+                .thenReturn(Optional.of(shoppingCart));
         Mockito.when(shoppingCartMapper.toDto(shoppingCart)).thenReturn(expected);
 
         // When
@@ -133,39 +302,78 @@ class ShoppingCartServiceTest {
                         updateCartItemRequestDto);
         // Then
         assertEquals(expected, actual);
-        verify(cartItemRepository, times(1)).save(any());
-        verify(cartItemMapper, times(1)).toModel(updateCartItemRequestDto);
-        verify(shoppingCartRepository, times(2)).findById(userId);
+        verify(cartItemRepository, times(1))
+                .updateQuantityByIdAndShoppingCartId(cartItemId, userId, 11);
+        verify(shoppingCartRepository, times(1)).findByUserId(userId);
         verify(shoppingCartMapper, times(1)).toDto(shoppingCart);
         verifyNoMoreInteractions(shoppingCartRepository, shoppingCartMapper, cartItemMapper,
                 cartItemRepository);
     }
 
     @Test
-    void updateCartItem_NotSuccess() {
+    void updateCartItem_OtherUsersItem_ThrowsException() {
         // Given
-        ShoppingCart shoppingCart = getShoppingCart();
-        Long userId = shoppingCart.getUser().getId();
-
+        Long userId = 1L;
+        givenCartVersion(userId, 0L);
         Long cartItemId = 1L;
+        UpdateCartItemRequestDto requestDto = new UpdateCartItemRequestDto();
+        requestDto.setQuantity(2);
+        Mockito.when(cartItemRepository.updateQuantityByIdAndShoppingCartId(cartItemId, userId, 2))
+                .thenReturn(0);
 
         // When
         EntityNotFoundException exception =
                 assertThrows(EntityNotFoundException.class,
                         () -> shoppingCartServiceImpl.updateCartItem(userId, cartItemId,
-                                any()));
+                                requestDto));
         // Then
-        String expected = "Cannot find shopping cart by id: " + cartItemId;
+        String expected = "Can't find cart item by id " + cartItemId;
         String actual = exception.getMessage();
         assertEquals(expected, actual);
-        verifyNoMoreInteractions(cartItemRepository);
+        verifyNoMoreInteractions(cartItemRepository, shoppingCartRepository);
+    }
+
+    @Test
+    void updateCartItemQuantity_Success_ReturnsOnlyTheItem() {
+        // Given
+        givenCartVersion(1L, 0L);
+        ShoppingCart shoppingCart = getShoppingCart();
+        CartItem cartItem = shoppingCart.getCartItems().iterator().next();
+        UpdateCartItemRequestDto requestDto = new UpdateCartItemRequestDto();
+        requestDto.setQuantity(3);
+        CartItemResponseDto expected = mapToResponse(cartItem);
+        Mockito.when(cartItemRepository.updateQuantityByIdAndShoppingCartId(1L, 1L, 3))
+                .thenReturn(1);
+        Mockito.when(cartItemRepository.findWithBookById(1L)).thenReturn(Optional.of(cartItem));
+        Mockito.when(cartItemMapper.toDto(cartItem)).thenReturn(expected);
+
+        // When
+        CartItemResponseDto actual =
+                shoppingCartServiceImpl.updateCartItemQuantity(1L, 1L, requestDto);
+
+        // Then
+        assertEquals(expected, actual);
+        verifyNoMoreInteractions(shoppingCartRepository);
+    }
+
+    @Test
+    void removeCartItem_OtherUsersItem_ThrowsException() {
+        // Given
+        givenCartVersion(2L, 0L);
+        Mockito.when(cartItemRepository.deleteByIdAndShoppingCartId(1L, 2L)).thenReturn(0);
+
+        // When
+        // Then
+        assertThrows(EntityNotFoundException.class,
+                () -> shoppingCartServiceImpl.removeCartItem(2L, 1L));
+        verifyNoMoreInteractions(cartItemRepository, shoppingCartRepository);
     }
 
     @Test
     void getShoppingCartById_Success() {
         // Given
         Long userId = -1L;
-        Mockito.when(shoppingCartRepository.findById(userId)).thenReturn(Optional.empty());
+        Mockito.when(shoppingCartRepository.findByUserId(userId)).thenReturn(Optional.empty());
 
         // When
         EntityNotFoundException exception =
@@ -176,10 +384,50 @@ class ShoppingCartServiceTest {
         String expected = "Cannot find shopping cart by id: " + userId;
         String actual = exception.getMessage();
         assertEquals(expected, actual);
-        verify(shoppingCartRepository, times(1)).findById(userId);
+        verify(shoppingCartRepository, times(1)).findByUserId(userId);
         verifyNoMoreInteractions(shoppingCartRepository);
     }
 
+    private void givenCartVersion(Long userId, Long version) {
+        Mockito.when(jdbcTemplate.queryForList(startsWith("SELECT version"), eq(Long.class),
+                eq(userId))).thenReturn(List.of(version));
+        Mockito.lenient().when(jdbcTemplate.update(startsWith("UPDATE shopping_carts"),
+                eq(userId), eq(version))).thenReturn(1);
+    }
+
+    /**
+     * Each read of the cart items returns the next of the given item lists, the last
+     * one from then on; an item is {id, bookId, quantity}.
+     */
+    private void givenCartItems(Long userId, long[][]... itemsPerRead) throws SQLException {
+        ResultSet resultSet = Mockito.mock(ResultSet.class);
+        AtomicInteger reads = new AtomicInteger();
+        Mockito.doAnswer(invocation -> {
+            RowCallbackHandler handler = invocation.getArgument(1);
+            long[][] items = itemsPerRead[Math.min(reads.getAndIncrement(),
+                    itemsPerRead.length - 1)];
+            for (long[] item : items) {
+                Mockito.when(resultSet.getLong("id")).thenReturn(item[0]);
+                Mockito.when(resultSet.getLong("book_id")).thenReturn(item[1]);
+                Mockito.when(resultSet.getInt("quantity")).thenReturn((int) item[2]);
+                handler.processRow(resultSet);
+            }
+            return null;
+        }).when(jdbcTemplate).query(anyString(), any(RowCallbackHandler.class), eq(userId));
+    }
+
+    @SuppressWarnings("unchecked")
+    private PreparedStatement getSingleBatchedStatement(String sqlPrefix) throws SQLException {
+        ArgumentCaptor<ParameterizedPreparedStatementSetter<Object>> setter =
+                ArgumentCaptor.forClass(ParameterizedPreparedStatementSetter.class);
+        ArgumentCaptor<Collection<Object>> lines = ArgumentCaptor.forClass(Collection.class);
+        verify(jdbcTemplate).batchUpdate(startsWith(sqlPrefix), lines.capture(), eq(1),
+                setter.capture());
+        PreparedStatement ps = Mockito.mock(PreparedStatement.class);
+        setter.getValue().setValues(ps, lines.getValue().iterator().next());
+        return ps;
+    }
+
     private ShoppingCartResponseDto getShoppingCartResponse(ShoppingCart shoppingCart) {
         Set<CartItemResponseDto> cartItemResponseDtoSet = shoppingCart.getCartItems().stream()
                 .map(this::mapToResponse)
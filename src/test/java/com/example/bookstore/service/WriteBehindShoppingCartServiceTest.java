@@ -0,0 +1,284 @@
+package com.example.bookstore.service;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyInt;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.doThrow;
+import static org.mockito.Mockito.inOrder;
+import static org.mockito.Mockito.lenient;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.verifyNoInteractions;
+import static org.mockito.Mockito.when;
+
+import com.example.bookstore.dto.shoppingcart.CartItemResponseDto;
+import com.example.bookstore.dto.shoppingcart.CreateCartItemRequestDto;
+import com.example.bookstore.dto.shoppingcart.ShoppingCartResponseDto;
+import com.example.bookstore.dto.shoppingcart.UpdateCartItemRequestDto;
+import com.example.bookstore.exception.EntityNotFoundException;
+import com.example.bookstore.service.shoppingcart.ShoppingCartChangedEvent;
+import com.example.bookstore.service.shoppingcart.ShoppingCartServiceImpl;
+import com.example.bookstore.service.shoppingcart.ShoppingCartVersions;
+import com.example.bookstore.service.shoppingcart.WriteBehindShoppingCartService;
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.time.Duration;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.stream.Collectors;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.ArgumentCaptor;
+import org.mockito.ArgumentMatchers;
+import org.mockito.InOrder;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.dao.QueryTimeoutException;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.ParameterizedPreparedStatementSetter;
+import org.springframework.transaction.PlatformTransactionManager;
+
+@ExtendWith(MockitoExtension.class)
+public class WriteBehindShoppingCartServiceTest {
+    private static final String UPDATE_QUANTITY = "UPDATE cart_items SET quantity = ? "
+            + "WHERE id = ? AND shopping_cart_id = ? AND is_deleted = false";
+    private static final String DELETE_ITEM =
+            "UPDATE cart_items SET is_deleted = true WHERE id = ? AND shopping_cart_id = ?";
+
+    @Mock
+    private ShoppingCartServiceImpl shoppingCartServiceImpl;
+
+    @Mock
+    private JdbcTemplate jdbcTemplate;
+
+    @Mock
+    private ShoppingCartVersions shoppingCartVersions;
+
+    @Mock
+    private PlatformTransactionManager transactionManager;
+
+    private WriteBehindShoppingCartService shoppingCartService;
+
+    @BeforeEach
+    public void setUp() {
+        lenient().when(shoppingCartVersions.get(1L)).thenReturn(0L);
+        shoppingCartService = new WriteBehindShoppingCartService(
+                shoppingCartServiceImpl,
+                jdbcTemplate,
+                shoppingCartVersions,
+                transactionManager,
+                4,
+                Duration.ofMinutes(10),
+                3);
+    }
+
+    @Test
+    public void updateCartItem_ManyClicks_AreServedFromMemoryAndCoalesced()
+            throws SQLException {
+        // Given
+        when(shoppingCartServiceImpl.getByUserId(1L)).thenReturn(getCart(11L, 12L));
+
+        // When
+        shoppingCartService.updateCartItem(1L, 11L, getUpdateRequest(2));
+        shoppingCartService.updateCartItem(1L, 11L, getUpdateRequest(3));
+        shoppingCartService.updateCartItemQuantity(1L, 12L, getUpdateRequest(5));
+        shoppingCartService.removeCartItem(1L, 12L);
+        ShoppingCartResponseDto result = shoppingCartService.getByUserId(1L);
+
+        // Then
+        assertEquals(1, result.getCartItems().size());
+        assertEquals(3, result.getCartItems().iterator().next().getQuantity());
+        verify(shoppingCartServiceImpl, times(1)).getByUserId(1L);
+        verifyNoInteractions(jdbcTemplate);
+
+        shoppingCartService.flushAll();
+
+        assertEquals(List.of(11L), getWrittenItemIds(UPDATE_QUANTITY, 2));
+        assertEquals(List.of(12L), getWrittenItemIds(DELETE_ITEM, 1));
+        verify(shoppingCartVersions).incrementAll(Map.of(1L, 0L));
+    }
+
+    @Test
+    public void flushAll_CartChangedInDatabase_ReappliesChangesToReloadedCart()
+            throws SQLException {
+        // Given
+        when(shoppingCartServiceImpl.getByUserId(1L)).thenReturn(getCart(11L));
+        when(shoppingCartVersions.get(1L)).thenReturn(0L, 1L);
+        when(shoppingCartVersions.incrementAll(Map.of(1L, 0L))).thenReturn(Set.of(1L));
+        shoppingCartService.updateCartItem(1L, 11L, getUpdateRequest(4));
+
+        // When
+        shoppingCartService.flushAll();
+        ShoppingCartResponseDto result = shoppingCartService.getByUserId(1L);
+
+        // Then
+        assertEquals(4, result.getCartItems().iterator().next().getQuantity());
+        verify(shoppingCartServiceImpl, times(2)).getByUserId(1L);
+        verifyNoInteractions(jdbcTemplate);
+
+        shoppingCartService.flushAll();
+
+        assertEquals(List.of(11L), getWrittenItemIds(UPDATE_QUANTITY, 2));
+        verify(shoppingCartVersions).incrementAll(Map.of(1L, 1L));
+    }
+
+    @Test
+    public void onShoppingCartChanged_CartOrdered_ReloadsCartAndDropsChangesOfOrderedItems() {
+        // Given
+        when(shoppingCartServiceImpl.getByUserId(1L))
+                .thenReturn(getCart(11L, 12L), getCart(12L));
+        shoppingCartService.updateCartItem(1L, 11L, getUpdateRequest(4));
+        shoppingCartService.getByUserId(1L);
+
+        // When
+        shoppingCartService.onShoppingCartChanged(new ShoppingCartChangedEvent(1L));
+        ShoppingCartResponseDto result = shoppingCartService.getByUserId(1L);
+        shoppingCartService.flushAll();
+
+        // Then
+        assertEquals(Set.of(12L), result.getCartItems().stream()
+                .map(CartItemResponseDto::getId)
+                .collect(Collectors.toSet()));
+        verify(shoppingCartServiceImpl, times(2)).getByUserId(1L);
+        verifyNoInteractions(jdbcTemplate);
+    }
+
+    @Test
+    public void flushAll_CartOlderThanMaxAge_IsReloadedOnNextRead() {
+        // Given
+        shoppingCartService = new WriteBehindShoppingCartService(
+                shoppingCartServiceImpl,
+                jdbcTemplate,
+                shoppingCartVersions,
+                transactionManager,
+                4,
+                Duration.ZERO,
+                3);
+        when(shoppingCartServiceImpl.getByUserId(1L)).thenReturn(getCart(11L));
+        shoppingCartService.getByUserId(1L);
+
+        // When
+        shoppingCartService.getByUserId(1L);
+        shoppingCartService.flushAll();
+        shoppingCartService.getByUserId(1L);
+
+        // Then
+        verify(shoppingCartServiceImpl, times(2)).getByUserId(1L);
+    }
+
+    @Test
+    public void updateCartItem_ItemNotInCart_ThrowsException() {
+        // Given
+        when(shoppingCartServiceImpl.getByUserId(1L)).thenReturn(getCart(11L));
+
+        // When
+        // Then
+        assertThrows(EntityNotFoundException.class,
+                () -> shoppingCartService.updateCartItem(1L, 99L, getUpdateRequest(2)));
+        shoppingCartService.flushAll();
+        verifyNoInteractions(jdbcTemplate);
+    }
+
+    @Test
+    public void flush_PendingChanges_WritesAndKeepsCart() throws SQLException {
+        // Given
+        when(shoppingCartServiceImpl.getByUserId(1L)).thenReturn(getCart(11L));
+        shoppingCartService.updateCartItem(1L, 11L, getUpdateRequest(4));
+
+        // When
+        shoppingCartService.flush(1L);
+        shoppingCartService.getByUserId(1L);
+
+        // Then
+        assertEquals(List.of(11L), getWrittenItemIds(UPDATE_QUANTITY, 2));
+        verify(shoppingCartServiceImpl, times(1)).getByUserId(1L);
+    }
+
+    @Test
+    public void addCartItem_PendingChanges_FlushesBeforeWritingThrough() {
+        // Given
+        CreateCartItemRequestDto requestDto = new CreateCartItemRequestDto();
+        requestDto.setBookId(3L);
+        requestDto.setQuantity(1);
+        when(shoppingCartServiceImpl.getByUserId(1L)).thenReturn(getCart(11L));
+        when(shoppingCartServiceImpl.addCartItem(1L, requestDto)).thenReturn(getCart(11L, 13L));
+        shoppingCartService.updateCartItem(1L, 11L, getUpdateRequest(4));
+
+        // When
+        ShoppingCartResponseDto result = shoppingCartService.addCartItem(1L, requestDto);
+        shoppingCartService.getByUserId(1L);
+
+        // Then
+        assertEquals(2, result.getCartItems().size());
+        InOrder inOrder = inOrder(jdbcTemplate, shoppingCartServiceImpl);
+        inOrder.verify(jdbcTemplate).batchUpdate(eq(UPDATE_QUANTITY),
+                ArgumentMatchers.<Collection<Object>>any(), anyInt(), any());
+        inOrder.verify(shoppingCartServiceImpl).addCartItem(1L, requestDto);
+        inOrder.verify(shoppingCartServiceImpl).getByUserId(1L);
+    }
+
+    @Test
+    public void flushAll_WriteFails_KeepsChangesForNextFlush() {
+        // Given
+        when(shoppingCartServiceImpl.getByUserId(1L)).thenReturn(getCart(11L));
+        shoppingCartService.updateCartItem(1L, 11L, getUpdateRequest(4));
+        doThrow(new QueryTimeoutException("timeout")).doReturn(new int[][] {{1}})
+                .when(jdbcTemplate).batchUpdate(anyString(),
+                        ArgumentMatchers.<Collection<Object>>any(), anyInt(),
+                        ArgumentMatchers.<ParameterizedPreparedStatementSetter<Object>>any());
+
+        // When
+        assertThrows(QueryTimeoutException.class, () -> shoppingCartService.flushAll());
+        shoppingCartService.flushAll();
+
+        // Then
+        verify(jdbcTemplate, times(2)).batchUpdate(eq(UPDATE_QUANTITY),
+                ArgumentMatchers.<Collection<Object>>any(), anyInt(), any());
+    }
+
+    @SuppressWarnings("unchecked")
+    private List<Long> getWrittenItemIds(String sql, int idParameterIndex) throws SQLException {
+        ArgumentCaptor<Collection<Object>> writes = ArgumentCaptor.forClass(Collection.class);
+        ArgumentCaptor<ParameterizedPreparedStatementSetter<Object>> setter =
+                ArgumentCaptor.forClass(ParameterizedPreparedStatementSetter.class);
+        verify(jdbcTemplate).batchUpdate(eq(sql), writes.capture(), anyInt(), setter.capture());
+        PreparedStatement ps = mock(PreparedStatement.class);
+        for (Object write : writes.getValue()) {
+            setter.getValue().setValues(ps, write);
+        }
+        ArgumentCaptor<Long> ids = ArgumentCaptor.forClass(Long.class);
+        verify(ps, times(writes.getValue().size())).setLong(eq(idParameterIndex), ids.capture());
+        return ids.getAllValues();
+    }
+
+    private ShoppingCartResponseDto getCart(Long... cartItemIds) {
+        ShoppingCartResponseDto shoppingCart = new ShoppingCartResponseDto();
+        shoppingCart.setId(1L);
+        shoppingCart.setUserId(1L);
+        shoppingCart.setCartItems(Arrays.stream(cartItemIds)
+                .map(id -> {
+                    CartItemResponseDto item = new CartItemResponseDto();
+                    item.setId(id);
+                    item.setBookId(id);
+                    item.setBookTitle("Book " + id);
+                    item.setQuantity(1);
+                    return item;
+                })
+                .collect(Collectors.toSet()));
+        return shoppingCart;
+    }
+
+    private UpdateCartItemRequestDto getUpdateRequest(int quantity) {
+        UpdateCartItemRequestDto requestDto = new UpdateCartItemRequestDto();
+        requestDto.setQuantity(quantity);
+        return requestDto;
+    }
+}
@@ -1 +1 @@
-INSERT INTO cart_items (id, shopping_cart_id, book_id, quantity) VALUES (20, 1, 3, 1);
\ No newline at end of file
+INSERT INTO cart_items (id, shopping_cart_id, book_id, quantity) VALUES (20, 1, 5, 1);
\ No newline at end of file